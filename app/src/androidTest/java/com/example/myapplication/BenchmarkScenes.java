@@ -0,0 +1,93 @@
+package com.example.myapplication;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Synthetic scenes used by the on-device benchmarks, so they run without camera input or CAD assets.
+ */
+final class BenchmarkScenes {
+
+    private BenchmarkScenes() {
+    }
+
+    /**
+     * Creates a deterministic RGB scene of random shapes on a noisy background.
+     *
+     * @param width  The image width.
+     * @param height The image height.
+     * @param seed   The random seed.
+     * @return A new RGB {@code Mat}.
+     */
+    static Mat createTexturedScene(int width, int height, long seed) {
+        Random random = new Random(seed);
+        Mat scene = new Mat(height, width, CvType.CV_8UC3, new Scalar(96, 96, 96));
+
+        // Draw random filled and outlined shapes
+        int shapeCount = (width * height) / 4000;
+        for (int i = 0; i < shapeCount; i++) {
+            Point center = new Point(random.nextInt(width), random.nextInt(height));
+            int gray = random.nextInt(256);
+            Scalar color = new Scalar(gray, gray, gray);
+            int size = 4 + random.nextInt(Math.max(5, Math.min(width, height) / 20));
+            int thickness = random.nextBoolean() ? -1 : 2;
+            if (random.nextBoolean()) {
+                Imgproc.circle(scene, center, size, color, thickness);
+            } else {
+                Point corner = new Point(center.x + size, center.y + size * 0.6);
+                Imgproc.rectangle(scene, center, corner, color, thickness);
+            }
+        }
+
+        // Add mild sensor-like noise
+        Mat noise = new Mat(height, width, CvType.CV_8UC3);
+        Core.randn(noise, 0, 6);
+        Core.add(scene, noise, scene);
+        noise.release();
+
+        return scene;
+    }
+
+    /**
+     * Applies a similarity transform to simulate a small camera motion.
+     *
+     * @param image The input image.
+     * @param angle The rotation in degrees.
+     * @param scale The scale factor.
+     * @param dx    The horizontal shift in pixels.
+     * @param dy    The vertical shift in pixels.
+     * @return A new warped {@code Mat} of the same size.
+     */
+    static Mat warp(Mat image, double angle, double scale, double dx, double dy) {
+        Point center = new Point(image.cols() / 2.0, image.rows() / 2.0);
+        Mat transform = Imgproc.getRotationMatrix2D(center, angle, scale);
+        transform.put(0, 2, transform.get(0, 2)[0] + dx);
+        transform.put(1, 2, transform.get(1, 2)[0] + dy);
+
+        Mat warped = new Mat();
+        Imgproc.warpAffine(image, warped, transform, new Size(image.cols(), image.rows()),
+                Imgproc.INTER_LINEAR, Core.BORDER_REFLECT);
+        transform.release();
+        return warped;
+    }
+
+    /**
+     * Returns the median of the given samples in milliseconds.
+     *
+     * @param samplesNs Samples in nanoseconds.
+     * @return The median in milliseconds.
+     */
+    static double medianMs(long[] samplesNs) {
+        long[] sorted = samplesNs.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2] / 1e6;
+    }
+}
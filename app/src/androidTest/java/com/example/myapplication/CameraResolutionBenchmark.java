@@ -0,0 +1,80 @@
+package com.example.myapplication;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opencv.android.OpenCVLoader;
+import org.opencv.core.Mat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * On-device benchmark of the per-frame detection cost at the CPU image resolutions ARCore commonly
+ * offers. Reports the median cost per frame and per megapixel, the figure {@link CameraConfigSelector}
+ * estimates detection time with, and the configuration it would pick for each preference.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CameraResolutionBenchmark {
+
+    private static final String TAG = "CameraResolutionBench";
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASUREMENT_ITERATIONS = 15;
+    private static final int[][] RESOLUTIONS = {{640, 480}, {1280, 720}, {1920, 1080}};
+    private static final double DETECTION_BUDGET_MS = 25.0;
+
+    @Before
+    public void setUp() {
+        assertTrue("OpenCV failed to load", OpenCVLoader.initDebug());
+    }
+
+    @Test
+    public void benchmarkDetectionCostPerResolution() {
+        double worstMsPerMegapixel = 0;
+        for (int[] resolution : RESOLUTIONS) {
+            int width = resolution[0];
+            int height = resolution[1];
+            Mat scene = BenchmarkScenes.createTexturedScene(width, height, 11);
+            OpenCVRenderer renderer = new OpenCVRenderer();
+
+            long[] times = new long[MEASUREMENT_ITERATIONS];
+            int keypoints = 0;
+            for (int i = 0; i < WARMUP_ITERATIONS + MEASUREMENT_ITERATIONS; i++) {
+                long start = System.nanoTime();
+                keypoints = renderer.processOpenCV(scene).size();
+                long elapsed = System.nanoTime() - start;
+                if (i >= WARMUP_ITERATIONS) {
+                    times[i - WARMUP_ITERATIONS] = elapsed;
+                }
+            }
+            double medianMs = BenchmarkScenes.medianMs(times);
+            double msPerMegapixel = medianMs / (width * height / 1e6);
+            worstMsPerMegapixel = Math.max(worstMsPerMegapixel, msPerMegapixel);
+            Log.i(TAG, String.format(Locale.US, "%dx%d: %.2f ms/frame, %.1f ms/MP, %d keypoints",
+                    width, height, medianMs, msPerMegapixel, keypoints));
+            assertTrue("No keypoints detected at " + width + "x" + height, keypoints > 0);
+
+            scene.release();
+        }
+
+        // The selection the measured cost leads to, with 30 and 60 fps variants of every size
+        List<CameraConfigSelector.Candidate> candidates = new ArrayList<>();
+        for (int[] resolution : RESOLUTIONS) {
+            candidates.add(new CameraConfigSelector.Candidate(resolution[0], resolution[1], 30));
+            candidates.add(new CameraConfigSelector.Candidate(resolution[0], resolution[1], 60));
+        }
+        for (CameraConfigSelector.Preference preference : CameraConfigSelector.Preference.values()) {
+            CameraConfigSelector selector = new CameraConfigSelector(DETECTION_BUDGET_MS, worstMsPerMegapixel, preference);
+            CameraConfigSelector.Candidate selected = candidates.get(selector.select(candidates));
+            Log.i(TAG, String.format(Locale.US, "%s: %s, estimated %.2f ms",
+                    selector, selected, selector.estimateDetectionMs(selected)));
+        }
+    }
+}
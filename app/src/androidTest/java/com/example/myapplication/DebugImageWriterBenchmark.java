@@ -0,0 +1,103 @@
+package com.example.myapplication;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opencv.android.OpenCVLoader;
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.io.File;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * On-device benchmark of the time debug image output takes on the calling thread: a synchronous
+ * {@link Imgcodecs#imwrite} against a submission to {@link DebugImageWriter} for each encoder. Also
+ * checks that a full queue drops and counts images instead of blocking.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DebugImageWriterBenchmark {
+
+    private static final String TAG = "DebugImageWriterBench";
+    private static final int WIDTH = 1280;
+    private static final int HEIGHT = 720;
+    private static final int ITERATIONS = 10;
+
+    private File directory;
+
+    @Before
+    public void setUp() {
+        assertTrue("OpenCV failed to load", OpenCVLoader.initDebug());
+        directory = new File(InstrumentationRegistry.getInstrumentation().getTargetContext().getCacheDir(), "DebugImageBench");
+        directory.mkdirs();
+    }
+
+    @Test
+    public void benchmarkCallerTime() {
+        Mat scene = BenchmarkScenes.createTexturedScene(WIDTH, HEIGHT, 5);
+
+        long[] syncTimes = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            Imgcodecs.imwrite(new File(directory, "sync_" + i + ".png").getAbsolutePath(), scene);
+            syncTimes[i] = System.nanoTime() - start;
+        }
+        Log.i(TAG, String.format(Locale.US, "synchronous imwrite: %.2f ms/image", BenchmarkScenes.medianMs(syncTimes)));
+
+        Object[][] encoders = {
+                {DebugImageWriter.Format.PNG, 1}, {DebugImageWriter.Format.PNG, 6},
+                {DebugImageWriter.Format.JPEG, 90}, {DebugImageWriter.Format.RAW, 0}
+        };
+        for (Object[] encoder : encoders) {
+            DebugImageWriter.Format format = (DebugImageWriter.Format) encoder[0];
+            int level = (Integer) encoder[1];
+            DebugImageWriter writer = new DebugImageWriter(directory, ITERATIONS, format, level);
+
+            long[] submitTimes = new long[ITERATIONS];
+            for (int i = 0; i < ITERATIONS; i++) {
+                long start = System.nanoTime();
+                writer.submit("async", format + "_" + level + "_" + i, scene.clone());
+                submitTimes[i] = System.nanoTime() - start;
+            }
+            writer.stop(30000);
+
+            PipelineStage.Stats stats = writer.getStats();
+            Log.i(TAG, String.format(Locale.US, "%s level %d: submit %.2f ms/image, write %.2f ms/image on the writer thread",
+                    format, level, BenchmarkScenes.medianMs(submitTimes), stats.processingMs));
+            assertEquals(ITERATIONS, writer.getWrittenCount());
+            assertEquals(0, writer.getDroppedCount());
+        }
+
+        scene.release();
+    }
+
+    @Test
+    public void dropsWhenQueueIsFull() {
+        Mat scene = BenchmarkScenes.createTexturedScene(WIDTH, HEIGHT, 6);
+        DebugImageWriter writer = new DebugImageWriter(directory, 2, DebugImageWriter.Format.PNG, 9);
+        int submissions = 20;
+        for (int i = 0; i < submissions; i++) {
+            writer.submit("drops", "image_" + i, scene.clone());
+        }
+        writer.stop(30000);
+
+        Log.i(TAG, String.format(Locale.US, "%d submitted, %d written, %d dropped",
+                submissions, writer.getWrittenCount(), writer.getDroppedCount()));
+        assertTrue("A full queue should drop images", writer.getDroppedCount() > 0);
+        assertEquals(submissions, writer.getWrittenCount() + writer.getDroppedCount());
+
+        // Disabled output is released without being queued
+        writer.setEnabled(false);
+        assertFalse(writer.submit("drops", "disabled", scene.clone()));
+        scene.release();
+    }
+}
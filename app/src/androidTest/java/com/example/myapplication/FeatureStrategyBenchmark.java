@@ -0,0 +1,80 @@
+package com.example.myapplication;
+
+import android.util.Log;
+import android.util.Pair;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opencv.android.OpenCVLoader;
+import org.opencv.core.DMatch;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfKeyPoint;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * On-device benchmark comparing the built-in {@link FeatureStrategy} implementations.
+ * Reports keypoints per second, descriptor bytes and match percentage against a warped copy of the scene.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FeatureStrategyBenchmark {
+
+    private static final String TAG = "FeatureStrategyBench";
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+    private static final int ITERATIONS = 20;
+
+    @Before
+    public void setUp() {
+        assertTrue("OpenCV failed to load", OpenCVLoader.initDebug());
+    }
+
+    @Test
+    public void benchmarkStrategies() {
+        Mat reference = BenchmarkScenes.createTexturedScene(WIDTH, HEIGHT, 42);
+        Mat frame = BenchmarkScenes.warp(reference, 8.0, 1.05, 12, -6);
+
+        for (FeatureStrategy strategy : FeatureStrategy.available()) {
+            OpenCVRenderer renderer = new OpenCVRenderer();
+            renderer.setFeatureStrategy(strategy);
+
+            // Build the "database" from the reference scene
+            Pair<MatOfKeyPoint, Mat> database = renderer.extractFeaturesFromImage(reference);
+
+            // Warm up, then time detection on the camera-like frame
+            renderer.processOpenCV(frame);
+            long totalKeypoints = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                totalKeypoints += renderer.processOpenCV(frame).size();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            Mat descriptors = renderer.getDetectedDescriptors();
+            long descriptorBytes = descriptors.total() * descriptors.elemSize();
+
+            // Match and verify like CombinedRenderer does
+            List<DMatch> matches = renderer.matchFeatures(database.second, descriptors);
+            List<DMatch> inliers = renderer.filterMatchesWithRANSAC(matches, database.first,
+                    renderer.getDetectedKeyPoints());
+            double matchPercentage = matches.isEmpty() ? 0.0 : 100.0 * inliers.size() / matches.size();
+
+            Log.i(TAG, String.format(Locale.US,
+                    "%-10s keypoints/s=%.0f ms/frame=%.2f keypoints=%d descriptorBytes=%d matches=%d match=%.1f%%",
+                    strategy.getName(), totalKeypoints / seconds, seconds * 1000.0 / ITERATIONS,
+                    totalKeypoints / ITERATIONS, descriptorBytes, matches.size(), matchPercentage));
+
+            database.first.release();
+            database.second.release();
+        }
+
+        reference.release();
+        frame.release();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.myapplication;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opencv.android.OpenCVLoader;
+import org.opencv.core.CvType;
+import org.opencv.core.DMatch;
+import org.opencv.core.Mat;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * On-device benchmark comparing {@link HammingMatcher} with the native brute-force matcher used by
+ * {@link OpenCVRenderer#matchFeatures(Mat, Mat)}. Each configuration is warmed up, then timed over
+ * several measurement iterations; the median is reported and both results are checked to be identical.
+ */
+@RunWith(AndroidJUnit4.class)
+public class HammingMatcherBenchmark {
+
+    private static final String TAG = "HammingMatcherBench";
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 15;
+    private static final int DESCRIPTOR_BYTES = 61;
+    private static final int[] DESCRIPTOR_COUNTS = {250, 500, 1000, 2000, 4000};
+
+    @Before
+    public void setUp() {
+        assertTrue("OpenCV failed to load", OpenCVLoader.initDebug());
+    }
+
+    @Test
+    public void benchmarkAgainstNativeMatcher() {
+        OpenCVRenderer renderer = new OpenCVRenderer();
+        Random random = new Random(42);
+
+        for (int count : DESCRIPTOR_COUNTS) {
+            Mat queryMat = randomDescriptors(count, random);
+            Mat trainMat = randomDescriptors(count, random);
+            BinaryDescriptors queries = BinaryDescriptors.fromMat(queryMat);
+            BinaryDescriptors train = BinaryDescriptors.fromMat(trainMat);
+
+            List<DMatch> nativeMatches = renderer.matchFeatures(queryMat, trainMat);
+            List<DMatch> javaMatches = renderer.matchFeatures(queries, train);
+            assertEquals(nativeMatches.size(), javaMatches.size());
+            for (int i = 0; i < nativeMatches.size(); i++) {
+                assertEquals(nativeMatches.get(i).queryIdx, javaMatches.get(i).queryIdx);
+                assertEquals(nativeMatches.get(i).trainIdx, javaMatches.get(i).trainIdx);
+            }
+
+            long[] nativeTimes = new long[MEASUREMENT_ITERATIONS];
+            long[] javaTimes = new long[MEASUREMENT_ITERATIONS];
+            for (int i = 0; i < WARMUP_ITERATIONS + MEASUREMENT_ITERATIONS; i++) {
+                long start = System.nanoTime();
+                renderer.matchFeatures(queryMat, trainMat);
+                long nativeTime = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                renderer.matchFeatures(queries, train);
+                long javaTime = System.nanoTime() - start;
+
+                if (i >= WARMUP_ITERATIONS) {
+                    nativeTimes[i - WARMUP_ITERATIONS] = nativeTime;
+                    javaTimes[i - WARMUP_ITERATIONS] = javaTime;
+                }
+            }
+
+            double nativeMs = BenchmarkScenes.medianMs(nativeTimes);
+            double javaMs = BenchmarkScenes.medianMs(javaTimes);
+            Log.i(TAG, String.format(Locale.US,
+                    "descriptors=%d native=%.2fms java=%.2fms ratio=%.2fx matches=%d",
+                    count, nativeMs, javaMs, javaMs / nativeMs, javaMatches.size()));
+
+            queryMat.release();
+            trainMat.release();
+        }
+    }
+
+    private static Mat randomDescriptors(int rows, Random random) {
+        byte[] data = new byte[rows * DESCRIPTOR_BYTES];
+        random.nextBytes(data);
+        Mat descriptors = new Mat(rows, DESCRIPTOR_BYTES, CvType.CV_8UC1);
+        descriptors.put(0, 0, data);
+        return descriptors;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.myapplication;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opencv.android.OpenCVLoader;
+import org.opencv.core.Mat;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.Locale;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * On-device benchmark comparing per-frame vision cost with and without {@link KeypointTracker}
+ * over a synthetic sequence of small camera motions.
+ */
+@RunWith(AndroidJUnit4.class)
+public class KeypointTrackingBenchmark {
+
+    private static final String TAG = "KeypointTrackingBench";
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+    private static final int FRAMES = 60;
+
+    @Before
+    public void setUp() {
+        assertTrue("OpenCV failed to load", OpenCVLoader.initDebug());
+    }
+
+    @Test
+    public void benchmarkTrackingAgainstDetection() {
+        Mat scene = BenchmarkScenes.createTexturedScene(WIDTH, HEIGHT, 7);
+        Mat[] frames = new Mat[FRAMES];
+        Mat[] grays = new Mat[FRAMES];
+        for (int i = 0; i < FRAMES; i++) {
+            // Slow pan with a slight rotation, as during scanning
+            frames[i] = BenchmarkScenes.warp(scene, i * 0.1, 1.0, i * 1.5, i * 0.5);
+            grays[i] = new Mat();
+            Imgproc.cvtColor(frames[i], grays[i], Imgproc.COLOR_RGB2GRAY);
+        }
+
+        double detectionMs = run(frames, grays, null);
+        KeypointTracker tracker = new KeypointTracker();
+        double trackingMs = run(frames, grays, tracker);
+
+        Log.i(TAG, String.format(Locale.US,
+                "detection=%.2f ms/frame tracking=%.2f ms/frame speedup=%.2fx",
+                detectionMs, trackingMs, detectionMs / trackingMs));
+
+        scene.release();
+        for (int i = 0; i < FRAMES; i++) {
+            frames[i].release();
+            grays[i].release();
+        }
+    }
+
+    private double run(Mat[] frames, Mat[] grays, KeypointTracker tracker) {
+        OpenCVRenderer renderer = new OpenCVRenderer();
+        renderer.setKeypointTracker(tracker);
+        int trackedFrames = 0;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < frames.length; i++) {
+            renderer.processOpenCV(frames[i], tracker != null ? grays[i] : null);
+            if (renderer.isLastFrameTracked()) {
+                trackedFrames++;
+            }
+        }
+        double msPerFrame = (System.nanoTime() - start) / 1e6 / frames.length;
+
+        Log.i(TAG, String.format(Locale.US, "%s: %d of %d frames tracked",
+                tracker != null ? "tracking" : "detection", trackedFrames, frames.length));
+        return msPerFrame;
+    }
+}
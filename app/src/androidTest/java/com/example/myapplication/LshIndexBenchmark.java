@@ -0,0 +1,143 @@
+package com.example.myapplication;
+
+import android.util.Log;
+import android.util.Pair;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opencv.android.OpenCVLoader;
+import org.opencv.core.Core;
+import org.opencv.core.DMatch;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfDMatch;
+import org.opencv.core.MatOfKeyPoint;
+import org.opencv.features2d.BFMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * On-device benchmark comparing {@link LshIndex} against brute-force Hamming matching.
+ * Recall is the fraction of camera descriptors whose nearest CAD neighbour is found at the
+ * brute-force distance, reported with the per-query time for several index configurations.
+ */
+@RunWith(AndroidJUnit4.class)
+public class LshIndexBenchmark {
+
+    private static final String TAG = "LshIndexBench";
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+    private static final int ITERATIONS = 10;
+
+    // Database sizes are grown by stacking the descriptors of several scenes, like multiple CAD views
+    private static final int[] SCENE_COUNTS = {1, 8, 32};
+    private static final int[][] CONFIGURATIONS = {{4, 12}, {6, 14}, {8, 16}, {12, 18}};
+
+    @Before
+    public void setUp() {
+        assertTrue("OpenCV failed to load", OpenCVLoader.initDebug());
+    }
+
+    @Test
+    public void benchmarkRecallAndSpeed() {
+        OpenCVRenderer renderer = new OpenCVRenderer();
+        Mat reference = BenchmarkScenes.createTexturedScene(WIDTH, HEIGHT, 42);
+        Mat frame = BenchmarkScenes.warp(reference, 8.0, 1.05, 12, -6);
+        renderer.processOpenCV(frame);
+        Mat queryMat = renderer.getDetectedDescriptors();
+        BinaryDescriptors queries = BinaryDescriptors.fromMat(queryMat);
+        int queryCount = queries.getRows();
+
+        for (int sceneCount : SCENE_COUNTS) {
+            Mat database = buildDatabase(renderer, reference, sceneCount);
+            BinaryDescriptors packedDatabase = BinaryDescriptors.fromMat(database);
+
+            // Brute-force reference: exact nearest distances and time per query
+            BFMatcher matcher = BFMatcher.create(Core.NORM_HAMMING, false);
+            List<MatOfDMatch> knnMatches = new ArrayList<>();
+            matcher.knnMatch(queryMat, database, knnMatches, 2);
+            int[] exactDistances = new int[queryCount];
+            for (int q = 0; q < queryCount; q++) {
+                DMatch[] matches = knnMatches.get(q).toArray();
+                exactDistances[q] = matches.length > 0 ? Math.round(matches[0].distance) : -1;
+                knnMatches.get(q).release();
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                knnMatches.clear();
+                matcher.knnMatch(queryMat, database, knnMatches, 2);
+            }
+            double bruteForceUs = (System.nanoTime() - start) / 1e3 / ITERATIONS / queryCount;
+            for (MatOfDMatch matches : knnMatches) {
+                matches.release();
+            }
+
+            Log.i(TAG, String.format(Locale.US, "database=%d queries=%d BRUTEFORCE_HAMMING us/query=%.2f",
+                    packedDatabase.getRows(), queryCount, bruteForceUs));
+
+            int[] best = new int[queryCount];
+            int[] bestDistances = new int[queryCount];
+            int[] secondDistances = new int[queryCount];
+            for (int[] configuration : CONFIGURATIONS) {
+                for (boolean multiProbe : new boolean[]{false, true}) {
+                    LshIndex index = new LshIndex(configuration[0], configuration[1], multiProbe, 0x5eedL);
+                    long buildStart = System.nanoTime();
+                    index.build(packedDatabase);
+                    double buildMs = (System.nanoTime() - buildStart) / 1e6;
+
+                    index.knnMatch2(queries, best, bestDistances, secondDistances);
+                    int found = 0;
+                    for (int q = 0; q < queryCount; q++) {
+                        if (best[q] >= 0 && bestDistances[q] == exactDistances[q]) {
+                            found++;
+                        }
+                    }
+
+                    start = System.nanoTime();
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        index.knnMatch2(queries, best, bestDistances, secondDistances);
+                    }
+                    double indexUs = (System.nanoTime() - start) / 1e3 / ITERATIONS / queryCount;
+
+                    Log.i(TAG, String.format(Locale.US,
+                            "database=%d %s recall=%.3f us/query=%.2f speedup=%.2fx build=%.1fms",
+                            packedDatabase.getRows(), index, (double) found / queryCount, indexUs,
+                            bruteForceUs / indexUs, buildMs));
+                }
+            }
+
+            database.release();
+        }
+
+        reference.release();
+        frame.release();
+    }
+
+    /**
+     * Stacks the descriptors of differently warped copies of the reference scene.
+     */
+    private static Mat buildDatabase(OpenCVRenderer renderer, Mat reference, int sceneCount) {
+        List<Mat> parts = new ArrayList<>();
+        for (int s = 0; s < sceneCount; s++) {
+            Mat view = s == 0 ? reference : BenchmarkScenes.warp(reference, 45.0 * s / sceneCount, 1.0, 0, 0);
+            Pair<MatOfKeyPoint, Mat> features = renderer.extractFeaturesFromImage(view);
+            parts.add(features.second);
+            features.first.release();
+            if (view != reference) {
+                view.release();
+            }
+        }
+        Mat database = new Mat();
+        Core.vconcat(parts, database);
+        for (Mat part : parts) {
+            part.release();
+        }
+        return database;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.myapplication;
+
+import android.os.Debug;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opencv.android.OpenCVLoader;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * On-device benchmark of the per-frame camera buffers allocated fresh versus recycled through a
+ * {@link MatPool} frame scope. Each frame converts an NV21 buffer to RGB like
+ * {@link OpenCVRenderer#convertImageToMat}; the median frame time and the native heap growth over the
+ * run are reported. Also checks that buffers are reused and that an unreturned buffer is reported.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MatPoolBenchmark {
+
+    private static final String TAG = "MatPoolBench";
+    private static final int WARMUP_ITERATIONS = 10;
+    private static final int MEASUREMENT_ITERATIONS = 60;
+    private static final int[][] RESOLUTIONS = {{640, 480}, {1280, 720}, {1920, 1080}};
+
+    @Before
+    public void setUp() {
+        assertTrue("OpenCV failed to load", OpenCVLoader.initDebug());
+    }
+
+    @Test
+    public void benchmarkFrameBuffers() {
+        for (int[] resolution : RESOLUTIONS) {
+            int width = resolution[0];
+            int height = resolution[1];
+            byte[] nv21 = new byte[width * height * 3 / 2];
+            for (int i = 0; i < nv21.length; i++) {
+                nv21[i] = (byte) (i * 31);
+            }
+
+            // Fresh Mats every frame, released by the garbage collector as before
+            long[] freshTimes = new long[MEASUREMENT_ITERATIONS];
+            long freshHeapStart = Debug.getNativeHeapAllocatedSize();
+            for (int i = 0; i < WARMUP_ITERATIONS + MEASUREMENT_ITERATIONS; i++) {
+                long start = System.nanoTime();
+                Mat yuv = new Mat(height * 3 / 2, width, CvType.CV_8UC1);
+                yuv.put(0, 0, nv21);
+                Mat rgb = new Mat();
+                Imgproc.cvtColor(yuv, rgb, Imgproc.COLOR_YUV2RGB_NV21);
+                long elapsed = System.nanoTime() - start;
+                if (i >= WARMUP_ITERATIONS) {
+                    freshTimes[i - WARMUP_ITERATIONS] = elapsed;
+                }
+            }
+            long freshHeapGrowth = Debug.getNativeHeapAllocatedSize() - freshHeapStart;
+            System.gc();
+
+            // Pooled buffers returned by a frame scope
+            MatPool pool = new MatPool();
+            long[] pooledTimes = new long[MEASUREMENT_ITERATIONS];
+            long pooledHeapStart = Debug.getNativeHeapAllocatedSize();
+            for (int i = 0; i < WARMUP_ITERATIONS + MEASUREMENT_ITERATIONS; i++) {
+                long start = System.nanoTime();
+                try (MatPool.FrameScope scope = pool.openScope()) {
+                    Mat yuv = scope.acquire(height * 3 / 2, width, CvType.CV_8UC1);
+                    yuv.put(0, 0, nv21);
+                    Mat rgb = scope.acquire(height, width, CvType.CV_8UC3);
+                    Imgproc.cvtColor(yuv, rgb, Imgproc.COLOR_YUV2RGB_NV21);
+                }
+                long elapsed = System.nanoTime() - start;
+                if (i >= WARMUP_ITERATIONS) {
+                    pooledTimes[i - WARMUP_ITERATIONS] = elapsed;
+                }
+            }
+            long pooledHeapGrowth = Debug.getNativeHeapAllocatedSize() - pooledHeapStart;
+            assertEquals(2, pool.getAllocationCount());
+
+            Log.i(TAG, String.format(Locale.US,
+                    "%dx%d fresh=%.2fms (native +%dKB) pooled=%.2fms (native +%dKB) %s",
+                    width, height, BenchmarkScenes.medianMs(freshTimes), freshHeapGrowth / 1024,
+                    BenchmarkScenes.medianMs(pooledTimes), pooledHeapGrowth / 1024, pool));
+            pool.clear();
+        }
+    }
+
+    @Test
+    public void reportsUnreturnedBuffers() {
+        MatPool pool = new MatPool();
+        pool.setLeakTracking(true);
+
+        Mat leaked = pool.acquire(4, 4, CvType.CV_8UC1);
+        for (int frame = 0; frame < 3; frame++) {
+            try (MatPool.FrameScope scope = pool.openScope()) {
+                scope.acquire(8, 8, CvType.CV_8UC1);
+            }
+        }
+
+        assertEquals(1, pool.getOutstandingCount());
+        assertEquals(1, pool.reportLeaks(2));
+        assertEquals(0, pool.reportLeaks(2));
+
+        pool.recycle(leaked);
+        assertEquals(0, pool.getOutstandingCount());
+        assertSame(leaked, pool.acquire(4, 4, CvType.CV_8UC1));
+        pool.clear();
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.myapplication;
+
+import android.os.Debug;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opencv.android.OpenCVLoader;
+import org.opencv.core.DMatch;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfDMatch;
+import org.opencv.features2d.BFMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * On-device benchmark of {@link OpenCVRenderer#matchFeatures(Mat, Mat, MatchBuffer)} against the
+ * previous {@code knnMatch}/{@code toArray} implementation. Reports matches per second and Java heap
+ * bytes allocated per query descriptor, with and without the mutual check.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MatchFeaturesBenchmark {
+
+    private static final String TAG = "MatchFeaturesBench";
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+    private static final int ITERATIONS = 20;
+
+    @Before
+    public void setUp() {
+        assertTrue("OpenCV failed to load", OpenCVLoader.initDebug());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void benchmarkMatching() {
+        OpenCVRenderer renderer = new OpenCVRenderer();
+        Mat reference = BenchmarkScenes.createTexturedScene(WIDTH, HEIGHT, 42);
+        Mat frame = BenchmarkScenes.warp(reference, 8.0, 1.05, 12, -6);
+        Mat train = renderer.extractFeaturesFromImage(reference).second;
+        renderer.processOpenCV(frame);
+        Mat queries = renderer.getDetectedDescriptors().clone();
+        int queryCount = queries.rows();
+
+        BFMatcher matcher = BFMatcher.create(renderer.getFeatureStrategy().getNormType(), false);
+        MatchBuffer buffer = new MatchBuffer();
+
+        // Both implementations must agree before timing
+        List<DMatch> legacy = legacyMatch(matcher, queries, train);
+        renderer.matchFeatures(queries, train, buffer);
+        assertEquals(legacy.size(), buffer.size());
+        for (int i = 0; i < legacy.size(); i++) {
+            assertEquals(legacy.get(i).queryIdx, buffer.getQueryIndex(i));
+            assertEquals(legacy.get(i).trainIdx, buffer.getTrainIndex(i));
+        }
+
+        Debug.startAllocCounting();
+        for (String variant : new String[]{"knnMatch+toArray", "buffer", "buffer+mutual"}) {
+            renderer.setMutualCheckEnabled(variant.equals("buffer+mutual"));
+            long matches = 0;
+            Debug.resetThreadAllocSize();
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                if (variant.equals("knnMatch+toArray")) {
+                    matches += legacyMatch(matcher, queries, train).size();
+                } else {
+                    matches += renderer.matchFeatures(queries, train, buffer);
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long allocatedBytes = Debug.getThreadAllocSize();
+
+            Log.i(TAG, String.format(Locale.US,
+                    "%-17s queries=%d matches/frame=%d matches/s=%.0f ms/frame=%.2f bytes/query=%.1f",
+                    variant, queryCount, matches / ITERATIONS, matches / seconds, seconds * 1000.0 / ITERATIONS,
+                    (double) allocatedBytes / ITERATIONS / queryCount));
+        }
+        Debug.stopAllocCounting();
+
+        queries.release();
+        train.release();
+        reference.release();
+        frame.release();
+    }
+
+    /**
+     * The matching code before bulk reads: one {@code MatOfDMatch} and {@code DMatch[]} per query row.
+     */
+    private static List<DMatch> legacyMatch(BFMatcher matcher, Mat queries, Mat train) {
+        List<MatOfDMatch> knnMatches = new ArrayList<>();
+        matcher.knnMatch(queries, train, knnMatches, 2);
+        List<DMatch> goodMatches = new ArrayList<>();
+        for (MatOfDMatch matOfDMatch : knnMatches) {
+            DMatch[] matches = matOfDMatch.toArray();
+            if (matches.length >= 2 && matches[0].distance < 0.75 * matches[1].distance) {
+                goodMatches.add(matches[0]);
+            }
+            matOfDMatch.release();
+        }
+        return goodMatches;
+    }
+}
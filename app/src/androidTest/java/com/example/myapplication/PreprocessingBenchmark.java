@@ -0,0 +1,85 @@
+package com.example.myapplication;
+
+import android.util.Log;
+import android.util.Pair;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opencv.android.OpenCVLoader;
+import org.opencv.core.DMatch;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfKeyPoint;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * On-device benchmark of {@link PreprocessingPipeline} chains: reports per-stage cost and the
+ * resulting match percentage, to pick the cheapest chain that keeps match quality.
+ */
+@RunWith(AndroidJUnit4.class)
+public class PreprocessingBenchmark {
+
+    private static final String TAG = "PreprocessingBench";
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+    private static final int ITERATIONS = 20;
+
+    private static final PreprocessingPipeline.Stage[][] CHAINS = {
+            {},
+            {PreprocessingPipeline.Stage.NORMALIZE},
+            {PreprocessingPipeline.Stage.CLAHE},
+            {PreprocessingPipeline.Stage.BLUR},
+            {PreprocessingPipeline.Stage.NORMALIZE, PreprocessingPipeline.Stage.BLUR, PreprocessingPipeline.Stage.EDGES},
+    };
+
+    @Before
+    public void setUp() {
+        assertTrue("OpenCV failed to load", OpenCVLoader.initDebug());
+    }
+
+    @Test
+    public void benchmarkChains() {
+        Mat reference = BenchmarkScenes.createTexturedScene(WIDTH, HEIGHT, 11);
+        Mat frame = BenchmarkScenes.warp(reference, -6.0, 0.95, -10, 8);
+
+        for (PreprocessingPipeline.Stage[] chain : CHAINS) {
+            // Stage timings from the pipeline itself
+            PreprocessingPipeline pipeline = new PreprocessingPipeline(chain);
+            pipeline.process(frame);
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                pipeline.process(frame);
+            }
+            double pipelineMs = (System.nanoTime() - start) / 1e6 / ITERATIONS;
+            String chainName = pipeline.toString();
+            String stageTimings = pipeline.describeTimings();
+            pipeline.release();
+
+            // Match quality with the chain applied to both database and frame
+            OpenCVRenderer renderer = new OpenCVRenderer();
+            renderer.setPreprocessingStages(chain);
+            Pair<MatOfKeyPoint, Mat> database = renderer.extractFeaturesFromImage(reference);
+            renderer.processOpenCV(frame);
+            List<DMatch> matches = renderer.matchFeatures(database.second, renderer.getDetectedDescriptors());
+            List<DMatch> inliers = renderer.filterMatchesWithRANSAC(matches, database.first,
+                    renderer.getDetectedKeyPoints());
+            double matchPercentage = matches.isEmpty() ? 0.0 : 100.0 * inliers.size() / matches.size();
+
+            Log.i(TAG, String.format(Locale.US, "%-26s %.2f ms (%s) matches=%d inliers=%d match=%.1f%%",
+                    chainName, pipelineMs, stageTimings,
+                    matches.size(), inliers.size(), matchPercentage));
+
+            database.first.release();
+            database.second.release();
+        }
+
+        reference.release();
+        frame.release();
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.myapplication;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opencv.android.OpenCVLoader;
+import org.opencv.calib3d.Calib3d;
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfPoint2f;
+import org.opencv.core.Point;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * On-device benchmark comparing {@link RansacEstimator} with {@code Calib3d.findHomography} on synthetic
+ * correspondences with a known homography and increasing outlier ratios. The Java engine is run with
+ * uniform sampling and with PROSAC ordering (inliers get lower match distances), and iterations, inliers
+ * and median time to 99.5% confidence are reported for each.
+ */
+@RunWith(AndroidJUnit4.class)
+public class RansacBenchmark {
+
+    private static final String TAG = "RansacBench";
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 15;
+    private static final int CORRESPONDENCE_COUNT = 500;
+    private static final double THRESHOLD = 3.0;
+    private static final double CONFIDENCE = 0.995;
+    private static final int MAX_ITERATIONS = 2000;
+    private static final double[] OUTLIER_RATIOS = {0.1, 0.3, 0.5, 0.7, 0.8};
+
+    @Before
+    public void setUp() {
+        assertTrue("OpenCV failed to load", OpenCVLoader.initDebug());
+    }
+
+    @Test
+    public void benchmarkAgainstFindHomography() {
+        RansacEstimator estimator = new RansacEstimator(new HomographyModel(), THRESHOLD, CONFIDENCE,
+                MAX_ITERATIONS, ForkJoinPool.commonPool(), 0x5eedL);
+        Random random = new Random(42);
+
+        for (double outlierRatio : OUTLIER_RATIOS) {
+            float[] data = new float[CORRESPONDENCE_COUNT * 4];
+            float[] qualities = new float[CORRESPONDENCE_COUNT];
+            int inlierCount = createCorrespondences(data, qualities, outlierRatio, random);
+
+            Point[] source = new Point[CORRESPONDENCE_COUNT];
+            Point[] target = new Point[CORRESPONDENCE_COUNT];
+            for (int i = 0; i < CORRESPONDENCE_COUNT; i++) {
+                source[i] = new Point(data[i * 4], data[i * 4 + 1]);
+                target[i] = new Point(data[i * 4 + 2], data[i * 4 + 3]);
+            }
+            MatOfPoint2f sourcePoints = new MatOfPoint2f(source);
+            MatOfPoint2f targetPoints = new MatOfPoint2f(target);
+            Mat mask = new Mat();
+
+            long[] nativeTimes = new long[MEASUREMENT_ITERATIONS];
+            long[] uniformTimes = new long[MEASUREMENT_ITERATIONS];
+            long[] prosacTimes = new long[MEASUREMENT_ITERATIONS];
+            RansacEstimator.Result uniform = null;
+            RansacEstimator.Result prosac = null;
+            for (int i = 0; i < WARMUP_ITERATIONS + MEASUREMENT_ITERATIONS; i++) {
+                long start = System.nanoTime();
+                Mat homography = Calib3d.findHomography(sourcePoints, targetPoints, Calib3d.RANSAC,
+                        THRESHOLD, mask, MAX_ITERATIONS, CONFIDENCE);
+                long nativeTime = System.nanoTime() - start;
+                homography.release();
+
+                uniform = estimator.estimate(data, CORRESPONDENCE_COUNT, null);
+                prosac = estimator.estimate(data, CORRESPONDENCE_COUNT, qualities);
+
+                if (i >= WARMUP_ITERATIONS) {
+                    nativeTimes[i - WARMUP_ITERATIONS] = nativeTime;
+                    uniformTimes[i - WARMUP_ITERATIONS] = uniform.elapsedNanos;
+                    prosacTimes[i - WARMUP_ITERATIONS] = prosac.elapsedNanos;
+                }
+            }
+
+            Log.i(TAG, String.format(Locale.US,
+                    "outliers=%.0f%% native=%.2fms (inliers=%d) uniform=%.2fms (iters=%d inliers=%d) "
+                            + "prosac=%.2fms (iters=%d inliers=%d) trueInliers=%d",
+                    outlierRatio * 100, BenchmarkScenes.medianMs(nativeTimes), Core.countNonZero(mask),
+                    BenchmarkScenes.medianMs(uniformTimes), uniform.iterations, uniform.inlierCount,
+                    BenchmarkScenes.medianMs(prosacTimes), prosac.iterations, prosac.inlierCount,
+                    inlierCount));
+
+            sourcePoints.release();
+            targetPoints.release();
+            mask.release();
+        }
+    }
+
+    // Fills x1, y1, x2, y2 rows for a fixed homography; outliers are uniform noise with worse quality scores
+    private static int createCorrespondences(float[] data, float[] qualities, double outlierRatio, Random random) {
+        double[] h = {1.05, 0.08, 12.0, -0.06, 0.97, -7.0, 1.0e-4, -5.0e-5, 1.0};
+        int inliers = 0;
+        for (int i = 0; i < CORRESPONDENCE_COUNT; i++) {
+            float x = random.nextFloat() * 640f;
+            float y = random.nextFloat() * 480f;
+            data[i * 4] = x;
+            data[i * 4 + 1] = y;
+            if (random.nextDouble() >= outlierRatio) {
+                double w = h[6] * x + h[7] * y + h[8];
+                data[i * 4 + 2] = (float) ((h[0] * x + h[1] * y + h[2]) / w + random.nextGaussian() * 0.5);
+                data[i * 4 + 3] = (float) ((h[3] * x + h[4] * y + h[5]) / w + random.nextGaussian() * 0.5);
+                qualities[i] = 20f + random.nextFloat() * 40f;
+                inliers++;
+            } else {
+                data[i * 4 + 2] = random.nextFloat() * 640f;
+                data[i * 4 + 3] = random.nextFloat() * 480f;
+                qualities[i] = 40f + random.nextFloat() * 40f;
+            }
+        }
+        return inliers;
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.myapplication;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opencv.android.OpenCVLoader;
+import org.opencv.core.KeyPoint;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfKeyPoint;
+import org.opencv.features2d.Feature2D;
+
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * On-device benchmark of {@link TiledFeatureDetector}: checks that tiled keypoints and descriptors
+ * match the whole-image detector within tolerance and reports scaling from 1 to 8 threads. Tiled
+ * detection is off by default; enable it only where the reported speedup is a net win.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TiledDetectionBenchmark {
+
+    private static final String TAG = "TiledDetectionBench";
+    private static final int WIDTH = 1280;
+    private static final int HEIGHT = 720;
+    private static final int ITERATIONS = 10;
+    private static final double MATCH_RADIUS = 2.0;
+    // Keypoints this close to a reference keypoint are the same detection and must be described alike
+    private static final double SAME_POSITION_RADIUS = 0.5;
+    private static final double MAX_DESCRIPTOR_DIFFERENCE = 0.05;
+    private static final double MIN_EQUIVALENT_DESCRIPTORS = 0.9;
+
+    @Before
+    public void setUp() {
+        assertTrue("OpenCV failed to load", OpenCVLoader.initDebug());
+    }
+
+    @Test
+    public void benchmarkThreadScaling() {
+        FeatureStrategy strategy = new AkazeFeatureStrategy();
+        Mat scene = BenchmarkScenes.createTexturedScene(WIDTH, HEIGHT, 3);
+        PreprocessingPipeline pipeline = strategy.createPreprocessingPipeline();
+        Mat processed = pipeline.process(scene);
+
+        // Whole-image reference
+        Feature2D detector = strategy.createDetector();
+        MatOfKeyPoint reference = new MatOfKeyPoint();
+        Mat referenceDescriptors = new Mat();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            detector.detectAndCompute(processed, new Mat(), reference, referenceDescriptors);
+        }
+        double wholeMs = (System.nanoTime() - start) / 1e6 / ITERATIONS;
+        KeyPoint[] referencePoints = reference.toArray();
+        Log.i(TAG, String.format(Locale.US, "whole image: %.2f ms, %d keypoints", wholeMs, referencePoints.length));
+
+        for (int threads = 1; threads <= 8; threads *= 2) {
+            TiledFeatureDetector tiled = new TiledFeatureDetector(4, 2, 3.0f, threads);
+            tiled.setFeatureStrategy(strategy);
+
+            Mat descriptors = new Mat();
+            MatOfKeyPoint keyPoints = tiled.detectAndCompute(processed, null, descriptors);
+            keyPoints.release();
+            descriptors.release();
+
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                descriptors = new Mat();
+                keyPoints = tiled.detectAndCompute(processed, null, descriptors);
+                if (i < ITERATIONS - 1) {
+                    keyPoints.release();
+                    descriptors.release();
+                }
+            }
+            double tiledMs = (System.nanoTime() - start) / 1e6 / ITERATIONS;
+
+            KeyPoint[] tiledPoints = keyPoints.toArray();
+            assertEquals(tiledPoints.length, descriptors.rows());
+            double recall = coverage(referencePoints, tiledPoints);
+            double precision = coverage(tiledPoints, referencePoints);
+
+            Log.i(TAG, String.format(Locale.US,
+                    "threads=%d: %.2f ms (%.2fx), %d keypoints, recall=%.3f precision=%.3f",
+                    threads, tiledMs, wholeMs / tiledMs, tiledPoints.length, recall, precision));
+            assertTrue("Tiled keypoints diverge from whole-image detection", recall > 0.7 && precision > 0.7);
+
+            keyPoints.release();
+            descriptors.release();
+            tiled.release();
+        }
+
+        pipeline.release();
+        scene.release();
+    }
+
+    @Test
+    public void descriptorsMatchWholeImage() {
+        Mat scene = BenchmarkScenes.createTexturedScene(WIDTH, HEIGHT, 3);
+        for (FeatureStrategy strategy : FeatureStrategy.available()) {
+            PreprocessingPipeline pipeline = strategy.createPreprocessingPipeline();
+            Mat processed = pipeline.process(scene);
+
+            // Whole-image reference, described the way OpenCVRenderer describes frames
+            Feature2D detector = strategy.createDetector();
+            Feature2D extractor = strategy.createExtractor();
+            MatOfKeyPoint reference = new MatOfKeyPoint();
+            Mat referenceDescriptors = new Mat();
+            if (extractor == null) {
+                detector.detectAndCompute(processed, new Mat(), reference, referenceDescriptors);
+            } else {
+                detector.detect(processed, reference);
+                extractor.compute(processed, reference, referenceDescriptors);
+            }
+
+            TiledFeatureDetector tiled = new TiledFeatureDetector(4, 2, 3.0f, 4);
+            tiled.setFeatureStrategy(strategy);
+            Mat descriptors = new Mat();
+            MatOfKeyPoint keyPoints = tiled.detectAndCompute(processed, null, descriptors);
+
+            KeyPoint[] referencePoints = reference.toArray();
+            KeyPoint[] tiledPoints = keyPoints.toArray();
+            int rowBytes = descriptors.cols();
+            byte[] tiledBytes = new byte[tiledPoints.length * rowBytes];
+            byte[] referenceBytes = new byte[referencePoints.length * rowBytes];
+            descriptors.get(0, 0, tiledBytes);
+            referenceDescriptors.get(0, 0, referenceBytes);
+
+            // Compare the descriptors of keypoints found at the same position by both detectors
+            int compared = 0;
+            int equivalent = 0;
+            for (int i = 0; i < tiledPoints.length; i++) {
+                int j = nearest(tiledPoints[i], referencePoints, SAME_POSITION_RADIUS);
+                if (j < 0) {
+                    continue;
+                }
+                int differentBits = 0;
+                for (int b = 0; b < rowBytes; b++) {
+                    differentBits += Integer.bitCount((tiledBytes[i * rowBytes + b] ^ referenceBytes[j * rowBytes + b]) & 0xFF);
+                }
+                compared++;
+                if (differentBits <= MAX_DESCRIPTOR_DIFFERENCE * rowBytes * 8) {
+                    equivalent++;
+                }
+            }
+            double equivalentFraction = compared > 0 ? (double) equivalent / compared : 0;
+            Log.i(TAG, String.format(Locale.US, "%s: overlap %d px, %d keypoints compared, %.3f with equivalent descriptors",
+                    strategy.getName(), tiled.getOverlap(), compared, equivalentFraction));
+            assertTrue(strategy.getName() + " tiled descriptors diverge from whole-image extraction",
+                    compared > 0 && equivalentFraction >= MIN_EQUIVALENT_DESCRIPTORS);
+
+            keyPoints.release();
+            descriptors.release();
+            reference.release();
+            referenceDescriptors.release();
+            tiled.release();
+            pipeline.release();
+        }
+        scene.release();
+    }
+
+    /**
+     * Index of the keypoint in {@code candidates} closest to {@code point} within the radius, or -1.
+     */
+    private static int nearest(KeyPoint point, KeyPoint[] candidates, double radius) {
+        int best = -1;
+        double bestDistance = radius * radius;
+        for (int i = 0; i < candidates.length; i++) {
+            double dx = point.pt.x - candidates[i].pt.x;
+            double dy = point.pt.y - candidates[i].pt.y;
+            double distance = dx * dx + dy * dy;
+            if (distance <= bestDistance) {
+                best = i;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Fraction of keypoints in {@code from} that have a keypoint in {@code to} within the match radius.
+     */
+    private static double coverage(KeyPoint[] from, KeyPoint[] to) {
+        if (from.length == 0) {
+            return 1.0;
+        }
+        int covered = 0;
+        for (KeyPoint a : from) {
+            for (KeyPoint b : to) {
+                double dx = a.pt.x - b.pt.x;
+                double dy = a.pt.y - b.pt.y;
+                if (dx * dx + dy * dy <= MATCH_RADIUS * MATCH_RADIUS) {
+                    covered++;
+                    break;
+                }
+            }
+        }
+        return (double) covered / from.length;
+    }
+}
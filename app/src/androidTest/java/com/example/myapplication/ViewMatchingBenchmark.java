@@ -0,0 +1,119 @@
+package com.example.myapplication;
+
+import android.util.Log;
+import android.util.Pair;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opencv.android.OpenCVLoader;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfKeyPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * On-device benchmark of {@link ViewMatcher} latency against the number of CAD views.
+ * Compares a single merged-database query with RANSAC on the calling thread against the
+ * parallel worker pool for 8, 32 and 128 views.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ViewMatchingBenchmark {
+
+    private static final String TAG = "ViewMatchingBench";
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+    private static final int ITERATIONS = 5;
+    private static final int[] VIEW_COUNTS = {8, 32, 128};
+
+    @Before
+    public void setUp() {
+        assertTrue("OpenCV failed to load", OpenCVLoader.initDebug());
+    }
+
+    @Test
+    public void benchmarkViewCounts() {
+        OpenCVRenderer renderer = new OpenCVRenderer();
+        Mat reference = BenchmarkScenes.createTexturedScene(WIDTH, HEIGHT, 42);
+        Mat frame = BenchmarkScenes.warp(reference, 8.0, 1.05, 12, -6);
+        renderer.processOpenCV(frame);
+        MatOfKeyPoint detectedKeypoints = renderer.getDetectedKeyPoints();
+        Mat detectedDescriptors = renderer.getDetectedDescriptors();
+
+        // Views are rotated copies of the scene, standing in for CAD projections
+        List<MatOfKeyPoint> viewKeypoints = new ArrayList<>();
+        List<Mat> viewDescriptors = new ArrayList<>();
+        int maxViews = VIEW_COUNTS[VIEW_COUNTS.length - 1];
+        for (int v = 0; v < maxViews; v++) {
+            Mat view = BenchmarkScenes.warp(reference, 360.0 * v / maxViews, 1.0, 0, 0);
+            Pair<MatOfKeyPoint, Mat> features = renderer.extractFeaturesFromImage(view);
+            viewKeypoints.add(features.first);
+            viewDescriptors.add(features.second);
+            view.release();
+        }
+
+        ViewMatcher sequential = new ViewMatcher(renderer, 1);
+        int threads = Runtime.getRuntime().availableProcessors();
+        ViewMatcher parallel = new ViewMatcher(renderer, threads);
+
+        for (int viewCount : VIEW_COUNTS) {
+            // The database takes ownership of what it is given, so it receives copies
+            DescriptorDatabase database = new DescriptorDatabase();
+            for (int v = 0; v < viewCount; v++) {
+                MatOfKeyPoint keypoints = new MatOfKeyPoint();
+                viewKeypoints.get(v).copyTo(keypoints);
+                database.addView(v, keypoints, viewDescriptors.get(v).clone());
+            }
+            database.build();
+
+            // Warm up and check both paths agree
+            int sequentialInliers = countInliers(sequential.match(database, detectedKeypoints, detectedDescriptors));
+            int parallelInliers = countInliers(parallel.match(database, detectedKeypoints, detectedDescriptors));
+            assertEquals(sequentialInliers, parallelInliers, sequentialInliers * 0.05 + 4);
+
+            long[] sequentialTimes = new long[ITERATIONS];
+            long[] parallelTimes = new long[ITERATIONS];
+            for (int i = 0; i < ITERATIONS; i++) {
+                long start = System.nanoTime();
+                countInliers(sequential.match(database, detectedKeypoints, detectedDescriptors));
+                sequentialTimes[i] = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                countInliers(parallel.match(database, detectedKeypoints, detectedDescriptors));
+                parallelTimes[i] = System.nanoTime() - start;
+            }
+
+            double sequentialMs = BenchmarkScenes.medianMs(sequentialTimes);
+            double parallelMs = BenchmarkScenes.medianMs(parallelTimes);
+            Log.i(TAG, String.format(Locale.US,
+                    "views=%d sequential=%.1fms parallel(%d threads)=%.1fms speedup=%.2fx inliers=%d",
+                    viewCount, sequentialMs, threads, parallelMs, sequentialMs / parallelMs, parallelInliers));
+
+            database.release();
+        }
+
+        sequential.release();
+        parallel.release();
+        for (int v = 0; v < maxViews; v++) {
+            viewKeypoints.get(v).release();
+            viewDescriptors.get(v).release();
+        }
+        reference.release();
+        frame.release();
+    }
+
+    private static int countInliers(List<ViewMatcher.ViewResult> results) {
+        int inliers = 0;
+        for (ViewMatcher.ViewResult result : results) {
+            inliers += result.inliers.size();
+        }
+        return inliers;
+    }
+}
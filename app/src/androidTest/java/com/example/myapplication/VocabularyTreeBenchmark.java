@@ -0,0 +1,115 @@
+package com.example.myapplication;
+
+import android.util.Log;
+import android.util.Pair;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opencv.android.OpenCVLoader;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfKeyPoint;
+
+import java.util.Locale;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * On-device benchmark of {@link VocabularyTree} view retrieval.
+ * Reports training time, per-frame scoring time, how often the source view is ranked within the
+ * top K, and the end-to-end matching latency with and without retrieval.
+ */
+@RunWith(AndroidJUnit4.class)
+public class VocabularyTreeBenchmark {
+
+    private static final String TAG = "VocabularyTreeBench";
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+    private static final int VIEWS = 128;
+    private static final int QUERIES = 16;
+    private static final int ITERATIONS = 20;
+    private static final int[] TOP_K = {1, 4, 8, 16};
+
+    @Before
+    public void setUp() {
+        assertTrue("OpenCV failed to load", OpenCVLoader.initDebug());
+    }
+
+    @Test
+    public void benchmarkRetrieval() {
+        OpenCVRenderer renderer = new OpenCVRenderer();
+        Mat reference = BenchmarkScenes.createTexturedScene(WIDTH, HEIGHT, 42);
+
+        // Views are rotated copies of the scene, standing in for CAD projections
+        DescriptorDatabase database = new DescriptorDatabase();
+        for (int v = 0; v < VIEWS; v++) {
+            Mat view = BenchmarkScenes.warp(reference, 360.0 * v / VIEWS, 1.0, 0, 0);
+            Pair<MatOfKeyPoint, Mat> features = renderer.extractFeaturesFromImage(view);
+            database.addView(v, features.first, features.second);
+            view.release();
+        }
+        database.build();
+
+        VocabularyTree vocabulary = new VocabularyTree();
+        long start = System.nanoTime();
+        database.buildVocabulary(vocabulary);
+        double trainMs = (System.nanoTime() - start) / 1e6;
+        Log.i(TAG, String.format(Locale.US, "%s descriptors=%d train=%.1fms",
+                vocabulary, database.getDescriptors().rows(), trainMs));
+
+        // Frames are slightly shifted and scaled copies of evenly spaced views
+        int[] hits = new int[TOP_K.length];
+        long[] queryTimes = new long[QUERIES * ITERATIONS];
+        for (int q = 0; q < QUERIES; q++) {
+            int sourceView = q * VIEWS / QUERIES;
+            Mat frame = BenchmarkScenes.warp(reference, 360.0 * sourceView / VIEWS + 1.0, 1.05, 8, -4);
+            renderer.processOpenCV(frame);
+            BinaryDescriptors queries = BinaryDescriptors.fromMat(renderer.getDetectedDescriptors());
+
+            int[] ranking = vocabulary.topViews(queries, TOP_K[TOP_K.length - 1]);
+            for (int k = 0; k < TOP_K.length; k++) {
+                for (int i = 0; i < TOP_K[k] && i < ranking.length; i++) {
+                    if (Math.abs(ranking[i] - sourceView) <= 1) {
+                        hits[k]++;
+                        break;
+                    }
+                }
+            }
+
+            for (int i = 0; i < ITERATIONS; i++) {
+                start = System.nanoTime();
+                vocabulary.topViews(queries, TOP_K[TOP_K.length - 1]);
+                queryTimes[q * ITERATIONS + i] = System.nanoTime() - start;
+            }
+            frame.release();
+        }
+        for (int k = 0; k < TOP_K.length; k++) {
+            Log.i(TAG, String.format(Locale.US, "top-%d source view recall=%.2f",
+                    TOP_K[k], (double) hits[k] / QUERIES));
+        }
+        Log.i(TAG, String.format(Locale.US, "query median=%.3fms", BenchmarkScenes.medianMs(queryTimes)));
+
+        // End-to-end matching and RANSAC against all views and against the retrieved views only
+        Mat frame = BenchmarkScenes.warp(reference, 1.0, 1.05, 8, -4);
+        renderer.processOpenCV(frame);
+        ViewMatcher matcher = new ViewMatcher(renderer, Runtime.getRuntime().availableProcessors());
+        for (int maxViews : new int[]{0, 16, 8, 4}) {
+            matcher.match(database, renderer.getDetectedKeyPoints(), renderer.getDetectedDescriptors(), maxViews);
+            long[] times = new long[5];
+            for (int i = 0; i < times.length; i++) {
+                start = System.nanoTime();
+                matcher.match(database, renderer.getDetectedKeyPoints(), renderer.getDetectedDescriptors(), maxViews);
+                times[i] = System.nanoTime() - start;
+            }
+            Log.i(TAG, String.format(Locale.US, "views=%s match=%.1fms",
+                    maxViews == 0 ? "all" : String.valueOf(maxViews), BenchmarkScenes.medianMs(times)));
+        }
+
+        matcher.release();
+        database.release();
+        frame.release();
+        reference.release();
+    }
+}
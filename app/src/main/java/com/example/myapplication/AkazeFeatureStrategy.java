@@ -0,0 +1,60 @@
+package com.example.myapplication;
+
+import org.opencv.core.Core;
+import org.opencv.features2d.AKAZE;
+import org.opencv.features2d.Feature2D;
+
+/**
+ * AKAZE detector and binary MLDB descriptor on Canny edge maps.
+ * This is the original pipeline of the application and the default strategy.
+ */
+public class AkazeFeatureStrategy implements FeatureStrategy {
+
+    private static final double DATABASE_THRESHOLD = 0.001;
+
+    // Scale space and descriptor parameters of AKAZE.create()
+    private static final int OCTAVES = 4;
+    private static final int OCTAVE_LAYERS = 4;
+    private static final double BASE_SIGMA = 1.6;
+    private static final double DERIVATIVE_FACTOR = 1.5;
+    private static final int DESCRIPTOR_PATTERN_SIZE = 10;
+
+    @Override
+    public String getName() {
+        return "AKAZE";
+    }
+
+    @Override
+    public Feature2D createDetector() {
+        return AKAZE.create();
+    }
+
+    @Override
+    public Feature2D createDatabaseDetector() {
+        // Use a lower threshold on the clean CAD renders to retain more keypoints
+        AKAZE akazeDetector = AKAZE.create();
+        akazeDetector.setThreshold(DATABASE_THRESHOLD);
+        return akazeDetector;
+    }
+
+    @Override
+    public int getNormType() {
+        return Core.NORM_HAMMING;
+    }
+
+    @Override
+    public int getDescriptorSupportRadius() {
+        // Keypoint size AKAZE assigns in the last layer of the last octave, in pixels of that octave
+        int octaveRatio = 1 << (OCTAVES - 1);
+        double sigma = BASE_SIGMA * Math.pow(2.0, OCTAVES - 1 + (OCTAVE_LAYERS - 1) / (double) OCTAVE_LAYERS);
+        long scale = Math.round(0.5 * sigma * DERIVATIVE_FACTOR / octaveRatio);
+
+        // The rotated MLDB pattern reaches the pattern size times the scale along its diagonal
+        return (int) Math.ceil(Math.sqrt(2.0) * DESCRIPTOR_PATTERN_SIZE * scale * octaveRatio);
+    }
+
+    @Override
+    public PreprocessingPipeline createPreprocessingPipeline() {
+        return PreprocessingPipeline.edges();
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.myapplication;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+
+/**
+ * The {@code BinaryDescriptors} class stores binary feature descriptors (AKAZE, ORB, BRISK)
+ * as bit-packed {@code long} rows, so Hamming distances can be computed in plain Java with
+ * {@link Long#bitCount(long)}. Row bytes are packed little-endian into words; unused bits of
+ * the last word are zero.
+ */
+public class BinaryDescriptors {
+
+    private final long[] words;
+    private final int rows;
+    private final int bytesPerRow;
+    private final int wordsPerRow;
+
+    /**
+     * Packs descriptor bytes into words.
+     *
+     * @param data        Row-major descriptor bytes.
+     * @param rows        Number of descriptors.
+     * @param bytesPerRow Bytes per descriptor.
+     */
+    public BinaryDescriptors(byte[] data, int rows, int bytesPerRow) {
+        if (data.length < rows * bytesPerRow) {
+            throw new IllegalArgumentException("Descriptor data shorter than rows * bytesPerRow");
+        }
+        this.rows = rows;
+        this.bytesPerRow = bytesPerRow;
+        this.wordsPerRow = (bytesPerRow + 7) / 8;
+        this.words = new long[rows * wordsPerRow];
+
+        for (int row = 0; row < rows; row++) {
+            int rowStart = row * bytesPerRow;
+            int wordStart = row * wordsPerRow;
+            for (int b = 0; b < bytesPerRow; b++) {
+                words[wordStart + (b >>> 3)] |= (data[rowStart + b] & 0xFFL) << ((b & 7) << 3);
+            }
+        }
+    }
+
+    /**
+     * Packs the rows of an OpenCV descriptor {@code Mat} of type {@code CV_8UC1}.
+     *
+     * @param descriptors The descriptor {@code Mat}, one descriptor per row.
+     * @return The packed descriptors.
+     */
+    public static BinaryDescriptors fromMat(Mat descriptors) {
+        if (descriptors.empty()) {
+            return new BinaryDescriptors(new byte[0], 0, 0);
+        }
+        if (descriptors.type() != CvType.CV_8UC1) {
+            throw new IllegalArgumentException("Expected CV_8UC1 binary descriptors");
+        }
+        byte[] data = new byte[(int) descriptors.total()];
+        descriptors.get(0, 0, data);
+        return new BinaryDescriptors(data, descriptors.rows(), descriptors.cols());
+    }
+
+    /**
+     * Returns the Hamming distance between a row of this set and a row of another set.
+     *
+     * @param row      Row in this set.
+     * @param other    The other descriptor set, with the same descriptor length.
+     * @param otherRow Row in the other set.
+     * @return The number of differing bits.
+     */
+    public int distance(int row, BinaryDescriptors other, int otherRow) {
+        int a = row * wordsPerRow;
+        int b = otherRow * wordsPerRow;
+        int distance = 0;
+        for (int w = 0; w < wordsPerRow; w++) {
+            distance += Long.bitCount(words[a + w] ^ other.words[b + w]);
+        }
+        return distance;
+    }
+
+    /**
+     * Returns a single bit of a descriptor.
+     *
+     * @param row      The descriptor row.
+     * @param bitIndex The bit index, in {@code [0, bytesPerRow * 8)}.
+     * @return 1 if the bit is set, 0 otherwise.
+     */
+    public int bit(int row, int bitIndex) {
+        return (int) (words[row * wordsPerRow + (bitIndex >>> 6)] >>> (bitIndex & 63)) & 1;
+    }
+
+    /**
+     * Returns the packed words; row {@code r} starts at {@code r * getWordsPerRow()}.
+     *
+     * @return The backing word array.
+     */
+    public long[] getWords() {
+        return words;
+    }
+
+    /**
+     * Returns the number of descriptors.
+     *
+     * @return The row count.
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the descriptor length in bytes.
+     *
+     * @return Bytes per row.
+     */
+    public int getBytesPerRow() {
+        return bytesPerRow;
+    }
+
+    /**
+     * Returns the number of 64-bit words per row.
+     *
+     * @return Words per row.
+     */
+    public int getWordsPerRow() {
+        return wordsPerRow;
+    }
+}
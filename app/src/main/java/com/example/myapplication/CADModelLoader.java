@@ -103,6 +103,20 @@ public class CADModelLoader {
         return renderer.renderFromViewpoints();
     }
 
+    /**
+     * Returns the depth and unprojection of the views rendered by {@link #renderCADModelFromViewpoints()},
+     * in the same order as the rendered images.
+     *
+     * @return The view geometries, or {@code null} if the renderer is not initialized.
+     */
+    public List<ViewGeometry> getViewGeometries() {
+        if (renderer == null) {
+            Log.e(TAG, "Renderer is not initialized. Call loadModel() first.");
+            return null;
+        }
+        return renderer.getViewGeometries();
+    }
+
     /**
      * Initializes OpenGL resources required for rendering.
      * Should be called after OpenGL context is created.
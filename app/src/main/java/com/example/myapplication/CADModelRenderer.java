@@ -32,6 +32,7 @@ public class CADModelRenderer {
     private int renderTexture;
     private int depthBuffer;
     private int shaderProgram;
+    private int depthShaderProgram;
     private int vaoId;
     private int vertexVboId;
     private int normalVboId;
@@ -44,6 +45,7 @@ public class CADModelRenderer {
 
     // Shader attribute and uniform locations
     private int mvpMatrixHandle;
+    private int depthMvpMatrixHandle;
     private static final int POSITION_ATTRIBUTE = 0;
     private static final int NORMAL_ATTRIBUTE = 1;
 
@@ -61,6 +63,9 @@ public class CADModelRenderer {
     private final int width = 1024;
     private final int height = 1024;
 
+    // Depth and unprojection of the views rendered by the last renderFromViewpoints call
+    private final List<ViewGeometry> viewGeometries = new ArrayList<>();
+
     /**
      * Constructs a new {@code CADModelRenderer} with the given model data.
      *
@@ -185,27 +190,55 @@ public class CADModelRenderer {
                         "    fragColor = vec4(color, 1.0);" +
                         "}";
 
+        // Depth fragment shader; packs the window depth into 16 bits of the red and green channels
+        String depthFragmentShaderCode =
+                "#version 320 es\n" +
+                        "precision highp float;" +
+                        "out vec4 fragColor;" +
+                        "void main() {" +
+                        "    float depth = floor(gl_FragCoord.z * 65534.0 + 0.5);" +
+                        "    float high = floor(depth / 256.0);" +
+                        "    fragColor = vec4(high / 255.0, (depth - high * 256.0) / 255.0, 0.0, 1.0);" +
+                        "}";
+
+        // Compile, link and get uniform locations
+        shaderProgram = createProgram(vertexShaderCode, fragmentShaderCode);
+        if (shaderProgram != 0) {
+            mvpMatrixHandle = GLES32.glGetUniformLocation(shaderProgram, "uMVPMatrix");
+        }
+        depthShaderProgram = createProgram(vertexShaderCode, depthFragmentShaderCode);
+        if (depthShaderProgram != 0) {
+            depthMvpMatrixHandle = GLES32.glGetUniformLocation(depthShaderProgram, "uMVPMatrix");
+        }
+    }
+
+    /**
+     * Compiles the given shaders and links them into a program.
+     *
+     * @param vertexShaderCode   The GLSL source code of the vertex shader.
+     * @param fragmentShaderCode The GLSL source code of the fragment shader.
+     * @return The handle to the linked program, or 0 if linking failed.
+     */
+    private int createProgram(String vertexShaderCode, String fragmentShaderCode) {
         // Compile shaders
         int vertexShader = loadShader(GLES32.GL_VERTEX_SHADER, vertexShaderCode);
         int fragmentShader = loadShader(GLES32.GL_FRAGMENT_SHADER, fragmentShaderCode);
 
         // Create and link shader program
-        shaderProgram = GLES32.glCreateProgram();
-        GLES32.glAttachShader(shaderProgram, vertexShader);
-        GLES32.glAttachShader(shaderProgram, fragmentShader);
-        GLES32.glLinkProgram(shaderProgram);
+        int program = GLES32.glCreateProgram();
+        GLES32.glAttachShader(program, vertexShader);
+        GLES32.glAttachShader(program, fragmentShader);
+        GLES32.glLinkProgram(program);
 
         // Check for linking errors
         int[] linkStatus = new int[1];
-        GLES32.glGetProgramiv(shaderProgram, GLES32.GL_LINK_STATUS, linkStatus, 0);
+        GLES32.glGetProgramiv(program, GLES32.GL_LINK_STATUS, linkStatus, 0);
         if (linkStatus[0] == 0) {
-            Log.e(TAG, "Shader program linking failed: " + GLES32.glGetProgramInfoLog(shaderProgram));
-            GLES32.glDeleteProgram(shaderProgram);
-            shaderProgram = 0;
-        } else {
-            // Get uniform and attribute locations
-            mvpMatrixHandle = GLES32.glGetUniformLocation(shaderProgram, "uMVPMatrix");
+            Log.e(TAG, "Shader program linking failed: " + GLES32.glGetProgramInfoLog(program));
+            GLES32.glDeleteProgram(program);
+            return 0;
         }
+        return program;
     }
 
     /**
@@ -344,8 +377,64 @@ public class CADModelRenderer {
         return renderedImage;
     }
 
+    /**
+     * Renders the depth of the model with the provided view and projection matrices, using the
+     * current model matrix, and returns it with the inverse transform for unprojection.
+     *
+     * @param viewMatrix       The view matrix.
+     * @param projectionMatrix The projection matrix.
+     * @return The depth and unprojection of the view.
+     */
+    public ViewGeometry renderModelDepth(float[] viewMatrix, float[] projectionMatrix) {
+        // Bind frame buffer; the background decodes to ViewGeometry.NO_DEPTH
+        GLES32.glBindFramebuffer(GLES32.GL_FRAMEBUFFER, frameBuffer);
+        GLES32.glViewport(0, 0, width, height);
+        GLES32.glClearColor(1.0f, 1.0f, 1.0f, 0.0f);
+        GLES32.glDisable(GLES32.GL_BLEND);
+        GLES32.glEnable(GLES32.GL_DEPTH_TEST);
+        GLES32.glClear(GLES32.GL_COLOR_BUFFER_BIT | GLES32.GL_DEPTH_BUFFER_BIT);
+
+        // Compute MVP matrix and its inverse
+        float[] depthMvpMatrix = new float[16];
+        float[] inverseMvpMatrix = new float[16];
+        Matrix.multiplyMM(depthMvpMatrix, 0, viewMatrix, 0, modelMatrix, 0);
+        Matrix.multiplyMM(depthMvpMatrix, 0, projectionMatrix, 0, depthMvpMatrix, 0);
+        Matrix.invertM(inverseMvpMatrix, 0, depthMvpMatrix, 0);
+
+        // Draw the model with the depth shader
+        GLES32.glUseProgram(depthShaderProgram);
+        GLES32.glUniformMatrix4fv(depthMvpMatrixHandle, 1, false, depthMvpMatrix, 0);
+        GLES32.glBindVertexArray(vaoId);
+        GLES32.glDrawElements(GLES32.GL_TRIANGLES, numIndices, GLES32.GL_UNSIGNED_INT, 0);
+        GLES32.glBindVertexArray(0);
+
+        // Read the packed depth
+        ByteBuffer pixelBuffer = ByteBuffer.allocateDirect(width * height * 4)
+                .order(ByteOrder.nativeOrder());
+        GLES32.glReadPixels(0, 0, width, height, GLES32.GL_RGBA, GLES32.GL_UNSIGNED_BYTE, pixelBuffer);
+
+        // Reset OpenGL state
+        GLES32.glDisable(GLES32.GL_DEPTH_TEST);
+        GLES32.glBindFramebuffer(GLES32.GL_FRAMEBUFFER, 0);
+
+        // Decode to 16-bit depth, flipping rows to the OpenCV coordinate system
+        short[] depth = new short[width * height];
+        for (int row = 0; row < height; row++) {
+            int source = (height - 1 - row) * width * 4;
+            int target = row * width;
+            for (int column = 0; column < width; column++, source += 4) {
+                int high = pixelBuffer.get(source) & 0xFF;
+                int low = pixelBuffer.get(source + 1) & 0xFF;
+                depth[target + column] = (short) ((high << 8) | low);
+            }
+        }
+
+        return new ViewGeometry(width, height, depth, inverseMvpMatrix);
+    }
+
     /**
      * Renders the CAD model from multiple viewpoints and returns the rendered images.
+     * The depth of every view is rendered as well and is available from {@link #getViewGeometries()}.
      *
      * @return A list of {@link Mat} objects containing the rendered images.
      */
@@ -359,6 +448,7 @@ public class CADModelRenderer {
         Matrix.perspectiveM(projectionMatrix, 0, fovY, aspectRatio, near, far);
 
         List<Mat> renderedImages = new ArrayList<>();
+        viewGeometries.clear();
 
         // Render the model from angles 0 to 315 degrees in 45-degree increments
         for (float angle = 0; angle < 360; angle += 45) {
@@ -377,16 +467,30 @@ public class CADModelRenderer {
             // Render the model to an image and add it to the list
             Mat image = renderModelToImage(viewMatrix, projectionMatrix);
             renderedImages.add(image);
+
+            // Render the depth of the same view for lifting keypoints to model coordinates
+            viewGeometries.add(renderModelDepth(viewMatrix, projectionMatrix));
         }
 
         return renderedImages;
     }
 
+    /**
+     * Returns the depth and unprojection of the views rendered by {@link #renderFromViewpoints()},
+     * in the same order as the rendered images.
+     *
+     * @return The view geometries.
+     */
+    public List<ViewGeometry> getViewGeometries() {
+        return new ArrayList<>(viewGeometries);
+    }
+
     /**
      * Releases OpenGL resources. Should be called when the renderer is no longer needed.
      */
     public void release() {
         GLES32.glDeleteProgram(shaderProgram);
+        GLES32.glDeleteProgram(depthShaderProgram);
         GLES32.glDeleteFramebuffers(1, new int[]{frameBuffer}, 0);
         GLES32.glDeleteTextures(1, new int[]{renderTexture}, 0);
         GLES32.glDeleteRenderbuffers(1, new int[]{depthBuffer}, 0);
@@ -0,0 +1,135 @@
+package com.example.myapplication;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The {@code CameraConfigSelector} class chooses the ARCore camera configuration whose CPU image suits
+ * the vision pipeline. The per-frame detection cost is estimated from the image size with a cost per
+ * megapixel measured on the device (see {@code CameraResolutionBenchmark}); configurations whose
+ * estimate exceeds the detection budget are only used if nothing fits. Among the fitting
+ * configurations the {@link Preference} decides between the lowest resolution and the highest frame rate.
+ */
+public class CameraConfigSelector {
+
+    /**
+     * What to favour among the configurations that fit the budget.
+     */
+    public enum Preference {
+        /** The smallest CPU image, then the highest frame rate; the cheapest detection. */
+        LOWER_RESOLUTION,
+        /** The highest frame rate, then the largest CPU image that fits; the smoothest tracking. */
+        HIGHER_FPS
+    }
+
+    /**
+     * CPU image size and frame rate of one camera configuration.
+     */
+    public static final class Candidate {
+        public final int width;
+        public final int height;
+        /** Highest frame rate of the configuration. */
+        public final int maxFps;
+
+        public Candidate(int width, int height, int maxFps) {
+            this.width = width;
+            this.height = height;
+            this.maxFps = maxFps;
+        }
+
+        public long getPixelCount() {
+            return (long) width * height;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%dx%d@%dfps", width, height, maxFps);
+        }
+    }
+
+    private final double detectionBudgetMs;
+    private final double detectionMsPerMegapixel;
+    private final Preference preference;
+
+    /**
+     * Constructs a new {@code CameraConfigSelector}.
+     *
+     * @param detectionBudgetMs       Time the detection of one frame may take, in milliseconds.
+     * @param detectionMsPerMegapixel Measured detection cost per megapixel of CPU image, in milliseconds.
+     * @param preference              What to favour among the configurations that fit the budget.
+     */
+    public CameraConfigSelector(double detectionBudgetMs, double detectionMsPerMegapixel, Preference preference) {
+        if (detectionBudgetMs <= 0 || detectionMsPerMegapixel <= 0) {
+            throw new IllegalArgumentException("Budget and cost must be positive");
+        }
+        this.detectionBudgetMs = detectionBudgetMs;
+        this.detectionMsPerMegapixel = detectionMsPerMegapixel;
+        this.preference = preference;
+    }
+
+    /**
+     * Returns the estimated detection time for a CPU image.
+     *
+     * @param candidate The camera configuration.
+     * @return The estimated detection time in milliseconds.
+     */
+    public double estimateDetectionMs(Candidate candidate) {
+        return candidate.getPixelCount() / 1e6 * detectionMsPerMegapixel;
+    }
+
+    /**
+     * Chooses a camera configuration.
+     *
+     * @param candidates The supported configurations.
+     * @return Index of the chosen configuration, or -1 if there are none.
+     */
+    public int select(List<Candidate> candidates) {
+        int best = -1;
+        boolean bestFits = false;
+        for (int i = 0; i < candidates.size(); i++) {
+            Candidate candidate = candidates.get(i);
+            boolean fits = estimateDetectionMs(candidate) <= detectionBudgetMs;
+            if (best < 0 || (fits && !bestFits)) {
+                best = i;
+                bestFits = fits;
+                continue;
+            }
+            if (fits != bestFits) {
+                continue;
+            }
+
+            // Without a fitting configuration take the cheapest; otherwise follow the preference
+            Candidate current = candidates.get(best);
+            boolean better = (!fits || preference == Preference.LOWER_RESOLUTION)
+                    ? isLowerResolution(candidate, current) : isHigherFps(candidate, current);
+            if (better) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private static boolean isLowerResolution(Candidate a, Candidate b) {
+        if (a.getPixelCount() != b.getPixelCount()) {
+            return a.getPixelCount() < b.getPixelCount();
+        }
+        return a.maxFps > b.maxFps;
+    }
+
+    private static boolean isHigherFps(Candidate a, Candidate b) {
+        if (a.maxFps != b.maxFps) {
+            return a.maxFps > b.maxFps;
+        }
+        return a.getPixelCount() > b.getPixelCount();
+    }
+
+    public Preference getPreference() {
+        return preference;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "CameraConfigSelector(%s, budget %.1fms, %.1fms/MP)",
+                preference, detectionBudgetMs, detectionMsPerMegapixel);
+    }
+}
@@ -0,0 +1,431 @@
+package com.example.myapplication;
+
+import android.media.Image;
+import android.util.Log;
+
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfKeyPoint;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The {@code CameraFramePipeline} class splits the per-frame camera work into stages connected by
+ * bounded {@link FrameQueue}s, each running on its own thread, so consecutive frames are converted,
+ * detected and matched at the same time on different cores:
+ * <pre>
+ * acquire/copy (GL thread) -> convert -> detect -> publish
+ *                                          \-> match -> publish
+ * </pre>
+ * The camera image can only be read on the GL thread, so {@link #submit} copies it into a recycled
+ * {@link CameraFrame} there. Only frames due for matching go through the match stage; all other frames
+ * are published as soon as they are detected, so a slow match does not hold up the overlay.
+ * Detection runs under the given detection lock; hold it on the GL thread while changing the detector
+ * configuration of the {@link OpenCVRenderer}.
+ */
+public class CameraFramePipeline {
+
+    private static final String TAG = "CameraFramePipeline";
+
+    // Weight of the newest sample in the smoothed copy time
+    private static final double SMOOTHING = 0.1;
+
+    // Most recycled frames kept for reuse
+    private static final int MAX_FREE_FRAMES = 8;
+
+    /**
+     * The stages behind the acquire/copy step, in pipeline order.
+     */
+    public enum Step {
+        CONVERT, DETECT, MATCH, PUBLISH
+    }
+
+    /**
+     * One camera frame travelling through the pipeline. Each stage fills in its own fields.
+     */
+    public static final class CameraFrame {
+        // Filled on the GL thread by submit
+        public long sequence;
+        public int width;
+        public int height;
+        byte[] nv21;
+        byte[] luminance;
+        boolean hasLuminance;
+        public Rect roi;
+        /** Camera rotation (qx, qy, qz, qw), or {@code null} if not tracking. */
+        public float[] rotation;
+        /** Camera intrinsics (fx, fy, cx, cy), or {@code null} if unknown. */
+        public float[] intrinsics;
+        /** Whether the frame was explicitly requested for matching. */
+        public boolean matchRequested;
+        // Whether a requested match reached the match stage or was found to have nothing to match
+        boolean matchHandled;
+
+        // Filled by the convert stage
+        Mat rgb;
+        Mat gray;
+
+        // Filled by the detect stage
+        /** Detected or tracked feature points, in image coordinates. */
+        public List<Point> points;
+        /** Whether detection fell back from the region of interest to the full frame. */
+        public boolean regionRejected;
+        /** Copies of the detections, set only for frames passed to the match stage. */
+        public MatOfKeyPoint keypoints;
+        public Mat descriptors;
+
+        // Filled by the match stage
+        public boolean matched;
+        public double matchPercentage;
+        public float[] inlierXs;
+        public float[] inlierYs;
+        public int inlierCount;
+    }
+
+    /**
+     * Matches a frame whose detections were copied by the detect stage; runs on the match stage thread.
+     */
+    public interface FrameMatcher {
+        /**
+         * @param frame The frame; set {@code matched} and the match fields when matching succeeded.
+         */
+        void match(CameraFrame frame);
+    }
+
+    /**
+     * Receives every frame that leaves the pipeline; runs on the publish stage thread. The frame is
+     * recycled afterwards, so keep references to its public fields only, not to the frame.
+     */
+    public interface FramePublisher {
+        void publish(CameraFrame frame);
+    }
+
+    private final OpenCVRenderer openCVRenderer;
+    private final Object detectionLock;
+    private final FrameMatcher matcher;
+    private final FramePublisher publisher;
+
+    private final FrameQueue<CameraFrame> convertQueue;
+    private final FrameQueue<CameraFrame> detectQueue;
+    private final FrameQueue<CameraFrame> matchQueue;
+    private final FrameQueue<CameraFrame> publishQueue;
+    private final List<PipelineStage<CameraFrame>> stages = new ArrayList<>();
+
+    private final ArrayDeque<CameraFrame> freeFrames = new ArrayDeque<>();
+
+    // Set when a requested frame was dropped before matching; the next submitted frame takes over the request
+    private final AtomicBoolean carriedMatchRequest = new AtomicBoolean(false);
+
+    // Interval between continuous matches; 0 matches requested frames only
+    private volatile long continuousMatchIntervalNanos = 0;
+    private long lastMatchNanos = 0;
+
+    // Acquire/copy step on the GL thread
+    private long nextSequence = 0;
+    private long submittedCount = 0;
+    private double meanCopyNanos = 0;
+    private double meanSubmitIntervalNanos = 0;
+    private long lastSubmitNanos = 0;
+
+    /**
+     * Constructs a new {@code CameraFramePipeline}. Every queue holds 2 frames and drops the oldest.
+     *
+     * @param openCVRenderer The renderer whose conversion and detection the stages run.
+     * @param detectionLock  Held while detecting.
+     * @param matcher        Matches frames due for matching.
+     * @param publisher      Receives every processed frame.
+     */
+    public CameraFramePipeline(OpenCVRenderer openCVRenderer, Object detectionLock,
+                               FrameMatcher matcher, FramePublisher publisher) {
+        this.openCVRenderer = openCVRenderer;
+        this.detectionLock = detectionLock;
+        this.matcher = matcher;
+        this.publisher = publisher;
+
+        convertQueue = new FrameQueue<>(2, FrameQueue.DropPolicy.DROP_OLDEST);
+        detectQueue = new FrameQueue<>(2, FrameQueue.DropPolicy.DROP_OLDEST);
+        matchQueue = new FrameQueue<>(2, FrameQueue.DropPolicy.DROP_OLDEST);
+        publishQueue = new FrameQueue<>(2, FrameQueue.DropPolicy.DROP_OLDEST);
+
+        stages.add(new PipelineStage<>(TAG + "-Convert", convertQueue, detectQueue, this::convert, this::recycle));
+        stages.add(new PipelineStage<>(TAG + "-Detect", detectQueue, publishQueue, this::detect, this::recycle));
+        stages.add(new PipelineStage<>(TAG + "-Match", matchQueue, publishQueue, this::match, this::recycle));
+        stages.add(new PipelineStage<>(TAG + "-Publish", publishQueue, null, this::publish, this::recycle));
+    }
+
+    /**
+     * Starts the stage threads.
+     */
+    public void start() {
+        for (PipelineStage<CameraFrame> stage : stages) {
+            stage.start();
+        }
+    }
+
+    /**
+     * Stops the stages in pipeline order, letting each finish its queued frames, and releases the
+     * recycled frames.
+     *
+     * @param timeoutMs Longest time to wait for each stage.
+     */
+    public void stop(long timeoutMs) {
+        try {
+            for (PipelineStage<CameraFrame> stage : stages) {
+                stage.stop(timeoutMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (freeFrames) {
+            freeFrames.clear();
+        }
+    }
+
+    /**
+     * Sets what the queue in front of a stage does when it is full.
+     *
+     * @param step   The stage.
+     * @param policy Drop the oldest frame, or block the previous stage until there is space.
+     */
+    public void setDropPolicy(Step step, FrameQueue.DropPolicy policy) {
+        queue(step).setDropPolicy(policy);
+    }
+
+    /**
+     * Sets how often detected frames are passed to the match stage without an explicit request.
+     *
+     * @param intervalMs Interval between matches in milliseconds, or 0 to match requested frames only.
+     */
+    public void setContinuousMatchInterval(long intervalMs) {
+        continuousMatchIntervalNanos = Math.max(0L, intervalMs) * 1000000L;
+    }
+
+    /**
+     * Copies the camera image into a frame and hands it to the convert stage. Call on the GL thread
+     * while the image is open; the image can be closed as soon as this returns.
+     *
+     * @param image          The camera image.
+     * @param copyLuminance  Whether to copy the luminance plane for keypoint tracking.
+     * @param roi            Detection region in image coordinates, or {@code null} for the full frame.
+     * @param rotation       Camera rotation (qx, qy, qz, qw), or {@code null} if not tracking.
+     * @param intrinsics     Camera intrinsics (fx, fy, cx, cy), or {@code null} if unknown.
+     * @param matchRequested Whether this frame must be matched.
+     * @return {@code true} if the frame entered the pipeline.
+     * @throws InterruptedException If interrupted while the convert queue blocks.
+     */
+    public boolean submit(Image image, boolean copyLuminance, Rect roi, float[] rotation, float[] intrinsics,
+                          boolean matchRequested) throws InterruptedException {
+        long start = System.nanoTime();
+        CameraFrame frame = obtainFrame();
+        frame.sequence = nextSequence++;
+        frame.width = image.getWidth();
+        frame.height = image.getHeight();
+        frame.nv21 = openCVRenderer.copyImageToNV21(image, frame.nv21);
+        frame.hasLuminance = copyLuminance;
+        if (copyLuminance) {
+            frame.luminance = openCVRenderer.copyLuminance(image, frame.luminance);
+        }
+        frame.roi = roi;
+        frame.rotation = rotation != null ? rotation.clone() : null;
+        frame.intrinsics = intrinsics != null ? intrinsics.clone() : null;
+        frame.matchRequested = matchRequested || carriedMatchRequest.getAndSet(false);
+        frame.matchHandled = false;
+        recordSubmit(start, System.nanoTime());
+
+        CameraFrame dropped = convertQueue.offer(frame);
+        if (dropped != null) {
+            recycle(dropped);
+        }
+        return dropped != frame;
+    }
+
+    private CameraFrame convert(CameraFrame frame) {
+        frame.rgb = openCVRenderer.convertNV21ToMat(frame.nv21, frame.width, frame.height);
+        if (frame.hasLuminance) {
+            frame.gray = openCVRenderer.convertLuminanceToGray(frame.luminance, frame.width, frame.height);
+        }
+        return frame;
+    }
+
+    private CameraFrame detect(CameraFrame frame) throws InterruptedException {
+        boolean continuousMatchDue = isContinuousMatchDue();
+        synchronized (detectionLock) {
+            KeypointTracker tracker = openCVRenderer.getKeypointTracker();
+
+            // Run a full detection for the frame that is matched
+            if (frame.matchRequested) {
+                openCVRenderer.requestFullDetection();
+            }
+
+            Mat gray = tracker != null ? frame.gray : null;
+            frame.points = new ArrayList<>(openCVRenderer.processOpenCV(frame.rgb, gray, frame.roi));
+            frame.regionRejected = openCVRenderer.isLastRegionRejected();
+
+            // Keypoints kept from an earlier detection do not describe this frame and are not matched
+            boolean matchDue = frame.matchRequested || (continuousMatchDue && !openCVRenderer.isLastFrameReused());
+
+            // Copies are taken because the next detection releases the current one
+            Mat descriptors = openCVRenderer.getDetectedDescriptors();
+            if (matchDue && descriptors != null && !descriptors.empty()) {
+                frame.keypoints = new MatOfKeyPoint();
+                openCVRenderer.getDetectedKeyPoints().copyTo(frame.keypoints);
+                frame.descriptors = descriptors.clone();
+            }
+        }
+        releaseImages(frame);
+
+        if (frame.descriptors == null) {
+            // Nothing to match; the request ends here rather than moving on to the next frame
+            frame.matchHandled = true;
+            return frame;
+        }
+
+        // Frames due for matching reach the publish stage through the match stage
+        lastMatchNanos = System.nanoTime();
+        CameraFrame dropped = matchQueue.offer(frame);
+        if (dropped != null) {
+            recycle(dropped);
+        }
+        return null;
+    }
+
+    private boolean isContinuousMatchDue() {
+        long interval = continuousMatchIntervalNanos;
+        return interval > 0 && System.nanoTime() - lastMatchNanos >= interval;
+    }
+
+    private CameraFrame match(CameraFrame frame) {
+        frame.matchHandled = true;
+        matcher.match(frame);
+        frame.keypoints.release();
+        frame.descriptors.release();
+        frame.keypoints = null;
+        frame.descriptors = null;
+        return frame;
+    }
+
+    private CameraFrame publish(CameraFrame frame) {
+        // A frame that fails to publish is recycled by the stage
+        publisher.publish(frame);
+        recycle(frame);
+        return null;
+    }
+
+    private CameraFrame obtainFrame() {
+        synchronized (freeFrames) {
+            CameraFrame frame = freeFrames.pollLast();
+            return frame != null ? frame : new CameraFrame();
+        }
+    }
+
+    /**
+     * Releases the native buffers of a frame and keeps its byte buffers for the next submit. A requested
+     * frame dropped by a full queue before it was matched passes its request on to the next frame.
+     */
+    private void recycle(CameraFrame frame) {
+        if (frame.matchRequested && !frame.matchHandled) {
+            carriedMatchRequest.set(true);
+            Log.d(TAG, "Requested frame " + frame.sequence + " dropped before matching, carrying the request over");
+        }
+        frame.matchRequested = false;
+        frame.matchHandled = false;
+        releaseImages(frame);
+        if (frame.keypoints != null) {
+            frame.keypoints.release();
+            frame.keypoints = null;
+        }
+        if (frame.descriptors != null) {
+            frame.descriptors.release();
+            frame.descriptors = null;
+        }
+        frame.roi = null;
+        frame.rotation = null;
+        frame.intrinsics = null;
+        frame.points = null;
+        frame.regionRejected = false;
+        frame.matched = false;
+        frame.inlierXs = null;
+        frame.inlierYs = null;
+        frame.inlierCount = 0;
+        synchronized (freeFrames) {
+            if (freeFrames.size() < MAX_FREE_FRAMES) {
+                freeFrames.addLast(frame);
+            }
+        }
+    }
+
+    private void releaseImages(CameraFrame frame) {
+        MatPool matPool = openCVRenderer.getMatPool();
+        matPool.recycle(frame.rgb);
+        matPool.recycle(frame.gray);
+        frame.rgb = null;
+        frame.gray = null;
+    }
+
+    private FrameQueue<CameraFrame> queue(Step step) {
+        switch (step) {
+            case CONVERT:
+                return convertQueue;
+            case DETECT:
+                return detectQueue;
+            case MATCH:
+                return matchQueue;
+            default:
+                return publishQueue;
+        }
+    }
+
+    private synchronized void recordSubmit(long startNanos, long endNanos) {
+        long copyNanos = endNanos - startNanos;
+        if (submittedCount == 0) {
+            meanCopyNanos = copyNanos;
+        } else {
+            meanCopyNanos += SMOOTHING * (copyNanos - meanCopyNanos);
+            long intervalNanos = endNanos - lastSubmitNanos;
+            meanSubmitIntervalNanos = meanSubmitIntervalNanos == 0
+                    ? intervalNanos : meanSubmitIntervalNanos + SMOOTHING * (intervalNanos - meanSubmitIntervalNanos);
+        }
+        lastSubmitNanos = endNanos;
+        submittedCount++;
+    }
+
+    /**
+     * Returns the queue depth, throughput and latency of the acquire/copy step followed by each stage.
+     *
+     * @return One snapshot per step, in pipeline order.
+     */
+    public List<PipelineStage.Stats> getStats() {
+        List<PipelineStage.Stats> stats = new ArrayList<>(stages.size() + 1);
+        synchronized (this) {
+            stats.add(new PipelineStage.Stats(TAG + "-Acquire", 0, 0, submittedCount, 0,
+                    meanSubmitIntervalNanos > 0 ? 1e9 / meanSubmitIntervalNanos : 0.0, 0.0, meanCopyNanos / 1e6));
+        }
+        for (PipelineStage<CameraFrame> stage : stages) {
+            stats.add(stage.getStats());
+        }
+        return stats;
+    }
+
+    /**
+     * Returns the queue depth, throughput and latency of one stage.
+     *
+     * @param step The stage.
+     * @return A snapshot of the stage statistics.
+     */
+    public PipelineStage.Stats getStats(Step step) {
+        return stages.get(step.ordinal()).getStats();
+    }
+
+    /**
+     * Logs the statistics of every step.
+     */
+    public void logStats() {
+        for (PipelineStage.Stats stats : getStats()) {
+            Log.d(TAG, stats.toString());
+        }
+    }
+}
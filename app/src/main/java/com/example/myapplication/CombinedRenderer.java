@@ -1,6 +1,7 @@
 package com.example.myapplication;
 
 import android.content.Context;
+import android.content.pm.ApplicationInfo;
 import android.media.Image;
 import android.opengl.GLES11Ext;
 import android.opengl.GLES32;
@@ -10,20 +11,32 @@ import android.os.Looper;
 import android.util.Log;
 import android.util.Pair;
 
+import com.google.ar.core.Camera;
+import com.google.ar.core.CameraIntrinsics;
+import com.google.ar.core.Config;
 import com.google.ar.core.Frame;
 import com.google.ar.core.Session;
+import com.google.ar.core.TrackingState;
 import com.google.ar.core.exceptions.NotYetAvailableException;
 
 import org.opencv.core.DMatch;
+import org.opencv.core.KeyPoint;
 import org.opencv.core.Mat;
 import org.opencv.core.MatOfDMatch;
 import org.opencv.core.MatOfKeyPoint;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
 import org.opencv.features2d.Features2d;
-import org.opencv.imgcodecs.Imgcodecs;
 
-import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.microedition.khronos.egl.EGLConfig;
 import javax.microedition.khronos.opengles.GL10;
@@ -55,16 +68,236 @@ public class CombinedRenderer implements GLSurfaceView.Renderer {
 
     private boolean computeRequested = false;
 
-    // Fields to store features from CAD model projections
-    private final List<MatOfKeyPoint> cadKeypointsList;
-    private final List<Mat> cadDescriptorsList;
+    // Strategy requested from another thread, applied on the GL thread
+    private volatile FeatureStrategy pendingFeatureStrategy;
+
+    // Preprocessing chain requested from another thread, applied on the GL thread
+    private volatile PreprocessingPipeline.Stage[] pendingPreprocessingStages;
+    private volatile boolean preprocessingChangeRequested = false;
+
+    // Whether keypoints are tracked with optical flow between full detections
+    private volatile boolean trackingEnabled = true;
+
+    // Set with every change of a matching setting; the next matching pass applies the changes under
+    // the matching lock, so the GL thread never waits for a running pass
+    private volatile boolean matchingConfigChanged = false;
+
+    // CAD descriptor database rebuild requested after a strategy or preprocessing switch
+    private volatile boolean databaseRebuildRequested = false;
+
+    // Whether matches must be mutual nearest neighbours; the applied value is guarded by matchingLock
+    private volatile boolean mutualCheckEnabled = false;
+    private boolean appliedMutualCheck = false;
+
+    // Whether views are verified with the Java RANSAC engine instead of Calib3d.findHomography
+    private volatile boolean ransacEngineEnabled = false;
+
+    // Java RANSAC engine currently set on the OpenCV renderer, or null; guarded by matchingLock
+    private RansacEstimator homographyEstimator;
+
+    // Whether matches of all views are verified with one PnP camera pose instead of per-view homographies;
+    // the applied value is guarded by matchingLock
+    private volatile boolean poseVerificationEnabled = false;
+    private boolean appliedPoseVerification = false;
+
+    // Number of threads for tiled detection; 1 detects on the whole image. Off by default: the tiles
+    // overlap by the descriptor support and the pool competes with view matching and RANSAC for cores
+    private volatile int detectionThreads = 1;
+    private int appliedDetectionThreads = 1;
+
+    // Whether outstanding pooled Mats are reported with their allocation sites
+    private volatile boolean matLeakTrackingEnabled = false;
+    private boolean appliedMatLeakTracking = false;
+
+    // Frames a pooled Mat may stay outstanding before it is reported as leaked
+    private static final int MAT_LEAK_AGE_FRAMES = 3;
+
+    // Region of interest derived from the last located model
+    private final DetectionRegion detectionRegion = new DetectionRegion();
+    private volatile boolean regionOfInterestEnabled = true;
+    private volatile boolean regionMotionCompensationEnabled = true;
+
+    // Camera rotation (qx, qy, qz, qw) and image intrinsics (fx, fy, cx, cy) of the current frame
+    private final float[] cameraRotation = new float[4];
+    private final float[] cameraIntrinsics = new float[4];
+    private boolean cameraTracking = false;
+    private boolean cameraIntrinsicsValid = false;
+
+    // Camera position (x, y, z) of the current frame, for the match result cache
+    private final float[] cameraTranslation = new float[3];
+
+    // Match results reused while the camera pose and image are unchanged
+    private volatile MatchResultCache matchCache = new MatchResultCache();
+    private volatile boolean matchCacheEnabled = true;
+    private volatile float matchCacheTranslationTolerance = 0.01f;
+    private volatile float matchCacheRotationTolerance = 1.0f;
+    private volatile boolean matchCacheChangeRequested = false;
+
+    // Merged features from CAD model projections
+    private final DescriptorDatabase cadDatabase = new DescriptorDatabase();
     private List<Mat> renderedImagesList;
+    private List<ViewGeometry> renderedGeometryList;
+
+    // LSH index over the CAD database, used instead of brute-force matching when enabled
+    private volatile boolean descriptorIndexEnabled = false;
+    private volatile int indexTableCount = 6;
+    private volatile int indexKeySize = 14;
+    private volatile boolean indexMultiProbe = true;
+    private volatile boolean indexRebuildRequested = false;
+
+    // Number of CAD views retrieved with the vocabulary tree for full matching; 0 matches all views
+    private volatile int retrievedViewCount = 0;
+    private volatile boolean vocabularyRebuildRequested = false;
+    // Incremented for every vocabulary build, so a tree trained for an outdated database is discarded; guarded by matchingLock
+    private int vocabularyGeneration = 0;
+
+    // Continuous matching on a background worker at a limited rate, with a smoothed score
+    private volatile boolean continuousMatchingEnabled = false;
+    private volatile long continuousMatchingIntervalMs = 250;
+    private long lastContinuousMatchNanos = 0;
+    private long skippedMatchingCycles = 0;
+    private final AtomicBoolean continuousMatchInFlight = new AtomicBoolean(false);
+    private final ScoreFilter scoreFilter = new ScoreFilter();
+    private volatile boolean scoreFilterResetRequested = false;
+
+    // Held while matching and while the settings matching reads are applied
+    private final Object matchingLock = new Object();
+
+    // Inlier region found by the matching worker, applied to the detection region on the GL thread
+    private volatile RegionUpdate pendingRegionUpdate;
+
+    // Staged frame pipeline used instead of processing camera frames serially on the GL thread
+    private volatile boolean framePipelineEnabled = false;
+    private volatile CameraFramePipeline framePipeline;
+    private final FrameQueue.DropPolicy[] framePipelineDropPolicies = {
+            FrameQueue.DropPolicy.DROP_OLDEST, FrameQueue.DropPolicy.DROP_OLDEST,
+            FrameQueue.DropPolicy.DROP_OLDEST, FrameQueue.DropPolicy.DROP_OLDEST
+    };
+    private long lastPipelineStatsNanos = 0;
+    private static final long PIPELINE_STATS_INTERVAL_NANOS = 1000000000L;
+    private static final long PIPELINE_STOP_TIMEOUT_MS = 1000;
+    // Time release() waits for each background worker to finish its queued work
+    private static final long RELEASE_TIMEOUT_MS = 2000;
+
+    // Held while the pipeline detects and while the GL thread changes the frame detector configuration
+    private final Object detectionLock = new Object();
+
+    // Live overlay of the matched camera keypoints of the latest match result
+    private volatile boolean matchOverlayEnabled = false;
+    private volatile MatchOverlayData latestMatchOverlay;
+    private final MatchOverlay matchOverlay = new MatchOverlay();
+    private int surfaceWidth = 0;
+    private int surfaceHeight = 0;
+
+    // Adapts detection scale, keypoint budget and detection interval to hold the frame budget
+    private static final long DEFAULT_FRAME_BUDGET_NANOS = 33333333L;
+    private final FrameBudgetGovernor frameGovernor = new FrameBudgetGovernor(DEFAULT_FRAME_BUDGET_NANOS);
+    private volatile boolean frameGovernorEnabled = true;
+    private boolean appliedFrameGovernorEnabled = true;
+    private volatile long pendingFrameBudgetNanos = 0;
+
+    // Workload profile chosen from the device thermal state, applied on the GL thread
+    private final ThermalMonitor thermalMonitor;
+    private volatile ThermalProfile thermalProfile = ThermalProfile.NOMINAL;
+    private volatile ThermalProfile appliedThermalProfile = ThermalProfile.NOMINAL;
+    // Profile whose view limit matching uses; guarded by matchingLock
+    private ThermalProfile matchingThermalProfile = ThermalProfile.NOMINAL;
+    private int framesSinceProcessing = 0;
+    private int lastImageWidth = 0;
+    private int lastImageHeight = 0;
+
+    // Optional session features enabled only while a consumer needs them, and their update() cost
+    private final SessionFeatureProfile sessionFeatures = new SessionFeatureProfile();
+    private volatile boolean sessionFeaturesChanged = false;
+    private volatile Set<SessionFeatureProfile.Feature> appliedSessionFeatures = EnumSet.noneOf(SessionFeatureProfile.Feature.class);
+    private long lastSessionUpdateStatsNanos = 0;
+    private static final long SESSION_UPDATE_STATS_INTERVAL_NANOS = 10000000000L;
+
+    // Latest detections published by the pipeline, drawn by the GL thread
+    private volatile PublishedDetections publishedDetections;
+    private volatile boolean pendingRegionRejection = false;
+    private long lastPublishedSequence = -1;
 
     // Application context
     private final Context context;
 
     private MatchPercentageListener matchPercentageListener;
 
+    // Matches the CAD views concurrently
+    private final ViewMatcher viewMatcher;
+
+    // Runs continuous matching off the GL thread
+    private final ExecutorService matchingExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, TAG + "-Matching");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Encodes and writes debug visualisations off the GL thread
+    private final DebugImageWriter debugImageWriter;
+    private static final int DEBUG_IMAGE_QUEUE_CAPACITY = 32;
+    private static final String RENDERED_IMAGES_DIRECTORY = "RenderedImages";
+    private static final String CAMERA_IMAGES_DIRECTORY = "CameraImages";
+    private static final String MATCH_IMAGES_DIRECTORY = "Matches";
+
+    /**
+     * Result of matching one frame against the CAD database.
+     */
+    private static final class MatchOutcome {
+        final List<ViewMatcher.ViewResult> results;
+        final int totalMatches;
+        final int inlierMatches;
+        final float[] inlierXs;
+        final float[] inlierYs;
+        final int inlierCount;
+
+        MatchOutcome(List<ViewMatcher.ViewResult> results, int totalMatches, int inlierMatches,
+                     float[] inlierXs, float[] inlierYs, int inlierCount) {
+            this.results = results;
+            this.totalMatches = totalMatches;
+            this.inlierMatches = inlierMatches;
+            this.inlierXs = inlierXs;
+            this.inlierYs = inlierYs;
+            this.inlierCount = inlierCount;
+        }
+
+        double getMatchPercentage() {
+            return totalMatches == 0 ? 0.0 : ((double) inlierMatches / totalMatches) * 100.0;
+        }
+    }
+
+    /**
+     * Inlier positions and camera rotation handed from the matching worker to the GL thread.
+     */
+    private static final class RegionUpdate {
+        final float[] xs;
+        final float[] ys;
+        final int count;
+        final float[] rotation;
+
+        RegionUpdate(float[] xs, float[] ys, int count, float[] rotation) {
+            this.xs = xs;
+            this.ys = ys;
+            this.count = count;
+            this.rotation = rotation;
+        }
+    }
+
+    /**
+     * Feature points published by the frame pipeline for drawing on the GL thread.
+     */
+    private static final class PublishedDetections {
+        final List<Point> points;
+        final int width;
+        final int height;
+
+        PublishedDetections(List<Point> points, int width, int height) {
+            this.points = points;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
     /**
      * Constructs a new {@code CombinedRenderer} with the given CAD model loader and context.
      *
@@ -97,10 +330,13 @@ public class CombinedRenderer implements GLSurfaceView.Renderer {
         // Initialise OpenCVRednerer and CADModelLoader classes
         openCVRenderer = new OpenCVRenderer();
         this.cadModelLoader = cadModelLoader;
+        viewMatcher = new ViewMatcher(openCVRenderer, Runtime.getRuntime().availableProcessors());
+        thermalMonitor = new ThermalMonitor(context, profileSwitch -> thermalProfile = profileSwitch.to);
 
-        // Initialise lists to store CAD features
-        cadKeypointsList = new ArrayList<>();
-        cadDescriptorsList = new ArrayList<>();
+        // Debug images are written by debuggable builds only unless enabled explicitly; PNG level 1 is the OpenCV default
+        debugImageWriter = new DebugImageWriter(context.getExternalFilesDir(null), DEBUG_IMAGE_QUEUE_CAPACITY,
+                DebugImageWriter.Format.PNG, 1);
+        debugImageWriter.setEnabled((context.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0);
     }
 
     /**
@@ -111,6 +347,496 @@ public class CombinedRenderer implements GLSurfaceView.Renderer {
         computeRequested = true; // Set the flag to trigger computation
     }
 
+    /**
+     * Requests a switch of the feature detector/descriptor strategy.
+     * The switch is applied on the GL thread before the next frame, and the CAD
+     * descriptor database is rebuilt with the new strategy by the next matching pass.
+     *
+     * @param strategy The feature strategy to use.
+     */
+    public void setFeatureStrategy(FeatureStrategy strategy) {
+        pendingFeatureStrategy = strategy;
+    }
+
+    /**
+     * Returns the feature strategy currently used by the OpenCV renderer.
+     *
+     * @return The active {@link FeatureStrategy}.
+     */
+    public FeatureStrategy getFeatureStrategy() {
+        return openCVRenderer.getFeatureStrategy();
+    }
+
+    /**
+     * Requests a different preprocessing chain for camera frames and CAD renders.
+     * The change is applied on the GL thread before the next frame, and the CAD
+     * descriptor database is rebuilt with the new chain by the next matching pass.
+     *
+     * @param stages The stages to run after grayscale conversion, or {@code null} for the strategy default.
+     */
+    public void setPreprocessingStages(PreprocessingPipeline.Stage... stages) {
+        pendingPreprocessingStages = stages;
+        preprocessingChangeRequested = true;
+    }
+
+    /**
+     * Enables or disables optical-flow keypoint tracking between full detections.
+     * The change is applied on the GL thread before the next frame.
+     *
+     * @param enabled {@code true} to track keypoints between detections.
+     */
+    public void setTrackingEnabled(boolean enabled) {
+        trackingEnabled = enabled;
+    }
+
+    /**
+     * Enables or disables the mutual nearest-neighbour check when brute-force matching against the CAD database.
+     * The change is applied by the next matching pass.
+     *
+     * @param enabled {@code true} to keep only matches that are nearest neighbours in both directions.
+     */
+    public void setMutualCheckEnabled(boolean enabled) {
+        mutualCheckEnabled = enabled;
+        matchingConfigChanged = true;
+    }
+
+    /**
+     * Switches view verification between {@code Calib3d.findHomography} and the Java RANSAC engine,
+     * which orders samples by match distance (PROSAC) and stops adaptively at 99.5% confidence.
+     * The change is applied by the next matching pass.
+     *
+     * @param enabled {@code true} to verify with the Java RANSAC engine.
+     */
+    public void setRansacEngineEnabled(boolean enabled) {
+        ransacEngineEnabled = enabled;
+        matchingConfigChanged = true;
+    }
+
+    /**
+     * Switches between verifying each CAD view with a homography and verifying the pooled matches of
+     * all views with one camera pose from {@code Calib3d.solvePnPRansac}, using the ARCore camera
+     * intrinsics and the rendered depth of the views. The change is applied by the next matching pass.
+     *
+     * @param enabled {@code true} to verify with a PnP camera pose.
+     */
+    public void setPoseVerificationEnabled(boolean enabled) {
+        poseVerificationEnabled = enabled;
+        matchingConfigChanged = true;
+    }
+
+    /**
+     * Enables or disables continuous matching. While enabled, the latest frame is matched on a
+     * background worker at most once per interval; a cycle is skipped while the previous run is
+     * still busy. Each result is smoothed with a {@link ScoreFilter} and reported through
+     * {@link MatchPercentageListener#onLiveMatchScoreUpdated}.
+     *
+     * @param enabled {@code true} to match continuously.
+     */
+    public void setContinuousMatchingEnabled(boolean enabled) {
+        if (enabled && !continuousMatchingEnabled) {
+            scoreFilterResetRequested = true;
+        }
+        continuousMatchingEnabled = enabled;
+    }
+
+    /**
+     * Returns whether continuous matching is enabled.
+     *
+     * @return {@code true} if frames are matched continuously.
+     */
+    public boolean isContinuousMatchingEnabled() {
+        return continuousMatchingEnabled;
+    }
+
+    /**
+     * Sets the shortest time between two continuous matching runs.
+     *
+     * @param intervalMs Interval in milliseconds.
+     */
+    public void setContinuousMatchingInterval(long intervalMs) {
+        continuousMatchingIntervalMs = Math.max(0, intervalMs);
+    }
+
+    /**
+     * Enables or disables the staged frame pipeline. When enabled, camera frames are only copied on the
+     * GL thread and are converted, detected, matched and published on separate threads, overlapping
+     * consecutive frames; the overlay shows the latest published detections. Requested and continuous
+     * matches are then run by the pipeline, without the match result cache and debug images.
+     *
+     * @param enabled {@code true} to process camera frames in the pipeline.
+     */
+    public void setFramePipelineEnabled(boolean enabled) {
+        framePipelineEnabled = enabled;
+    }
+
+    /**
+     * Sets what the queue in front of a pipeline stage does when it is full.
+     *
+     * @param step   The pipeline stage.
+     * @param policy Drop the oldest frame, or block the previous stage until there is space.
+     */
+    public void setFramePipelineDropPolicy(CameraFramePipeline.Step step, FrameQueue.DropPolicy policy) {
+        framePipelineDropPolicies[step.ordinal()] = policy;
+        CameraFramePipeline pipeline = framePipeline;
+        if (pipeline != null) {
+            pipeline.setDropPolicy(step, policy);
+        }
+    }
+
+    /**
+     * Returns the queue depth, throughput and latency of every pipeline step.
+     *
+     * @return One snapshot per step, or an empty list while the pipeline is disabled.
+     */
+    public List<PipelineStage.Stats> getFramePipelineStats() {
+        CameraFramePipeline pipeline = framePipeline;
+        return pipeline != null ? pipeline.getStats() : Collections.emptyList();
+    }
+
+    /**
+     * Enables or disables the frame budget governor. While enabled, the detection scale, keypoint
+     * budget and detection interval are lowered step by step when frames regularly take longer than
+     * the frame budget and raised again when they are well within it. Disabling returns to full quality.
+     *
+     * @param enabled {@code true} to adapt the vision quality to the frame budget.
+     */
+    public void setFrameBudgetGovernorEnabled(boolean enabled) {
+        frameGovernorEnabled = enabled;
+    }
+
+    /**
+     * Sets the time the vision work of a frame may take, e.g. 33 ms to hold 30 fps.
+     *
+     * @param budgetMs The frame budget in milliseconds.
+     */
+    public void setFrameBudget(double budgetMs) {
+        if (budgetMs <= 0) {
+            throw new IllegalArgumentException("Frame budget must be positive");
+        }
+        pendingFrameBudgetNanos = (long) (budgetMs * 1000000);
+    }
+
+    /**
+     * Returns the quality level chosen by the frame budget governor.
+     *
+     * @return The level index; 0 is full quality.
+     */
+    public int getFrameBudgetLevel() {
+        return frameGovernor.getLevelIndex();
+    }
+
+    /**
+     * Returns the latest quality level changes of the frame budget governor with the frame and stage
+     * times that caused them.
+     *
+     * @return Up to 16 decisions, oldest first.
+     */
+    public List<FrameBudgetGovernor.Decision> getFrameBudgetDecisions() {
+        return frameGovernor.getDecisions();
+    }
+
+    /**
+     * Returns the measured cost of full camera frame detections per megapixel, for choosing the camera
+     * configuration. Can be called from any thread.
+     *
+     * @return The cost in milliseconds per megapixel, or 0 before the first full detection.
+     */
+    public double getDetectionMsPerMegapixel() {
+        return openCVRenderer.getDetectionMsPerMegapixel();
+    }
+
+    /**
+     * Starts scaling the vision workload with the device thermal state. As the device heats up,
+     * camera frames are processed less often, detected at a lower resolution and matched against
+     * fewer CAD views. Call from the main thread, e.g. in {@code onResume}.
+     */
+    public void startThermalMonitoring() {
+        thermalMonitor.start();
+    }
+
+    /**
+     * Stops following the device thermal state; the current workload profile is kept until monitoring
+     * starts again. Call from the main thread, e.g. in {@code onPause}.
+     */
+    public void stopThermalMonitoring() {
+        thermalMonitor.stop();
+    }
+
+    /**
+     * Stops the background workers of the renderer once their queued work is done: the frame pipeline,
+     * the matching worker, the view matching pool and the debug image writer. The renderer cannot match
+     * afterwards. Call from the main thread while rendering is paused, e.g. in {@code onDestroy}.
+     */
+    public void release() {
+        if (framePipeline != null) {
+            stopFramePipeline();
+        }
+
+        // Let a running match or vocabulary training finish
+        matchingExecutor.shutdown();
+        try {
+            if (!matchingExecutor.awaitTermination(RELEASE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                Log.w(TAG, "Matching worker did not finish within " + RELEASE_TIMEOUT_MS + " ms");
+                matchingExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            matchingExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        viewMatcher.release();
+        debugImageWriter.stop(RELEASE_TIMEOUT_MS);
+        Log.i(TAG, "Renderer released, " + debugImageWriter.getWrittenCount() + " debug images written, "
+                + debugImageWriter.getDroppedCount() + " dropped");
+    }
+
+    /**
+     * Returns the workload profile in use.
+     *
+     * @return The thermal profile.
+     */
+    public ThermalProfile getThermalProfile() {
+        return appliedThermalProfile;
+    }
+
+    /**
+     * Returns the latest thermal profile switches with their times and the thermal state that caused them.
+     *
+     * @return Up to 32 switches, oldest first.
+     */
+    public List<ThermalMonitor.ProfileSwitch> getThermalProfileSwitches() {
+        return thermalMonitor.getSwitches();
+    }
+
+    /**
+     * Registers a consumer of an optional session feature. Depth, HDR light estimation and plane
+     * finding are only enabled while a consumer has registered for them; the session is reconfigured
+     * on the GL thread before the next frame.
+     *
+     * @param feature  The session feature.
+     * @param consumer Name of the consumer, e.g. its class name.
+     */
+    public void registerSessionFeature(SessionFeatureProfile.Feature feature, String consumer) {
+        if (sessionFeatures.register(feature, consumer)) {
+            sessionFeaturesChanged = true;
+        }
+    }
+
+    /**
+     * Removes a consumer of an optional session feature; the feature is disabled with its last consumer.
+     *
+     * @param feature  The session feature.
+     * @param consumer Name the consumer registered with.
+     */
+    public void unregisterSessionFeature(SessionFeatureProfile.Feature feature, String consumer) {
+        if (sessionFeatures.unregister(feature, consumer)) {
+            sessionFeaturesChanged = true;
+        }
+    }
+
+    /**
+     * Sets the depth, light estimation and plane finding modes of a session configuration from the
+     * registered session feature consumers and configures the session with it. The features are only
+     * recorded as applied once the session accepted the configuration.
+     *
+     * @param config The configuration to update and apply.
+     * @throws com.google.ar.core.exceptions.UnsupportedConfigurationException If the session rejects it.
+     */
+    public void configureSession(Config config) {
+        Set<SessionFeatureProfile.Feature> features = sessionFeatures.getEnabledFeatures();
+        boolean depth = features.contains(SessionFeatureProfile.Feature.DEPTH);
+        if (depth && !session.isDepthModeSupported(Config.DepthMode.AUTOMATIC)) {
+            Log.w(TAG, "Depth is not supported on this device, leaving it disabled");
+            depth = false;
+        }
+        config.setDepthMode(depth ? Config.DepthMode.AUTOMATIC : Config.DepthMode.DISABLED);
+        config.setLightEstimationMode(features.contains(SessionFeatureProfile.Feature.HDR_LIGHTING)
+                ? Config.LightEstimationMode.ENVIRONMENTAL_HDR : Config.LightEstimationMode.DISABLED);
+        config.setPlaneFindingMode(features.contains(SessionFeatureProfile.Feature.PLANE_FINDING)
+                ? Config.PlaneFindingMode.HORIZONTAL_AND_VERTICAL : Config.PlaneFindingMode.DISABLED);
+        if (!depth) {
+            features.remove(SessionFeatureProfile.Feature.DEPTH);
+        }
+        session.configure(config);
+        appliedSessionFeatures = features;
+    }
+
+    /**
+     * Returns the {@code Session.update()} times measured under every session feature profile used so far.
+     *
+     * @return One entry per set of enabled features.
+     */
+    public List<SessionFeatureProfile.UpdateStats> getSessionUpdateStats() {
+        return sessionFeatures.getUpdateStats();
+    }
+
+    /**
+     * Enables or disables the live match overlay. While enabled, every match result is drawn over the
+     * camera feed until the next one arrives: one marker per matched camera keypoint, coloured by CAD
+     * view, filled for inliers and hollow for outliers.
+     *
+     * @param enabled {@code true} to draw the match overlay.
+     */
+    public void setMatchOverlayEnabled(boolean enabled) {
+        matchOverlayEnabled = enabled;
+        if (!enabled) {
+            latestMatchOverlay = null;
+        }
+    }
+
+    /**
+     * Enables or disables all debug image output: the rendered CAD views with their keypoints and the
+     * camera, keypoint and drawMatches images of requested matches. Enabled by default in debuggable
+     * builds only. The live match overlay shows the same matches without the cost of encoding and
+     * writing images.
+     *
+     * @param enabled {@code true} to write debug images.
+     */
+    public void setDebugImageWritesEnabled(boolean enabled) {
+        debugImageWriter.setEnabled(enabled);
+    }
+
+    /**
+     * Sets how debug images are encoded.
+     *
+     * @param format PNG, JPEG or a raw pixel dump.
+     * @param level  PNG compression level (0-9) or JPEG quality (0-100); ignored for raw dumps.
+     */
+    public void setDebugImageEncoder(DebugImageWriter.Format format, int level) {
+        debugImageWriter.setEncoder(format, level);
+    }
+
+    /**
+     * Returns the queue depth, throughput and write time of the debug image writer.
+     *
+     * @return A snapshot of the writer statistics; dropped images are counted in {@code droppedCount}.
+     */
+    public PipelineStage.Stats getDebugImageWriterStats() {
+        return debugImageWriter.getStats();
+    }
+
+    /**
+     * Enables or disables the debug leak report for pooled camera frame buffers. While enabled, every
+     * buffer records where it was acquired, and buffers still outstanding a few frames later are logged
+     * with that site.
+     *
+     * @param enabled {@code true} to report leaked buffers.
+     */
+    public void setMatLeakTrackingEnabled(boolean enabled) {
+        matLeakTrackingEnabled = enabled;
+    }
+
+    /**
+     * Enables or disables reusing the previous match result when matching is requested again
+     * from nearly the same camera pose with nearly the same camera image.
+     *
+     * @param enabled {@code true} to reuse cached match results.
+     */
+    public void setMatchCacheEnabled(boolean enabled) {
+        matchCacheEnabled = enabled;
+    }
+
+    /**
+     * Sets how far the camera may move between two match requests for the cached result to be reused.
+     * The cache is recreated empty on the GL thread before the next frame.
+     *
+     * @param translationMetres Largest camera translation in metres.
+     * @param rotationDegrees   Largest camera rotation in degrees.
+     */
+    public void setMatchCacheTolerances(float translationMetres, float rotationDegrees) {
+        matchCacheTranslationTolerance = translationMetres;
+        matchCacheRotationTolerance = rotationDegrees;
+        matchCacheChangeRequested = true;
+    }
+
+    /**
+     * Returns the number of match requests answered from the match result cache.
+     *
+     * @return The hit count.
+     */
+    public long getMatchCacheHitCount() {
+        return matchCache.getHitCount();
+    }
+
+    /**
+     * Returns the number of match requests that ran the full matching pass while the cache was enabled.
+     *
+     * @return The miss count.
+     */
+    public long getMatchCacheMissCount() {
+        return matchCache.getMissCount();
+    }
+
+    /**
+     * Sets the number of worker threads used for tiled feature detection on camera frames; off by
+     * default, enable it where {@code TiledDetectionBenchmark} shows a net win on the device.
+     * The change is applied on the GL thread before the next frame.
+     *
+     * @param threads Number of threads; 1 or less detects on the whole image on the GL thread.
+     */
+    public void setDetectionThreads(int threads) {
+        detectionThreads = Math.max(1, threads);
+    }
+
+    /**
+     * Enables or disables detection inside the region where the model was last located.
+     *
+     * @param enabled {@code true} to restrict detection to the last known model region.
+     */
+    public void setRegionOfInterestEnabled(boolean enabled) {
+        regionOfInterestEnabled = enabled;
+    }
+
+    /**
+     * Enables or disables moving the region of interest with the ARCore camera rotation.
+     *
+     * @param enabled {@code true} to project the region through the camera motion.
+     */
+    public void setRegionMotionCompensationEnabled(boolean enabled) {
+        regionMotionCompensationEnabled = enabled;
+    }
+
+    /**
+     * Enables or disables approximate matching against an LSH index of the CAD descriptors.
+     * The index is built by the next matching pass.
+     *
+     * @param enabled {@code true} to match through LSH indexes, {@code false} for brute-force matching.
+     */
+    public void setDescriptorIndexEnabled(boolean enabled) {
+        descriptorIndexEnabled = enabled;
+        indexRebuildRequested = true;
+        matchingConfigChanged = true;
+    }
+
+    /**
+     * Configures the LSH index over the CAD descriptors.
+     * The index is rebuilt by the next matching pass.
+     *
+     * @param tableCount Number of hash tables; more tables raise recall and query cost.
+     * @param keySize    Bits per hash key, at most {@link LshIndex#MAX_KEY_SIZE}; longer keys make smaller buckets.
+     * @param multiProbe {@code true} to also probe buckets one bit away from the query key.
+     */
+    public void setDescriptorIndexParameters(int tableCount, int keySize, boolean multiProbe) {
+        indexTableCount = tableCount;
+        indexKeySize = keySize;
+        indexMultiProbe = multiProbe;
+        indexRebuildRequested = true;
+        matchingConfigChanged = true;
+    }
+
+    /**
+     * Restricts full matching and RANSAC to the CAD views that a bag-of-words vocabulary tree
+     * ranks highest for each frame. The next matching pass starts training the vocabulary on the
+     * matching worker; until it is ready, all views are matched.
+     *
+     * @param viewCount Number of views to match per frame, or 0 to match all views without retrieval.
+     */
+    public void setViewRetrieval(int viewCount) {
+        retrievedViewCount = Math.max(0, viewCount);
+        vocabularyRebuildRequested = true;
+        matchingConfigChanged = true;
+    }
+
     /**
      * Sets the ARCore session and associates the camera texture.
      *
@@ -150,6 +876,7 @@ public class CombinedRenderer implements GLSurfaceView.Renderer {
 
         // Initialize OpenCV renderer
         openCVRenderer.initOpenCV();
+        matchOverlay.initOpenGL();
 
         // Set the camera texture name in the session if available
         if (session != null && textureId != 0) {
@@ -172,6 +899,8 @@ public class CombinedRenderer implements GLSurfaceView.Renderer {
             return;
         }
         GLES32.glViewport(0, 0, width, height);
+        surfaceWidth = width;
+        surfaceHeight = height;
     }
 
     @Override
@@ -181,62 +910,487 @@ public class CombinedRenderer implements GLSurfaceView.Renderer {
             return;
         }
         try {
+            // Apply a pending feature strategy or preprocessing switch and rebuild the CAD database
+            FeatureStrategy strategy = pendingFeatureStrategy;
+            boolean preprocessingChanged = preprocessingChangeRequested;
+            if (strategy != null || preprocessingChanged) {
+                synchronized (detectionLock) {
+                    if (strategy != null) {
+                        pendingFeatureStrategy = null;
+                        openCVRenderer.setFeatureStrategy(strategy);
+                    }
+                    if (preprocessingChanged) {
+                        preprocessingChangeRequested = false;
+                        openCVRenderer.setPreprocessingStages(pendingPreprocessingStages);
+                    }
+
+                    // Tracked and kept descriptors belong to the previous strategy or chain
+                    openCVRenderer.requestFullDetection();
+                }
+                databaseRebuildRequested = true;
+                matchingConfigChanged = true;
+            }
+
+            // Apply a pending thermal profile; matching adopts its view limit with the next pass
+            ThermalProfile profile = thermalProfile;
+            if (profile != appliedThermalProfile) {
+                appliedThermalProfile = profile;
+                matchingConfigChanged = true;
+                applyQualityLevel(frameGovernor.getLevel());
+                Log.i(TAG, "Applied thermal profile " + profile.describe());
+            }
+
+            // Apply a pending tiled detection change
+            int threads = detectionThreads;
+            if (threads != appliedDetectionThreads) {
+                appliedDetectionThreads = threads;
+                synchronized (detectionLock) {
+                    openCVRenderer.setTiledFeatureDetector(threads > 1
+                            ? new TiledFeatureDetector(4, 2, 3.0f, threads) : null);
+                }
+            }
+
+            // Apply a pending match cache change; counters carry over to the new cache
+            if (matchCacheChangeRequested) {
+                matchCacheChangeRequested = false;
+                MatchResultCache previous = matchCache;
+                matchCache = new MatchResultCache(matchCacheTranslationTolerance,
+                        (float) Math.toRadians(matchCacheRotationTolerance), 6, 16);
+                matchCache.addCounts(previous);
+            }
+
+            // Apply a pending leak tracking change
+            boolean leakTracking = matLeakTrackingEnabled;
+            if (leakTracking != appliedMatLeakTracking) {
+                appliedMatLeakTracking = leakTracking;
+                openCVRenderer.getMatPool().setLeakTracking(leakTracking);
+            }
+
+            // Apply the inlier region found by the matching worker
+            RegionUpdate regionUpdate = pendingRegionUpdate;
+            if (regionUpdate != null) {
+                pendingRegionUpdate = null;
+                detectionRegion.update(regionUpdate.xs, regionUpdate.ys, regionUpdate.count, regionUpdate.rotation);
+            }
+
+            // Apply a pending tracking mode change
+            if (trackingEnabled != (openCVRenderer.getKeypointTracker() != null)) {
+                synchronized (detectionLock) {
+                    openCVRenderer.setKeypointTracker(trackingEnabled ? new KeypointTracker() : null);
+                }
+            }
+
+            // Start or stop the staged frame pipeline
+            if (framePipelineEnabled != (framePipeline != null)) {
+                if (framePipelineEnabled) {
+                    startFramePipeline();
+                } else {
+                    stopFramePipeline();
+                }
+            }
+
+            // Apply a pending frame budget governor change; disabling returns to full quality
+            long frameBudget = pendingFrameBudgetNanos;
+            if (frameBudget > 0) {
+                pendingFrameBudgetNanos = 0;
+                frameGovernor.setTargetFrameNanos(frameBudget);
+            }
+            boolean governorEnabled = frameGovernorEnabled;
+            if (governorEnabled != appliedFrameGovernorEnabled) {
+                appliedFrameGovernorEnabled = governorEnabled;
+                frameGovernor.reset();
+                applyQualityLevel(frameGovernor.getLevel());
+            }
+
             // Enable blending for transparency
             GLES32.glEnable(GLES32.GL_BLEND);
             GLES32.glBlendFunc(GLES32.GL_SRC_ALPHA, GLES32.GL_ONE_MINUS_SRC_ALPHA);
 
-            // Clear color and depth buffers
-            GLES32.glClear(GLES32.GL_COLOR_BUFFER_BIT | GLES32.GL_DEPTH_BUFFER_BIT);
+            // Clear color and depth buffers
+            GLES32.glClear(GLES32.GL_COLOR_BUFFER_BIT | GLES32.GL_DEPTH_BUFFER_BIT);
+
+            // Reconfigure the session when the optional features in use changed
+            if (sessionFeaturesChanged) {
+                // Cleared first so a consumer registered meanwhile triggers another reconfiguration
+                sessionFeaturesChanged = false;
+                try {
+                    configureSession(session.getConfig());
+                    Log.i(TAG, "Session reconfigured with " + sessionFeatures);
+                } catch (RuntimeException e) {
+                    // Keep the previous features and try again with the next frame
+                    sessionFeaturesChanged = true;
+                    Log.e(TAG, "Session reconfiguration failed: " + e.getMessage());
+                }
+            }
+
+            // Update the session to get the latest frame, timing it under the current feature profile
+            long updateStart = System.nanoTime();
+            Frame frame = session.update();
+            long updateEnd = System.nanoTime();
+            sessionFeatures.recordUpdate(appliedSessionFeatures, updateEnd - updateStart);
+            if (updateEnd - lastSessionUpdateStatsNanos >= SESSION_UPDATE_STATS_INTERVAL_NANOS) {
+                lastSessionUpdateStatsNanos = updateEnd;
+                for (SessionFeatureProfile.UpdateStats stats : sessionFeatures.getUpdateStats()) {
+                    Log.d(TAG, "Session update " + stats);
+                }
+            }
+
+            // The frame time excludes waiting for the camera in session.update()
+            long frameStart = System.nanoTime();
+
+            // Render the camera feed
+            renderCameraFeed(frame);
+            frameGovernor.recordStage(FrameBudgetGovernor.Stage.RENDER, System.nanoTime() - frameStart);
+
+            // Record the camera rotation and intrinsics for region of interest projection and pose verification
+            updateCameraState(frame.getCamera());
+
+            // Process the camera image only as often as the thermal profile allows, and always for a match
+            boolean processImage = computeRequested || ++framesSinceProcessing >= appliedThermalProfile.processingInterval;
+            if (processImage) {
+                framesSinceProcessing = 0;
+            }
+
+            // Hand the camera image to the staged pipeline, or process it on the GL thread
+            if (framePipeline != null) {
+                submitToFramePipeline(frame, processImage);
+            } else if (processImage) {
+                processCameraFrame(frame);
+            } else {
+                openCVRenderer.renderOpenCV(lastImageWidth, lastImageHeight);
+                renderMatchOverlay(lastImageWidth, lastImageHeight);
+            }
+
+            // Report pooled buffers that were never returned
+            if (appliedMatLeakTracking) {
+                openCVRenderer.getMatPool().reportLeaks(MAT_LEAK_AGE_FRAMES);
+            }
+
+            // Adapt the vision quality to the time this frame took
+            if (appliedFrameGovernorEnabled && processImage) {
+                endGovernedFrame(System.nanoTime() - frameStart);
+            }
+
+            Log.i(TAG, "Frame drawn successfully");
+        } catch (Exception e) {
+            Log.e(TAG, "Exception in onDrawFrame: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Converts, detects, draws and optionally matches the camera image of a frame on the GL thread.
+     *
+     * @param frame The current ARCore frame.
+     */
+    private void processCameraFrame(Frame frame) {
+        // Get the latest camera image
+        Image cameraImage = null;
+        int imageWidth = 0;
+        int imageHeight = 0;
+
+        // The frame scope returns the pooled camera buffers when the frame ends
+        try (MatPool.FrameScope frameScope = openCVRenderer.getMatPool().openScope()) {
+            cameraImage = frame.acquireCameraImage();
+            imageWidth = cameraImage.getWidth();
+            imageHeight = cameraImage.getHeight();
+            lastImageWidth = imageWidth;
+            lastImageHeight = imageHeight;
+            long stageStart = System.nanoTime();
+            Mat grayImage = trackingEnabled ? frameScope.adopt(openCVRenderer.convertImageToGray(cameraImage)) : null;
+            stageStart = recordStage(FrameBudgetGovernor.Stage.CONVERT, stageStart);
+
+            // Restrict detection to the last known model region if available
+            Rect roi = nextDetectionRegion(imageWidth, imageHeight);
+
+            // A pipeline detect stage that outlived the stop timeout may still be running, so the
+            // detector state is only touched under the detection lock
+            Mat matImage = null;
+            long convertNanos = 0;
+            boolean regionRejected;
+            synchronized (detectionLock) {
+                // Run a full detection for the frame that is matched
+                if (computeRequested) {
+                    openCVRenderer.requestFullDetection();
+                }
+
+                // Track keypoints on the luminance plane between detections; only a frame that is not
+                // tracked is converted to RGB for detection, so a requested match always has the image
+                if (openCVRenderer.trackOpenCV(grayImage) == null) {
+                    long convertStart = System.nanoTime();
+                    matImage = frameScope.adopt(openCVRenderer.convertImageToMat(cameraImage));
+                    convertNanos = System.nanoTime() - convertStart;
+                    openCVRenderer.detectOpenCV(matImage, grayImage, roi);
+                }
+                regionRejected = openCVRenderer.isLastRegionRejected();
+            }
+            if (regionRejected) {
+                detectionRegion.invalidate();
+            }
+            frameGovernor.recordStage(FrameBudgetGovernor.Stage.CONVERT, convertNanos);
+            stageStart = recordStage(FrameBudgetGovernor.Stage.DETECT, stageStart + convertNanos);
+
+            // Render OpenCV results
+            openCVRenderer.renderOpenCV(imageWidth, imageHeight);
+            renderMatchOverlay(imageWidth, imageHeight);
+            stageStart = recordStage(FrameBudgetGovernor.Stage.RENDER, stageStart);
+
+            // Perform feature matching if computation is requested
+            if (computeRequested) {
+                computeRequested = false; // Reset the flag immediately
+
+                double matchPercentage = matchWithCache(cameraImage, matImage);
+                Log.i(TAG, "Match Percentage: " + matchPercentage + "%");
+                recordStage(FrameBudgetGovernor.Stage.MATCH, stageStart);
+            }
+
+            // Hand the frame to the matching worker when continuous matching is due
+            scheduleContinuousMatching();
+
+        } catch (NotYetAvailableException e) {
+            Log.w(TAG, "Camera image not yet available.");
+        } finally {
+            if (cameraImage != null) {
+                cameraImage.close(); // Ensure the camera image is released
+            }
+        }
+    }
+
+    /**
+     * Adds the time since the start of a stage to the frame budget governor.
+     *
+     * @param stage      The stage that ended.
+     * @param stageStart {@link System#nanoTime()} at the start of the stage.
+     * @return {@link System#nanoTime()} at the end of the stage, the start of the next one.
+     */
+    private long recordStage(FrameBudgetGovernor.Stage stage, long stageStart) {
+        long now = System.nanoTime();
+        frameGovernor.recordStage(stage, now - stageStart);
+        return now;
+    }
+
+    /**
+     * Ends the frame in the frame budget governor and applies a new quality level if it changed.
+     * Frames skipped by the thermal profile are not recorded. With the staged pipeline the vision
+     * work runs off the GL thread, so the frame time is the longer of the GL thread time and the
+     * smoothed time of the pipeline's detect stage, the slowest stage that sees every frame.
+     *
+     * @param glFrameNanos Time the GL thread spent on the frame after the camera image was available.
+     */
+    private void endGovernedFrame(long glFrameNanos) {
+        long frameNanos = glFrameNanos;
+        CameraFramePipeline pipeline = framePipeline;
+        if (pipeline != null) {
+            long convertNanos = (long) (pipeline.getStats(CameraFramePipeline.Step.CONVERT).processingMs * 1000000);
+            long detectNanos = (long) (pipeline.getStats(CameraFramePipeline.Step.DETECT).processingMs * 1000000);
+            frameGovernor.recordStage(FrameBudgetGovernor.Stage.CONVERT, convertNanos);
+            frameGovernor.recordStage(FrameBudgetGovernor.Stage.DETECT, detectNanos);
+            frameNanos = Math.max(glFrameNanos, detectNanos);
+        }
 
-            // Update the session to get the latest frame
-            Frame frame = session.update();
+        if (frameGovernor.endFrame(frameNanos)) {
+            Log.i(TAG, "Frame budget governor " + frameGovernor.getLastDecision() + ", now " + frameGovernor.getLevel());
+            applyQualityLevel(frameGovernor.getLevel());
+        }
+    }
 
-            // Render the camera feed
-            renderCameraFeed(frame);
+    /**
+     * Sets the detection scale, keypoint budget and detection interval of a quality level. The
+     * detection scale is capped by the thermal profile.
+     *
+     * @param level The quality level.
+     */
+    private void applyQualityLevel(FrameBudgetGovernor.Level level) {
+        synchronized (detectionLock) {
+            openCVRenderer.setDetectionScale(Math.min(level.detectionScale, appliedThermalProfile.detectionScale));
+            openCVRenderer.setMaxKeypoints(level.maxKeypoints);
+            openCVRenderer.setDetectionInterval(level.detectionInterval);
+        }
+    }
 
-            // Get the latest camera image
-            Image cameraImage = null;
-            int imageWidth = 0;
-            int imageHeight = 0;
+    /**
+     * Copies the camera image of a frame into the staged pipeline and draws the latest detections
+     * the pipeline has published.
+     *
+     * @param frame        The current ARCore frame.
+     * @param processImage {@code false} to only draw the latest detections, e.g. on frames skipped by the thermal profile.
+     * @throws InterruptedException If interrupted while a blocking pipeline queue is full.
+     */
+    private void submitToFramePipeline(Frame frame, boolean processImage) throws InterruptedException {
+        CameraFramePipeline pipeline = framePipeline;
+        pipeline.setContinuousMatchInterval(continuousMatchingEnabled ? continuousMatchingIntervalMs : 0);
 
-            try {
+        Image cameraImage = null;
+        try {
+            if (processImage) {
                 cameraImage = frame.acquireCameraImage();
-                imageWidth = cameraImage.getWidth();
-                imageHeight = cameraImage.getHeight();
-                Mat matImage = openCVRenderer.convertImageToMat(cameraImage);
+                Rect roi = nextDetectionRegion(cameraImage.getWidth(), cameraImage.getHeight());
+                boolean submitted = pipeline.submit(cameraImage, trackingEnabled, roi,
+                        cameraTracking ? cameraRotation : null, cameraIntrinsicsValid ? cameraIntrinsics : null,
+                        computeRequested);
+                if (submitted) {
+                    computeRequested = false;
+                }
+            }
+        } catch (NotYetAvailableException e) {
+            Log.w(TAG, "Camera image not yet available.");
+        } finally {
+            if (cameraImage != null) {
+                cameraImage.close(); // The pipeline works on its own copy
+            }
+        }
 
-                // Process the camera image with OpenCV
-                openCVRenderer.processOpenCV(matImage);
+        // Apply the latest published detections
+        if (pendingRegionRejection) {
+            pendingRegionRejection = false;
+            detectionRegion.invalidate();
+        }
+        PublishedDetections detections = publishedDetections;
+        if (detections != null) {
+            openCVRenderer.renderOpenCV(detections.points, detections.width, detections.height);
+            renderMatchOverlay(detections.width, detections.height);
+        }
 
-                // Render OpenCV results
-                openCVRenderer.renderOpenCV(imageWidth, imageHeight);
+        long now = System.nanoTime();
+        if (now - lastPipelineStatsNanos >= PIPELINE_STATS_INTERVAL_NANOS) {
+            lastPipelineStatsNanos = now;
+            pipeline.logStats();
+        }
+    }
 
-                // Perform feature matching if computation is requested
-                if (computeRequested) {
-                    computeRequested = false; // Reset the flag immediately
+    /**
+     * Creates and starts the staged frame pipeline with the configured drop policies.
+     */
+    private void startFramePipeline() {
+        lastPublishedSequence = -1;
+        publishedDetections = null;
+        CameraFramePipeline pipeline = new CameraFramePipeline(openCVRenderer, detectionLock,
+                this::matchPipelineFrame, this::publishPipelineFrame);
+        for (CameraFramePipeline.Step step : CameraFramePipeline.Step.values()) {
+            pipeline.setDropPolicy(step, framePipelineDropPolicies[step.ordinal()]);
+        }
+        pipeline.start();
+        framePipeline = pipeline;
+        Log.i(TAG, "Frame pipeline started");
+    }
 
-                    saveCameraImage(matImage);
-                    drawAndSaveKeypoints(matImage);
-                    double matchPercentage = performMatchingAndCalculateMatchPercentage();
-                    Log.i(TAG, "Match Percentage: " + matchPercentage + "%");
-                }
+    /**
+     * Stops the staged frame pipeline after its queued frames are processed.
+     */
+    private void stopFramePipeline() {
+        CameraFramePipeline pipeline = framePipeline;
+        framePipeline = null;
+        pipeline.stop(PIPELINE_STOP_TIMEOUT_MS);
+        pipeline.logStats();
+        publishedDetections = null;
+        Log.i(TAG, "Frame pipeline stopped");
+    }
 
-                matImage.release();
+    /**
+     * Matches a pipeline frame against the CAD database; runs on the pipeline's match stage.
+     *
+     * @param frame The frame with copies of its detections.
+     */
+    private void matchPipelineFrame(CameraFramePipeline.CameraFrame frame) {
+        long startTime = System.nanoTime();
+        MatchOutcome outcome;
+        synchronized (matchingLock) {
+            applyPendingMatchingConfig();
+            if (cadDatabase.getDescriptors().empty()) {
+                Log.w(TAG, "CAD descriptor database is empty.");
+                return;
+            }
+            outcome = matchAgainstCAD(frame.keypoints, frame.descriptors, frame.intrinsics);
+        }
+        frame.matched = true;
+        frame.matchPercentage = outcome.getMatchPercentage();
+        frame.inlierXs = outcome.inlierXs;
+        frame.inlierYs = outcome.inlierYs;
+        frame.inlierCount = outcome.inlierCount;
+        Log.d(TAG, "Pipeline matched frame " + frame.sequence + " in " + (System.nanoTime() - startTime) / 1000000 + " ms");
+    }
 
-            } catch (NotYetAvailableException e) {
-                Log.w(TAG, "Camera image not yet available.");
-            } finally {
-                if (cameraImage != null) {
-                    cameraImage.close(); // Ensure the camera image is released
-                }
+    /**
+     * Hands the detections and match result of a pipeline frame to the GL thread and the listener;
+     * runs on the pipeline's publish stage.
+     *
+     * @param frame The processed frame.
+     */
+    private void publishPipelineFrame(CameraFramePipeline.CameraFrame frame) {
+        // A matched frame can arrive after newer frames were already published
+        if (frame.points != null && frame.sequence > lastPublishedSequence) {
+            lastPublishedSequence = frame.sequence;
+            publishedDetections = new PublishedDetections(frame.points, frame.width, frame.height);
+            if (frame.regionRejected) {
+                pendingRegionRejection = true;
             }
+        }
+        if (!frame.matched) {
+            return;
+        }
 
-            Log.i(TAG, "Frame drawn successfully");
-        } catch (Exception e) {
-            Log.e(TAG, "Exception in onDrawFrame: " + e.getMessage());
+        pendingRegionUpdate = new RegionUpdate(frame.inlierXs, frame.inlierYs, frame.inlierCount, frame.rotation);
+        if (frame.matchRequested) {
+            Log.i(TAG, "Match Percentage: " + frame.matchPercentage + "%");
+            notifyMatchPercentage(frame.matchPercentage);
+        } else {
+            notifyLiveMatchScore(smoothMatchScore(frame.matchPercentage), frame.matchPercentage);
+        }
+    }
+
+    /**
+     * Draws the markers of the latest match result if the match overlay is enabled.
+     *
+     * @param imageWidth  Width of the camera image.
+     * @param imageHeight Height of the camera image.
+     */
+    private void renderMatchOverlay(int imageWidth, int imageHeight) {
+        if (matchOverlayEnabled) {
+            matchOverlay.render(latestMatchOverlay, imageWidth, imageHeight, surfaceWidth, surfaceHeight);
         }
     }
 
+    /**
+     * Restricts detection to the last known model region if enabled and available.
+     *
+     * @param imageWidth  Width of the camera image.
+     * @param imageHeight Height of the camera image.
+     * @return The detection region, or {@code null} for the full frame.
+     */
+    private Rect nextDetectionRegion(int imageWidth, int imageHeight) {
+        if (!regionOfInterestEnabled) {
+            return null;
+        }
+        boolean project = regionMotionCompensationEnabled && cameraTracking;
+        return detectionRegion.nextRegion(imageWidth, imageHeight,
+                project ? cameraRotation : null, project ? cameraIntrinsics : null);
+    }
+
+    /**
+     * Records the camera rotation and image intrinsics of the current frame.
+     *
+     * @param camera The ARCore camera of the current frame.
+     */
+    private void updateCameraState(Camera camera) {
+        // The intrinsics of the camera image are known while tracking is still starting
+        CameraIntrinsics intrinsics = camera.getImageIntrinsics();
+        float[] focalLength = intrinsics.getFocalLength();
+        float[] principalPoint = intrinsics.getPrincipalPoint();
+        cameraIntrinsics[0] = focalLength[0];
+        cameraIntrinsics[1] = focalLength[1];
+        cameraIntrinsics[2] = principalPoint[0];
+        cameraIntrinsics[3] = principalPoint[1];
+        cameraIntrinsicsValid = focalLength[0] > 0.0f && focalLength[1] > 0.0f;
+
+        cameraTracking = camera.getTrackingState() == TrackingState.TRACKING;
+        matchCache.updateTrackingState(cameraTracking);
+        if (!cameraTracking) {
+            return;
+        }
+
+        camera.getPose().getRotationQuaternion(cameraRotation, 0);
+        camera.getPose().getTranslation(cameraTranslation, 0);
+    }
+
     /**
      * Initializes the camera feed texture and shader program.
      *
@@ -323,29 +1477,52 @@ public class CombinedRenderer implements GLSurfaceView.Renderer {
      * Extracts features from the CAD model projections rendered from multiple viewpoints.
      */
     private void extractFeaturesFromCADProjections() {
-        // Clear previous features
-        cadKeypointsList.clear();
-        cadDescriptorsList.clear();
-
         // Render the CAD model from multiple viewpoints
         renderedImagesList = cadModelLoader.renderCADModelFromViewpoints();
+        renderedGeometryList = cadModelLoader.getViewGeometries();
 
-        int imageIndex = 0;
-        for (Mat renderedImage : renderedImagesList) {
-            // Save the rendered image to external storage
-            String filename = "rendered_image_" + imageIndex + ".png";
-            File directory = new File(context.getExternalFilesDir(null), "RenderedImages");
-            if (!directory.exists()) {
-                directory.mkdirs();
-            }
-            File file = new File(directory, filename);
-            boolean saved = Imgcodecs.imwrite(file.getAbsolutePath(), renderedImage);
-            if (saved) {
-                Log.d(TAG, "Saved rendered image to " + file.getAbsolutePath());
-            } else {
-                Log.e(TAG, "Failed to save rendered image.");
+        if (renderedImagesList == null) {
+            Log.e(TAG, "No CAD projections rendered.");
+            return;
+        }
+
+        // Save the rendered images to external storage on the debug image writer
+        if (debugImageWriter.isEnabled()) {
+            for (int imageIndex = 0; imageIndex < renderedImagesList.size(); imageIndex++) {
+                debugImageWriter.submit(RENDERED_IMAGES_DIRECTORY, "rendered_image_" + imageIndex,
+                        renderedImagesList.get(imageIndex).clone());
             }
+        }
+
+        rebuildCADDescriptorDatabase();
+    }
+
+    /**
+     * Rebuilds the CAD keypoint and descriptor database from the rendered projections
+     * using the active feature strategy. The projections are not re-rendered.
+     */
+    private void rebuildCADDescriptorDatabase() {
+        synchronized (matchingLock) {
+            rebuildCADDescriptorDatabaseLocked();
+        }
+    }
+
+    /**
+     * Rebuilds the CAD descriptor database; the caller holds the matching lock.
+     */
+    private void rebuildCADDescriptorDatabaseLocked() {
+        // Release and clear previous features
+        cadDatabase.release();
+        matchCache.clear();
+        scoreFilterResetRequested = true;
+
+        if (renderedImagesList == null) {
+            Log.w(TAG, "No CAD projections available to build the descriptor database.");
+            return;
+        }
 
+        int imageIndex = 0;
+        for (Mat renderedImage : renderedImagesList) {
             // Extract features using OpenCVRenderer's method
             Pair<MatOfKeyPoint, Mat> features = openCVRenderer.extractFeaturesFromImage(renderedImage);
 
@@ -355,72 +1532,306 @@ public class CombinedRenderer implements GLSurfaceView.Renderer {
                 continue;
             }
 
-            // Store the extracted keypoints and descriptors
-            cadKeypointsList.add(features.first);
-            cadDescriptorsList.add(features.second);
+            // Store the extracted keypoints and descriptors, lifted to model coordinates through the rendered depth
+            ViewGeometry geometry = renderedGeometryList != null && imageIndex < renderedGeometryList.size()
+                    ? renderedGeometryList.get(imageIndex) : null;
+            cadDatabase.addView(imageIndex, features.first, features.second, geometry);
 
             Log.d(TAG, "Extracted " + features.first.size() + " keypoints from CAD rendered image at index " + imageIndex);
 
-            // Draw keypoints on the rendered image for visualisation
-            Mat outputImage = new Mat();
-            Features2d.drawKeypoints(renderedImage, features.first, outputImage);
-
-            // Save the image with keypoints to external storage
-            String keypointsFilename = "rendered_image_with_keypoints_" + imageIndex + ".png";
-            File keypointsFile = new File(directory, keypointsFilename);
-            boolean keypointsSaved = Imgcodecs.imwrite(keypointsFile.getAbsolutePath(), outputImage);
-            if (keypointsSaved) {
-                Log.d(TAG, "Saved rendered image with keypoints to " + keypointsFile.getAbsolutePath());
-            } else {
-                Log.e(TAG, "Failed to save rendered image with keypoints.");
+            // Draw keypoints on the rendered image for visualisation and save it on the debug image writer
+            if (debugImageWriter.isEnabled()) {
+                submitKeypointDrawing(RENDERED_IMAGES_DIRECTORY, "rendered_image_with_keypoints_" + imageIndex,
+                        renderedImage, features.first);
             }
 
             imageIndex++;
         }
+
+        // Merge all views into one descriptor Mat for single-query matching
+        cadDatabase.build();
+
+        Log.i(TAG, "CAD descriptor database built with " + openCVRenderer.getFeatureStrategy().getName()
+                + " for " + cadDatabase.getViewCount() + " views, " + cadDatabase.getDescriptors().rows() + " descriptors");
+
+        buildCADDescriptorIndex();
+        buildCADVocabulary();
+    }
+
+    /**
+     * Applies the matching settings changed since the last matching pass; the caller holds the
+     * matching lock. Every pass calls it first, on the GL thread, the matching worker or the
+     * pipeline's match stage, so the GL thread only flags changes and never waits for a running pass.
+     */
+    private void applyPendingMatchingConfig() {
+        if (!matchingConfigChanged) {
+            return;
+        }
+        // Cleared first so a change requested meanwhile is applied by the next pass
+        matchingConfigChanged = false;
+        boolean changed = false;
+
+        // A view limit needs the retrieval vocabulary
+        ThermalProfile profile = appliedThermalProfile;
+        if (profile != matchingThermalProfile) {
+            matchingThermalProfile = profile;
+            changed = true;
+            if (matchedViewCount() > 0 && cadDatabase.getVocabulary() == null) {
+                vocabularyRebuildRequested = true;
+            }
+        }
+
+        // The rebuild extracts with the renderer's database detector, which must not switch meanwhile;
+        // it also builds the index and the vocabulary
+        if (databaseRebuildRequested) {
+            databaseRebuildRequested = false;
+            indexRebuildRequested = false;
+            vocabularyRebuildRequested = false;
+            synchronized (detectionLock) {
+                rebuildCADDescriptorDatabaseLocked();
+            }
+        }
+        if (indexRebuildRequested) {
+            indexRebuildRequested = false;
+            buildCADDescriptorIndex();
+        }
+        if (vocabularyRebuildRequested) {
+            vocabularyRebuildRequested = false;
+            buildCADVocabulary();
+        }
+
+        boolean mutualCheck = mutualCheckEnabled;
+        if (mutualCheck != appliedMutualCheck) {
+            appliedMutualCheck = mutualCheck;
+            openCVRenderer.setMutualCheckEnabled(mutualCheck);
+            changed = true;
+        }
+
+        // The RANSAC engine uses the same 3px threshold and limits as findHomography. It scores
+        // sequentially, since it already runs on the parallel view matching workers
+        if (ransacEngineEnabled != (homographyEstimator != null)) {
+            homographyEstimator = ransacEngineEnabled
+                    ? new RansacEstimator(new HomographyModel(), 3.0, 0.995, 2000, null, 0x5eedL)
+                    : null;
+            openCVRenderer.setHomographyEstimator(homographyEstimator);
+            changed = true;
+        }
+
+        boolean poseVerification = poseVerificationEnabled;
+        if (poseVerification != appliedPoseVerification) {
+            appliedPoseVerification = poseVerification;
+            viewMatcher.setPoseVerifier(poseVerification ? new PoseVerifier() : null);
+            changed = true;
+        }
+
+        if (changed) {
+            matchCache.clear();
+            scoreFilterResetRequested = true;
+        }
+    }
+
+    /**
+     * Builds the LSH index over the CAD descriptor database,
+     * or removes it when indexed matching is disabled. The caller holds the matching lock.
+     */
+    private void buildCADDescriptorIndex() {
+        matchCache.clear();
+        if (!descriptorIndexEnabled || cadDatabase.getDescriptors().empty()) {
+            cadDatabase.buildIndex(null);
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        LshIndex index = new LshIndex(indexTableCount, indexKeySize, indexMultiProbe, 0x5eedL);
+        cadDatabase.buildIndex(index);
+        Log.i(TAG, "Built CAD descriptor index " + index + " in "
+                + (System.nanoTime() - startTime) / 1000000 + " ms");
+    }
+
+    /**
+     * Returns the number of CAD views matched per frame: the configured view retrieval, limited by
+     * the thermal profile.
+     *
+     * @return Number of retrieved views to match, or 0 to match all views.
+     */
+    private int matchedViewCount() {
+        return matchingThermalProfile.limitViews(retrievedViewCount);
+    }
+
+    /**
+     * Trains the vocabulary tree for view retrieval over the CAD descriptor database on the matching
+     * worker, or removes it when retrieval is disabled. The caller holds the matching lock. Training is
+     * too slow to hold it and runs as a separate job; all views are matched until the tree is installed.
+     * A tree trained for a database or view limit that has changed since is discarded.
+     */
+    private void buildCADVocabulary() {
+        matchCache.clear();
+        cadDatabase.setVocabulary(null);
+        int generation = ++vocabularyGeneration;
+        if (matchedViewCount() <= 0 || cadDatabase.getDescriptors().empty()) {
+            return;
+        }
+
+        // Copy the training input, the database may be rebuilt while the tree trains
+        BinaryDescriptors descriptors = BinaryDescriptors.fromMat(cadDatabase.getDescriptors());
+        int[] rowViews = cadDatabase.getRowViews();
+        int viewCount = cadDatabase.getViewCount();
+
+        matchingExecutor.execute(() -> {
+            try {
+                long startTime = System.nanoTime();
+                VocabularyTree vocabulary = new VocabularyTree();
+                vocabulary.train(descriptors, rowViews, viewCount);
+                synchronized (matchingLock) {
+                    if (generation != vocabularyGeneration) {
+                        Log.d(TAG, "Discarded " + vocabulary + " trained for an outdated CAD database");
+                        return;
+                    }
+                    cadDatabase.setVocabulary(vocabulary);
+                    matchCache.clear();
+                }
+                Log.i(TAG, "Trained " + vocabulary + " in " + (System.nanoTime() - startTime) / 1000000 + " ms");
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Vocabulary training failed: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Queues a keypoint visualisation for the debug image writer; the keypoints are drawn on the writer thread.
+     *
+     * @param subdirectory Directory of the visualisation.
+     * @param name         File name without extension.
+     * @param image        The image the keypoints were detected in; copied.
+     * @param keypoints    The keypoints; copied.
+     */
+    private void submitKeypointDrawing(String subdirectory, String name, Mat image, MatOfKeyPoint keypoints) {
+        Mat imageCopy = image.clone();
+        MatOfKeyPoint keypointsCopy = new MatOfKeyPoint();
+        keypoints.copyTo(keypointsCopy);
+        debugImageWriter.submit(subdirectory, name, new DebugImageWriter.Drawing() {
+            @Override
+            public Mat draw() {
+                Mat outputImage = new Mat();
+                Features2d.drawKeypoints(imageCopy, keypointsCopy, outputImage);
+                return outputImage;
+            }
+
+            @Override
+            public void release() {
+                imageCopy.release();
+                keypointsCopy.release();
+            }
+        });
+    }
+
+    /**
+     * Queues the inlier match visualisation of one CAD view for the debug image writer; the matches
+     * are drawn on the writer thread.
+     *
+     * @param viewIndex         Index of the CAD view, used in the file name.
+     * @param renderedImage     The rendered CAD view; copied.
+     * @param cadKeypoints      Keypoints of the CAD view; copied.
+     * @param processedImage    The processed camera image; copied.
+     * @param detectedKeypoints Keypoints of the camera image; copied.
+     * @param inliers           Inlier matches of the view.
+     */
+    private void submitMatchDrawing(int viewIndex, Mat renderedImage, MatOfKeyPoint cadKeypoints,
+                                    Mat processedImage, MatOfKeyPoint detectedKeypoints, List<DMatch> inliers) {
+        Mat renderedCopy = renderedImage.clone();
+        Mat processedCopy = processedImage.clone();
+        MatOfKeyPoint cadKeypointsCopy = new MatOfKeyPoint();
+        cadKeypoints.copyTo(cadKeypointsCopy);
+        MatOfKeyPoint detectedKeypointsCopy = new MatOfKeyPoint();
+        detectedKeypoints.copyTo(detectedKeypointsCopy);
+        MatOfDMatch matOfInliers = new MatOfDMatch();
+        matOfInliers.fromList(inliers);
+
+        debugImageWriter.submit(MATCH_IMAGES_DIRECTORY, "matches_index_" + viewIndex, new DebugImageWriter.Drawing() {
+            @Override
+            public Mat draw() {
+                Mat imgMatches = new Mat();
+                Features2d.drawMatches(renderedCopy, cadKeypointsCopy, processedCopy, detectedKeypointsCopy,
+                        matOfInliers, imgMatches);
+                return imgMatches;
+            }
+
+            @Override
+            public void release() {
+                renderedCopy.release();
+                processedCopy.release();
+                cadKeypointsCopy.release();
+                detectedKeypointsCopy.release();
+                matOfInliers.release();
+            }
+        });
     }
 
     /**
-     * Saves the current camera image to external storage.
+     * Queues the camera image, its keypoints and the inlier matches of every view for the debug image
+     * writer, so drawing, encoding and storage I/O do not delay the match result.
      *
      * @param matImage The camera image in OpenCV Mat format.
+     * @param results  The per-view match results.
      */
-    private void saveCameraImage(Mat matImage) {
-        String filename = "camera_image.png";
-        File directory = new File(context.getExternalFilesDir(null), "CameraImages");
-        if (!directory.exists()) {
-            directory.mkdirs();
+    private void scheduleDebugImageWrites(Mat matImage, List<ViewMatcher.ViewResult> results) {
+        if (!debugImageWriter.isEnabled()) {
+            return;
         }
-        File file = new File(directory, filename);
-        boolean saved = Imgcodecs.imwrite(file.getAbsolutePath(), matImage);
-        if (saved) {
-            Log.d(TAG, "Saved camera image to " + file.getAbsolutePath());
-        } else {
-            Log.e(TAG, "Failed to save camera image.");
+
+        // Copies are taken here because the originals are reused or released by later frames
+        MatOfKeyPoint detectedKeypoints = openCVRenderer.getDetectedKeyPoints();
+        debugImageWriter.submit(CAMERA_IMAGES_DIRECTORY, "camera_image", matImage.clone());
+        submitKeypointDrawing(CAMERA_IMAGES_DIRECTORY, "camera_image_with_keypoints", matImage, detectedKeypoints);
+        for (ViewMatcher.ViewResult result : results) {
+            if (!result.inliers.isEmpty()) {
+                int source = cadDatabase.getViewSource(result.viewIndex);
+                submitMatchDrawing(source, renderedImagesList.get(source), cadDatabase.getViewKeypoints(result.viewIndex),
+                        openCVRenderer.getLastProcessedImage(), detectedKeypoints, result.inliers);
+            }
         }
     }
 
     /**
-     * Draws keypoints on the camera image and saves it to external storage.
+     * Returns the cached match percentage when the camera has not moved and the image is unchanged
+     * since an earlier request, and runs the full matching pass otherwise.
      *
-     * @param matImage The camera image in OpenCV Mat format.
+     * @param cameraImage The camera image, used for the image signature.
+     * @param matImage    The camera image in OpenCV Mat format.
+     * @return The match percentage as a double value.
      */
-    private void drawAndSaveKeypoints(Mat matImage) {
-        // Draw keypoints on the camera image
-        Mat outputImage = new Mat();
-        Features2d.drawKeypoints(matImage, openCVRenderer.getDetectedKeyPoints(), outputImage);
-
-        // Save the image with keypoints to external storage
-        String keypointsFilename = "camera_image_with_keypoints.png";
-        File directory = new File(context.getExternalFilesDir(null), "CameraImages");
-        if (!directory.exists()) {
-            directory.mkdirs();
-        }
-        File keypointsFile = new File(directory, keypointsFilename);
-        boolean keypointsSaved = Imgcodecs.imwrite(keypointsFile.getAbsolutePath(), outputImage);
-        if (keypointsSaved) {
-            Log.d(TAG, "Saved camera image with keypoints to " + keypointsFile.getAbsolutePath());
-        } else {
-            Log.e(TAG, "Failed to save camera image with keypoints.");
+    private double matchWithCache(Image cameraImage, Mat matImage) {
+        if (!matchCacheEnabled || !cameraTracking) {
+            return performMatchingAndCalculateMatchPercentage(matImage);
+        }
+
+        Image.Plane luminance = cameraImage.getPlanes()[0];
+        long signature = MatchResultCache.imageSignature(luminance.getBuffer(),
+                cameraImage.getWidth(), cameraImage.getHeight(), luminance.getRowStride());
+
+        // Cached results may predate a matching change the next pass applies
+        double cached = matchingConfigChanged ? Double.NaN : matchCache.get(cameraTranslation, cameraRotation, signature);
+        if (!Double.isNaN(cached)) {
+            Log.i(TAG, "Reused cached match result, " + matchCache);
+            notifyMatchPercentage(cached);
+            return cached;
+        }
+
+        double matchPercentage = performMatchingAndCalculateMatchPercentage(matImage);
+        matchCache.put(cameraTranslation, cameraRotation, signature, matchPercentage);
+        return matchPercentage;
+    }
+
+    /**
+     * Posts a match percentage to the listener on the main thread.
+     *
+     * @param matchPercentage The match percentage.
+     */
+    private void notifyMatchPercentage(double matchPercentage) {
+        if (matchPercentageListener != null) {
+            // Ensure the listener is called on the main thread
+            Handler mainHandler = new Handler(Looper.getMainLooper());
+            mainHandler.post(() -> matchPercentageListener.onMatchPercentageCalculated(matchPercentage));
         }
     }
 
@@ -428,11 +1839,11 @@ public class CombinedRenderer implements GLSurfaceView.Renderer {
      * Performs feature matching between the camera image and CAD model projections,
      * and calculates the match percentage.
      *
+     * @param matImage The camera image, used for the debug visualisations.
      * @return The match percentage as a double value.
      */
-    private double performMatchingAndCalculateMatchPercentage() {
-        int totalMatches = 0;
-        int inlierMatches = 0;
+    private double performMatchingAndCalculateMatchPercentage(Mat matImage) {
+        long startTime = System.nanoTime();
 
         // Retrieve detected keypoints and descriptors from the camera image
         MatOfKeyPoint detectedKeypoints = openCVRenderer.getDetectedKeyPoints();
@@ -443,92 +1854,190 @@ public class CombinedRenderer implements GLSurfaceView.Renderer {
 
         if (detectedDescriptors == null || detectedDescriptors.empty()) {
             Log.w(TAG, "Detected descriptors are empty.");
+            detectionRegion.invalidate();
             return 0.0;
         }
 
-        for (int i = 0; i < cadDescriptorsList.size(); i++) {
-            Mat cadDescriptors = cadDescriptorsList.get(i);
-            MatOfKeyPoint cadKeypoints = cadKeypointsList.get(i);
-
-            Log.d(TAG, "CAD keypoints at index " + i + ": " + cadKeypoints.size());
-            Log.d(TAG, "CAD descriptors size at index " + i + ": " + cadDescriptors.size());
-
-            if (cadDescriptors == null || cadDescriptors.empty()) {
-                Log.w(TAG, "CAD descriptors are empty for index " + i);
-                continue;
+        MatchOutcome outcome;
+        synchronized (matchingLock) {
+            applyPendingMatchingConfig();
+            if (cadDatabase.getDescriptors().empty()) {
+                Log.w(TAG, "CAD descriptor database is empty.");
+                return 0.0;
             }
+            outcome = matchAgainstCAD(detectedKeypoints, detectedDescriptors,
+                    cameraIntrinsicsValid ? cameraIntrinsics : null);
+        }
 
-            // Match features between CAD descriptors and detected descriptors
-            List<DMatch> matches = openCVRenderer.matchFeatures(cadDescriptors, detectedDescriptors);
+        // Update the region of interest from the inlier bounding box
+        detectionRegion.update(outcome.inlierXs, outcome.inlierYs, outcome.inlierCount,
+                cameraTracking ? cameraRotation : null);
 
-            Log.d(TAG, "Number of matches between CAD index " + i + " and detected features: " + matches.size());
+        Log.i(TAG, "Matched " + cadDatabase.getViewCount() + " CAD views in "
+                + (System.nanoTime() - startTime) / 1000000 + " ms");
 
-            if (matches.size() < 4) {
-                Log.w(TAG, "Not enough matches to compute homography for CAD index " + i + ". Matches found: " + matches.size());
-                continue;
-            }
+        if (outcome.totalMatches == 0) {
+            Log.w(TAG, "No matches found between CAD model and detected features.");
+            scheduleDebugImageWrites(matImage, outcome.results);
+            return 0.0;
+        }
 
-            totalMatches += matches.size();
+        double matchPercentage = outcome.getMatchPercentage();
+        Log.d(TAG, "Total Matches: " + outcome.totalMatches + ", Inlier Matches: " + outcome.inlierMatches);
 
-            // Filter matches with RANSAC
-            List<DMatch> inliers = openCVRenderer.filterMatchesWithRANSAC(matches, cadKeypoints, detectedKeypoints);
+        // Notify the listener
+        notifyMatchPercentage(matchPercentage);
 
-            Log.d(TAG, "Number of inlier matches after RANSAC for CAD index " + i + ": " + inliers.size());
+        // Write the visualisations once the result has been published
+        scheduleDebugImageWrites(matImage, outcome.results);
 
-            inlierMatches += inliers.size();
+        return matchPercentage;
+    }
 
-            // Visualize matches
-            if (!inliers.isEmpty()) {
-                Mat imgMatches = new Mat();
-                Mat renderedImage = renderedImagesList.get(i); // Get the rendered image
-
-                // Create a MatOfDMatch from the inliers list
-                MatOfDMatch matOfInliers = new MatOfDMatch();
-                matOfInliers.fromList(inliers);
-
-                Features2d.drawMatches(
-                        renderedImage,
-                        cadKeypoints,
-                        openCVRenderer.getLastProcessedImage(),
-                        detectedKeypoints,
-                        matOfInliers,
-                        imgMatches
-                );
-
-                // Save the matches visualization to external storage
-                String matchesFilename = "matches_index_" + i + ".png";
-                File directory = new File(context.getExternalFilesDir(null), "Matches");
-                if (!directory.exists()) {
-                    directory.mkdirs();
-                }
-                File matchesFile = new File(directory, matchesFilename);
-                boolean matchesSaved = Imgcodecs.imwrite(matchesFile.getAbsolutePath(), imgMatches);
-                if (matchesSaved) {
-                    Log.d(TAG, "Saved matches image to " + matchesFile.getAbsolutePath());
-                } else {
-                    Log.e(TAG, "Failed to save matches image.");
-                }
+    /**
+     * Matches camera features against the CAD database and reduces the per-view results.
+     * The caller holds the matching lock; runs on the GL thread or the matching worker.
+     *
+     * @param detectedKeypoints   Keypoints of the camera image.
+     * @param detectedDescriptors Descriptors of the camera image.
+     * @param intrinsics          Camera intrinsics (fx, fy, cx, cy), or {@code null} if unknown.
+     * @return The per-view results, match counts and inlier positions.
+     */
+    private MatchOutcome matchAgainstCAD(MatOfKeyPoint detectedKeypoints, Mat detectedDescriptors, float[] intrinsics) {
+        // Match against all CAD views at once and verify each view concurrently
+        List<ViewMatcher.ViewResult> results = viewMatcher.match(cadDatabase, detectedKeypoints, detectedDescriptors,
+                matchedViewCount(), intrinsics);
+
+        // Reduce the per-view counts and mark camera keypoints that are inliers of any view
+        KeyPoint[] detectedKeypointArray = detectedKeypoints.toArray();
+        boolean[] isInlier = new boolean[detectedKeypointArray.length];
+        int totalMatches = 0;
+        int inlierMatches = 0;
+        for (ViewMatcher.ViewResult result : results) {
+            totalMatches += result.matchCount;
+            inlierMatches += result.inliers.size();
+            for (DMatch inlier : result.inliers) {
+                isInlier[inlier.trainIdx] = true;
+            }
+        }
 
-                imgMatches.release();
+        // Collect the inlier positions for the region of interest
+        float[] inlierXs = new float[detectedKeypointArray.length];
+        float[] inlierYs = new float[detectedKeypointArray.length];
+        int inlierCount = 0;
+        for (int k = 0; k < detectedKeypointArray.length; k++) {
+            if (isInlier[k]) {
+                inlierXs[inlierCount] = (float) detectedKeypointArray[k].pt.x;
+                inlierYs[inlierCount] = (float) detectedKeypointArray[k].pt.y;
+                inlierCount++;
             }
         }
 
-        if (totalMatches == 0) {
-            Log.w(TAG, "No matches found between CAD model and detected features.");
-            return 0.0;
+        // Publish the matched keypoints for the live overlay
+        if (matchOverlayEnabled) {
+            latestMatchOverlay = MatchOverlayData.of(detectedKeypointArray, results);
         }
 
-        double matchPercentage = ((double) inlierMatches / totalMatches) * 100.0;
-        Log.d(TAG, "Total Matches: " + totalMatches + ", Inlier Matches: " + inlierMatches);
+        // Report how well the pooled pose explains its inliers
+        PoseVerifier.Result pose = viewMatcher.getLastPose();
+        if (pose != null) {
+            Log.i(TAG, "Pose inliers " + pose.inlierErrors.count + "/" + pose.correspondenceCount
+                    + ", reprojection error " + pose.inlierErrors);
+        }
 
-        // Notify the listener
-        if (matchPercentageListener != null) {
-            // Ensure the listener is called on the main thread
-            Handler mainHandler = new Handler(Looper.getMainLooper());
-            mainHandler.post(() -> matchPercentageListener.onMatchPercentageCalculated(matchPercentage));
+        return new MatchOutcome(results, totalMatches, inlierMatches, inlierXs, inlierYs, inlierCount);
+    }
+
+    /**
+     * Copies the current detections and matches them on the matching worker when continuous matching
+     * is enabled and the interval has elapsed. The cycle is skipped if the previous run is still busy.
+     */
+    private void scheduleContinuousMatching() {
+        // Keypoints kept from an earlier detection do not describe this frame
+        if (!continuousMatchingEnabled || openCVRenderer.isLastFrameReused()) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (now - lastContinuousMatchNanos < continuousMatchingIntervalMs * 1000000L) {
+            return;
+        }
+        if (!continuousMatchInFlight.compareAndSet(false, true)) {
+            skippedMatchingCycles++;
+            Log.d(TAG, "Skipped continuous matching cycle, previous run still busy (" + skippedMatchingCycles + " skipped)");
+            return;
         }
+        lastContinuousMatchNanos = now;
 
-        return matchPercentage;
+        Mat detectedDescriptors = openCVRenderer.getDetectedDescriptors();
+        if (detectedDescriptors == null || detectedDescriptors.empty()) {
+            continuousMatchInFlight.set(false);
+            return;
+        }
+
+        // Copies are taken on the GL thread because processOpenCV releases the detections of the previous frame
+        MatOfKeyPoint keypoints = new MatOfKeyPoint();
+        openCVRenderer.getDetectedKeyPoints().copyTo(keypoints);
+        Mat descriptors = detectedDescriptors.clone();
+        float[] intrinsics = cameraIntrinsicsValid ? cameraIntrinsics.clone() : null;
+        float[] rotation = cameraTracking ? cameraRotation.clone() : null;
+
+        matchingExecutor.execute(() -> {
+            try {
+                long startTime = System.nanoTime();
+                MatchOutcome outcome;
+                synchronized (matchingLock) {
+                    applyPendingMatchingConfig();
+                    if (cadDatabase.getDescriptors().empty()) {
+                        return;
+                    }
+                    outcome = matchAgainstCAD(keypoints, descriptors, intrinsics);
+                }
+                pendingRegionUpdate = new RegionUpdate(outcome.inlierXs, outcome.inlierYs, outcome.inlierCount, rotation);
+
+                double rawPercentage = outcome.getMatchPercentage();
+                double smoothedPercentage = smoothMatchScore(rawPercentage);
+                Log.d(TAG, "Continuous match " + rawPercentage + "% (smoothed " + smoothedPercentage + "%) in "
+                        + (System.nanoTime() - startTime) / 1000000 + " ms");
+                notifyLiveMatchScore(smoothedPercentage, rawPercentage);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Continuous matching failed: " + e.getMessage());
+            } finally {
+                keypoints.release();
+                descriptors.release();
+                continuousMatchInFlight.set(false);
+            }
+        });
+    }
+
+    /**
+     * Smooths a continuous match percentage; the filter restarts after configuration changes.
+     * Called from the matching worker or the pipeline's publish stage.
+     *
+     * @param rawPercentage The match percentage of the latest run.
+     * @return The smoothed match percentage.
+     */
+    private double smoothMatchScore(double rawPercentage) {
+        synchronized (scoreFilter) {
+            if (scoreFilterResetRequested) {
+                scoreFilterResetRequested = false;
+                scoreFilter.reset();
+            }
+            return scoreFilter.update(rawPercentage, System.nanoTime());
+        }
+    }
+
+    /**
+     * Posts a smoothed live match score to the listener on the main thread.
+     *
+     * @param smoothedPercentage The smoothed match percentage.
+     * @param rawPercentage      The match percentage of the latest run.
+     */
+    private void notifyLiveMatchScore(double smoothedPercentage, double rawPercentage) {
+        MatchPercentageListener listener = matchPercentageListener;
+        if (listener != null) {
+            Handler mainHandler = new Handler(Looper.getMainLooper());
+            mainHandler.post(() -> listener.onLiveMatchScoreUpdated(smoothedPercentage, rawPercentage));
+        }
     }
 
     public void setMatchPercentageListener(MatchPercentageListener listener) {
@@ -0,0 +1,284 @@
+package com.example.myapplication;
+
+import android.util.Log;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfInt;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+
+/**
+ * The {@code DebugImageWriter} class encodes and writes debug images on a background thread, so PNG
+ * encoding and storage I/O never run on the render loop. Images wait in a bounded {@link FrameQueue};
+ * when it is full the oldest image is dropped and counted. A submitted image is either a finished
+ * {@link Mat} or a {@link Drawing} that produces one on the writer thread, e.g. a keypoint or match
+ * visualisation. The writer takes ownership of what is submitted and releases it once written or
+ * dropped. Images are encoded as PNG with a compression level, JPEG with a quality, or dumped raw.
+ * While disabled, submissions are released at once, so callers can skip preparing them.
+ */
+public class DebugImageWriter {
+
+    private static final String TAG = "DebugImageWriter";
+
+    /**
+     * How images are encoded.
+     */
+    public enum Format {
+        /** Lossless PNG; the level (0-9) trades encoding time for size. */
+        PNG,
+        /** Lossy JPEG; the level is the quality (0-100). */
+        JPEG,
+        /** The pixel data as stored in the {@code Mat}, without a header; the size and type are in the file name. */
+        RAW
+    }
+
+    /**
+     * Produces an image on the writer thread.
+     */
+    public interface Drawing {
+        /**
+         * @return The image to write; released by the writer.
+         */
+        Mat draw();
+
+        /**
+         * Releases the inputs of the drawing; called once, after {@link #draw()} or when dropped.
+         */
+        void release();
+    }
+
+    /**
+     * An encoder setting; replaced as a whole so the writer never sees a format with the level of another.
+     */
+    private static final class Encoder {
+        final Format format;
+        final int level;
+
+        Encoder(Format format, int level) {
+            this.format = format;
+            this.level = level;
+        }
+    }
+
+    private static final class DebugImage {
+        final File directory;
+        final String name;
+        final Mat image;
+        final Drawing drawing;
+
+        DebugImage(File directory, String name, Mat image, Drawing drawing) {
+            this.directory = directory;
+            this.name = name;
+            this.image = image;
+            this.drawing = drawing;
+        }
+
+        void release() {
+            if (image != null) {
+                image.release();
+            }
+            if (drawing != null) {
+                drawing.release();
+            }
+        }
+    }
+
+    private final File baseDirectory;
+    private final FrameQueue<DebugImage> queue;
+    private final PipelineStage<DebugImage> stage;
+
+    private volatile boolean enabled = true;
+    private volatile Encoder encoder;
+    private long writtenCount = 0;
+
+    /**
+     * Constructs and starts a new {@code DebugImageWriter}.
+     *
+     * @param baseDirectory Directory the image subdirectories are created in.
+     * @param capacity      Number of images that can wait to be written.
+     * @param format        How images are encoded.
+     * @param level         PNG compression level or JPEG quality; ignored for raw dumps.
+     */
+    public DebugImageWriter(File baseDirectory, int capacity, Format format, int level) {
+        this.baseDirectory = baseDirectory;
+        this.queue = new FrameQueue<>(capacity, FrameQueue.DropPolicy.DROP_OLDEST);
+        this.stage = new PipelineStage<>(TAG, queue, null, this::write, DebugImage::release);
+        setEncoder(format, level);
+        stage.start();
+    }
+
+    /**
+     * Sets how images are encoded; applies to images written from now on.
+     *
+     * @param format How images are encoded.
+     * @param level  PNG compression level (0-9) or JPEG quality (0-100); ignored for raw dumps.
+     */
+    public void setEncoder(Format format, int level) {
+        if (format == Format.PNG && (level < 0 || level > 9)) {
+            throw new IllegalArgumentException("PNG compression level must be in [0, 9]");
+        }
+        if (format == Format.JPEG && (level < 0 || level > 100)) {
+            throw new IllegalArgumentException("JPEG quality must be in [0, 100]");
+        }
+        this.encoder = new Encoder(format, level);
+    }
+
+    /**
+     * Turns debug image output on or off. While off, submitted images are released without being queued.
+     *
+     * @param enabled {@code true} to write debug images.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues an image for writing and takes ownership of it.
+     *
+     * @param subdirectory Directory under the base directory.
+     * @param name         File name without extension.
+     * @param image        The image; released by the writer.
+     * @return {@code true} if the image was queued.
+     */
+    public boolean submit(String subdirectory, String name, Mat image) {
+        return enqueue(new DebugImage(new File(baseDirectory, subdirectory), name, image, null));
+    }
+
+    /**
+     * Queues a drawing for writing and takes ownership of it; the drawing runs on the writer thread.
+     *
+     * @param subdirectory Directory under the base directory.
+     * @param name         File name without extension.
+     * @param drawing      Produces the image; released by the writer.
+     * @return {@code true} if the drawing was queued.
+     */
+    public boolean submit(String subdirectory, String name, Drawing drawing) {
+        return enqueue(new DebugImage(new File(baseDirectory, subdirectory), name, null, drawing));
+    }
+
+    private boolean enqueue(DebugImage debugImage) {
+        if (!enabled) {
+            debugImage.release();
+            return false;
+        }
+        DebugImage dropped;
+        try {
+            dropped = queue.offer(debugImage);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped = debugImage;
+        }
+        if (dropped != null) {
+            dropped.release();
+            Log.w(TAG, "Debug image queue full, dropped " + dropped.name + " (" + queue.getDroppedCount() + " dropped)");
+        }
+        return dropped != debugImage;
+    }
+
+    /**
+     * Encodes and writes one image; runs on the writer thread.
+     */
+    private DebugImage write(DebugImage debugImage) throws IOException {
+        Mat image = debugImage.image;
+        try {
+            if (debugImage.drawing != null) {
+                image = debugImage.drawing.draw();
+            }
+            if (!debugImage.directory.isDirectory() && !debugImage.directory.mkdirs()) {
+                Log.e(TAG, "Failed to create debug image directory " + debugImage.directory.getAbsolutePath()
+                        + ", skipping " + debugImage.name);
+                return null;
+            }
+
+            Encoder imageEncoder = encoder;
+            File file;
+            boolean saved;
+            if (imageEncoder.format == Format.RAW) {
+                file = new File(debugImage.directory, String.format(Locale.US, "%s_%dx%d_%s.raw",
+                        debugImage.name, image.cols(), image.rows(), CvType.typeToString(image.type())));
+                saved = writeRaw(file, image);
+            } else {
+                boolean png = imageEncoder.format == Format.PNG;
+                file = new File(debugImage.directory, debugImage.name + (png ? ".png" : ".jpg"));
+                MatOfInt parameters = new MatOfInt(png ? Imgcodecs.IMWRITE_PNG_COMPRESSION : Imgcodecs.IMWRITE_JPEG_QUALITY, imageEncoder.level);
+                saved = Imgcodecs.imwrite(file.getAbsolutePath(), image, parameters);
+                parameters.release();
+            }
+
+            if (saved) {
+                synchronized (this) {
+                    writtenCount++;
+                }
+                Log.d(TAG, "Saved debug image to " + file.getAbsolutePath());
+            } else {
+                Log.e(TAG, "Failed to save debug image " + file.getAbsolutePath());
+            }
+        } finally {
+            if (debugImage.drawing != null && image != null) {
+                image.release();
+            }
+            debugImage.release();
+        }
+
+        // Nothing is forwarded; the image was consumed
+        return null;
+    }
+
+    /**
+     * Dumps the pixel data of an 8-bit image row by row.
+     */
+    private static boolean writeRaw(File file, Mat image) throws IOException {
+        if (image.depth() != CvType.CV_8U) {
+            Log.e(TAG, "Raw dumps support 8-bit images only, got " + CvType.typeToString(image.type()));
+            return false;
+        }
+        byte[] row = new byte[image.cols() * image.channels()];
+        try (OutputStream output = new FileOutputStream(file)) {
+            for (int y = 0; y < image.rows(); y++) {
+                image.get(y, 0, row);
+                output.write(row);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stops the writer after the queued images are written.
+     *
+     * @param timeoutMs Longest time to wait for the writer thread.
+     */
+    public void stop(long timeoutMs) {
+        try {
+            stage.stop(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public synchronized long getWrittenCount() {
+        return writtenCount;
+    }
+
+    public long getDroppedCount() {
+        return queue.getDroppedCount();
+    }
+
+    /**
+     * Returns the queue depth, throughput and write time of the writer.
+     *
+     * @return A snapshot of the writer statistics.
+     */
+    public PipelineStage.Stats getStats() {
+        return stage.getStats();
+    }
+}
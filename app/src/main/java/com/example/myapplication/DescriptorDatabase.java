@@ -0,0 +1,361 @@
+package com.example.myapplication;
+
+import org.opencv.core.Core;
+import org.opencv.core.DMatch;
+import org.opencv.core.KeyPoint;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfKeyPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@code DescriptorDatabase} class holds the descriptors of all CAD views concatenated into a
+ * single {@code Mat}, so a camera frame is matched with one k-nearest-neighbour query and the
+ * ratio test compares candidates from every view. A row table maps each database row back to its
+ * view and to the keypoint within that view. Views added with their rendered geometry also keep the
+ * model coordinates of every keypoint, for 2D-3D pose verification.
+ */
+public class DescriptorDatabase {
+
+    private final List<MatOfKeyPoint> viewKeypoints = new ArrayList<>();
+    private final List<Mat> viewDescriptors = new ArrayList<>();
+    private final List<Integer> viewSources = new ArrayList<>();
+
+    // Model coordinates (x, y, z) of every keypoint per view; NaN where the keypoint is off the model
+    private final List<float[]> viewPoints = new ArrayList<>();
+
+    private Mat descriptors = new Mat();
+
+    // Row r of the merged descriptors belongs to view rowTable[2r] and keypoint rowTable[2r + 1]
+    private int[] rowTable = new int[0];
+
+    private LshIndex index;
+    private VocabularyTree vocabulary;
+
+    // First merged row of every view, plus the total row count at the end
+    private int[] viewRowStarts = new int[1];
+
+    /**
+     * Adds the features of one view. The database takes ownership of both {@code Mat}s.
+     * Must be followed by {@link #build()} before matching.
+     *
+     * @param sourceIndex Index of the rendered image the features were extracted from.
+     * @param keypoints   Keypoints of the view.
+     * @param descriptors Descriptors of the view, one row per keypoint.
+     */
+    public void addView(int sourceIndex, MatOfKeyPoint keypoints, Mat descriptors) {
+        addView(sourceIndex, keypoints, descriptors, null);
+    }
+
+    /**
+     * Adds the features of one view and lifts its keypoints to model coordinates.
+     * The database takes ownership of both {@code Mat}s. Must be followed by {@link #build()} before matching.
+     *
+     * @param sourceIndex Index of the rendered image the features were extracted from.
+     * @param keypoints   Keypoints of the view.
+     * @param descriptors Descriptors of the view, one row per keypoint.
+     * @param geometry    Depth and unprojection of the rendered view, or {@code null} if not available.
+     */
+    public void addView(int sourceIndex, MatOfKeyPoint keypoints, Mat descriptors, ViewGeometry geometry) {
+        viewKeypoints.add(keypoints);
+        viewDescriptors.add(descriptors);
+        viewSources.add(sourceIndex);
+        viewPoints.add(geometry != null ? liftKeypoints(keypoints, geometry) : null);
+    }
+
+    /**
+     * Unprojects every keypoint of a view through its rendered depth.
+     */
+    private static float[] liftKeypoints(MatOfKeyPoint keypoints, ViewGeometry geometry) {
+        KeyPoint[] keypointArray = keypoints.toArray();
+        float[] points = new float[keypointArray.length * 3];
+        float[] point = new float[3];
+        for (int i = 0; i < keypointArray.length; i++) {
+            if (geometry.unproject((float) keypointArray[i].pt.x, (float) keypointArray[i].pt.y, point)) {
+                points[3 * i] = point[0];
+                points[3 * i + 1] = point[1];
+                points[3 * i + 2] = point[2];
+            } else {
+                points[3 * i] = Float.NaN;
+                points[3 * i + 1] = Float.NaN;
+                points[3 * i + 2] = Float.NaN;
+            }
+        }
+        return points;
+    }
+
+    /**
+     * Concatenates the added view descriptors and builds the row table.
+     * The per-view descriptor {@code Mat}s are released afterwards.
+     */
+    public void build() {
+        descriptors.release();
+        descriptors = new Mat();
+        if (!viewDescriptors.isEmpty()) {
+            Core.vconcat(viewDescriptors, descriptors);
+        }
+
+        rowTable = new int[descriptors.rows() * 2];
+        viewRowStarts = new int[viewDescriptors.size() + 1];
+        int row = 0;
+        for (int view = 0; view < viewDescriptors.size(); view++) {
+            viewRowStarts[view] = row;
+            int rows = viewDescriptors.get(view).rows();
+            for (int keypoint = 0; keypoint < rows; keypoint++, row++) {
+                rowTable[2 * row] = view;
+                rowTable[2 * row + 1] = keypoint;
+            }
+            viewDescriptors.get(view).release();
+        }
+        viewRowStarts[viewDescriptors.size()] = row;
+        viewDescriptors.clear();
+        index = null;
+        vocabulary = null;
+    }
+
+    /**
+     * Builds an LSH index over the merged descriptors, or removes the index.
+     *
+     * @param lshIndex An unbuilt index to build over the database, or {@code null} for brute-force matching.
+     */
+    public void buildIndex(LshIndex lshIndex) {
+        if (lshIndex != null) {
+            lshIndex.build(BinaryDescriptors.fromMat(descriptors));
+        }
+        index = lshIndex;
+    }
+
+    /**
+     * Trains a vocabulary tree over the merged descriptors for view retrieval, or removes it.
+     *
+     * @param vocabularyTree An untrained vocabulary tree, or {@code null} to match against all views.
+     */
+    public void buildVocabulary(VocabularyTree vocabularyTree) {
+        if (vocabularyTree != null) {
+            vocabularyTree.train(BinaryDescriptors.fromMat(descriptors), getRowViews(), viewKeypoints.size());
+        }
+        vocabulary = vocabularyTree;
+    }
+
+    /**
+     * Installs a vocabulary tree trained elsewhere over the merged descriptors and {@link #getRowViews()},
+     * e.g. on a background thread, or removes it.
+     *
+     * @param trainedVocabulary A trained vocabulary tree, or {@code null} to match against all views.
+     */
+    public void setVocabulary(VocabularyTree trainedVocabulary) {
+        vocabulary = trainedVocabulary;
+    }
+
+    /**
+     * Returns the view of every row of the merged descriptors.
+     *
+     * @return The view index per descriptor row.
+     */
+    public int[] getRowViews() {
+        int[] rowViews = new int[descriptors.rows()];
+        for (int row = 0; row < rowViews.length; row++) {
+            rowViews[row] = rowTable[2 * row];
+        }
+        return rowViews;
+    }
+
+    /**
+     * Copies the descriptors of a subset of views into a new {@code Mat}.
+     *
+     * @param views  The views to copy, in output order.
+     * @param rowMap Output database row of every copied row; must hold at least the copied row count.
+     * @return The copied descriptors; the caller releases the {@code Mat}.
+     */
+    public Mat copyViews(int[] views, int[] rowMap) {
+        List<Mat> parts = new ArrayList<>(views.length);
+        int copied = 0;
+        for (int view : views) {
+            int start = viewRowStarts[view];
+            int end = viewRowStarts[view + 1];
+            if (end > start) {
+                parts.add(descriptors.rowRange(start, end));
+                for (int row = start; row < end; row++) {
+                    rowMap[copied++] = row;
+                }
+            }
+        }
+        Mat subset = new Mat();
+        if (!parts.isEmpty()) {
+            Core.vconcat(parts, subset);
+        }
+        for (Mat part : parts) {
+            part.release();
+        }
+        return subset;
+    }
+
+    /**
+     * Splits matches against the merged descriptors into one list per view. Input matches use the
+     * camera row as {@code queryIdx} and the database row as {@code trainIdx}; the returned matches
+     * use the keypoint within the view as {@code queryIdx} and the camera row as {@code trainIdx},
+     * as expected by {@link OpenCVRenderer#filterMatchesWithRANSAC}.
+     *
+     * @param matches Matches against the merged descriptors.
+     * @return One match list per view, indexed by view.
+     */
+    public List<List<DMatch>> groupByView(List<DMatch> matches) {
+        return groupByView(matches, null);
+    }
+
+    /**
+     * Splits matches against a copy made by {@link #copyViews} into one list per view.
+     *
+     * @param matches Matches against the copied descriptors.
+     * @param rowMap  Database row of every copied row, or {@code null} for matches against the merged descriptors.
+     * @return One match list per view, indexed by view.
+     */
+    public List<List<DMatch>> groupByView(List<DMatch> matches, int[] rowMap) {
+        List<List<DMatch>> grouped = new ArrayList<>(viewKeypoints.size());
+        for (int view = 0; view < viewKeypoints.size(); view++) {
+            grouped.add(new ArrayList<>());
+        }
+        for (DMatch match : matches) {
+            int row = rowMap != null ? rowMap[match.trainIdx] : match.trainIdx;
+            grouped.get(rowTable[2 * row]).add(new DMatch(rowTable[2 * row + 1], match.queryIdx, match.distance));
+        }
+        return grouped;
+    }
+
+    /**
+     * Splits a match buffer against the merged descriptors, or against a copy made by
+     * {@link #copyViews}, into one list per view. Only the grouped matches become {@link DMatch} objects.
+     *
+     * @param matches Matches with the camera row as query and the database or copied row as train.
+     * @param rowMap  Database row of every copied row, or {@code null} for matches against the merged descriptors.
+     * @return One match list per view, indexed by view.
+     */
+    public List<List<DMatch>> groupByView(MatchBuffer matches, int[] rowMap) {
+        List<List<DMatch>> grouped = new ArrayList<>(viewKeypoints.size());
+        for (int view = 0; view < viewKeypoints.size(); view++) {
+            grouped.add(new ArrayList<>());
+        }
+        for (int i = 0; i < matches.size(); i++) {
+            int row = rowMap != null ? rowMap[matches.getTrainIndex(i)] : matches.getTrainIndex(i);
+            grouped.get(rowTable[2 * row]).add(new DMatch(rowTable[2 * row + 1], matches.getQueryIndex(i), matches.getDistance(i)));
+        }
+        return grouped;
+    }
+
+    /**
+     * Returns the merged descriptors of all views.
+     *
+     * @return The descriptor {@code Mat}, empty before {@link #build()}.
+     */
+    public Mat getDescriptors() {
+        return descriptors;
+    }
+
+    /**
+     * Returns the LSH index over the merged descriptors.
+     *
+     * @return The index, or {@code null} when brute-force matching is used.
+     */
+    public LshIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns the vocabulary tree used for view retrieval.
+     *
+     * @return The vocabulary, or {@code null} when all views are matched.
+     */
+    public VocabularyTree getVocabulary() {
+        return vocabulary;
+    }
+
+    /**
+     * Returns the number of views.
+     *
+     * @return The view count.
+     */
+    public int getViewCount() {
+        return viewKeypoints.size();
+    }
+
+    /**
+     * Returns the keypoints of a view.
+     *
+     * @param view The view index.
+     * @return The view keypoints.
+     */
+    public MatOfKeyPoint getViewKeypoints(int view) {
+        return viewKeypoints.get(view);
+    }
+
+    /**
+     * Returns the model coordinates of a view keypoint.
+     *
+     * @param view     The view index.
+     * @param keypoint The keypoint index within the view.
+     * @param out      Receives the model coordinates (x, y, z).
+     * @return {@code true} if the view has geometry and the keypoint lies on the model.
+     */
+    public boolean getViewPoint(int view, int keypoint, float[] out) {
+        float[] points = viewPoints.get(view);
+        if (points == null || Float.isNaN(points[3 * keypoint])) {
+            return false;
+        }
+        out[0] = points[3 * keypoint];
+        out[1] = points[3 * keypoint + 1];
+        out[2] = points[3 * keypoint + 2];
+        return true;
+    }
+
+    /**
+     * Returns the index of the rendered image a view was extracted from.
+     *
+     * @param view The view index.
+     * @return The rendered image index.
+     */
+    public int getViewSource(int view) {
+        return viewSources.get(view);
+    }
+
+    /**
+     * Returns the view a database row belongs to.
+     *
+     * @param row The database row.
+     * @return The view index.
+     */
+    public int getRowView(int row) {
+        return rowTable[2 * row];
+    }
+
+    /**
+     * Returns the keypoint within its view for a database row.
+     *
+     * @param row The database row.
+     * @return The keypoint index within the view.
+     */
+    public int getRowKeypoint(int row) {
+        return rowTable[2 * row + 1];
+    }
+
+    /**
+     * Releases all keypoints and descriptors.
+     */
+    public void release() {
+        for (MatOfKeyPoint keypoints : viewKeypoints) {
+            keypoints.release();
+        }
+        for (Mat viewDescriptor : viewDescriptors) {
+            viewDescriptor.release();
+        }
+        viewKeypoints.clear();
+        viewDescriptors.clear();
+        viewSources.clear();
+        viewPoints.clear();
+        descriptors.release();
+        rowTable = new int[0];
+        viewRowStarts = new int[1];
+        index = null;
+        vocabulary = null;
+    }
+}
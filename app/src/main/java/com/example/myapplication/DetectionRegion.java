@@ -0,0 +1,233 @@
+package com.example.myapplication;
+
+import org.opencv.core.Rect;
+
+/**
+ * The {@code DetectionRegion} class remembers where the CAD model was last located in the
+ * camera image, as the bounding box of the RANSAC inliers, and turns it into a detection
+ * region of interest for later frames. The box is expanded by a margin and can optionally be
+ * moved with the camera rotation measured by ARCore since the box was recorded. The region
+ * expires after a number of frames or when it is invalidated because the model was lost.
+ */
+public class DetectionRegion {
+
+    private final float margin;
+    private final int maxAgeFrames;
+    private final int minInliers;
+
+    private boolean valid;
+    private float left;
+    private float top;
+    private float right;
+    private float bottom;
+    private int ageFrames;
+
+    // Camera rotation (qx, qy, qz, qw) when the box was recorded, or null if unknown
+    private float[] anchorRotation;
+
+    /**
+     * Constructs a new {@code DetectionRegion}.
+     *
+     * @param margin       Fraction of the box width/height added on each side.
+     * @param maxAgeFrames Number of frames after which the region expires without an update.
+     * @param minInliers   Minimum number of inliers for a box to be accepted.
+     */
+    public DetectionRegion(float margin, int maxAgeFrames, int minInliers) {
+        this.margin = margin;
+        this.maxAgeFrames = maxAgeFrames;
+        this.minInliers = minInliers;
+    }
+
+    /**
+     * Constructs a {@code DetectionRegion} with a 25% margin and a ten second lifetime at 30 fps.
+     */
+    public DetectionRegion() {
+        this(0.25f, 300, 8);
+    }
+
+    /**
+     * Records the bounding box of the inlier keypoints of the latest match.
+     * Invalidates the region if there are too few inliers to locate the model.
+     *
+     * @param xs             Inlier x coordinates in the camera image.
+     * @param ys             Inlier y coordinates in the camera image.
+     * @param count          Number of inliers in the arrays.
+     * @param cameraRotation Camera rotation quaternion (qx, qy, qz, qw) of the matched frame, or {@code null}.
+     */
+    public void update(float[] xs, float[] ys, int count, float[] cameraRotation) {
+        if (count < minInliers) {
+            invalidate();
+            return;
+        }
+
+        left = Float.MAX_VALUE;
+        top = Float.MAX_VALUE;
+        right = -Float.MAX_VALUE;
+        bottom = -Float.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            left = Math.min(left, xs[i]);
+            top = Math.min(top, ys[i]);
+            right = Math.max(right, xs[i]);
+            bottom = Math.max(bottom, ys[i]);
+        }
+
+        anchorRotation = cameraRotation != null ? cameraRotation.clone() : null;
+        ageFrames = 0;
+        valid = true;
+    }
+
+    /**
+     * Forgets the region so that the next detection scans the full frame.
+     */
+    public void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Returns whether a region is currently available.
+     *
+     * @return {@code true} if the region is valid.
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * Returns the detection region for the next frame and ages the region by one frame.
+     *
+     * @param width           The image width.
+     * @param height          The image height.
+     * @param currentRotation Current camera rotation quaternion (qx, qy, qz, qw), or {@code null} to skip motion compensation.
+     * @param intrinsics      Image intrinsics (fx, fy, cx, cy), or {@code null} to skip motion compensation.
+     * @return The region clamped to the image, or {@code null} if detection should use the full frame.
+     */
+    public Rect nextRegion(int width, int height, float[] currentRotation, float[] intrinsics) {
+        if (!valid) {
+            return null;
+        }
+        if (++ageFrames > maxAgeFrames) {
+            invalidate();
+            return null;
+        }
+
+        float boxLeft = left;
+        float boxTop = top;
+        float boxRight = right;
+        float boxBottom = bottom;
+
+        // Move the box with the camera rotation since it was recorded
+        if (anchorRotation != null && currentRotation != null && intrinsics != null) {
+            double[] h = rotationHomography(anchorRotation, currentRotation, intrinsics);
+            float[] corners = {left, top, right, top, right, bottom, left, bottom};
+            boxLeft = Float.MAX_VALUE;
+            boxTop = Float.MAX_VALUE;
+            boxRight = -Float.MAX_VALUE;
+            boxBottom = -Float.MAX_VALUE;
+            for (int i = 0; i < 4; i++) {
+                double x = corners[i * 2];
+                double y = corners[i * 2 + 1];
+                double w = h[6] * x + h[7] * y + h[8];
+                if (w <= 1e-6) {
+                    // The box moved behind the camera
+                    invalidate();
+                    return null;
+                }
+                float px = (float) ((h[0] * x + h[1] * y + h[2]) / w);
+                float py = (float) ((h[3] * x + h[4] * y + h[5]) / w);
+                boxLeft = Math.min(boxLeft, px);
+                boxTop = Math.min(boxTop, py);
+                boxRight = Math.max(boxRight, px);
+                boxBottom = Math.max(boxBottom, py);
+            }
+        }
+
+        // Expand by the margin and clamp to the image
+        float marginX = (boxRight - boxLeft) * margin;
+        float marginY = (boxBottom - boxTop) * margin;
+        int x0 = Math.max(0, (int) Math.floor(boxLeft - marginX));
+        int y0 = Math.max(0, (int) Math.floor(boxTop - marginY));
+        int x1 = Math.min(width, (int) Math.ceil(boxRight + marginX));
+        int y1 = Math.min(height, (int) Math.ceil(boxBottom + marginY));
+
+        if (x1 - x0 < 16 || y1 - y0 < 16) {
+            // The region left the image or collapsed
+            invalidate();
+            return null;
+        }
+
+        return new Rect(x0, y0, x1 - x0, y1 - y0);
+    }
+
+    /**
+     * Computes the homography {@code K * R * K^-1} that maps image points of the anchor frame
+     * to the current frame for a pure camera rotation. Poses follow the ARCore convention
+     * (x right, y up, camera looking down -z) and are converted to the image convention.
+     *
+     * @param anchor     Anchor rotation quaternion (qx, qy, qz, qw).
+     * @param current    Current rotation quaternion (qx, qy, qz, qw).
+     * @param intrinsics Image intrinsics (fx, fy, cx, cy).
+     * @return The row-major 3x3 homography.
+     */
+    static double[] rotationHomography(float[] anchor, float[] current, float[] intrinsics) {
+        double[] ra = quaternionToMatrix(anchor);
+        double[] rc = quaternionToMatrix(current);
+
+        // Relative rotation from anchor camera to current camera: Rc^T * Ra
+        double[] rel = new double[9];
+        for (int r = 0; r < 3; r++) {
+            for (int c = 0; c < 3; c++) {
+                double sum = 0;
+                for (int k = 0; k < 3; k++) {
+                    sum += rc[k * 3 + r] * ra[k * 3 + c];
+                }
+                rel[r * 3 + c] = sum;
+            }
+        }
+
+        // Flip y and z to go from the ARCore camera frame to the image camera frame: F * rel * F
+        for (int r = 0; r < 3; r++) {
+            for (int c = 0; c < 3; c++) {
+                if ((r == 0) != (c == 0)) {
+                    rel[r * 3 + c] = -rel[r * 3 + c];
+                }
+            }
+        }
+
+        double fx = intrinsics[0];
+        double fy = intrinsics[1];
+        double cx = intrinsics[2];
+        double cy = intrinsics[3];
+
+        // K * rel
+        double[] kr = new double[9];
+        for (int c = 0; c < 3; c++) {
+            kr[c] = fx * rel[c] + cx * rel[6 + c];
+            kr[3 + c] = fy * rel[3 + c] + cy * rel[6 + c];
+            kr[6 + c] = rel[6 + c];
+        }
+
+        // (K * rel) * K^-1, with K^-1 = [1/fx 0 -cx/fx; 0 1/fy -cy/fy; 0 0 1]
+        double[] h = new double[9];
+        for (int r = 0; r < 3; r++) {
+            h[r * 3] = kr[r * 3] / fx;
+            h[r * 3 + 1] = kr[r * 3 + 1] / fy;
+            h[r * 3 + 2] = kr[r * 3 + 2] - kr[r * 3] * cx / fx - kr[r * 3 + 1] * cy / fy;
+        }
+        return h;
+    }
+
+    /**
+     * Converts a unit quaternion (qx, qy, qz, qw) to a row-major 3x3 rotation matrix.
+     */
+    private static double[] quaternionToMatrix(float[] q) {
+        double x = q[0];
+        double y = q[1];
+        double z = q[2];
+        double w = q[3];
+        return new double[]{
+                1 - 2 * (y * y + z * z), 2 * (x * y - z * w), 2 * (x * z + y * w),
+                2 * (x * y + z * w), 1 - 2 * (x * x + z * z), 2 * (y * z - x * w),
+                2 * (x * z - y * w), 2 * (y * z + x * w), 1 - 2 * (x * x + y * y)
+        };
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.myapplication;
+
+/**
+ * The {@code EssentialModel} class fits the essential matrix between two views of a calibrated
+ * camera with the eight-point algorithm, projecting the solution onto the essential manifold
+ * (two equal singular values, one zero). Correspondences are pixel coordinates
+ * {@code x1, y1, x2, y2}; the model is the row-major 3x3 matrix with {@code x2^T E x1 = 0} in
+ * normalised camera coordinates. The error is the Sampson distance, scaled to squared pixels.
+ */
+public class EssentialModel implements RansacModel {
+
+    private final double fx;
+    private final double fy;
+    private final double cx;
+    private final double cy;
+    private final double pixelScale;
+
+    /**
+     * Constructs a new {@code EssentialModel} for a camera with the given intrinsics.
+     *
+     * @param fx Focal length in pixels along x.
+     * @param fy Focal length in pixels along y.
+     * @param cx Principal point x in pixels.
+     * @param cy Principal point y in pixels.
+     */
+    public EssentialModel(double fx, double fy, double cx, double cy) {
+        this.fx = fx;
+        this.fy = fy;
+        this.cx = cx;
+        this.cy = cy;
+        this.pixelScale = 0.25 * (fx + fy) * (fx + fy);
+    }
+
+    @Override
+    public int getStride() {
+        return 4;
+    }
+
+    @Override
+    public int getSampleSize() {
+        return 8;
+    }
+
+    @Override
+    public int getParameterCount() {
+        return 9;
+    }
+
+    @Override
+    public boolean fit(float[] data, int[] indices, int count, double[] model, int offset) {
+        if (count < 8) {
+            return false;
+        }
+
+        double[] ata = new double[81];
+        double[] row = new double[9];
+        for (int i = 0; i < count; i++) {
+            int base = indices[i] * 4;
+            double x1 = (data[base] - cx) / fx;
+            double y1 = (data[base + 1] - cy) / fy;
+            double x2 = (data[base + 2] - cx) / fx;
+            double y2 = (data[base + 3] - cy) / fy;
+            row[0] = x2 * x1;
+            row[1] = x2 * y1;
+            row[2] = x2;
+            row[3] = y2 * x1;
+            row[4] = y2 * y1;
+            row[5] = y2;
+            row[6] = x1;
+            row[7] = y1;
+            row[8] = 1.0;
+            LinearAlgebra.accumulateOuterProduct(ata, row, 9);
+        }
+
+        double[] e = new double[9];
+        LinearAlgebra.smallestEigenvector(ata, 9, e);
+
+        // Project onto the essential manifold: E = U diag(1, 1, 0) V^T
+        double[] u = new double[9];
+        double[] s = new double[3];
+        double[] v = new double[9];
+        LinearAlgebra.svd3(e, u, s, v);
+        if (s[0] < 1e-12) {
+            return false;
+        }
+        for (int r = 0; r < 3; r++) {
+            for (int c = 0; c < 3; c++) {
+                model[offset + r * 3 + c] = u[r * 3] * v[c * 3] + u[r * 3 + 1] * v[c * 3 + 1];
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public double squaredError(float[] data, int index, double[] model, int offset) {
+        int base = index * 4;
+        double x1 = (data[base] - cx) / fx;
+        double y1 = (data[base + 1] - cy) / fy;
+        double x2 = (data[base + 2] - cx) / fx;
+        double y2 = (data[base + 3] - cy) / fy;
+
+        // Epipolar lines E x1 and E^T x2
+        double l0 = model[offset] * x1 + model[offset + 1] * y1 + model[offset + 2];
+        double l1 = model[offset + 3] * x1 + model[offset + 4] * y1 + model[offset + 5];
+        double l2 = model[offset + 6] * x1 + model[offset + 7] * y1 + model[offset + 8];
+        double m0 = model[offset] * x2 + model[offset + 3] * y2 + model[offset + 6];
+        double m1 = model[offset + 1] * x2 + model[offset + 4] * y2 + model[offset + 7];
+
+        double algebraic = x2 * l0 + y2 * l1 + l2;
+        double denominator = l0 * l0 + l1 * l1 + m0 * m0 + m1 * m1;
+        if (denominator < 1e-24) {
+            return Double.MAX_VALUE;
+        }
+        return algebraic * algebraic / denominator * pixelScale;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.myapplication;
+
+import org.opencv.core.Core;
+import org.opencv.features2d.BRISK;
+import org.opencv.features2d.FastFeatureDetector;
+import org.opencv.features2d.Feature2D;
+
+/**
+ * FAST corner detector combined with the BRISK binary descriptor on normalized grayscale images.
+ */
+public class FastBriskFeatureStrategy implements FeatureStrategy {
+
+    private static final int FAST_THRESHOLD = 20;
+
+    // FAST detects on a single scale, so BRISK describes every keypoint with its smallest pattern:
+    // an outer sampling ring of 10.8 px plus the Gaussian smoothing of its sample points
+    private static final int BRISK_SUPPORT_RADIUS = 13;
+
+    @Override
+    public String getName() {
+        return "FAST+BRISK";
+    }
+
+    @Override
+    public Feature2D createDetector() {
+        return FastFeatureDetector.create(FAST_THRESHOLD, true);
+    }
+
+    @Override
+    public Feature2D createExtractor() {
+        return BRISK.create();
+    }
+
+    @Override
+    public int getNormType() {
+        return Core.NORM_HAMMING;
+    }
+
+    @Override
+    public int getDescriptorSupportRadius() {
+        return BRISK_SUPPORT_RADIUS;
+    }
+
+    @Override
+    public PreprocessingPipeline createPreprocessingPipeline() {
+        return PreprocessingPipeline.normalizedGray();
+    }
+}
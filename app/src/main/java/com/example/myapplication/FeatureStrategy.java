@@ -0,0 +1,85 @@
+package com.example.myapplication;
+
+import org.opencv.features2d.Feature2D;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The {@code FeatureStrategy} interface describes one combination of feature detector,
+ * descriptor extractor, descriptor norm and image preprocessing used by {@link OpenCVRenderer}.
+ * Strategies can be switched at runtime through {@link CombinedRenderer#setFeatureStrategy(FeatureStrategy)}.
+ */
+public interface FeatureStrategy {
+
+    /**
+     * Returns a short human readable name for the strategy, used in logs and benchmarks.
+     *
+     * @return The strategy name.
+     */
+    String getName();
+
+    /**
+     * Creates the detector used on camera frames.
+     * Each call returns a new instance, so callers on different threads do not share state.
+     *
+     * @return A new {@link Feature2D} detector.
+     */
+    Feature2D createDetector();
+
+    /**
+     * Creates the detector used on rendered CAD projections.
+     * Defaults to the camera frame detector.
+     *
+     * @return A new {@link Feature2D} detector.
+     */
+    default Feature2D createDatabaseDetector() {
+        return createDetector();
+    }
+
+    /**
+     * Creates a separate descriptor extractor.
+     * Returns {@code null} when the detector computes its own descriptors.
+     *
+     * @return A new {@link Feature2D} extractor, or {@code null}.
+     */
+    default Feature2D createExtractor() {
+        return null;
+    }
+
+    /**
+     * Returns the norm used to compare descriptors, e.g. {@code Core.NORM_HAMMING}.
+     *
+     * @return The OpenCV norm type.
+     */
+    int getNormType();
+
+    /**
+     * Returns the radius in pixels of the image area the descriptor of a keypoint at the coarsest
+     * octave depends on. Tiled detection overlaps its tiles by this much, so keypoints near a tile
+     * border are described from the same pixels as on the whole image.
+     *
+     * @return The descriptor support radius in pixels of the input image.
+     */
+    int getDescriptorSupportRadius();
+
+    /**
+     * Creates the preprocessing pipeline this strategy is tuned for.
+     *
+     * @return A new {@link PreprocessingPipeline}.
+     */
+    PreprocessingPipeline createPreprocessingPipeline();
+
+    /**
+     * Returns all built-in strategies, with the default strategy first.
+     *
+     * @return A list of available strategies.
+     */
+    static List<FeatureStrategy> available() {
+        return Arrays.asList(
+                new AkazeFeatureStrategy(),
+                new OrbFeatureStrategy(),
+                new FastBriskFeatureStrategy()
+        );
+    }
+}
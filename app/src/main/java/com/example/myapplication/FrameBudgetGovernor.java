@@ -0,0 +1,290 @@
+package com.example.myapplication;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The {@code FrameBudgetGovernor} class adapts the vision quality to hold a target frame time. It keeps
+ * the frame times and per-stage costs of the last frames in a moving window and steps through an
+ * ordered table of quality {@link Level}s: one level down when the 75th percentile frame time exceeds
+ * the budget, one level up when it stays well below it. A level is held for at least a full window
+ * before the next change and the two thresholds are apart, so the level does not oscillate. The
+ * percentile ignores occasional spikes such as a requested match, but not regular overruns.
+ * Frames are recorded on one thread; the level and decisions can be read from any thread.
+ */
+public class FrameBudgetGovernor {
+
+    /**
+     * Stages whose costs are reported with each decision.
+     */
+    public enum Stage {
+        CONVERT, DETECT, MATCH, RENDER
+    }
+
+    /**
+     * One setting of the quality knobs.
+     */
+    public static final class Level {
+        /** Factor the frame is scaled by before detection; 1 detects at full resolution. */
+        public final float detectionScale;
+        /** Most keypoints retained per detection. */
+        public final int maxKeypoints;
+        /** Full detection runs at most every this many frames. */
+        public final int detectionInterval;
+
+        public Level(float detectionScale, int maxKeypoints, int detectionInterval) {
+            if (detectionScale <= 0 || detectionScale > 1 || maxKeypoints < 1 || detectionInterval < 1) {
+                throw new IllegalArgumentException("Invalid quality level");
+            }
+            this.detectionScale = detectionScale;
+            this.maxKeypoints = maxKeypoints;
+            this.detectionInterval = detectionInterval;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "scale=%.2f keypoints=%d interval=%d", detectionScale, maxKeypoints, detectionInterval);
+        }
+    }
+
+    /**
+     * A level change and the measurements that caused it.
+     */
+    public static final class Decision {
+        /** Number of frames recorded before the change. */
+        public final long frame;
+        public final int fromLevel;
+        public final int toLevel;
+        /** 75th percentile frame time over the window, in milliseconds. */
+        public final double frameMs;
+        /** Mean cost of every {@link Stage} over the window, in milliseconds. */
+        public final double[] stageMs;
+
+        Decision(long frame, int fromLevel, int toLevel, double frameMs, double[] stageMs) {
+            this.frame = frame;
+            this.fromLevel = fromLevel;
+            this.toLevel = toLevel;
+            this.frameMs = frameMs;
+            this.stageMs = stageMs;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder(String.format(Locale.US, "frame %d: level %d -> %d, frame %.1fms",
+                    frame, fromLevel, toLevel, frameMs));
+            for (Stage stage : Stage.values()) {
+                builder.append(String.format(Locale.US, " %s=%.1fms", stage.name().toLowerCase(Locale.US), stageMs[stage.ordinal()]));
+            }
+            return builder.toString();
+        }
+    }
+
+    /** Level 0 is the full quality the renderer uses without a governor. */
+    public static final Level[] DEFAULT_LEVELS = {
+            new Level(1.0f, 384, 1),
+            new Level(1.0f, 288, 1),
+            new Level(0.75f, 288, 2),
+            new Level(0.75f, 192, 2),
+            new Level(0.5f, 192, 3),
+            new Level(0.5f, 144, 4)
+    };
+
+    // Decisions kept for logging
+    private static final int MAX_DECISIONS = 16;
+
+    private final Level[] levels;
+    private final double degradeRatio;
+    private final double recoverRatio;
+    private long targetFrameNanos;
+
+    // Moving window of frame times and stage costs
+    private final long[] frameWindow;
+    private final long[][] stageWindow;
+    private final long[] stageSums;
+    private final long[] currentStages;
+    private final long[] sortBuffer;
+    private int windowCount = 0;
+    private int windowNext = 0;
+
+    private int level = 0;
+    private long frameCount = 0;
+    private final ArrayDeque<Decision> decisions = new ArrayDeque<>();
+
+    /**
+     * Constructs a new {@code FrameBudgetGovernor} with the default levels, a 30 frame window, degrading
+     * above the budget and recovering below 70% of it.
+     *
+     * @param targetFrameNanos The frame budget in nanoseconds.
+     */
+    public FrameBudgetGovernor(long targetFrameNanos) {
+        this(targetFrameNanos, DEFAULT_LEVELS, 30, 1.0, 0.7);
+    }
+
+    /**
+     * Constructs a new {@code FrameBudgetGovernor}.
+     *
+     * @param targetFrameNanos The frame budget in nanoseconds.
+     * @param levels           Quality levels from best to cheapest.
+     * @param windowFrames     Number of frames in the moving window and the least number of frames between changes.
+     * @param degradeRatio     Fraction of the budget above which the quality is lowered.
+     * @param recoverRatio     Fraction of the budget below which the quality is raised; below {@code degradeRatio}.
+     */
+    public FrameBudgetGovernor(long targetFrameNanos, Level[] levels, int windowFrames, double degradeRatio, double recoverRatio) {
+        if (targetFrameNanos <= 0 || levels.length == 0 || windowFrames < 1 || recoverRatio >= degradeRatio) {
+            throw new IllegalArgumentException("Invalid frame budget governor configuration");
+        }
+        this.targetFrameNanos = targetFrameNanos;
+        this.levels = levels.clone();
+        this.degradeRatio = degradeRatio;
+        this.recoverRatio = recoverRatio;
+        this.frameWindow = new long[windowFrames];
+        this.stageWindow = new long[Stage.values().length][windowFrames];
+        this.stageSums = new long[Stage.values().length];
+        this.currentStages = new long[Stage.values().length];
+        this.sortBuffer = new long[windowFrames];
+    }
+
+    /**
+     * Adds the cost of a stage to the current frame.
+     *
+     * @param stage The stage.
+     * @param nanos Time spent in the stage.
+     */
+    public synchronized void recordStage(Stage stage, long nanos) {
+        currentStages[stage.ordinal()] += nanos;
+    }
+
+    /**
+     * Ends the current frame and changes the level if the window calls for it.
+     *
+     * @param frameNanos Time the frame took.
+     * @return {@code true} if the level changed.
+     */
+    public synchronized boolean endFrame(long frameNanos) {
+        frameCount++;
+        int slot = windowNext;
+        frameWindow[slot] = frameNanos;
+        for (int s = 0; s < currentStages.length; s++) {
+            stageSums[s] += currentStages[s] - (windowCount == frameWindow.length ? stageWindow[s][slot] : 0);
+            stageWindow[s][slot] = currentStages[s];
+            currentStages[s] = 0;
+        }
+        windowNext = (windowNext + 1) % frameWindow.length;
+        if (windowCount < frameWindow.length) {
+            windowCount++;
+        }
+        if (windowCount < frameWindow.length) {
+            return false;
+        }
+
+        // Decide only on a full window of frames at the current level
+        long frameTime = windowPercentile(0.75);
+        int next = level;
+        if (frameTime > targetFrameNanos * degradeRatio && level < levels.length - 1) {
+            next = level + 1;
+        } else if (frameTime < targetFrameNanos * recoverRatio && level > 0) {
+            next = level - 1;
+        }
+        if (next == level) {
+            return false;
+        }
+
+        double[] stageMs = new double[stageSums.length];
+        for (int s = 0; s < stageSums.length; s++) {
+            stageMs[s] = stageSums[s] / (double) windowCount / 1e6;
+        }
+        decisions.addLast(new Decision(frameCount, level, next, frameTime / 1e6, stageMs));
+        if (decisions.size() > MAX_DECISIONS) {
+            decisions.removeFirst();
+        }
+        level = next;
+        clearWindow();
+        return true;
+    }
+
+    /**
+     * Returns to the best level and forgets all measurements.
+     */
+    public synchronized void reset() {
+        level = 0;
+        clearWindow();
+        Arrays.fill(currentStages, 0);
+    }
+
+    /**
+     * Sets the frame budget; measurements are kept.
+     *
+     * @param targetFrameNanos The frame budget in nanoseconds.
+     */
+    public synchronized void setTargetFrameNanos(long targetFrameNanos) {
+        if (targetFrameNanos <= 0) {
+            throw new IllegalArgumentException("Frame budget must be positive");
+        }
+        this.targetFrameNanos = targetFrameNanos;
+    }
+
+    public synchronized long getTargetFrameNanos() {
+        return targetFrameNanos;
+    }
+
+    public synchronized int getLevelIndex() {
+        return level;
+    }
+
+    public synchronized Level getLevel() {
+        return levels[level];
+    }
+
+    public int getLevelCount() {
+        return levels.length;
+    }
+
+    /**
+     * Returns the latest level change.
+     *
+     * @return The decision, or {@code null} if the level never changed.
+     */
+    public synchronized Decision getLastDecision() {
+        return decisions.peekLast();
+    }
+
+    /**
+     * Returns the latest level changes, oldest first.
+     *
+     * @return Up to 16 decisions.
+     */
+    public synchronized List<Decision> getDecisions() {
+        return new ArrayList<>(decisions);
+    }
+
+    /**
+     * Returns the mean cost of a stage over the window.
+     *
+     * @param stage The stage.
+     * @return The mean cost in milliseconds, or 0 while the window is empty.
+     */
+    public synchronized double getMeanStageMs(Stage stage) {
+        return windowCount == 0 ? 0.0 : stageSums[stage.ordinal()] / (double) windowCount / 1e6;
+    }
+
+    private long windowPercentile(double fraction) {
+        System.arraycopy(frameWindow, 0, sortBuffer, 0, windowCount);
+        Arrays.sort(sortBuffer, 0, windowCount);
+        return sortBuffer[Math.min(windowCount - 1, (int) (fraction * windowCount))];
+    }
+
+    private void clearWindow() {
+        windowCount = 0;
+        windowNext = 0;
+        Arrays.fill(stageSums, 0);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "FrameBudgetGovernor(level " + level + " of " + levels.length + ": " + levels[level]
+                + ", budget " + targetFrameNanos / 1000000 + "ms)";
+    }
+}
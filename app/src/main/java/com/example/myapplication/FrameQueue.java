@@ -0,0 +1,194 @@
+package com.example.myapplication;
+
+/**
+ * The {@code FrameQueue} class is a bounded ring buffer connecting two pipeline stages. When the queue
+ * is full, {@link DropPolicy#DROP_OLDEST} discards the oldest queued item so the consumer always sees the
+ * freshest frames, while {@link DropPolicy#BLOCK} makes the producer wait for space. The queue records
+ * how long items waited in it and how many were dropped.
+ *
+ * @param <T> The item type.
+ */
+public class FrameQueue<T> {
+
+    /**
+     * What {@link #offer} does when the queue is full.
+     */
+    public enum DropPolicy {
+        /** Discard the oldest queued item and add the new one. */
+        DROP_OLDEST,
+        /** Wait until the consumer makes space. */
+        BLOCK
+    }
+
+    private final Object[] items;
+    private final long[] enqueueNanos;
+    private volatile DropPolicy policy;
+
+    // Index of the oldest item and number of queued items
+    private int head = 0;
+    private int count = 0;
+    private boolean closed = false;
+
+    private long offeredCount = 0;
+    private long droppedCount = 0;
+    private long takenCount = 0;
+    private long totalWaitNanos = 0;
+
+    /**
+     * Constructs a new {@code FrameQueue}.
+     *
+     * @param capacity Number of items the queue holds.
+     * @param policy   What to do when the queue is full.
+     */
+    public FrameQueue(int capacity, DropPolicy policy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.items = new Object[capacity];
+        this.enqueueNanos = new long[capacity];
+        this.policy = policy;
+    }
+
+    /**
+     * Adds an item. If the queue is full, the oldest item is dropped or the caller waits, depending on
+     * the drop policy. After {@link #close()} the item is not added and is returned as dropped.
+     *
+     * @param item The item to add.
+     * @return The item that was dropped to make space, the rejected item if the queue is closed,
+     *         or {@code null} if nothing was dropped.
+     * @throws InterruptedException If interrupted while waiting for space.
+     */
+    public synchronized T offer(T item) throws InterruptedException {
+        if (item == null) {
+            throw new NullPointerException("Item must not be null");
+        }
+        offeredCount++;
+        while (!closed && count == items.length && policy == DropPolicy.BLOCK) {
+            wait();
+        }
+        if (closed) {
+            droppedCount++;
+            return item;
+        }
+
+        T dropped = null;
+        if (count == items.length) {
+            dropped = removeHead();
+            droppedCount++;
+        }
+        int tail = (head + count) % items.length;
+        items[tail] = item;
+        enqueueNanos[tail] = System.nanoTime();
+        count++;
+        notifyAll();
+        return dropped;
+    }
+
+    /**
+     * Removes the oldest item, waiting until one is available.
+     *
+     * @return The oldest item, or {@code null} once the queue is closed and empty.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public synchronized T take() throws InterruptedException {
+        while (count == 0 && !closed) {
+            wait();
+        }
+        if (count == 0) {
+            return null;
+        }
+        totalWaitNanos += System.nanoTime() - enqueueNanos[head];
+        takenCount++;
+        T item = removeHead();
+        notifyAll();
+        return item;
+    }
+
+    /**
+     * Removes the oldest item without waiting.
+     *
+     * @return The oldest item, or {@code null} if the queue is empty.
+     */
+    public synchronized T poll() {
+        if (count == 0) {
+            return null;
+        }
+        totalWaitNanos += System.nanoTime() - enqueueNanos[head];
+        takenCount++;
+        T item = removeHead();
+        notifyAll();
+        return item;
+    }
+
+    /**
+     * Closes the queue: waiting producers and consumers wake up, further offers are rejected and
+     * {@link #take()} returns {@code null} once the queued items are consumed.
+     */
+    public synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Sets what {@link #offer} does when the queue is full. Producers waiting for space are released
+     * when switching to {@link DropPolicy#DROP_OLDEST}.
+     *
+     * @param policy The drop policy.
+     */
+    public synchronized void setDropPolicy(DropPolicy policy) {
+        this.policy = policy;
+        notifyAll();
+    }
+
+    public DropPolicy getDropPolicy() {
+        return policy;
+    }
+
+    public int getCapacity() {
+        return items.length;
+    }
+
+    /**
+     * Returns the number of queued items.
+     *
+     * @return The queue depth.
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    public synchronized long getOfferedCount() {
+        return offeredCount;
+    }
+
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * Returns the mean time items spent in the queue before they were taken.
+     *
+     * @return The mean wait in nanoseconds, or 0 before the first item was taken.
+     */
+    public synchronized long getMeanWaitNanos() {
+        return takenCount == 0 ? 0 : totalWaitNanos / takenCount;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T removeHead() {
+        T item = (T) items[head];
+        items[head] = null;
+        head = (head + 1) % items.length;
+        count--;
+        return item;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "FrameQueue(" + count + "/" + items.length + ", " + policy + ", dropped=" + droppedCount + ")";
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.myapplication;
+
+import org.opencv.core.DMatch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The {@code HammingMatcher} class is a brute-force 2-nearest-neighbour matcher for
+ * {@link BinaryDescriptors} that runs entirely in Java, so matching can be tested and
+ * diagnosed without the native OpenCV library. Query rows are split into stripes that are
+ * matched in parallel on a {@link ForkJoinPool}.
+ * <p>
+ * Ties are resolved towards the lower train row, as OpenCV's {@code BFMatcher} does, so the
+ * matches after the ratio test are identical to {@link OpenCVRenderer#matchFeatures}.
+ */
+public class HammingMatcher {
+
+    // Query rows below which a stripe is matched on the calling thread
+    private static final int DEFAULT_STRIPE_ROWS = 64;
+
+    private final ForkJoinPool pool;
+    private final int stripeRows;
+
+    /**
+     * Constructs a new {@code HammingMatcher}.
+     *
+     * @param pool       The pool used for query striping, or {@code null} to match on the calling thread.
+     * @param stripeRows Number of query rows per parallel stripe.
+     */
+    public HammingMatcher(ForkJoinPool pool, int stripeRows) {
+        this.pool = pool;
+        this.stripeRows = Math.max(1, stripeRows);
+    }
+
+    /**
+     * Constructs a {@code HammingMatcher} on the common pool with 64-row stripes.
+     */
+    public HammingMatcher() {
+        this(ForkJoinPool.commonPool(), DEFAULT_STRIPE_ROWS);
+    }
+
+    /**
+     * Finds the two nearest train descriptors for every query descriptor.
+     * Entries for which fewer neighbours exist are set to -1.
+     *
+     * @param queries         The query descriptors.
+     * @param train           The train descriptors, with the same descriptor length.
+     * @param bestRows        Output nearest train row per query.
+     * @param bestDistances   Output distance to the nearest row.
+     * @param secondDistances Output distance to the second nearest row.
+     */
+    public void knnMatch2(BinaryDescriptors queries, BinaryDescriptors train,
+                          int[] bestRows, int[] bestDistances, int[] secondDistances) {
+        if (queries.getRows() > 0 && queries.getWordsPerRow() != train.getWordsPerRow()) {
+            throw new IllegalArgumentException("Descriptor lengths differ");
+        }
+        StripeTask task = new StripeTask(queries, train, bestRows, bestDistances, secondDistances,
+                0, queries.getRows(), stripeRows);
+        if (pool != null && queries.getRows() > stripeRows) {
+            pool.invoke(task);
+        } else {
+            task.matchRange();
+        }
+    }
+
+    /**
+     * Matches the query descriptors against the train descriptors and applies Lowe's ratio test.
+     *
+     * @param queries The query descriptors.
+     * @param train   The train descriptors.
+     * @param ratio   Maximum ratio between the best and second best distance.
+     * @return The matches passing the ratio test, in query order.
+     */
+    public List<DMatch> match(BinaryDescriptors queries, BinaryDescriptors train, float ratio) {
+        int count = queries.getRows();
+        int[] bestRows = new int[count];
+        int[] bestDistances = new int[count];
+        int[] secondDistances = new int[count];
+        knnMatch2(queries, train, bestRows, bestDistances, secondDistances);
+
+        List<DMatch> goodMatches = new ArrayList<>();
+        for (int q = 0; q < count; q++) {
+            if (secondDistances[q] >= 0 && bestDistances[q] < ratio * secondDistances[q]) {
+                goodMatches.add(new DMatch(q, bestRows[q], bestDistances[q]));
+            }
+        }
+        return goodMatches;
+    }
+
+    /**
+     * Matches a contiguous range of query rows, splitting it in halves until it fits a stripe.
+     */
+    private static final class StripeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final BinaryDescriptors queries;
+        private final BinaryDescriptors train;
+        private final int[] bestRows;
+        private final int[] bestDistances;
+        private final int[] secondDistances;
+        private final int from;
+        private final int to;
+        private final int stripeRows;
+
+        StripeTask(BinaryDescriptors queries, BinaryDescriptors train, int[] bestRows, int[] bestDistances,
+                   int[] secondDistances, int from, int to, int stripeRows) {
+            this.queries = queries;
+            this.train = train;
+            this.bestRows = bestRows;
+            this.bestDistances = bestDistances;
+            this.secondDistances = secondDistances;
+            this.from = from;
+            this.to = to;
+            this.stripeRows = stripeRows;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= stripeRows) {
+                matchRange();
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new StripeTask(queries, train, bestRows, bestDistances, secondDistances, from, middle, stripeRows),
+                    new StripeTask(queries, train, bestRows, bestDistances, secondDistances, middle, to, stripeRows));
+        }
+
+        void matchRange() {
+            long[] queryWords = queries.getWords();
+            long[] trainWords = train.getWords();
+            int words = train.getWordsPerRow();
+            int trainRows = train.getRows();
+
+            for (int q = from; q < to; q++) {
+                int queryStart = q * words;
+
+                // Top-2 tracker in locals; strict comparisons keep the lower row on ties
+                int best = -1;
+                int bestDistance = Integer.MAX_VALUE;
+                int secondDistance = Integer.MAX_VALUE;
+                for (int row = 0, trainStart = 0; row < trainRows; row++, trainStart += words) {
+                    int distance = 0;
+                    for (int w = 0; w < words; w++) {
+                        distance += Long.bitCount(queryWords[queryStart + w] ^ trainWords[trainStart + w]);
+                    }
+                    if (distance < bestDistance) {
+                        secondDistance = bestDistance;
+                        bestDistance = distance;
+                        best = row;
+                    } else if (distance < secondDistance) {
+                        secondDistance = distance;
+                    }
+                }
+
+                bestRows[q] = best;
+                bestDistances[q] = best >= 0 ? bestDistance : -1;
+                secondDistances[q] = secondDistance != Integer.MAX_VALUE ? secondDistance : -1;
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.myapplication;
+
+/**
+ * The {@code HomographyModel} class fits a planar homography mapping (x1, y1) to (x2, y2) with the
+ * normalised direct linear transform. Correspondences are {@code x1, y1, x2, y2}; the model is the
+ * row-major 3x3 matrix scaled so that its last element is 1. The error is the squared transfer
+ * distance in the second image.
+ */
+public class HomographyModel implements RansacModel {
+
+    @Override
+    public int getStride() {
+        return 4;
+    }
+
+    @Override
+    public int getSampleSize() {
+        return 4;
+    }
+
+    @Override
+    public int getParameterCount() {
+        return 9;
+    }
+
+    @Override
+    public boolean fit(float[] data, int[] indices, int count, double[] model, int offset) {
+        if (count < 4) {
+            return false;
+        }
+
+        // Hartley normalisation: centre both point sets and scale their mean distance to sqrt(2)
+        double[] t1 = normalisation(data, indices, count, 0);
+        double[] t2 = normalisation(data, indices, count, 2);
+
+        double[] ata = new double[81];
+        double[] row = new double[9];
+        for (int i = 0; i < count; i++) {
+            int base = indices[i] * 4;
+            double x = (data[base] - t1[0]) * t1[2];
+            double y = (data[base + 1] - t1[1]) * t1[2];
+            double u = (data[base + 2] - t2[0]) * t2[2];
+            double v = (data[base + 3] - t2[1]) * t2[2];
+
+            row[0] = -x;
+            row[1] = -y;
+            row[2] = -1.0;
+            row[3] = 0.0;
+            row[4] = 0.0;
+            row[5] = 0.0;
+            row[6] = u * x;
+            row[7] = u * y;
+            row[8] = u;
+            LinearAlgebra.accumulateOuterProduct(ata, row, 9);
+
+            row[0] = 0.0;
+            row[1] = 0.0;
+            row[2] = 0.0;
+            row[3] = -x;
+            row[4] = -y;
+            row[5] = -1.0;
+            row[6] = v * x;
+            row[7] = v * y;
+            row[8] = v;
+            LinearAlgebra.accumulateOuterProduct(ata, row, 9);
+        }
+
+        double[] h = new double[9];
+        LinearAlgebra.smallestEigenvector(ata, 9, h);
+
+        // Denormalise: H = T2^-1 Hn T1, with T = [s 0 -s*cx; 0 s -s*cy; 0 0 1]
+        double s1 = t1[2];
+        double s2 = t2[2];
+        double[] hT1 = new double[9];
+        for (int r = 0; r < 3; r++) {
+            hT1[r * 3] = h[r * 3] * s1;
+            hT1[r * 3 + 1] = h[r * 3 + 1] * s1;
+            hT1[r * 3 + 2] = h[r * 3 + 2] - s1 * (h[r * 3] * t1[0] + h[r * 3 + 1] * t1[1]);
+        }
+        for (int c = 0; c < 3; c++) {
+            double third = hT1[6 + c];
+            model[offset + c] = hT1[c] / s2 + t2[0] * third;
+            model[offset + 3 + c] = hT1[3 + c] / s2 + t2[1] * third;
+            model[offset + 6 + c] = third;
+        }
+
+        double scale = model[offset + 8];
+        if (Math.abs(scale) < 1e-12) {
+            return false;
+        }
+        for (int i = 0; i < 9; i++) {
+            model[offset + i] /= scale;
+            if (Double.isNaN(model[offset + i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public double squaredError(float[] data, int index, double[] model, int offset) {
+        int base = index * 4;
+        double x = data[base];
+        double y = data[base + 1];
+        double w = model[offset + 6] * x + model[offset + 7] * y + model[offset + 8];
+        if (Math.abs(w) < 1e-12) {
+            return Double.MAX_VALUE;
+        }
+        double du = (model[offset] * x + model[offset + 1] * y + model[offset + 2]) / w - data[base + 2];
+        double dv = (model[offset + 3] * x + model[offset + 4] * y + model[offset + 5]) / w - data[base + 3];
+        return du * du + dv * dv;
+    }
+
+    /**
+     * Returns {centroid x, centroid y, scale} for the points at {@code pointOffset} within each correspondence.
+     */
+    private static double[] normalisation(float[] data, int[] indices, int count, int pointOffset) {
+        double cx = 0.0;
+        double cy = 0.0;
+        for (int i = 0; i < count; i++) {
+            cx += data[indices[i] * 4 + pointOffset];
+            cy += data[indices[i] * 4 + pointOffset + 1];
+        }
+        cx /= count;
+        cy /= count;
+        double meanDistance = 0.0;
+        for (int i = 0; i < count; i++) {
+            double dx = data[indices[i] * 4 + pointOffset] - cx;
+            double dy = data[indices[i] * 4 + pointOffset + 1] - cy;
+            meanDistance += Math.sqrt(dx * dx + dy * dy);
+        }
+        meanDistance /= count;
+        return new double[]{cx, cy, meanDistance > 1e-12 ? Math.sqrt(2.0) / meanDistance : 1.0};
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.myapplication;
+
+import org.opencv.core.KeyPoint;
+import org.opencv.core.MatOfKeyPoint;
+
+import java.util.Arrays;
+
+/**
+ * The {@code KeypointSelector} class bounds the number of keypoints per frame by dividing the
+ * image into a grid and keeping only the strongest responses in each cell, with non-maximum
+ * suppression between the kept points. This spreads correspondences evenly over the image
+ * and bounds the cost of descriptor computation and matching.
+ */
+public class KeypointSelector {
+
+    private final int gridColumns;
+    private final int gridRows;
+    private final int maxPerCell;
+    private final float suppressionRadius;
+
+    // Scratch buffers reused between calls
+    private int[] cellCounts = new int[0];
+    private int[] cellMembers = new int[0];
+
+    /**
+     * Constructs a new {@code KeypointSelector}.
+     *
+     * @param gridColumns       Number of grid columns.
+     * @param gridRows          Number of grid rows.
+     * @param maxPerCell        Maximum number of keypoints kept per cell.
+     * @param suppressionRadius Minimum distance in pixels between two kept keypoints; 0 disables suppression.
+     */
+    public KeypointSelector(int gridColumns, int gridRows, int maxPerCell, float suppressionRadius) {
+        if (gridColumns <= 0 || gridRows <= 0 || maxPerCell <= 0 || suppressionRadius < 0) {
+            throw new IllegalArgumentException("Invalid keypoint selector configuration");
+        }
+        this.gridColumns = gridColumns;
+        this.gridRows = gridRows;
+        this.maxPerCell = maxPerCell;
+        this.suppressionRadius = suppressionRadius;
+    }
+
+    /**
+     * Returns the maximum number of keypoints this selector can keep.
+     *
+     * @return The keypoint budget.
+     */
+    public int getMaxKeypoints() {
+        return gridColumns * gridRows * maxPerCell;
+    }
+
+    /**
+     * Selects the strongest keypoints per grid cell.
+     *
+     * @param keyPoints The detected keypoints.
+     * @param width     The image width.
+     * @param height    The image height.
+     * @return A new {@code MatOfKeyPoint} with the selected keypoints, strongest first.
+     */
+    public MatOfKeyPoint select(MatOfKeyPoint keyPoints, int width, int height) {
+        KeyPoint[] all = keyPoints.toArray();
+        int[] selected = selectIndices(all, width, height);
+
+        KeyPoint[] kept = new KeyPoint[selected.length];
+        for (int i = 0; i < selected.length; i++) {
+            kept[i] = all[selected[i]];
+        }
+        return new MatOfKeyPoint(kept);
+    }
+
+    /**
+     * Selects the strongest keypoints per grid cell, e.g. to keep the matching rows of descriptors
+     * that were computed for every keypoint.
+     *
+     * @param keyPoints The detected keypoints.
+     * @param width     The image width.
+     * @param height    The image height.
+     * @return Indices of the selected keypoints, ordered by descending response.
+     */
+    public int[] selectIndices(KeyPoint[] keyPoints, int width, int height) {
+        int count = keyPoints.length;
+        float[] xs = new float[count];
+        float[] ys = new float[count];
+        float[] responses = new float[count];
+        for (int i = 0; i < count; i++) {
+            xs[i] = (float) keyPoints[i].pt.x;
+            ys[i] = (float) keyPoints[i].pt.y;
+            responses[i] = keyPoints[i].response;
+        }
+        return selectIndices(xs, ys, responses, count, width, height);
+    }
+
+    /**
+     * Selects the strongest keypoints per grid cell from primitive coordinate arrays.
+     *
+     * @param xs        Keypoint x coordinates.
+     * @param ys        Keypoint y coordinates.
+     * @param responses Keypoint detector responses; larger is stronger.
+     * @param count     Number of keypoints in the arrays.
+     * @param width     The image width.
+     * @param height    The image height.
+     * @return Indices of the selected keypoints, ordered by descending response.
+     */
+    public int[] selectIndices(float[] xs, float[] ys, float[] responses, int count, int width, int height) {
+        // Sort indices by descending response; ties keep detection order.
+        // Non-negative float bit patterns sort like the floats, so pack them with the index into a long.
+        long[] order = new long[count];
+        for (int i = 0; i < count; i++) {
+            int bits = Float.floatToIntBits(Math.max(responses[i], 0.0f));
+            order[i] = ((long) (Integer.MAX_VALUE - bits) << 32) | i;
+        }
+        Arrays.sort(order);
+
+        int cellCount = gridColumns * gridRows;
+        if (cellCounts.length < cellCount) {
+            cellCounts = new int[cellCount];
+            cellMembers = new int[cellCount * maxPerCell];
+        } else {
+            Arrays.fill(cellCounts, 0, cellCount, 0);
+        }
+
+        float cellWidth = (float) width / gridColumns;
+        float cellHeight = (float) height / gridRows;
+        float radiusSquared = suppressionRadius * suppressionRadius;
+
+        // Suppression only needs to look at cells the radius can reach
+        int reachX = suppressionRadius > 0 ? (int) Math.ceil(suppressionRadius / cellWidth) : 0;
+        int reachY = suppressionRadius > 0 ? (int) Math.ceil(suppressionRadius / cellHeight) : 0;
+
+        int[] selected = new int[Math.min(count, cellCount * maxPerCell)];
+        int selectedCount = 0;
+
+        for (int n = 0; n < count && selectedCount < selected.length; n++) {
+            int index = (int) order[n];
+            int column = clamp((int) (xs[index] / cellWidth), gridColumns);
+            int row = clamp((int) (ys[index] / cellHeight), gridRows);
+            int cell = row * gridColumns + column;
+
+            if (cellCounts[cell] >= maxPerCell) {
+                continue;
+            }
+
+            if (radiusSquared > 0 && isSuppressed(xs, ys, index, column, row, reachX, reachY, radiusSquared)) {
+                continue;
+            }
+
+            cellMembers[cell * maxPerCell + cellCounts[cell]] = index;
+            cellCounts[cell]++;
+            selected[selectedCount++] = index;
+        }
+
+        return Arrays.copyOf(selected, selectedCount);
+    }
+
+    /**
+     * Checks whether an already kept keypoint lies within the suppression radius.
+     */
+    private boolean isSuppressed(float[] xs, float[] ys, int index, int column, int row,
+                                 int reachX, int reachY, float radiusSquared) {
+        for (int r = Math.max(0, row - reachY); r <= Math.min(gridRows - 1, row + reachY); r++) {
+            for (int c = Math.max(0, column - reachX); c <= Math.min(gridColumns - 1, column + reachX); c++) {
+                int cell = r * gridColumns + c;
+                for (int m = 0; m < cellCounts[cell]; m++) {
+                    int other = cellMembers[cell * maxPerCell + m];
+                    float dx = xs[other] - xs[index];
+                    float dy = ys[other] - ys[index];
+                    if (dx * dx + dy * dy < radiusSquared) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static int clamp(int value, int size) {
+        return Math.max(0, Math.min(size - 1, value));
+    }
+}
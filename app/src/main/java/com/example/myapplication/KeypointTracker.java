@@ -0,0 +1,222 @@
+package com.example.myapplication;
+
+import android.util.Log;
+
+import org.opencv.core.KeyPoint;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.core.MatOfFloat;
+import org.opencv.core.MatOfKeyPoint;
+import org.opencv.core.MatOfPoint2f;
+import org.opencv.core.Point;
+import org.opencv.core.Size;
+import org.opencv.core.TermCriteria;
+import org.opencv.video.SparsePyrLKOpticalFlow;
+
+/**
+ * The {@code KeypointTracker} class follows the keypoints of the last full detection from frame
+ * to frame with pyramidal Lucas-Kanade optical flow on the luminance plane. Descriptors computed
+ * at detection time are carried over for the tracked keypoints, so matching keeps working while
+ * detection is skipped. A full detection is requested when too few keypoints survive, when the
+ * tracking error grows too large, or after a fixed number of tracked frames.
+ */
+public class KeypointTracker {
+
+    private static final String TAG = "KeypointTracker";
+
+    private final int redetectInterval;
+    private final int minTrackedCount;
+    private final float minSurvivalRatio;
+    private final float maxTrackingError;
+
+    private final SparsePyrLKOpticalFlow opticalFlow;
+
+    // State of the previous frame
+    private final Mat previousGray = new Mat();
+    private KeyPoint[] trackedKeyPoints = new KeyPoint[0];
+    private Mat trackedDescriptors = new Mat();
+    private int detectedCount;
+    private int framesSinceDetection;
+
+    // Scratch buffers reused between frames
+    private final MatOfPoint2f previousPoints = new MatOfPoint2f();
+    private final MatOfPoint2f nextPoints = new MatOfPoint2f();
+    private final MatOfByte status = new MatOfByte();
+    private final MatOfFloat errors = new MatOfFloat();
+    private byte[] descriptorBytes = new byte[0];
+
+    /**
+     * Constructs a new {@code KeypointTracker}.
+     *
+     * @param redetectInterval Maximum number of consecutive tracked frames before a full detection.
+     * @param minTrackedCount  Minimum number of tracked keypoints to keep tracking.
+     * @param minSurvivalRatio Minimum fraction of the detected keypoints that must still be tracked.
+     * @param maxTrackingError Maximum per-point Lucas-Kanade error for a keypoint to be kept.
+     */
+    public KeypointTracker(int redetectInterval, int minTrackedCount, float minSurvivalRatio, float maxTrackingError) {
+        this.redetectInterval = redetectInterval;
+        this.minTrackedCount = minTrackedCount;
+        this.minSurvivalRatio = minSurvivalRatio;
+        this.maxTrackingError = maxTrackingError;
+
+        this.opticalFlow = SparsePyrLKOpticalFlow.create(new Size(21, 21), 3,
+                new TermCriteria(TermCriteria.COUNT | TermCriteria.EPS, 20, 0.03));
+    }
+
+    /**
+     * Constructs a {@code KeypointTracker} with defaults suited to 30 fps ARCore frames.
+     */
+    public KeypointTracker() {
+        this(5, 40, 0.5f, 30.0f);
+    }
+
+    /**
+     * Starts tracking from a fresh detection.
+     *
+     * @param gray        The luminance image the keypoints were detected on.
+     * @param keyPoints   The detected keypoints.
+     * @param descriptors The descriptors of the detected keypoints, one row per keypoint.
+     */
+    public void reset(Mat gray, MatOfKeyPoint keyPoints, Mat descriptors) {
+        gray.copyTo(previousGray);
+        trackedKeyPoints = keyPoints.toArray();
+        descriptors.copyTo(trackedDescriptors);
+        detectedCount = trackedKeyPoints.length;
+        framesSinceDetection = 0;
+    }
+
+    /**
+     * Forces a full detection on the next frame.
+     */
+    public void invalidate() {
+        trackedKeyPoints = new KeyPoint[0];
+        framesSinceDetection = 0;
+    }
+
+    /**
+     * Tracks the keypoints of the previous frame into the given frame.
+     * On success the tracked keypoints and descriptors are updated; on failure a full
+     * detection is required and {@link #reset(Mat, MatOfKeyPoint, Mat)} must be called.
+     *
+     * @param gray The luminance image of the current frame.
+     * @return {@code true} if tracking succeeded, {@code false} if a full detection is required.
+     */
+    public boolean track(Mat gray) {
+        if (previousGray.empty() || trackedKeyPoints.length == 0
+                || previousGray.size().width != gray.size().width
+                || previousGray.size().height != gray.size().height) {
+            return false;
+        }
+        if (framesSinceDetection >= redetectInterval) {
+            return false;
+        }
+
+        // Track the previous keypoint positions into the current frame
+        Point[] points = new Point[trackedKeyPoints.length];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = trackedKeyPoints[i].pt;
+        }
+        previousPoints.fromArray(points);
+        opticalFlow.calc(previousGray, gray, previousPoints, nextPoints, status, errors);
+
+        float[] next = new float[points.length * 2];
+        byte[] found = new byte[points.length];
+        float[] error = new float[points.length];
+        nextPoints.get(0, 0, next);
+        status.get(0, 0, found);
+        errors.get(0, 0, error);
+
+        // Keep keypoints that were found, stayed inside the image and tracked with low error
+        int width = gray.cols();
+        int height = gray.rows();
+        int[] survivors = new int[points.length];
+        int survivorCount = 0;
+        for (int i = 0; i < points.length; i++) {
+            float x = next[i * 2];
+            float y = next[i * 2 + 1];
+            if (found[i] != 0 && error[i] <= maxTrackingError
+                    && x >= 0 && y >= 0 && x < width && y < height) {
+                survivors[survivorCount++] = i;
+            }
+        }
+
+        if (survivorCount < minTrackedCount || survivorCount < detectedCount * minSurvivalRatio) {
+            Log.d(TAG, "Tracking lost: " + survivorCount + " of " + detectedCount + " keypoints left");
+            return false;
+        }
+
+        // Move surviving keypoints and compact their descriptor rows in the same order
+        KeyPoint[] moved = new KeyPoint[survivorCount];
+        for (int j = 0; j < survivorCount; j++) {
+            KeyPoint kp = trackedKeyPoints[survivors[j]];
+            moved[j] = new KeyPoint(next[survivors[j] * 2], next[survivors[j] * 2 + 1],
+                    kp.size, kp.angle, kp.response, kp.octave, kp.class_id);
+        }
+        compactDescriptors(survivors, survivorCount);
+
+        trackedKeyPoints = moved;
+        gray.copyTo(previousGray);
+        framesSinceDetection++;
+        return true;
+    }
+
+    /**
+     * Keeps only the descriptor rows listed in {@code rows}, in order.
+     */
+    private void compactDescriptors(int[] rows, int rowCount) {
+        int rowBytes = (int) (trackedDescriptors.cols() * trackedDescriptors.elemSize());
+        int totalBytes = trackedDescriptors.rows() * rowBytes;
+        if (descriptorBytes.length != totalBytes) {
+            descriptorBytes = new byte[totalBytes];
+        }
+        trackedDescriptors.get(0, 0, descriptorBytes);
+
+        for (int j = 0; j < rowCount; j++) {
+            System.arraycopy(descriptorBytes, rows[j] * rowBytes, descriptorBytes, j * rowBytes, rowBytes);
+        }
+
+        Mat compacted = new Mat(rowCount, trackedDescriptors.cols(), trackedDescriptors.type());
+        compacted.put(0, 0, descriptorBytes, 0, rowCount * rowBytes);
+        trackedDescriptors.release();
+        trackedDescriptors = compacted;
+    }
+
+    /**
+     * Returns the tracked keypoints of the current frame.
+     *
+     * @return A new {@code MatOfKeyPoint}.
+     */
+    public MatOfKeyPoint getTrackedKeyPoints() {
+        return new MatOfKeyPoint(trackedKeyPoints);
+    }
+
+    /**
+     * Returns the descriptors carried over for the tracked keypoints.
+     *
+     * @return A copy of the descriptors {@code Mat}, one row per tracked keypoint.
+     */
+    public Mat getTrackedDescriptors() {
+        return trackedDescriptors.clone();
+    }
+
+    /**
+     * Returns the number of frames tracked since the last full detection.
+     *
+     * @return The number of tracked frames.
+     */
+    public int getFramesSinceDetection() {
+        return framesSinceDetection;
+    }
+
+    /**
+     * Releases the native resources held by the tracker.
+     */
+    public void release() {
+        previousGray.release();
+        trackedDescriptors.release();
+        previousPoints.release();
+        nextPoints.release();
+        status.release();
+        errors.release();
+    }
+}
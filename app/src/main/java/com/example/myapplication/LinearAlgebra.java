@@ -0,0 +1,214 @@
+package com.example.myapplication;
+
+/**
+ * Small dense linear algebra routines for the RANSAC models, on row-major {@code double} arrays.
+ */
+final class LinearAlgebra {
+
+    private static final int MAX_SWEEPS = 64;
+
+    private LinearAlgebra() {
+    }
+
+    /**
+     * Eigen-decomposes a symmetric matrix with the cyclic Jacobi method.
+     *
+     * @param a            The n x n symmetric matrix; overwritten.
+     * @param n            The matrix size.
+     * @param eigenvalues  Output eigenvalues, length n.
+     * @param eigenvectors Output n x n matrix whose columns are the eigenvectors.
+     */
+    static void symmetricEigen(double[] a, int n, double[] eigenvalues, double[] eigenvectors) {
+        for (int i = 0; i < n * n; i++) {
+            eigenvectors[i] = 0.0;
+        }
+        for (int i = 0; i < n; i++) {
+            eigenvectors[i * n + i] = 1.0;
+        }
+
+        for (int sweep = 0; sweep < MAX_SWEEPS; sweep++) {
+            double offDiagonal = 0.0;
+            double diagonal = 0.0;
+            for (int p = 0; p < n; p++) {
+                diagonal += a[p * n + p] * a[p * n + p];
+                for (int q = p + 1; q < n; q++) {
+                    offDiagonal += a[p * n + q] * a[p * n + q];
+                }
+            }
+            if (offDiagonal <= 1e-30 * Math.max(diagonal, 1e-300)) {
+                break;
+            }
+
+            for (int p = 0; p < n; p++) {
+                for (int q = p + 1; q < n; q++) {
+                    double apq = a[p * n + q];
+                    if (apq == 0.0) {
+                        continue;
+                    }
+                    // Rotation that zeroes a[p][q]
+                    double theta = (a[q * n + q] - a[p * n + p]) / (2.0 * apq);
+                    double t = Math.signum(theta) / (Math.abs(theta) + Math.sqrt(theta * theta + 1.0));
+                    if (theta == 0.0) {
+                        t = 1.0;
+                    }
+                    double c = 1.0 / Math.sqrt(t * t + 1.0);
+                    double s = t * c;
+
+                    for (int k = 0; k < n; k++) {
+                        double akp = a[k * n + p];
+                        double akq = a[k * n + q];
+                        a[k * n + p] = c * akp - s * akq;
+                        a[k * n + q] = s * akp + c * akq;
+                    }
+                    for (int k = 0; k < n; k++) {
+                        double apk = a[p * n + k];
+                        double aqk = a[q * n + k];
+                        a[p * n + k] = c * apk - s * aqk;
+                        a[q * n + k] = s * apk + c * aqk;
+                    }
+                    for (int k = 0; k < n; k++) {
+                        double vkp = eigenvectors[k * n + p];
+                        double vkq = eigenvectors[k * n + q];
+                        eigenvectors[k * n + p] = c * vkp - s * vkq;
+                        eigenvectors[k * n + q] = s * vkp + c * vkq;
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < n; i++) {
+            eigenvalues[i] = a[i * n + i];
+        }
+    }
+
+    /**
+     * Returns the unit eigenvector of the smallest eigenvalue of a symmetric matrix, which for
+     * {@code A^T A} is the least-squares solution of {@code A x = 0} with {@code |x| = 1}.
+     *
+     * @param ata The n x n symmetric matrix; overwritten.
+     * @param n   The matrix size.
+     * @param out Output vector, length n.
+     */
+    static void smallestEigenvector(double[] ata, int n, double[] out) {
+        double[] eigenvalues = new double[n];
+        double[] eigenvectors = new double[n * n];
+        symmetricEigen(ata, n, eigenvalues, eigenvectors);
+        int smallest = 0;
+        for (int i = 1; i < n; i++) {
+            if (eigenvalues[i] < eigenvalues[smallest]) {
+                smallest = i;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            out[i] = eigenvectors[i * n + smallest];
+        }
+    }
+
+    /**
+     * Adds {@code row^T row} to a symmetric n x n accumulator.
+     */
+    static void accumulateOuterProduct(double[] ata, double[] row, int n) {
+        for (int i = 0; i < n; i++) {
+            double ri = row[i];
+            if (ri == 0.0) {
+                continue;
+            }
+            for (int j = 0; j < n; j++) {
+                ata[i * n + j] += ri * row[j];
+            }
+        }
+    }
+
+    /**
+     * Computes the singular value decomposition {@code m = U diag(s) V^T} of a 3x3 matrix,
+     * with singular values in decreasing order.
+     *
+     * @param m The matrix.
+     * @param u Output left singular vectors as columns.
+     * @param s Output singular values.
+     * @param v Output right singular vectors as columns.
+     */
+    static void svd3(double[] m, double[] u, double[] s, double[] v) {
+        double[] mtm = new double[9];
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                double sum = 0.0;
+                for (int k = 0; k < 3; k++) {
+                    sum += m[k * 3 + i] * m[k * 3 + j];
+                }
+                mtm[i * 3 + j] = sum;
+            }
+        }
+        double[] eigenvalues = new double[3];
+        double[] eigenvectors = new double[9];
+        symmetricEigen(mtm, 3, eigenvalues, eigenvectors);
+
+        // Sort by decreasing eigenvalue
+        int[] order = {0, 1, 2};
+        for (int i = 0; i < 3; i++) {
+            for (int j = i + 1; j < 3; j++) {
+                if (eigenvalues[order[j]] > eigenvalues[order[i]]) {
+                    int swap = order[i];
+                    order[i] = order[j];
+                    order[j] = swap;
+                }
+            }
+        }
+        for (int c = 0; c < 3; c++) {
+            s[c] = Math.sqrt(Math.max(eigenvalues[order[c]], 0.0));
+            for (int r = 0; r < 3; r++) {
+                v[r * 3 + c] = eigenvectors[r * 3 + order[c]];
+            }
+        }
+
+        // U columns are M v / s; complete the basis with cross products for vanishing singular values
+        for (int c = 0; c < 2; c++) {
+            double[] column = new double[3];
+            for (int r = 0; r < 3; r++) {
+                column[r] = m[r * 3] * v[c] + m[r * 3 + 1] * v[3 + c] + m[r * 3 + 2] * v[6 + c];
+            }
+            if (s[c] > 1e-12) {
+                for (int r = 0; r < 3; r++) {
+                    u[r * 3 + c] = column[r] / s[c];
+                }
+            } else {
+                // Any unit vector orthogonal to the previous columns
+                double[] axis = c == 0 ? new double[]{1, 0, 0} : perpendicular(u[0], u[3], u[6]);
+                for (int r = 0; r < 3; r++) {
+                    u[r * 3 + c] = axis[r];
+                }
+            }
+        }
+        double[] third = cross(u[0], u[3], u[6], u[1], u[4], u[7]);
+        double thirdColumnDot = 0.0;
+        for (int r = 0; r < 3; r++) {
+            thirdColumnDot += (m[r * 3] * v[2] + m[r * 3 + 1] * v[5] + m[r * 3 + 2] * v[8]) * third[r];
+        }
+        double sign = thirdColumnDot < 0.0 ? -1.0 : 1.0;
+        for (int r = 0; r < 3; r++) {
+            u[r * 3 + 2] = sign * third[r];
+        }
+    }
+
+    /**
+     * Returns the cross product of two 3-vectors.
+     */
+    static double[] cross(double ax, double ay, double az, double bx, double by, double bz) {
+        return new double[]{ay * bz - az * by, az * bx - ax * bz, ax * by - ay * bx};
+    }
+
+    /**
+     * Returns the determinant of a 3x3 matrix.
+     */
+    static double determinant3(double[] m) {
+        return m[0] * (m[4] * m[8] - m[5] * m[7])
+                - m[1] * (m[3] * m[8] - m[5] * m[6])
+                + m[2] * (m[3] * m[7] - m[4] * m[6]);
+    }
+
+    private static double[] perpendicular(double x, double y, double z) {
+        double[] candidate = Math.abs(x) < 0.9 ? cross(x, y, z, 1, 0, 0) : cross(x, y, z, 0, 1, 0);
+        double norm = Math.sqrt(candidate[0] * candidate[0] + candidate[1] * candidate[1] + candidate[2] * candidate[2]);
+        return new double[]{candidate[0] / norm, candidate[1] / norm, candidate[2] / norm};
+    }
+}
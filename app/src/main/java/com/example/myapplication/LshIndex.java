@@ -0,0 +1,190 @@
+package com.example.myapplication;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The {@code LshIndex} class is a multi-probe locality sensitive hashing index for binary
+ * descriptors. Each hash table keys descriptors on a random subset of their bits; a query
+ * visits its own bucket in every table plus, with multi-probing, the buckets whose keys differ
+ * in one bit. Candidates are ranked by exact Hamming distance and the two nearest neighbours
+ * are returned for Lowe's ratio test.
+ */
+public class LshIndex {
+
+    /** Largest supported key size; bucket offsets are stored densely per table. */
+    public static final int MAX_KEY_SIZE = 20;
+
+    private final int tableCount;
+    private final int keySize;
+    private final boolean multiProbe;
+    private final long seed;
+
+    private BinaryDescriptors database;
+
+    // Per table: sampled bit positions and CSR bucket layout
+    private int[][] keyBits;
+    private int[][] bucketStarts;
+    private int[][] bucketRows;
+
+    // Per-query visited stamps to skip candidates already scored by another table
+    private int[] visitedStamps = new int[0];
+    private int stamp;
+
+    /**
+     * Constructs a new {@code LshIndex}.
+     *
+     * @param tableCount Number of hash tables.
+     * @param keySize    Number of bits per hash key, at most {@link #MAX_KEY_SIZE}.
+     * @param multiProbe {@code true} to also probe buckets at Hamming distance 1 from the query key.
+     * @param seed       Seed for bit sampling, so indexes are reproducible.
+     */
+    public LshIndex(int tableCount, int keySize, boolean multiProbe, long seed) {
+        if (tableCount <= 0 || keySize <= 0 || keySize > MAX_KEY_SIZE) {
+            throw new IllegalArgumentException("Invalid LSH configuration: tables=" + tableCount + ", keySize=" + keySize);
+        }
+        this.tableCount = tableCount;
+        this.keySize = keySize;
+        this.multiProbe = multiProbe;
+        this.seed = seed;
+    }
+
+    /**
+     * Constructs an {@code LshIndex} with 6 tables of 14-bit keys and multi-probing.
+     */
+    public LshIndex() {
+        this(6, 14, true, 0x5eedL);
+    }
+
+    /**
+     * Builds the hash tables over the given database descriptors.
+     *
+     * @param descriptors The database descriptors.
+     */
+    public void build(BinaryDescriptors descriptors) {
+        this.database = descriptors;
+        int rows = descriptors.getRows();
+        int bits = descriptors.getBytesPerRow() * 8;
+        int bucketCount = 1 << keySize;
+        Random random = new Random(seed);
+
+        keyBits = new int[tableCount][];
+        bucketStarts = new int[tableCount][];
+        bucketRows = new int[tableCount][];
+
+        for (int t = 0; t < tableCount; t++) {
+            // Sample distinct bit positions for this table
+            int[] positions = new int[Math.max(bits, keySize)];
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = i % Math.max(bits, 1);
+            }
+            for (int i = 0; i < keySize; i++) {
+                int j = i + random.nextInt(positions.length - i);
+                int swap = positions[i];
+                positions[i] = positions[j];
+                positions[j] = swap;
+            }
+            keyBits[t] = Arrays.copyOf(positions, keySize);
+
+            // Counting sort of rows by key into a CSR layout
+            int[] keys = new int[rows];
+            int[] starts = new int[bucketCount + 1];
+            for (int row = 0; row < rows; row++) {
+                keys[row] = key(descriptors, row, keyBits[t]);
+                starts[keys[row] + 1]++;
+            }
+            for (int b = 0; b < bucketCount; b++) {
+                starts[b + 1] += starts[b];
+            }
+            int[] fill = Arrays.copyOf(starts, bucketCount);
+            int[] members = new int[rows];
+            for (int row = 0; row < rows; row++) {
+                members[fill[keys[row]]++] = row;
+            }
+            bucketStarts[t] = starts;
+            bucketRows[t] = members;
+        }
+
+        visitedStamps = new int[rows];
+        stamp = 0;
+    }
+
+    /**
+     * Finds the two nearest database descriptors for every query descriptor.
+     * Entries for which fewer neighbours were found are set to -1.
+     *
+     * @param queries      The query descriptors.
+     * @param bestRows     Output nearest database row per query.
+     * @param bestDistances   Output distance to the nearest row.
+     * @param secondDistances Output distance to the second nearest row.
+     */
+    public void knnMatch2(BinaryDescriptors queries, int[] bestRows, int[] bestDistances, int[] secondDistances) {
+        if (database == null) {
+            throw new IllegalStateException("Index not built");
+        }
+        for (int q = 0; q < queries.getRows(); q++) {
+            if (++stamp == Integer.MAX_VALUE) {
+                Arrays.fill(visitedStamps, 0);
+                stamp = 1;
+            }
+
+            int best = -1;
+            int bestDistance = Integer.MAX_VALUE;
+            int secondDistance = Integer.MAX_VALUE;
+
+            for (int t = 0; t < tableCount; t++) {
+                int key = key(queries, q, keyBits[t]);
+                int probes = multiProbe ? keySize + 1 : 1;
+                for (int p = 0; p < probes; p++) {
+                    // Probe 0 is the query's own bucket, probe p flips key bit p - 1
+                    int bucket = p == 0 ? key : key ^ (1 << (p - 1));
+                    for (int m = bucketStarts[t][bucket]; m < bucketStarts[t][bucket + 1]; m++) {
+                        int row = bucketRows[t][m];
+                        if (visitedStamps[row] == stamp) {
+                            continue;
+                        }
+                        visitedStamps[row] = stamp;
+
+                        int distance = queries.distance(q, database, row);
+                        if (distance < bestDistance) {
+                            secondDistance = bestDistance;
+                            bestDistance = distance;
+                            best = row;
+                        } else if (distance < secondDistance) {
+                            secondDistance = distance;
+                        }
+                    }
+                }
+            }
+
+            bestRows[q] = best;
+            bestDistances[q] = best >= 0 ? bestDistance : -1;
+            secondDistances[q] = secondDistance != Integer.MAX_VALUE ? secondDistance : -1;
+        }
+    }
+
+    /**
+     * Computes the hash key of a descriptor from the sampled bit positions.
+     */
+    private static int key(BinaryDescriptors descriptors, int row, int[] positions) {
+        int key = 0;
+        for (int i = 0; i < positions.length; i++) {
+            key |= descriptors.bit(row, positions[i]) << i;
+        }
+        return key;
+    }
+
+    /**
+     * Returns the number of indexed descriptors.
+     *
+     * @return The database size, or 0 before {@link #build(BinaryDescriptors)}.
+     */
+    public int size() {
+        return database != null ? database.getRows() : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "LSH(tables=" + tableCount + ", keySize=" + keySize + ", multiProbe=" + multiProbe + ")";
+    }
+}
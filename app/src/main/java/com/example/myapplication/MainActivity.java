@@ -2,12 +2,14 @@ package com.example.myapplication;
 
 import android.Manifest;
 import android.app.Activity;
+import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
 import android.opengl.GLSurfaceView;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.View;
 import android.widget.Button;
+import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
@@ -15,6 +17,8 @@ import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
 import com.google.ar.core.ArCoreApk;
+import com.google.ar.core.CameraConfig;
+import com.google.ar.core.CameraConfigFilter;
 import com.google.ar.core.Config;
 import com.google.ar.core.Session;
 import com.google.ar.core.exceptions.CameraNotAvailableException;
@@ -24,6 +28,9 @@ import org.opencv.android.OpenCVLoader;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Locale;
 
 /**
@@ -36,6 +43,18 @@ public class MainActivity extends Activity implements MatchPercentageListener {
     private static final int REQUEST_CAMERA_PERMISSION = 200;
     private static final String TAG = "MainActivity";
 
+    // Detection budget per frame and the AKAZE cost per megapixel measured by CameraResolutionBenchmark,
+    // used until the renderer has measured the cost on this device. 25 ms at 80 ms/MP fits at most
+    // 0.31 MP, so nothing above VGA (640x480) is selected unless nothing else is offered.
+    private static final double DETECTION_BUDGET_MS = 25.0;
+    private static final double DEFAULT_DETECTION_MS_PER_MEGAPIXEL = 80.0;
+    // The camera config is selected again on resume once the measured cost drifts this far from the one used
+    private static final double DETECTION_COST_CHANGE_RATIO = 0.25;
+
+    // Settings kept across launches
+    private static final String PREF_CAMERA_IMAGE_PREFERENCE = "camera_image_preference";
+    private static final String PREF_DETECTION_MS_PER_MEGAPIXEL = "detection_ms_per_megapixel";
+
     private Session arSession;
     private boolean userRequestedInstall = true;
 
@@ -44,6 +63,13 @@ public class MainActivity extends Activity implements MatchPercentageListener {
 
     private CADModelLoader cadModelLoader;
 
+    private TextView liveScoreText;
+
+    private SharedPreferences settings;
+    private Button cameraPreferenceButton;
+    private CameraConfigSelector.Preference cameraImagePreference = CameraConfigSelector.Preference.LOWER_RESOLUTION;
+    private double detectionMsPerMegapixel = DEFAULT_DETECTION_MS_PER_MEGAPIXEL;
+
     /**
      * Called when the activity is first created.
      *
@@ -92,6 +118,38 @@ public class MainActivity extends Activity implements MatchPercentageListener {
             }
         });
 
+        // Long-press the compute button to toggle continuous matching with a live score
+        liveScoreText = findViewById(R.id.live_score_text);
+        computeButton.setOnLongClickListener(new View.OnLongClickListener() {
+            @Override
+            public boolean onLongClick(View v) {
+                boolean enabled = !renderer.isContinuousMatchingEnabled();
+                renderer.setContinuousMatchingEnabled(enabled);
+                liveScoreText.setVisibility(enabled ? View.VISIBLE : View.GONE);
+                liveScoreText.setText(enabled ? "Live match: --" : "");
+                Toast.makeText(MainActivity.this, enabled ? "Live matching on" : "Live matching off",
+                        Toast.LENGTH_SHORT).show();
+                return true;
+            }
+        });
+
+        // Restore the camera image preference and the detection cost measured in an earlier run
+        settings = getPreferences(MODE_PRIVATE);
+        cameraImagePreference = CameraConfigSelector.Preference.valueOf(settings.getString(PREF_CAMERA_IMAGE_PREFERENCE,
+                CameraConfigSelector.Preference.LOWER_RESOLUTION.name()));
+        detectionMsPerMegapixel = settings.getFloat(PREF_DETECTION_MS_PER_MEGAPIXEL, (float) DEFAULT_DETECTION_MS_PER_MEGAPIXEL);
+
+        // Setup the camera preference button to switch between a lower resolution and a higher frame rate
+        cameraPreferenceButton = findViewById(R.id.camera_preference_button);
+        updateCameraPreferenceButton();
+        cameraPreferenceButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                setCameraImagePreference(cameraImagePreference == CameraConfigSelector.Preference.LOWER_RESOLUTION
+                        ? CameraConfigSelector.Preference.HIGHER_FPS : CameraConfigSelector.Preference.LOWER_RESOLUTION);
+            }
+        });
+
         // Check and request camera permissions
         if (ContextCompat.checkSelfPermission(this, Manifest.permission.CAMERA) != PackageManager.PERMISSION_GRANTED) {
             // Request camera permission if not granted
@@ -111,6 +169,15 @@ public class MainActivity extends Activity implements MatchPercentageListener {
         Toast.makeText(this, "Match Percentage: " + formattedPercentage, Toast.LENGTH_LONG).show();
     }
 
+    @Override
+    public void onLiveMatchScoreUpdated(double smoothedPercentage, double rawPercentage) {
+        // Results may still arrive shortly after continuous matching was switched off
+        if (!renderer.isContinuousMatchingEnabled()) {
+            return;
+        }
+        liveScoreText.setText(String.format(Locale.US, "Live match: %.1f%%", smoothedPercentage));
+    }
+
     /**
      * Loads the CAD model from the assets folder.
      *
@@ -140,16 +207,18 @@ public class MainActivity extends Activity implements MatchPercentageListener {
                         // Create a new ARCore session
                         arSession = new Session(this);
 
+                        // Choose the CPU image resolution before the session is configured and resumed
+                        selectCameraConfig();
+
                         // Configure ARCore settings
                         Config config = new Config(arSession);
                         config.setFocusMode(Config.FocusMode.AUTO);
-                        config.setDepthMode(Config.DepthMode.AUTOMATIC);
-                        config.setLightEstimationMode(Config.LightEstimationMode.ENVIRONMENTAL_HDR);
                         config.setUpdateMode(Config.UpdateMode.LATEST_CAMERA_IMAGE);
-                        arSession.configure(config);
 
-                        // Assign the ARCore session to the renderer
+                        // Assign the ARCore session to the renderer, which enables depth, lighting and
+                        // plane finding only while a consumer registered for them
                         renderer.setSession(arSession);
+                        renderer.configureSession(config);
                         Log.i(TAG, "ARCore session initialized successfully.");
                         break;
 
@@ -168,6 +237,97 @@ public class MainActivity extends Activity implements MatchPercentageListener {
         }
     }
 
+    /**
+     * Sets whether the CPU camera image favours a lower resolution or a higher frame rate among the
+     * configurations whose detection cost fits the budget, and keeps the setting for later launches.
+     * An active session is paused while the camera configuration changes.
+     *
+     * @param preference The camera image preference.
+     */
+    public void setCameraImagePreference(CameraConfigSelector.Preference preference) {
+        cameraImagePreference = preference;
+        settings.edit().putString(PREF_CAMERA_IMAGE_PREFERENCE, preference.name()).apply();
+        updateCameraPreferenceButton();
+        reselectCameraConfig();
+    }
+
+    /**
+     * Shows the camera image preference on its button.
+     */
+    private void updateCameraPreferenceButton() {
+        cameraPreferenceButton.setText(cameraImagePreference == CameraConfigSelector.Preference.LOWER_RESOLUTION
+                ? "Low Res" : "High FPS");
+    }
+
+    /**
+     * Adopts the detection cost the renderer measured on this device and keeps it for later launches.
+     * The session must be paused; if the cost drifted from the one the camera configuration was
+     * selected with, the configuration is selected again.
+     */
+    private void updateDetectionCost() {
+        double measured = renderer.getDetectionMsPerMegapixel();
+        if (measured <= 0 || Math.abs(measured - detectionMsPerMegapixel) <= DETECTION_COST_CHANGE_RATIO * detectionMsPerMegapixel) {
+            return;
+        }
+        Log.i(TAG, String.format(Locale.US, "Measured detection cost %.1f ms/MP, was %.1f ms/MP",
+                measured, detectionMsPerMegapixel));
+        detectionMsPerMegapixel = measured;
+        settings.edit().putFloat(PREF_DETECTION_MS_PER_MEGAPIXEL, (float) measured).apply();
+        selectCameraConfig();
+    }
+
+    /**
+     * Applies the camera configuration that fits the current preference and detection cost, pausing an
+     * active session in the same order as {@link #onPause()} and {@link #onResume()}.
+     */
+    private void reselectCameraConfig() {
+        if (arSession == null) {
+            return;
+        }
+        glSurfaceView.onPause(); // Stop rendering before the session pauses
+        arSession.pause();
+        selectCameraConfig();
+        try {
+            arSession.resume();
+            glSurfaceView.onResume();
+        } catch (CameraNotAvailableException e) {
+            // Handle the exception when the camera is not available, as onResume does. Rendering is
+            // still paused, so the session can be detached from the renderer and closed safely.
+            Toast.makeText(this, "Camera not available. Try restarting the app.", Toast.LENGTH_LONG).show();
+            renderer.setSession(null);
+            arSession.close();
+            arSession = null;
+            Log.e(TAG, "Camera not available after changing the camera config: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Enumerates the camera configurations the session supports and applies the one whose CPU image
+     * size fits the detection budget, following the camera image preference. The session must be paused.
+     */
+    private void selectCameraConfig() {
+        CameraConfigFilter filter = new CameraConfigFilter(arSession)
+                .setTargetFps(EnumSet.of(CameraConfigFilter.TargetFps.TARGET_FPS_30, CameraConfigFilter.TargetFps.TARGET_FPS_60));
+        List<CameraConfig> configs = arSession.getSupportedCameraConfigs(filter);
+        if (configs == null || configs.isEmpty()) {
+            Log.w(TAG, "No supported camera configs, keeping the ARCore default");
+            return;
+        }
+
+        List<CameraConfigSelector.Candidate> candidates = new ArrayList<>(configs.size());
+        for (CameraConfig cameraConfig : configs) {
+            candidates.add(new CameraConfigSelector.Candidate(cameraConfig.getImageSize().getWidth(),
+                    cameraConfig.getImageSize().getHeight(), cameraConfig.getFpsRange().getUpper()));
+        }
+        CameraConfigSelector selector = new CameraConfigSelector(DETECTION_BUDGET_MS, detectionMsPerMegapixel,
+                cameraImagePreference);
+        int selected = selector.select(candidates);
+        CameraConfigSelector.Candidate candidate = candidates.get(selected);
+        arSession.setCameraConfig(configs.get(selected));
+        Log.i(TAG, String.format(Locale.US, "Camera config %s of %s selected by %s, estimated detection %.1f ms",
+                candidate, candidates, selector, selector.estimateDetectionMs(candidate)));
+    }
+
     /**
      * Called when the activity is resumed.
      * Resumes the ARCore session and the GLSurfaceView rendering.
@@ -177,8 +337,10 @@ public class MainActivity extends Activity implements MatchPercentageListener {
         super.onResume();
         if (arSession != null) {
             try {
+                updateDetectionCost(); // Fit the camera config to the detection cost measured so far
                 arSession.resume(); // Resume the ARCore session
                 glSurfaceView.onResume(); // Resume OpenGL rendering
+                renderer.startThermalMonitoring(); // Scale the vision workload with the device temperature
             } catch (CameraNotAvailableException e) {
                 // Handle the exception when the camera is not available
                 Toast.makeText(this, "Camera not available. Try restarting the app.", Toast.LENGTH_LONG).show();
@@ -198,6 +360,9 @@ public class MainActivity extends Activity implements MatchPercentageListener {
         if (glSurfaceView != null) {
             glSurfaceView.onPause(); // Pause OpenGL rendering
         }
+        if (renderer != null) {
+            renderer.stopThermalMonitoring();
+        }
         if (arSession != null) {
             arSession.pause(); // Pause the ARCore session
         }
@@ -210,6 +375,9 @@ public class MainActivity extends Activity implements MatchPercentageListener {
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        if (renderer != null) {
+            renderer.release(); // Stop the matching and debug image workers
+        }
         if (arSession != null) {
             arSession.close(); // Close the ARCore session
             arSession = null;
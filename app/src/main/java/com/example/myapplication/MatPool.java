@@ -0,0 +1,276 @@
+package com.example.myapplication;
+
+import android.util.Log;
+
+import org.opencv.core.Mat;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code MatPool} class recycles native {@link Mat} buffers between frames. Buffers are pooled by
+ * (rows, cols, type), so a camera frame of the same size reuses the native memory of the previous one
+ * instead of allocating and waiting for the garbage collector to finalise the old {@code Mat}.
+ * A {@link FrameScope} collects the temporaries of one frame and returns or releases all of them when
+ * closed. With leak tracking enabled, the pool records where every outstanding buffer was acquired and
+ * reports buffers that are still outstanding several frames later; without it the pool keeps no
+ * reference to buffers it handed out, so a buffer that is never returned is still finalised normally.
+ */
+public class MatPool {
+
+    private static final String TAG = "MatPool";
+
+    private final int maxFreePerKey;
+
+    // Free buffers per (rows, cols, type) key
+    private final Map<Long, ArrayDeque<Mat>> free = new HashMap<>();
+
+    // Buffers handed out while leak tracking is enabled and not yet returned
+    private final IdentityHashMap<Mat, Acquisition> outstanding = new IdentityHashMap<>();
+
+    private boolean leakTracking = false;
+    private long frame = 0;
+    private long allocations = 0;
+    private long reuses = 0;
+
+    private static final class Acquisition {
+        final long frame;
+        final Throwable site;
+        boolean reported;
+
+        Acquisition(long frame, Throwable site) {
+            this.frame = frame;
+            this.site = site;
+        }
+    }
+
+    /**
+     * Collects the temporaries of one frame. Closing the scope recycles every adopted {@code Mat}
+     * through the pool, so no temporary outlives its frame by accident.
+     */
+    public final class FrameScope implements AutoCloseable {
+
+        private final List<Mat> mats = new ArrayList<>();
+
+        private FrameScope() {
+        }
+
+        /**
+         * Acquires a pooled buffer that is returned when the scope closes.
+         *
+         * @param rows Number of rows.
+         * @param cols Number of columns.
+         * @param type OpenCV type, e.g. {@code CvType.CV_8UC1}.
+         * @return A buffer of the requested size and type with undefined contents.
+         */
+        public Mat acquire(int rows, int cols, int type) {
+            return adopt(MatPool.this.acquire(rows, cols, type));
+        }
+
+        /**
+         * Adopts a {@code Mat} so it is recycled when the scope closes.
+         *
+         * @param mat The {@code Mat}, or {@code null}.
+         * @return The same {@code Mat}.
+         */
+        public <T extends Mat> T adopt(T mat) {
+            if (mat != null) {
+                mats.add(mat);
+            }
+            return mat;
+        }
+
+        /**
+         * Takes a {@code Mat} back out of the scope, so it survives the frame.
+         *
+         * @param mat A {@code Mat} adopted by this scope.
+         * @return The same {@code Mat}.
+         */
+        public <T extends Mat> T detach(T mat) {
+            for (int i = mats.size() - 1; i >= 0; i--) {
+                if (mats.get(i) == mat) {
+                    mats.remove(i);
+                    break;
+                }
+            }
+            return mat;
+        }
+
+        @Override
+        public void close() {
+            for (int i = mats.size() - 1; i >= 0; i--) {
+                recycle(mats.get(i));
+            }
+            mats.clear();
+            endFrame();
+        }
+    }
+
+    /**
+     * Constructs a new {@code MatPool} keeping up to 4 free buffers per size and type.
+     */
+    public MatPool() {
+        this(4);
+    }
+
+    /**
+     * Constructs a new {@code MatPool}.
+     *
+     * @param maxFreePerKey Number of free buffers kept per (rows, cols, type); further returns are released.
+     */
+    public MatPool(int maxFreePerKey) {
+        this.maxFreePerKey = maxFreePerKey;
+    }
+
+    /**
+     * Opens a scope for the temporaries of one frame.
+     *
+     * @return The frame scope; close it at the end of the frame.
+     */
+    public FrameScope openScope() {
+        return new FrameScope();
+    }
+
+    /**
+     * Acquires a buffer of the given size and type, reusing a free one when available.
+     * Return it with {@link #recycle(Mat)}.
+     *
+     * @param rows Number of rows.
+     * @param cols Number of columns.
+     * @param type OpenCV type, e.g. {@code CvType.CV_8UC1}.
+     * @return A buffer with undefined contents.
+     */
+    public synchronized Mat acquire(int rows, int cols, int type) {
+        ArrayDeque<Mat> buffers = free.get(key(rows, cols, type));
+        Mat mat = buffers != null ? buffers.pollLast() : null;
+        if (mat != null) {
+            reuses++;
+        } else {
+            mat = new Mat(rows, cols, type);
+            allocations++;
+        }
+        if (leakTracking) {
+            outstanding.put(mat, new Acquisition(frame, new Throwable("Mat acquired")));
+        }
+        return mat;
+    }
+
+    /**
+     * Returns a buffer to the pool once its owner is done with it. Any {@code Mat} that owns continuous
+     * memory can be recycled and is pooled under its current size and type; views into another
+     * {@code Mat} are released instead.
+     *
+     * @param mat The {@code Mat} to recycle, or {@code null}.
+     */
+    public synchronized void recycle(Mat mat) {
+        if (mat == null) {
+            return;
+        }
+        outstanding.remove(mat);
+        if (mat.empty() || mat.isSubmatrix() || !mat.isContinuous()) {
+            mat.release();
+            return;
+        }
+        long key = key(mat.rows(), mat.cols(), mat.type());
+        ArrayDeque<Mat> buffers = free.get(key);
+        if (buffers == null) {
+            buffers = new ArrayDeque<>();
+            free.put(key, buffers);
+        }
+        if (buffers.size() < maxFreePerKey) {
+            buffers.addLast(mat);
+        } else {
+            mat.release();
+        }
+    }
+
+    /**
+     * Enables or disables tracking of outstanding buffers and their acquisition sites for leak reports.
+     * Disabling it forgets all outstanding buffers.
+     *
+     * @param enabled {@code true} to track outstanding buffers.
+     */
+    public synchronized void setLeakTracking(boolean enabled) {
+        leakTracking = enabled;
+        if (!enabled) {
+            outstanding.clear();
+        }
+    }
+
+    /**
+     * Marks the end of a frame; called when a {@link FrameScope} closes.
+     */
+    private synchronized void endFrame() {
+        frame++;
+    }
+
+    /**
+     * Logs every tracked buffer that has been outstanding for more than the given number of frames,
+     * with its acquisition site. Each buffer is reported once.
+     *
+     * @param maxAgeFrames Frames a buffer may stay outstanding before it counts as leaked.
+     * @return The number of newly reported buffers.
+     */
+    public synchronized int reportLeaks(int maxAgeFrames) {
+        int reported = 0;
+        for (Map.Entry<Mat, Acquisition> entry : outstanding.entrySet()) {
+            Acquisition acquisition = entry.getValue();
+            if (acquisition.reported || frame - acquisition.frame <= maxAgeFrames) {
+                continue;
+            }
+            acquisition.reported = true;
+            reported++;
+            Mat mat = entry.getKey();
+            Log.w(TAG, "Leaked Mat " + mat.rows() + "x" + mat.cols() + " type " + mat.type()
+                    + ", outstanding for " + (frame - acquisition.frame) + " frames", acquisition.site);
+        }
+        return reported;
+    }
+
+    /**
+     * Releases all free buffers. Outstanding buffers stay valid and are released when recycled.
+     */
+    public synchronized void clear() {
+        for (ArrayDeque<Mat> buffers : free.values()) {
+            for (Mat mat : buffers) {
+                mat.release();
+            }
+        }
+        free.clear();
+    }
+
+    /**
+     * Returns the number of buffers handed out and not yet returned since leak tracking was enabled.
+     *
+     * @return The outstanding count; 0 while leak tracking is disabled.
+     */
+    public synchronized int getOutstandingCount() {
+        return outstanding.size();
+    }
+
+    public synchronized long getAllocationCount() {
+        return allocations;
+    }
+
+    public synchronized long getReuseCount() {
+        return reuses;
+    }
+
+    private static long key(int rows, int cols, int type) {
+        return ((long) rows << 40) | ((long) cols << 16) | (type & 0xFFFF);
+    }
+
+    @Override
+    public synchronized String toString() {
+        int freeCount = 0;
+        for (ArrayDeque<Mat> buffers : free.values()) {
+            freeCount += buffers.size();
+        }
+        return "MatPool(free=" + freeCount + ", outstanding=" + outstanding.size()
+                + ", allocations=" + allocations + ", reuses=" + reuses + ")";
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.myapplication;
+
+import org.opencv.core.DMatch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The {@code MatchBuffer} class is a reusable, growable buffer of descriptor matches stored as
+ * interleaved (query, train) index pairs with a parallel distance array, so matching a frame does
+ * not allocate a {@link DMatch} per candidate.
+ */
+public class MatchBuffer {
+
+    private int[] pairs;
+    private float[] distances;
+    private int size;
+
+    /**
+     * Constructs a new {@code MatchBuffer}.
+     *
+     * @param initialCapacity Number of matches the buffer holds before growing.
+     */
+    public MatchBuffer(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        this.pairs = new int[2 * capacity];
+        this.distances = new float[capacity];
+    }
+
+    /**
+     * Constructs a {@code MatchBuffer} for 1024 matches.
+     */
+    public MatchBuffer() {
+        this(1024);
+    }
+
+    /**
+     * Removes all matches, keeping the storage.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Makes room for at least {@code capacity} matches.
+     *
+     * @param capacity The required capacity.
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > distances.length) {
+            int grown = Math.max(capacity, distances.length * 2);
+            pairs = Arrays.copyOf(pairs, 2 * grown);
+            distances = Arrays.copyOf(distances, grown);
+        }
+    }
+
+    /**
+     * Appends a match.
+     *
+     * @param queryIndex Row of the query descriptor.
+     * @param trainIndex Row of the train descriptor.
+     * @param distance   Descriptor distance.
+     */
+    public void add(int queryIndex, int trainIndex, float distance) {
+        ensureCapacity(size + 1);
+        pairs[2 * size] = queryIndex;
+        pairs[2 * size + 1] = trainIndex;
+        distances[size] = distance;
+        size++;
+    }
+
+    /**
+     * Returns the number of matches.
+     *
+     * @return The match count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the query row of a match.
+     *
+     * @param i The match index.
+     * @return The query descriptor row.
+     */
+    public int getQueryIndex(int i) {
+        return pairs[2 * i];
+    }
+
+    /**
+     * Returns the train row of a match.
+     *
+     * @param i The match index.
+     * @return The train descriptor row.
+     */
+    public int getTrainIndex(int i) {
+        return pairs[2 * i + 1];
+    }
+
+    /**
+     * Returns the distance of a match.
+     *
+     * @param i The match index.
+     * @return The descriptor distance.
+     */
+    public float getDistance(int i) {
+        return distances[i];
+    }
+
+    /**
+     * Converts the matches to {@link DMatch} objects for the OpenCV APIs that need them.
+     *
+     * @return A new list with one {@code DMatch} per match.
+     */
+    public List<DMatch> toList() {
+        List<DMatch> matches = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            matches.add(new DMatch(pairs[2 * i], pairs[2 * i + 1], distances[i]));
+        }
+        return matches;
+    }
+}
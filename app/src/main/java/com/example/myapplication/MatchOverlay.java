@@ -0,0 +1,187 @@
+package com.example.myapplication;
+
+import android.opengl.GLES32;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * The {@code MatchOverlay} class draws the markers of a {@link MatchOverlayData} over the camera feed
+ * with a single instanced draw call. Every marker is the same screen-sized quad, placed and coloured
+ * by per-instance attributes; inliers are drawn as filled discs and outliers as rings. The instance
+ * buffer is uploaded only when a new match result arrives, so a static overlay costs one draw call
+ * per frame.
+ */
+public class MatchOverlay {
+
+    // Diameter of a marker in pixels
+    private static final float MARKER_SIZE_PIXELS = 14.0f;
+
+    // Instances the buffer is created for; it grows by doubling
+    private static final int INITIAL_INSTANCE_CAPACITY = 256;
+
+    private static final int CORNER_LOCATION = 0;
+    private static final int CENTER_LOCATION = 1;
+    private static final int COLOR_LOCATION = 2;
+
+    private ShaderProgram shaderProgram;
+    private int markerScaleHandle = -1;
+
+    private int vaoId = 0;
+    private int quadVboId = 0;
+    private int instanceVboId = 0;
+    private int instanceCapacity = 0;
+    private FloatBuffer instanceBuffer;
+    private float[] glInstances = new float[0];
+
+    // Data and image size currently in the instance buffer
+    private MatchOverlayData uploadedData;
+    private int uploadedWidth;
+    private int uploadedHeight;
+
+    /**
+     * Compiles the marker shaders and creates the vertex array; call on the GL thread.
+     */
+    public void initOpenGL() {
+        String vertexShaderCode =
+                "#version 320 es\n" +
+                        "layout(location = 0) in vec2 aCorner;" +
+                        "layout(location = 1) in vec2 aCenter;" +
+                        "layout(location = 2) in vec4 aColor;" +
+                        "uniform vec2 uMarkerScale;" +
+                        "out vec2 vLocal;" +
+                        "out vec4 vColor;" +
+                        "void main() {" +
+                        "  vLocal = aCorner;" +
+                        "  vColor = aColor;" +
+                        "  gl_Position = vec4(aCenter + aCorner * uMarkerScale, 0.0, 1.0);" +
+                        "}";
+
+        // Inliers are opaque discs; outliers, drawn below full alpha, are rings
+        String fragmentShaderCode =
+                "#version 320 es\n" +
+                        "precision mediump float;" +
+                        "in vec2 vLocal;" +
+                        "in vec4 vColor;" +
+                        "out vec4 fragColor;" +
+                        "void main() {" +
+                        "  float r = length(vLocal);" +
+                        "  if (r > 1.0 || (vColor.a < 1.0 && r < 0.6)) discard;" +
+                        "  fragColor = vColor;" +
+                        "}";
+
+        shaderProgram = new ShaderProgram(vertexShaderCode, fragmentShaderCode);
+        markerScaleHandle = GLES32.glGetUniformLocation(shaderProgram.getProgramId(), "uMarkerScale");
+
+        int[] vaos = new int[1];
+        GLES32.glGenVertexArrays(1, vaos, 0);
+        vaoId = vaos[0];
+        GLES32.glBindVertexArray(vaoId);
+
+        int[] vbos = new int[2];
+        GLES32.glGenBuffers(2, vbos, 0);
+        quadVboId = vbos[0];
+        instanceVboId = vbos[1];
+
+        // Corners of the marker quad, shared by all instances
+        float[] corners = {-1.0f, -1.0f, 1.0f, -1.0f, -1.0f, 1.0f, 1.0f, 1.0f};
+        FloatBuffer cornerBuffer = ByteBuffer.allocateDirect(corners.length * Float.BYTES)
+                .order(ByteOrder.nativeOrder())
+                .asFloatBuffer();
+        cornerBuffer.put(corners).position(0);
+        GLES32.glBindBuffer(GLES32.GL_ARRAY_BUFFER, quadVboId);
+        GLES32.glBufferData(GLES32.GL_ARRAY_BUFFER, corners.length * Float.BYTES, cornerBuffer, GLES32.GL_STATIC_DRAW);
+        GLES32.glEnableVertexAttribArray(CORNER_LOCATION);
+        GLES32.glVertexAttribPointer(CORNER_LOCATION, 2, GLES32.GL_FLOAT, false, 0, 0);
+
+        // Centre and colour advance once per instance
+        int stride = MatchOverlayData.FLOATS_PER_INSTANCE * Float.BYTES;
+        GLES32.glBindBuffer(GLES32.GL_ARRAY_BUFFER, instanceVboId);
+        GLES32.glEnableVertexAttribArray(CENTER_LOCATION);
+        GLES32.glVertexAttribPointer(CENTER_LOCATION, 2, GLES32.GL_FLOAT, false, stride, 0);
+        GLES32.glVertexAttribDivisor(CENTER_LOCATION, 1);
+        GLES32.glEnableVertexAttribArray(COLOR_LOCATION);
+        GLES32.glVertexAttribPointer(COLOR_LOCATION, 4, GLES32.GL_FLOAT, false, stride, 2 * Float.BYTES);
+        GLES32.glVertexAttribDivisor(COLOR_LOCATION, 1);
+
+        GLES32.glBindVertexArray(0);
+        GLES32.glBindBuffer(GLES32.GL_ARRAY_BUFFER, 0);
+
+        instanceCapacity = 0;
+        uploadedData = null;
+        ensureCapacity(INITIAL_INSTANCE_CAPACITY);
+    }
+
+    /**
+     * Draws the markers of a match result; call on the GL thread.
+     *
+     * @param data           The overlay data of the latest match, or {@code null} to draw nothing.
+     * @param imageWidth     Width of the camera image the match was computed on.
+     * @param imageHeight    Height of the camera image the match was computed on.
+     * @param viewportWidth  Width of the viewport in pixels.
+     * @param viewportHeight Height of the viewport in pixels.
+     */
+    public void render(MatchOverlayData data, int imageWidth, int imageHeight, int viewportWidth, int viewportHeight) {
+        if (data == null || data.getCount() == 0 || vaoId == 0 || viewportWidth == 0 || viewportHeight == 0) {
+            return;
+        }
+        if (data != uploadedData || imageWidth != uploadedWidth || imageHeight != uploadedHeight) {
+            upload(data, imageWidth, imageHeight);
+        }
+
+        GLES32.glUseProgram(shaderProgram.getProgramId());
+        GLES32.glUniform2f(markerScaleHandle, MARKER_SIZE_PIXELS / viewportWidth, MARKER_SIZE_PIXELS / viewportHeight);
+        GLES32.glBindVertexArray(vaoId);
+        GLES32.glDrawArraysInstanced(GLES32.GL_TRIANGLE_STRIP, 0, 4, data.getCount());
+        GLES32.glBindVertexArray(0);
+        GLES32.glUseProgram(0);
+    }
+
+    /**
+     * Converts the instance positions to OpenGL coordinates and streams them into the instance buffer.
+     */
+    private void upload(MatchOverlayData data, int imageWidth, int imageHeight) {
+        int count = data.getCount();
+        int floats = count * MatchOverlayData.FLOATS_PER_INSTANCE;
+        ensureCapacity(count);
+
+        // Rotate the image into the view like OpenCVRenderer.convertToOpenGLCoords; colours are copied as is
+        float[] instances = data.getInstances();
+        System.arraycopy(instances, 0, glInstances, 0, floats);
+        float scaleX = 2.0f / imageHeight;
+        float scaleY = 2.0f / imageWidth;
+        for (int i = 0; i < floats; i += MatchOverlayData.FLOATS_PER_INSTANCE) {
+            glInstances[i] = 1.0f - instances[i + 1] * scaleX;
+            glInstances[i + 1] = 1.0f - instances[i] * scaleY;
+        }
+        instanceBuffer.clear();
+        instanceBuffer.put(glInstances, 0, floats).position(0);
+
+        // Orphan the previous contents so the driver need not wait for the last draw
+        GLES32.glBindBuffer(GLES32.GL_ARRAY_BUFFER, instanceVboId);
+        GLES32.glBufferData(GLES32.GL_ARRAY_BUFFER,
+                instanceCapacity * MatchOverlayData.FLOATS_PER_INSTANCE * Float.BYTES, null, GLES32.GL_DYNAMIC_DRAW);
+        GLES32.glBufferSubData(GLES32.GL_ARRAY_BUFFER, 0, floats * Float.BYTES, instanceBuffer);
+        GLES32.glBindBuffer(GLES32.GL_ARRAY_BUFFER, 0);
+
+        uploadedData = data;
+        uploadedWidth = imageWidth;
+        uploadedHeight = imageHeight;
+    }
+
+    /**
+     * Grows the instance arrays to hold at least the given number of instances.
+     */
+    private void ensureCapacity(int count) {
+        if (count <= instanceCapacity) {
+            return;
+        }
+        instanceCapacity = Math.max(count, instanceCapacity * 2);
+        int floats = instanceCapacity * MatchOverlayData.FLOATS_PER_INSTANCE;
+        glInstances = new float[floats];
+        instanceBuffer = ByteBuffer.allocateDirect(floats * Float.BYTES)
+                .order(ByteOrder.nativeOrder())
+                .asFloatBuffer();
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.myapplication;
+
+import org.opencv.core.DMatch;
+import org.opencv.core.KeyPoint;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The {@code MatchOverlayData} class holds the instance data of the live match overlay: one marker per
+ * camera keypoint that matched a CAD view, with its position in image coordinates and a colour encoding
+ * the view and whether the match survived verification. The hue identifies the view; inliers are
+ * opaque and saturated, outliers pale and half transparent. A keypoint matched by several views is
+ * shown with the first view it is an inlier of, or else the first view it matched.
+ * Instances are stored interleaved as (x, y, r, g, b, a).
+ */
+public class MatchOverlayData {
+
+    /** Number of floats per instance: image position (x, y) and colour (r, g, b, a). */
+    public static final int FLOATS_PER_INSTANCE = 6;
+
+    /** Alpha of outlier markers; the overlay shader draws markers below full alpha as rings. */
+    public static final float OUTLIER_ALPHA = 0.5f;
+
+    // Hue step between consecutive views; the golden ratio keeps neighbouring views apart
+    private static final float HUE_STEP = 0.618034f;
+
+    private final float[] instances;
+    private final int count;
+    private final int inlierCount;
+
+    private MatchOverlayData(float[] instances, int count, int inlierCount) {
+        this.instances = instances;
+        this.count = count;
+        this.inlierCount = inlierCount;
+    }
+
+    /**
+     * Builds the overlay instances from the per-view results of one match.
+     *
+     * @param keypoints Keypoints of the camera image; matches refer to them by {@code trainIdx}.
+     * @param results   Per-view results, with all matches and the verified inliers of each view.
+     * @return The overlay data.
+     */
+    public static MatchOverlayData of(KeyPoint[] keypoints, List<ViewMatcher.ViewResult> results) {
+        // View of every matched keypoint, preferring views it is an inlier of; -1 if unmatched
+        int[] views = new int[keypoints.length];
+        boolean[] inlier = new boolean[keypoints.length];
+        Arrays.fill(views, -1);
+        for (ViewMatcher.ViewResult result : results) {
+            for (DMatch match : result.inliers) {
+                if (!inlier[match.trainIdx]) {
+                    inlier[match.trainIdx] = true;
+                    views[match.trainIdx] = result.viewIndex;
+                }
+            }
+        }
+        for (ViewMatcher.ViewResult result : results) {
+            for (DMatch match : result.matches) {
+                if (views[match.trainIdx] < 0) {
+                    views[match.trainIdx] = result.viewIndex;
+                }
+            }
+        }
+
+        int count = 0;
+        for (int view : views) {
+            if (view >= 0) {
+                count++;
+            }
+        }
+
+        float[] instances = new float[count * FLOATS_PER_INSTANCE];
+        int offset = 0;
+        int inlierCount = 0;
+        for (int k = 0; k < keypoints.length; k++) {
+            if (views[k] < 0) {
+                continue;
+            }
+            instances[offset] = (float) keypoints[k].pt.x;
+            instances[offset + 1] = (float) keypoints[k].pt.y;
+            viewColor(views[k], inlier[k], instances, offset + 2);
+            offset += FLOATS_PER_INSTANCE;
+            if (inlier[k]) {
+                inlierCount++;
+            }
+        }
+        return new MatchOverlayData(instances, count, inlierCount);
+    }
+
+    /**
+     * Writes the marker colour of a view and match state.
+     *
+     * @param view   Index of the CAD view.
+     * @param inlier Whether the match survived verification.
+     * @param out    Receives (r, g, b, a).
+     * @param offset Index of r in {@code out}.
+     */
+    static void viewColor(int view, boolean inlier, float[] out, int offset) {
+        float hue = (view * HUE_STEP) % 1.0f;
+        float saturation = inlier ? 0.9f : 0.35f;
+        float value = inlier ? 1.0f : 0.85f;
+
+        // HSV to RGB
+        float sector = hue * 6.0f;
+        int index = (int) sector % 6;
+        float fraction = sector - (int) sector;
+        float p = value * (1.0f - saturation);
+        float q = value * (1.0f - saturation * fraction);
+        float t = value * (1.0f - saturation * (1.0f - fraction));
+        float r;
+        float g;
+        float b;
+        switch (index) {
+            case 0:
+                r = value; g = t; b = p;
+                break;
+            case 1:
+                r = q; g = value; b = p;
+                break;
+            case 2:
+                r = p; g = value; b = t;
+                break;
+            case 3:
+                r = p; g = q; b = value;
+                break;
+            case 4:
+                r = t; g = p; b = value;
+                break;
+            default:
+                r = value; g = p; b = q;
+                break;
+        }
+        out[offset] = r;
+        out[offset + 1] = g;
+        out[offset + 2] = b;
+        out[offset + 3] = inlier ? 1.0f : OUTLIER_ALPHA;
+    }
+
+    /**
+     * Returns the interleaved (x, y, r, g, b, a) instances; do not modify.
+     *
+     * @return The instance array of {@link #getCount()} * {@link #FLOATS_PER_INSTANCE} floats.
+     */
+    public float[] getInstances() {
+        return instances;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getInlierCount() {
+        return inlierCount;
+    }
+}
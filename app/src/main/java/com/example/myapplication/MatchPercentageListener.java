@@ -2,4 +2,13 @@ package com.example.myapplication;
 
 public interface MatchPercentageListener {
     void onMatchPercentageCalculated(double matchPercentage);
+
+    /**
+     * Called on the main thread with each result of continuous matching.
+     *
+     * @param smoothedPercentage The match percentage smoothed over recent runs.
+     * @param rawPercentage      The match percentage of the latest run.
+     */
+    default void onLiveMatchScoreUpdated(double smoothedPercentage, double rawPercentage) {
+    }
 }
\ No newline at end of file
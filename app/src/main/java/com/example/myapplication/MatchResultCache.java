@@ -0,0 +1,236 @@
+package com.example.myapplication;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code MatchResultCache} class remembers recent match percentages together with the camera pose
+ * and a coarse signature of the camera image they were computed for. A later request from nearly the
+ * same pose, showing nearly the same image, returns the stored result instead of matching again.
+ * Entries are keyed on the pose quantised to the tolerances and confirmed against the exact
+ * tolerances; poses straddling a quantisation boundary miss and are recomputed. All entries
+ * expire when the tracking state changes, since ARCore poses are not comparable across it.
+ * The methods are synchronized, so the matching workers can clear the cache while the GL thread uses it.
+ */
+public class MatchResultCache {
+
+    // Side length of the image signature grid; one bit per cell
+    private static final int SIGNATURE_GRID = 8;
+
+    private final float translationTolerance;
+    private final float rotationTolerance;
+    private final int signatureTolerance;
+
+    // Least recently used entries first
+    private final LinkedHashMap<Long, Entry> entries;
+
+    private boolean tracking = false;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private static final class Entry {
+        final float[] translation;
+        final float[] rotation;
+        final long signature;
+        final double result;
+
+        Entry(float[] translation, float[] rotation, long signature, double result) {
+            this.translation = translation.clone();
+            this.rotation = rotation.clone();
+            this.signature = signature;
+            this.result = result;
+        }
+    }
+
+    /**
+     * Constructs a new {@code MatchResultCache} with tolerances of 1 cm, 1 degree and 6 signature bits.
+     */
+    public MatchResultCache() {
+        this(0.01f, (float) Math.toRadians(1.0), 6, 16);
+    }
+
+    /**
+     * Constructs a new {@code MatchResultCache}.
+     *
+     * @param translationTolerance Largest camera translation in metres for a hit.
+     * @param rotationTolerance    Largest camera rotation in radians for a hit.
+     * @param signatureTolerance   Largest number of differing image signature bits (of 64) for a hit.
+     * @param capacity             Number of entries kept; the least recently used entry is evicted.
+     */
+    public MatchResultCache(float translationTolerance, float rotationTolerance, int signatureTolerance,
+                            final int capacity) {
+        if (translationTolerance <= 0 || rotationTolerance <= 0 || capacity < 1) {
+            throw new IllegalArgumentException("Tolerances and capacity must be positive");
+        }
+        this.translationTolerance = translationTolerance;
+        this.rotationTolerance = rotationTolerance;
+        this.signatureTolerance = signatureTolerance;
+        this.entries = new LinkedHashMap<Long, Entry>(capacity * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Records the tracking state of the current frame and drops all entries when it changed.
+     *
+     * @param isTracking {@code true} if the camera is tracking.
+     */
+    public synchronized void updateTrackingState(boolean isTracking) {
+        if (isTracking != tracking) {
+            tracking = isTracking;
+            entries.clear();
+        }
+    }
+
+    /**
+     * Looks up the result for a camera pose and image signature, counting a hit or a miss.
+     *
+     * @param translation Camera position (x, y, z) in metres.
+     * @param rotation    Camera rotation quaternion (qx, qy, qz, qw).
+     * @param signature   Signature of the camera image from {@link #imageSignature}.
+     * @return The cached result, or {@code NaN} on a miss.
+     */
+    public synchronized double get(float[] translation, float[] rotation, long signature) {
+        Entry entry = tracking ? entries.get(key(translation, rotation)) : null;
+        if (entry != null && matches(entry, translation, rotation, signature)) {
+            hits.incrementAndGet();
+            return entry.result;
+        }
+        misses.incrementAndGet();
+        return Double.NaN;
+    }
+
+    /**
+     * Stores the result computed for a camera pose and image signature. Ignored while not tracking.
+     *
+     * @param translation Camera position (x, y, z) in metres.
+     * @param rotation    Camera rotation quaternion (qx, qy, qz, qw).
+     * @param signature   Signature of the camera image from {@link #imageSignature}.
+     * @param result      The match percentage.
+     */
+    public synchronized void put(float[] translation, float[] rotation, long signature, double result) {
+        if (tracking) {
+            entries.put(key(translation, rotation), new Entry(translation, rotation, signature, result));
+        }
+    }
+
+    /**
+     * Adds the hit and miss counts of another cache, so counters survive replacing a cache.
+     *
+     * @param other The cache whose counts are added.
+     */
+    public void addCounts(MatchResultCache other) {
+        hits.addAndGet(other.getHitCount());
+        misses.addAndGet(other.getMissCount());
+    }
+
+    /**
+     * Drops all entries, e.g. after the CAD database or matching configuration changed.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    private boolean matches(Entry entry, float[] translation, float[] rotation, long signature) {
+        float dx = translation[0] - entry.translation[0];
+        float dy = translation[1] - entry.translation[1];
+        float dz = translation[2] - entry.translation[2];
+        if (dx * dx + dy * dy + dz * dz > translationTolerance * translationTolerance) {
+            return false;
+        }
+
+        // Angle between the rotations; q and -q are the same rotation
+        double dot = Math.abs(rotation[0] * entry.rotation[0] + rotation[1] * entry.rotation[1]
+                + rotation[2] * entry.rotation[2] + rotation[3] * entry.rotation[3]);
+        if (2.0 * Math.acos(Math.min(1.0, dot)) > rotationTolerance) {
+            return false;
+        }
+
+        return Long.bitCount(signature ^ entry.signature) <= signatureTolerance;
+    }
+
+    /**
+     * Quantises the position to cells of the translation tolerance and the rotation quaternion,
+     * with the sign fixed by qw, to steps of half the rotation tolerance.
+     */
+    private long key(float[] translation, float[] rotation) {
+        float sign = rotation[3] < 0 ? -1.0f : 1.0f;
+        float rotationStep = rotationTolerance * 0.5f;
+        long key = 17;
+        for (int i = 0; i < 3; i++) {
+            key = key * 31 + (long) Math.floor(translation[i] / translationTolerance);
+        }
+        for (int i = 0; i < 4; i++) {
+            key = key * 31 + (long) Math.floor(sign * rotation[i] / rotationStep);
+        }
+        return key;
+    }
+
+    /**
+     * Computes a 64-bit average hash of a luminance plane: the plane is divided into an 8x8 grid, each
+     * cell is averaged over a sparse sample of its pixels, and a bit is set for every cell brighter
+     * than the mean of all cells. The signature changes little with sensor noise and exposure.
+     *
+     * @param plane     Luminance plane; its position and limit are not changed.
+     * @param width     Image width in pixels.
+     * @param height    Image height in pixels.
+     * @param rowStride Bytes between the starts of two rows.
+     * @return The image signature.
+     */
+    public static long imageSignature(ByteBuffer plane, int width, int height, int rowStride) {
+        int cellWidth = width / SIGNATURE_GRID;
+        int cellHeight = height / SIGNATURE_GRID;
+        int step = Math.max(1, Math.min(cellWidth, cellHeight) / 4);
+        long[] cellSums = new long[SIGNATURE_GRID * SIGNATURE_GRID];
+        long total = 0;
+
+        for (int cy = 0; cy < SIGNATURE_GRID; cy++) {
+            for (int cx = 0; cx < SIGNATURE_GRID; cx++) {
+                long sum = 0;
+                int samples = 0;
+                for (int y = cy * cellHeight; y < (cy + 1) * cellHeight; y += step) {
+                    int rowStart = y * rowStride;
+                    for (int x = cx * cellWidth; x < (cx + 1) * cellWidth; x += step) {
+                        sum += plane.get(rowStart + x) & 0xFF;
+                        samples++;
+                    }
+                }
+                long mean = samples > 0 ? sum / samples : 0;
+                cellSums[cy * SIGNATURE_GRID + cx] = mean;
+                total += mean;
+            }
+        }
+
+        long average = total / cellSums.length;
+        long signature = 0;
+        for (int i = 0; i < cellSums.length; i++) {
+            if (cellSums[i] > average) {
+                signature |= 1L << i;
+            }
+        }
+        return signature;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "MatchResultCache(entries=" + entries.size() + ", hits=" + hits.get() + ", misses=" + misses.get() + ")";
+    }
+}
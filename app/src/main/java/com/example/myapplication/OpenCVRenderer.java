@@ -14,14 +14,12 @@ import org.opencv.core.CvType;
 import org.opencv.core.DMatch;
 import org.opencv.core.KeyPoint;
 import org.opencv.core.Mat;
-import org.opencv.core.MatOfDMatch;
 import org.opencv.core.MatOfKeyPoint;
 import org.opencv.core.MatOfPoint2f;
 import org.opencv.core.Point;
+import org.opencv.core.Rect;
 import org.opencv.core.Size;
-import org.opencv.features2d.AKAZE;
-import org.opencv.features2d.BFMatcher;
-import org.opencv.features2d.DescriptorMatcher;
+import org.opencv.features2d.Feature2D;
 import org.opencv.features2d.Features2d;
 import org.opencv.imgproc.Imgproc;
 
@@ -40,10 +38,30 @@ public class OpenCVRenderer {
 
     private ShaderProgram featurePointShaderProgram;
 
-    private int cameraPositionHandle = -1;
     private static final float POINT_SIZE = 5.0f;
     private static final float[] FEATURE_COLOR = {0.0f, 0.0f, 1.0f, 1.0f};
 
+    // Points the overlay vertex buffer is created for
+    private static final int INITIAL_POINT_CAPACITY = 1024;
+
+    // Shader locations of the feature point program, resolved once in initOpenCV
+    private int pointPositionHandle = -1;
+    private int pointSizeHandle = -1;
+    private int pointColorHandle = -1;
+
+    // Streaming vertex buffer for the overlay and the reused arrays it is filled from
+    private int pointVboId = 0;
+    private int pointVboCapacity = 0;
+    private FloatBuffer pointVertexData;
+    private float[] pointImageCoords = new float[0];
+    private float[] pointGLCoords = new float[0];
+
+    // Minimum keypoints inside a region of interest before falling back to the full frame
+    private static final int MIN_REGION_KEYPOINTS = 30;
+
+    // Maximum ratio between the best and second best match distance in Lowe's ratio test
+    private static final float RATIO_TEST_THRESHOLD = 0.75f;
+
     private final List<Point> opencvFeaturePoints;
 
     private MatOfKeyPoint detectedKeyPoints;
@@ -51,12 +69,298 @@ public class OpenCVRenderer {
 
     private Mat lastProcessedImage;
 
+    // Active feature strategy and the detectors created from it
+    private FeatureStrategy featureStrategy;
+    private Feature2D frameDetector;
+    private Feature2D databaseDetector;
+    private Feature2D descriptorExtractor;
+    private int normType;
+
+    // Reused buffers for bulk 2-NN matching
+    private final Mat knnDistanceMat = new Mat();
+    private final Mat knnIndexMat = new Mat();
+    private final Mat reverseDistanceMat = new Mat();
+    private final Mat reverseIndexMat = new Mat();
+    private int[] knnIndices = new int[0];
+    private float[] knnDistances = new float[0];
+    private int[] knnIntDistances = new int[0];
+    private int[] reverseIndices = new int[0];
+    private final MatchBuffer matchBuffer = new MatchBuffer();
+    private boolean mutualCheckEnabled = false;
+
+    // Recycles the per-frame camera buffers
+    private final MatPool matPool = new MatPool();
+
+    // Shared empty detection mask; never written
+    private final Mat emptyMask = new Mat();
+
+    // Java RANSAC engine for match verification, or null to use Calib3d; read from matching threads
+    private volatile RansacEstimator homographyEstimator;
+
+    // Preprocessing chains for camera frames and CAD renders; stages override the strategy default when set
+    private PreprocessingPipeline framePipeline;
+    private PreprocessingPipeline databasePipeline;
+    private PreprocessingPipeline.Stage[] preprocessingStages;
+
+    // Multi-threaded tiled detector for camera frames, or null to detect on the whole image
+    private TiledFeatureDetector tiledDetector;
+
+    // Optical-flow tracker used between full detections, or null to detect on every frame
+    private KeypointTracker keypointTracker;
+    private boolean lastFrameTracked;
+    // Whether the last frame kept the previous detections because full detection was not yet due
+    private boolean lastFrameReused;
+
+    private boolean lastRegionRejected;
+
+    // Java matcher for packed binary descriptors
+    private final HammingMatcher hammingMatcher = new HammingMatcher();
+
+    // Reused row buffer for luminance extraction
+    private byte[] luminanceBytes = new byte[0];
+
+    // Grid-bucketed selection applied to camera frame keypoints, or null to keep all keypoints
+    private static final int SELECTOR_GRID_COLUMNS = 8;
+    private static final int SELECTOR_GRID_ROWS = 6;
+    private static final float SELECTOR_SUPPRESSION_RADIUS = 8.0f;
+    private KeypointSelector keypointSelector = new KeypointSelector(SELECTOR_GRID_COLUMNS, SELECTOR_GRID_ROWS, 8,
+            SELECTOR_SUPPRESSION_RADIUS);
+    // Whether the selector is the default one the keypoint budget may replace, rather than one set by the caller
+    private boolean defaultKeypointSelector = true;
+
+    // Quality knobs set by the frame budget governor: detection scale and how often full detection runs
+    private float detectionScale = 1.0f;
+    private final Mat scaledImage = new Mat();
+    private int detectionInterval = 1;
+    private int framesSinceDetection = 0;
+    private boolean fullDetectionRequested = false;
+
+    // Smoothed cost of full detections per megapixel the detector saw, read from other threads;
+    // detections on fewer pixels are dominated by fixed costs and are not measured
+    private static final long MIN_MEASURED_DETECTION_PIXELS = 50000;
+    private static final double DETECTION_COST_SMOOTHING = 0.1;
+    private volatile double detectionMsPerMegapixel = 0.0;
+    private long detectedPixels;
+
     /**
      * Constructs a new {@code OpenCVRenderer}.
-     * Initializes the list for storing feature points.
+     * Initializes the list for storing feature points and selects the default AKAZE strategy.
      */
     public OpenCVRenderer() {
         this.opencvFeaturePoints = new ArrayList<>();
+        setFeatureStrategy(new AkazeFeatureStrategy());
+    }
+
+    /**
+     * Selects the feature strategy used for detection, description and matching.
+     * Descriptors extracted with a previous strategy are not comparable and must be rebuilt.
+     *
+     * @param strategy The feature strategy to use.
+     */
+    public void setFeatureStrategy(FeatureStrategy strategy) {
+        this.featureStrategy = strategy;
+        this.frameDetector = strategy.createDetector();
+        this.databaseDetector = strategy.createDatabaseDetector();
+        this.descriptorExtractor = strategy.createExtractor();
+        this.normType = strategy.getNormType();
+        createPreprocessingPipelines();
+        if (tiledDetector != null) {
+            tiledDetector.setFeatureStrategy(strategy);
+        }
+        Log.i(TAG, "Feature strategy set to " + strategy.getName());
+    }
+
+    /**
+     * Overrides the preprocessing chain of the active strategy for camera frames and CAD renders.
+     * Descriptors extracted with a different chain are not comparable and must be rebuilt.
+     *
+     * @param stages The stages to run after grayscale conversion, or {@code null} for the strategy default.
+     */
+    public void setPreprocessingStages(PreprocessingPipeline.Stage... stages) {
+        this.preprocessingStages = stages;
+        createPreprocessingPipelines();
+    }
+
+    /**
+     * Creates the frame and database preprocessing pipelines, releasing the previous ones.
+     */
+    private void createPreprocessingPipelines() {
+        if (framePipeline != null) {
+            framePipeline.release();
+        }
+        if (databasePipeline != null) {
+            databasePipeline.release();
+        }
+        if (preprocessingStages != null) {
+            framePipeline = new PreprocessingPipeline(preprocessingStages);
+            databasePipeline = new PreprocessingPipeline(preprocessingStages);
+        } else {
+            framePipeline = featureStrategy.createPreprocessingPipeline();
+            databasePipeline = featureStrategy.createPreprocessingPipeline();
+        }
+        Log.i(TAG, "Preprocessing chain set to " + framePipeline);
+    }
+
+    /**
+     * Returns the preprocessing pipeline used for camera frames, e.g. to read its stage timings.
+     *
+     * @return The frame {@link PreprocessingPipeline}.
+     */
+    public PreprocessingPipeline getFramePreprocessingPipeline() {
+        return framePipeline;
+    }
+
+    /**
+     * Sets the keypoint selector applied to camera frame keypoints before descriptors are computed.
+     * A selector set here, or {@code null}, is kept as is by {@link #setMaxKeypoints(int)}.
+     *
+     * @param selector The keypoint selector, or {@code null} to keep every detected keypoint.
+     */
+    public void setKeypointSelector(KeypointSelector selector) {
+        this.keypointSelector = selector;
+        this.defaultKeypointSelector = false;
+    }
+
+    /**
+     * Bounds the number of keypoints retained per camera frame, spread over the selector grid.
+     * Only the default selector is adjusted; one set with {@link #setKeypointSelector} is left alone.
+     *
+     * @param maxKeypoints The keypoint budget; rounded down to a whole number per grid cell, at least one.
+     */
+    public void setMaxKeypoints(int maxKeypoints) {
+        if (!defaultKeypointSelector) {
+            return;
+        }
+        int perCell = Math.max(1, maxKeypoints / (SELECTOR_GRID_COLUMNS * SELECTOR_GRID_ROWS));
+        if (keypointSelector.getMaxKeypoints() != perCell * SELECTOR_GRID_COLUMNS * SELECTOR_GRID_ROWS) {
+            keypointSelector = new KeypointSelector(SELECTOR_GRID_COLUMNS, SELECTOR_GRID_ROWS, perCell, SELECTOR_SUPPRESSION_RADIUS);
+        }
+    }
+
+    /**
+     * Sets the factor camera frames are scaled by before detection. Keypoints are returned in
+     * full-resolution coordinates.
+     *
+     * @param scale The scale factor in (0, 1]; 1 detects at full resolution.
+     */
+    public void setDetectionScale(float scale) {
+        if (scale <= 0 || scale > 1) {
+            throw new IllegalArgumentException("Detection scale must be in (0, 1]");
+        }
+        this.detectionScale = scale;
+    }
+
+    public float getDetectionScale() {
+        return detectionScale;
+    }
+
+    /**
+     * Sets how often full detection runs. Between detections the keypoints are tracked when a
+     * {@link KeypointTracker} is set, or the previous detections are kept otherwise.
+     *
+     * @param interval Full detection runs at most every this many frames; 1 detects whenever tracking fails.
+     */
+    public void setDetectionInterval(int interval) {
+        this.detectionInterval = Math.max(1, interval);
+    }
+
+    public int getDetectionInterval() {
+        return detectionInterval;
+    }
+
+    /**
+     * Makes the next {@link #processOpenCV(Mat, Mat, Rect)} run a full detection, e.g. for a frame
+     * that is matched, regardless of tracking and the detection interval.
+     */
+    public void requestFullDetection() {
+        fullDetectionRequested = true;
+        if (keypointTracker != null) {
+            keypointTracker.invalidate();
+        }
+    }
+
+    /**
+     * Returns the keypoint selector applied to camera frame keypoints.
+     *
+     * @return The current {@link KeypointSelector}, or {@code null} if disabled.
+     */
+    public KeypointSelector getKeypointSelector() {
+        return keypointSelector;
+    }
+
+    /**
+     * Enables or disables tiled multi-threaded detection on camera frames.
+     *
+     * @param detector The tiled detector, or {@code null} to detect on the whole image.
+     */
+    public void setTiledFeatureDetector(TiledFeatureDetector detector) {
+        if (tiledDetector != null && tiledDetector != detector) {
+            tiledDetector.release();
+        }
+        if (detector != null) {
+            detector.setFeatureStrategy(featureStrategy);
+        }
+        this.tiledDetector = detector;
+    }
+
+    /**
+     * Returns the tiled detector used on camera frames.
+     *
+     * @return The current {@link TiledFeatureDetector}, or {@code null} if disabled.
+     */
+    public TiledFeatureDetector getTiledFeatureDetector() {
+        return tiledDetector;
+    }
+
+    /**
+     * Enables or disables optical-flow tracking between full detections.
+     *
+     * @param tracker The keypoint tracker, or {@code null} to run full detection on every frame.
+     */
+    public void setKeypointTracker(KeypointTracker tracker) {
+        if (keypointTracker != null && keypointTracker != tracker) {
+            keypointTracker.release();
+        }
+        this.keypointTracker = tracker;
+    }
+
+    /**
+     * Returns the optical-flow tracker used between full detections.
+     *
+     * @return The current {@link KeypointTracker}, or {@code null} if tracking is disabled.
+     */
+    public KeypointTracker getKeypointTracker() {
+        return keypointTracker;
+    }
+
+    /**
+     * Returns whether the keypoints of the last processed frame came from tracking rather than a
+     * fresh detection.
+     *
+     * @return {@code true} if the last frame was tracked.
+     */
+    public boolean isLastFrameTracked() {
+        return lastFrameTracked;
+    }
+
+    /**
+     * Returns whether the last processed frame kept the keypoints of an earlier detection unchanged
+     * because the detection interval had not elapsed. The keypoints do not describe the frame, so
+     * they should not be matched or used to update the detection region.
+     *
+     * @return {@code true} if the last frame reused earlier detections.
+     */
+    public boolean isLastFrameReused() {
+        return lastFrameReused;
+    }
+
+    /**
+     * Returns the active feature strategy.
+     *
+     * @return The current {@link FeatureStrategy}.
+     */
+    public FeatureStrategy getFeatureStrategy() {
+        return featureStrategy;
     }
 
     /**
@@ -82,128 +386,516 @@ public class OpenCVRenderer {
 
         // Initialize the shader program with the vertex and fragment shaders
         featurePointShaderProgram = new ShaderProgram(pointVertexShaderCode, pointFragmentShaderCode);
+
+        // Resolve the shader locations once
+        int programId = featurePointShaderProgram.getProgramId();
+        pointPositionHandle = GLES32.glGetAttribLocation(programId, "vPosition");
+        pointSizeHandle = GLES32.glGetUniformLocation(programId, "u_PointSize");
+        pointColorHandle = GLES32.glGetUniformLocation(programId, "u_Color");
+
+        // Create the streaming vertex buffer for the overlay points
+        int[] vbos = new int[1];
+        GLES32.glGenBuffers(1, vbos, 0);
+        pointVboId = vbos[0];
+        pointVboCapacity = 0;
+        ensurePointCapacity(INITIAL_POINT_CAPACITY);
+    }
+
+    /**
+     * Returns the pool the camera frame buffers are acquired from.
+     *
+     * @return The {@link MatPool}.
+     */
+    public MatPool getMatPool() {
+        return matPool;
     }
 
     /**
      * Converts an Android {@link Image} in YUV_420_888 format to an OpenCV {@link Mat} in RGB format.
+     * The buffer comes from the {@link #getMatPool() pool}; recycle it there or adopt it into a frame scope.
      *
      * @param image The Android {@code Image} to be converted.
      * @return An OpenCV {@code Mat} in RGB format.
      * @throws IllegalArgumentException If the image format is not YUV_420_888.
      */
     public Mat convertImageToMat(Image image) {
+        byte[] nv21Bytes = copyImageToNV21(image, null);
+        return convertNV21ToMat(nv21Bytes, image.getWidth(), image.getHeight());
+    }
+
+    /**
+     * Copies the planes of an Android {@link Image} in YUV_420_888 format into an NV21 byte array,
+     * so the image can be closed before it is converted. The plane positions are not changed.
+     *
+     * @param image  The Android {@code Image} to be copied.
+     * @param buffer A buffer to reuse, or {@code null}; a new one is allocated if it is too small.
+     * @return The buffer holding the NV21 bytes.
+     * @throws IllegalArgumentException If the image format is not YUV_420_888.
+     */
+    public byte[] copyImageToNV21(Image image, byte[] buffer) {
         if (image.getFormat() != ImageFormat.YUV_420_888) {
             throw new IllegalArgumentException("Expected image in YUV_420_888 format");
         }
 
         Image.Plane[] planes = image.getPlanes();
-        ByteBuffer yBuffer = planes[0].getBuffer();
-        ByteBuffer uBuffer = planes[1].getBuffer();
-        ByteBuffer vBuffer = planes[2].getBuffer();
+        ByteBuffer yBuffer = planes[0].getBuffer().duplicate();
+        ByteBuffer uBuffer = planes[1].getBuffer().duplicate();
+        ByteBuffer vBuffer = planes[2].getBuffer().duplicate();
 
         int ySize = yBuffer.remaining();
         int uSize = uBuffer.remaining();
         int vSize = vBuffer.remaining();
 
-        byte[] nv21Bytes = new byte[ySize + uSize + vSize];
+        byte[] nv21Bytes = buffer != null && buffer.length >= ySize + uSize + vSize
+                ? buffer : new byte[ySize + uSize + vSize];
         yBuffer.get(nv21Bytes, 0, ySize);
         vBuffer.get(nv21Bytes, ySize, vSize);
         uBuffer.get(nv21Bytes, ySize + vSize, uSize);
+        return nv21Bytes;
+    }
 
-        Mat yuvMat = new Mat(image.getHeight() + image.getHeight() / 2, image.getWidth(), CvType.CV_8UC1);
+    /**
+     * Converts NV21 bytes copied with {@link #copyImageToNV21} to an OpenCV {@link Mat} in RGB format.
+     * The buffer comes from the {@link #getMatPool() pool}; recycle it there or adopt it into a frame scope.
+     * Safe to call from a pipeline thread.
+     *
+     * @param nv21Bytes The NV21 bytes.
+     * @param width     Image width in pixels.
+     * @param height    Image height in pixels.
+     * @return An OpenCV {@code Mat} in RGB format.
+     */
+    public Mat convertNV21ToMat(byte[] nv21Bytes, int width, int height) {
+        Mat yuvMat = matPool.acquire(height + height / 2, width, CvType.CV_8UC1);
         yuvMat.put(0, 0, nv21Bytes);
 
-        Mat rgbMat = new Mat();
+        Mat rgbMat = matPool.acquire(height, width, CvType.CV_8UC3);
         Imgproc.cvtColor(yuvMat, rgbMat, Imgproc.COLOR_YUV2RGB_NV21);
 
-        yuvMat.release();
+        matPool.recycle(yuvMat);
 
         return rgbMat;
     }
 
     /**
-     * Preprocesses the image by converting to grayscale, normalizing, blurring, and edge detection.
+     * Extracts the luminance (Y) plane of an Android {@link Image} in YUV_420_888 format.
+     * The buffer comes from the {@link #getMatPool() pool}; recycle it there or adopt it into a frame scope.
      *
-     * @param image The input image {@code Mat}.
-     * @return A preprocessed image {@code Mat}.
+     * @param image The Android {@code Image} to be converted.
+     * @return A single-channel OpenCV {@code Mat}.
+     * @throws IllegalArgumentException If the image format is not YUV_420_888.
      */
-    private Mat preprocessImage(Mat image) {
-        Mat grayImage = new Mat();
-        if (image.channels() > 1) {
-            Imgproc.cvtColor(image, grayImage, Imgproc.COLOR_BGR2GRAY);
+    public Mat convertImageToGray(Image image) {
+        luminanceBytes = copyLuminance(image, luminanceBytes);
+        return convertLuminanceToGray(luminanceBytes, image.getWidth(), image.getHeight());
+    }
+
+    /**
+     * Copies the luminance (Y) plane of an Android {@link Image} in YUV_420_888 format without its
+     * row padding. The plane position is not changed.
+     *
+     * @param image  The Android {@code Image} to be copied.
+     * @param buffer A buffer to reuse, or {@code null}; a new one is allocated if its size differs.
+     * @return The buffer holding width * height luminance bytes.
+     * @throws IllegalArgumentException If the image format is not YUV_420_888.
+     */
+    public byte[] copyLuminance(Image image, byte[] buffer) {
+        if (image.getFormat() != ImageFormat.YUV_420_888) {
+            throw new IllegalArgumentException("Expected image in YUV_420_888 format");
+        }
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        Image.Plane yPlane = image.getPlanes()[0];
+        ByteBuffer yBuffer = yPlane.getBuffer().duplicate();
+        int rowStride = yPlane.getRowStride();
+
+        byte[] luminance = buffer != null && buffer.length == width * height ? buffer : new byte[width * height];
+
+        // Copy row by row to drop the row padding
+        if (rowStride == width) {
+            yBuffer.get(luminance, 0, width * height);
         } else {
-            grayImage = image.clone();
+            for (int row = 0; row < height; row++) {
+                yBuffer.position(row * rowStride);
+                yBuffer.get(luminance, row * width, width);
+            }
         }
+        return luminance;
+    }
 
-        // Normalize the image to improve contrast
-        Core.normalize(grayImage, grayImage, 0, 255, Core.NORM_MINMAX);
+    /**
+     * Wraps luminance bytes copied with {@link #copyLuminance} in a single-channel {@link Mat}.
+     * The buffer comes from the {@link #getMatPool() pool}; recycle it there or adopt it into a frame scope.
+     * Safe to call from a pipeline thread.
+     *
+     * @param luminance The luminance bytes.
+     * @param width     Image width in pixels.
+     * @param height    Image height in pixels.
+     * @return A single-channel OpenCV {@code Mat}.
+     */
+    public Mat convertLuminanceToGray(byte[] luminance, int width, int height) {
+        Mat grayMat = matPool.acquire(height, width, CvType.CV_8UC1);
+        grayMat.put(0, 0, luminance);
+        return grayMat;
+    }
 
-        // Reduce noise with Gaussian blur
-        Imgproc.GaussianBlur(grayImage, grayImage, new Size(5, 5), 0);
+    /**
+     * Detects keypoints and computes descriptors with the given detector and optional extractor.
+     *
+     * @param detector    The keypoint detector.
+     * @param extractor   The descriptor extractor, or {@code null} if the detector computes descriptors.
+     * @param selector    The keypoint selector, or {@code null} to keep all keypoints. With an extractor it runs
+     *                    before description; otherwise the matching rows of the descriptors are kept.
+     * @param image       The preprocessed image.
+     * @param descriptors Output descriptors.
+     * @return The keypoints the descriptors were computed for.
+     */
+    private MatOfKeyPoint detectAndCompute(Feature2D detector, Feature2D extractor, KeypointSelector selector,
+                                           Mat image, Mat descriptors) {
+        MatOfKeyPoint keyPoints = new MatOfKeyPoint();
+        if (extractor == null) {
+            // A detector that also describes, e.g. AKAZE, builds its scale space once for both steps
+            if (selector == null) {
+                detector.detectAndCompute(image, emptyMask, keyPoints, descriptors);
+                return keyPoints;
+            }
+            Mat allDescriptors = new Mat();
+            detector.detectAndCompute(image, emptyMask, keyPoints, allDescriptors);
+
+            // Keep the selected keypoints and their descriptor rows
+            KeyPoint[] all = keyPoints.toArray();
+            int[] selected = selector.selectIndices(all, image.cols(), image.rows());
+            KeyPoint[] kept = new KeyPoint[selected.length];
+            for (int i = 0; i < selected.length; i++) {
+                kept[i] = all[selected[i]];
+            }
+            keyPoints.fromArray(kept);
+            copyDescriptorRows(allDescriptors, selected, descriptors);
+            allDescriptors.release();
+            return keyPoints;
+        }
 
-        // Enhance edges using Canny edge detection
-        Mat edges = new Mat();
-        Imgproc.Canny(grayImage, edges, 50, 150);
+        detector.detect(image, keyPoints, emptyMask);
 
-        grayImage.release();
+        // Compute descriptors only for the keypoints that survive selection
+        if (selector != null) {
+            MatOfKeyPoint selected = selector.select(keyPoints, image.cols(), image.rows());
+            keyPoints.release();
+            keyPoints = selected;
+        }
+        extractor.compute(image, keyPoints, descriptors);
+        return keyPoints;
+    }
 
-        return edges;
+    /**
+     * Copies descriptor rows in the given order.
+     *
+     * @param source      Descriptors with one row per keypoint.
+     * @param rows        Indices of the rows to copy.
+     * @param destination Receives one row per index.
+     */
+    static void copyDescriptorRows(Mat source, int[] rows, Mat destination) {
+        if (rows.length == 0 || source.empty()) {
+            return;
+        }
+        destination.create(rows.length, source.cols(), source.type());
+        if (source.depth() == CvType.CV_8U && source.isContinuous()) {
+            // Binary descriptors are copied through one byte array each way
+            int rowBytes = (int) (source.cols() * source.elemSize());
+            byte[] sourceBytes = new byte[source.rows() * rowBytes];
+            byte[] destinationBytes = new byte[rows.length * rowBytes];
+            source.get(0, 0, sourceBytes);
+            for (int i = 0; i < rows.length; i++) {
+                System.arraycopy(sourceBytes, rows[i] * rowBytes, destinationBytes, i * rowBytes, rowBytes);
+            }
+            destination.put(0, 0, destinationBytes);
+            return;
+        }
+        for (int i = 0; i < rows.length; i++) {
+            Mat sourceRow = source.row(rows[i]);
+            Mat destinationRow = destination.row(i);
+            sourceRow.copyTo(destinationRow);
+            sourceRow.release();
+            destinationRow.release();
+        }
     }
 
     /**
-     * Processes the image to detect features using AKAZE algorithm.
+     * Processes the image to detect features using the active feature strategy.
      *
      * @param matImage The input image {@code Mat}.
      * @return A list of detected feature points.
      */
     public List<Point> processOpenCV(Mat matImage) {
-        // Preprocess the image
-        Mat processedImage = preprocessImage(matImage);
+        return processOpenCV(matImage, null);
+    }
+
+    /**
+     * Processes the image, tracking the previous keypoints on the luminance plane when a
+     * {@link KeypointTracker} is set and falling back to full detection when tracking fails.
+     *
+     * @param matImage  The input image {@code Mat}.
+     * @param grayImage The luminance plane of the same frame, or {@code null} to disable tracking.
+     * @return A list of detected or tracked feature points.
+     */
+    public List<Point> processOpenCV(Mat matImage, Mat grayImage) {
+        return processOpenCV(matImage, grayImage, null);
+    }
+
+    /**
+     * Processes the image like {@link #processOpenCV(Mat, Mat)}, restricting detection to a
+     * region of interest. Keypoints are returned in full-frame coordinates. If too few keypoints
+     * are found inside the region, detection falls back to the full frame.
+     *
+     * @param matImage  The input image {@code Mat}.
+     * @param grayImage The luminance plane of the same frame, or {@code null} to disable tracking.
+     * @param roi       The detection region in image coordinates, or {@code null} for the full frame.
+     * @return A list of detected or tracked feature points.
+     */
+    public List<Point> processOpenCV(Mat matImage, Mat grayImage, Rect roi) {
+        List<Point> trackedPoints = trackOpenCV(grayImage);
+        if (trackedPoints != null) {
+            return trackedPoints;
+        }
+        return detectOpenCV(matImage, grayImage, roi);
+    }
+
+    /**
+     * Follows the previous keypoints into a frame with optical flow while tracking holds. Only the
+     * luminance plane is needed, so a caller can convert the color image just for frames that
+     * {@link #detectOpenCV(Mat, Mat, Rect)} has to process.
+     *
+     * @param grayImage The luminance plane of the frame, or {@code null} if tracking is disabled.
+     * @return The tracked feature points, or {@code null} if the frame needs {@code detectOpenCV}.
+     */
+    public List<Point> trackOpenCV(Mat grayImage) {
+        if (keypointTracker == null || grayImage == null || !keypointTracker.track(grayImage)) {
+            return null;
+        }
+        releaseDetections();
+        this.detectedKeyPoints = keypointTracker.getTrackedKeyPoints();
+        this.detectedDescriptors = keypointTracker.getTrackedDescriptors();
+        this.lastFrameTracked = true;
+        this.lastFrameReused = false;
+        framesSinceDetection++;
+        return storeFeaturePoints(null);
+    }
+
+    /**
+     * Processes a frame that {@link #trackOpenCV(Mat)} could not track: keeps the previous detections
+     * until the detection interval has elapsed, and otherwise detects, restricted to the region of
+     * interest when given, and restarts tracking from the fresh detection.
+     *
+     * @param matImage  The input image {@code Mat}.
+     * @param grayImage The luminance plane of the same frame, or {@code null} to disable tracking.
+     * @param roi       The detection region in image coordinates, or {@code null} for the full frame.
+     * @return A list of detected or reused feature points.
+     */
+    public List<Point> detectOpenCV(Mat matImage, Mat grayImage, Rect roi) {
+        boolean canTrack = keypointTracker != null && grayImage != null;
+
+        // Keep the previous detections until the next full detection is due
+        boolean detectionDue = fullDetectionRequested || detectedKeyPoints == null
+                || framesSinceDetection + 1 >= detectionInterval;
+        if (!detectionDue) {
+            framesSinceDetection++;
+            this.lastFrameTracked = false;
+            this.lastFrameReused = true;
+            this.lastRegionRejected = false;
+            return storeFeaturePoints(null);
+        }
+        fullDetectionRequested = false;
+        framesSinceDetection = 0;
 
-        // Initialize AKAZE detector
-        AKAZE akazeDetector = AKAZE.create();
-        MatOfKeyPoint keyPoints = new MatOfKeyPoint();
         Mat descriptors = new Mat();
+        MatOfKeyPoint keyPoints = null;
+        lastRegionRejected = false;
+        long detectionStart = System.nanoTime();
+        detectedPixels = 0;
+
+        // Detect inside the region of interest first
+        if (roi != null) {
+            keyPoints = detectInRegion(matImage, roi, descriptors);
+            if (keyPoints.rows() < MIN_REGION_KEYPOINTS) {
+                Log.d(TAG, "Region of interest lost the model, falling back to full-frame detection");
+                keyPoints.release();
+                keyPoints = null;
+                lastRegionRejected = true;
+            }
+        }
 
-        // Detect keypoints and compute descriptors
-        akazeDetector.detectAndCompute(processedImage, new Mat(), keyPoints, descriptors);
+        if (keyPoints == null) {
+            // Preprocess the image into the pipeline's scratch buffers
+            Mat processedImage = framePipeline.process(matImage);
+
+            // Detect keypoints, keep the strongest per grid cell and compute descriptors
+            keyPoints = detectFrame(processedImage, descriptors);
+        }
+        Log.d(TAG, "Preprocessing " + framePipeline + ": " + framePipeline.describeTimings());
+        measureDetectionCost(System.nanoTime() - detectionStart);
 
         // Store keypoints and descriptors
+        releaseDetections();
         this.detectedKeyPoints = keyPoints;
         this.detectedDescriptors = descriptors;
+        this.lastFrameTracked = false;
+        this.lastFrameReused = false;
+
+        // Restart tracking from the fresh detection
+        if (canTrack) {
+            keypointTracker.reset(grayImage, keyPoints, descriptors);
+        }
+
+        return storeFeaturePoints(matImage);
+    }
 
+    /**
+     * Detects and describes camera frame keypoints, on tiles when a tiled detector is set.
+     *
+     * @param processedImage The preprocessed image.
+     * @param descriptors    Output descriptors.
+     * @return The detected keypoints.
+     */
+    private MatOfKeyPoint detectFrame(Mat processedImage, Mat descriptors) {
+        if (detectionScale >= 1.0f) {
+            return detectFrameAtScale(processedImage, descriptors);
+        }
+
+        // Detect on a downscaled copy and scale the keypoints back to full resolution
+        Imgproc.resize(processedImage, scaledImage, new Size(), detectionScale, detectionScale, Imgproc.INTER_AREA);
+        MatOfKeyPoint scaledKeyPoints = detectFrameAtScale(scaledImage, descriptors);
+        KeyPoint[] keyPointArray = scaledKeyPoints.toArray();
+        float inverseScale = 1.0f / detectionScale;
+        for (KeyPoint kp : keyPointArray) {
+            kp.pt.x *= inverseScale;
+            kp.pt.y *= inverseScale;
+            kp.size *= inverseScale;
+        }
+        scaledKeyPoints.release();
+        return new MatOfKeyPoint(keyPointArray);
+    }
+
+    /**
+     * Detects and describes keypoints on the image as given, on tiles when a tiled detector is set.
+     */
+    private MatOfKeyPoint detectFrameAtScale(Mat image, Mat descriptors) {
+        detectedPixels += image.total();
+        if (tiledDetector != null) {
+            return tiledDetector.detectAndCompute(image, keypointSelector, descriptors);
+        }
+        return detectAndCompute(frameDetector, descriptorExtractor, keypointSelector, image, descriptors);
+    }
+
+    /**
+     * Folds the time of a full detection, including preprocessing and a region fallback, into the
+     * smoothed cost per megapixel of the pixels the detector saw.
+     *
+     * @param detectionNanos Time the detection took.
+     */
+    private void measureDetectionCost(long detectionNanos) {
+        if (detectedPixels < MIN_MEASURED_DETECTION_PIXELS) {
+            return;
+        }
+        double msPerMegapixel = detectionNanos / 1e6 / (detectedPixels / 1e6);
+        double previous = detectionMsPerMegapixel;
+        detectionMsPerMegapixel = previous == 0.0 ? msPerMegapixel
+                : previous + DETECTION_COST_SMOOTHING * (msPerMegapixel - previous);
+    }
+
+    /**
+     * Returns the smoothed cost of full camera frame detections per megapixel detected, the figure
+     * {@link CameraConfigSelector} estimates the detection time of a camera configuration with.
+     * Can be called from any thread.
+     *
+     * @return The cost in milliseconds per megapixel, or 0 before the first measured detection.
+     */
+    public double getDetectionMsPerMegapixel() {
+        return detectionMsPerMegapixel;
+    }
+
+    /**
+     * Detects keypoints inside a region of interest and offsets them back to full-frame coordinates.
+     *
+     * @param matImage    The full input image.
+     * @param roi         The detection region.
+     * @param descriptors Output descriptors.
+     * @return The detected keypoints in full-frame coordinates.
+     */
+    private MatOfKeyPoint detectInRegion(Mat matImage, Rect roi, Mat descriptors) {
+        // Preprocess only the region; submat shares the pixels of the full image
+        Mat region = matImage.submat(roi);
+        Mat processedRegion = framePipeline.process(region);
+
+        MatOfKeyPoint regionKeyPoints = detectFrame(processedRegion, descriptors);
+
+        region.release();
+
+        // Offset keypoints back to full-frame coordinates
+        KeyPoint[] keyPointArray = regionKeyPoints.toArray();
+        for (KeyPoint kp : keyPointArray) {
+            kp.pt.x += roi.x;
+            kp.pt.y += roi.y;
+        }
+        regionKeyPoints.release();
+        return new MatOfKeyPoint(keyPointArray);
+    }
+
+    /**
+     * Returns whether the last detection had to fall back from the region of interest to the full frame.
+     *
+     * @return {@code true} if the region of interest was rejected.
+     */
+    public boolean isLastRegionRejected() {
+        return lastRegionRejected;
+    }
+
+    /**
+     * Converts the stored keypoints to point objects and keeps a copy of the frame they were detected in.
+     *
+     * @param matImage The freshly detected frame, or {@code null} for tracked or reused keypoints,
+     *                 which keep the copy of the frame of their detection.
+     * @return The list of feature points.
+     */
+    private List<Point> storeFeaturePoints(Mat matImage) {
         // Convert keypoints to point objects
         opencvFeaturePoints.clear();
-        for (KeyPoint kp : keyPoints.toArray()) {
+        for (KeyPoint kp : detectedKeyPoints.toArray()) {
             opencvFeaturePoints.add(new Point(kp.pt.x, kp.pt.y));
         }
 
-        // Clone the original image for later use
-        lastProcessedImage = matImage.clone();
-
-        Log.i(TAG, "Number of detected OpenCV keypoints: " + opencvFeaturePoints.size());
+        // Copy the original image for later use, reusing the previous buffer
+        if (matImage != null) {
+            if (lastProcessedImage == null) {
+                lastProcessedImage = new Mat();
+            }
+            matImage.copyTo(lastProcessedImage);
+        }
 
-        processedImage.release();
+        Log.i(TAG, "Number of " + (lastFrameTracked ? "tracked" : lastFrameReused ? "reused" : "detected") + " OpenCV keypoints: "
+                + opencvFeaturePoints.size());
 
         return opencvFeaturePoints;
     }
 
     /**
-     * Returns the last processed image.
-     *
-     * @return The last processed image as a {@code Mat}.
+     * Releases the keypoints and descriptors of the previous frame.
      */
-    public Mat getLastProcessedImage() {
-        return lastProcessedImage;
+    private void releaseDetections() {
+        if (detectedKeyPoints != null) {
+            detectedKeyPoints.release();
+        }
+        if (detectedDescriptors != null) {
+            detectedDescriptors.release();
+        }
     }
 
     /**
-     * Creates a Brute-Force matcher with Hamming distance metric.
+     * Returns the image of the last detection; tracked and reused frames are not copied.
      *
-     * @return A {@link DescriptorMatcher} instance.
+     * @return The last detected image as a {@code Mat}.
      */
-    private DescriptorMatcher createBFMatcher() {
-        return BFMatcher.create(DescriptorMatcher.BRUTEFORCE_HAMMING, false);
+    public Mat getLastProcessedImage() {
+        return lastProcessedImage;
     }
 
     /**
@@ -214,20 +906,140 @@ public class OpenCVRenderer {
      * @return A list of good matches.
      */
     public List<DMatch> matchFeatures(Mat descriptors1, Mat descriptors2) {
-        DescriptorMatcher matcher = createBFMatcher();
+        matchFeatures(descriptors1, descriptors2, matchBuffer);
+        return matchBuffer.toList();
+    }
 
-        // Perform KNN matching with k=2
-        List<MatOfDMatch> knnMatches = new ArrayList<>();
-        matcher.knnMatch(descriptors1, descriptors2, knnMatches, 2);
+    /**
+     * Matches features between two sets of descriptors using KNN matching, Lowe's ratio test and,
+     * when enabled, a mutual nearest-neighbour check. The 2-NN result is computed with a single
+     * {@code batchDistance} call and read in bulk into reused primitive arrays, so no per-candidate
+     * objects are created. Reuses internal buffers; call from one thread at a time.
+     *
+     * @param descriptors1 The query descriptors.
+     * @param descriptors2 The train descriptors.
+     * @param matches      Output buffer; cleared, then filled with the good matches in query order.
+     * @return The number of good matches.
+     */
+    public int matchFeatures(Mat descriptors1, Mat descriptors2, MatchBuffer matches) {
+        matches.clear();
+        int queryCount = descriptors1.rows();
+        if (queryCount == 0 || descriptors2.rows() == 0) {
+            return 0;
+        }
+
+        // Integer distances for Hamming norms, float distances otherwise
+        boolean hamming = normType == Core.NORM_HAMMING || normType == Core.NORM_HAMMING2;
+        int distanceType = hamming ? CvType.CV_32S : CvType.CV_32F;
+
+        // Perform KNN matching with k=2, the same computation as the brute-force matcher
+        Core.batchDistance(descriptors1, descriptors2, knnDistanceMat, distanceType, knnIndexMat, normType, 2);
+        int entries = queryCount * 2;
+        if (knnIndices.length < entries) {
+            knnIndices = new int[entries];
+            knnDistances = new float[entries];
+            knnIntDistances = new int[entries];
+        }
+        knnIndexMat.get(0, 0, knnIndices);
+        if (hamming) {
+            knnDistanceMat.get(0, 0, knnIntDistances);
+            for (int i = 0; i < entries; i++) {
+                knnDistances[i] = knnIntDistances[i];
+            }
+        } else {
+            knnDistanceMat.get(0, 0, knnDistances);
+        }
+
+        // Nearest query for every train row, for the mutual check
+        if (mutualCheckEnabled) {
+            Core.batchDistance(descriptors2, descriptors1, reverseDistanceMat, distanceType, reverseIndexMat, normType, 1);
+            int trainCount = descriptors2.rows();
+            if (reverseIndices.length < trainCount) {
+                reverseIndices = new int[trainCount];
+            }
+            reverseIndexMat.get(0, 0, reverseIndices);
+        }
 
         // Apply Lowe's ratio test to filter good matches
+        matches.ensureCapacity(queryCount);
+        for (int q = 0; q < queryCount; q++) {
+            int best = knnIndices[2 * q];
+            if (best < 0 || knnIndices[2 * q + 1] < 0) {
+                continue;
+            }
+            if (knnDistances[2 * q] < RATIO_TEST_THRESHOLD * knnDistances[2 * q + 1]
+                    && (!mutualCheckEnabled || reverseIndices[best] == q)) {
+                matches.add(q, best, knnDistances[2 * q]);
+            }
+        }
+
+        return matches.size();
+    }
+
+    /**
+     * Enables or disables the mutual nearest-neighbour check in {@link #matchFeatures(Mat, Mat)}.
+     * A match is then kept only if the query descriptor is also the nearest neighbour of its train descriptor.
+     *
+     * @param enabled {@code true} to require mutual nearest neighbours.
+     */
+    public void setMutualCheckEnabled(boolean enabled) {
+        this.mutualCheckEnabled = enabled;
+    }
+
+    /**
+     * Matches features between two sets of packed binary descriptors in Java, without the native
+     * matcher. The result is identical to {@link #matchFeatures(Mat, Mat)} for the same descriptors.
+     *
+     * @param descriptors1 The first set of descriptors.
+     * @param descriptors2 The second set of descriptors.
+     * @return A list of good matches.
+     */
+    public List<DMatch> matchFeatures(BinaryDescriptors descriptors1, BinaryDescriptors descriptors2) {
+        return hammingMatcher.match(descriptors1, descriptors2, RATIO_TEST_THRESHOLD);
+    }
+
+    /**
+     * Matches camera descriptors against an indexed set of CAD descriptors using approximate
+     * 2-nearest-neighbour search and Lowe's ratio test. The returned matches use the CAD row as
+     * {@code queryIdx} and the camera row as {@code trainIdx}; see
+     * {@link #matchCameraFeatures(LshIndex, BinaryDescriptors)} for the camera-first order.
+     *
+     * @param cadIndex            The LSH index built over the CAD descriptors.
+     * @param detectedDescriptors The packed camera descriptors.
+     * @return A list of good matches.
+     */
+    public List<DMatch> matchFeatures(LshIndex cadIndex, BinaryDescriptors detectedDescriptors) {
+        return matchIndexed(cadIndex, detectedDescriptors, false);
+    }
+
+    /**
+     * Matches camera descriptors against an indexed set of CAD descriptors like
+     * {@link #matchFeatures(LshIndex, BinaryDescriptors)}, but returns the camera row as
+     * {@code queryIdx} and the CAD row as {@code trainIdx}, like {@link #matchFeatures(Mat, Mat)}
+     * called with the camera descriptors first.
+     *
+     * @param cadIndex            The LSH index built over the CAD descriptors.
+     * @param detectedDescriptors The packed camera descriptors.
+     * @return A list of good matches.
+     */
+    public List<DMatch> matchCameraFeatures(LshIndex cadIndex, BinaryDescriptors detectedDescriptors) {
+        return matchIndexed(cadIndex, detectedDescriptors, true);
+    }
+
+    private List<DMatch> matchIndexed(LshIndex cadIndex, BinaryDescriptors detectedDescriptors, boolean cameraFirst) {
+        int count = detectedDescriptors.getRows();
+        int[] indexBestRows = new int[count];
+        int[] indexBestDistances = new int[count];
+        int[] indexSecondDistances = new int[count];
+        cadIndex.knnMatch2(detectedDescriptors, indexBestRows, indexBestDistances, indexSecondDistances);
+
+        // Apply Lowe's ratio test; queries with a single candidate have no second neighbour to compare
         List<DMatch> goodMatches = new ArrayList<>();
-        for (MatOfDMatch matOfDMatch : knnMatches) {
-            DMatch[] matches = matOfDMatch.toArray();
-            if (matches.length >= 2) {
-                if (matches[0].distance < 0.75 * matches[1].distance) {
-                    goodMatches.add(matches[0]);
-                }
+        for (int i = 0; i < count; i++) {
+            if (indexBestRows[i] >= 0 && indexSecondDistances[i] >= 0
+                    && indexBestDistances[i] < RATIO_TEST_THRESHOLD * indexSecondDistances[i]) {
+                goodMatches.add(cameraFirst ? new DMatch(i, indexBestRows[i], indexBestDistances[i])
+                        : new DMatch(indexBestRows[i], i, indexBestDistances[i]));
             }
         }
 
@@ -251,6 +1063,11 @@ public class OpenCVRenderer {
             return inlierMatches; // Return empty list
         }
 
+        RansacEstimator estimator = homographyEstimator;
+        if (estimator != null) {
+            return filterMatchesWithEstimator(estimator, matches, keypoints1, keypoints2);
+        }
+
         // Convert keypoints to Point2f
         List<Point> points1 = new ArrayList<>();
         List<Point> points2 = new ArrayList<>();
@@ -304,6 +1121,50 @@ public class OpenCVRenderer {
         return inlierMatches;
     }
 
+    /**
+     * Filters matches with the Java RANSAC engine, using the match distances for PROSAC ordering.
+     */
+    private List<DMatch> filterMatchesWithEstimator(RansacEstimator estimator, List<DMatch> matches,
+                                                    MatOfKeyPoint keypoints1, MatOfKeyPoint keypoints2) {
+        KeyPoint[] kp1Array = keypoints1.toArray();
+        KeyPoint[] kp2Array = keypoints2.toArray();
+        int count = matches.size();
+        float[] correspondences = new float[count * 4];
+        float[] distances = new float[count];
+        for (int i = 0; i < count; i++) {
+            DMatch match = matches.get(i);
+            correspondences[4 * i] = (float) kp1Array[match.queryIdx].pt.x;
+            correspondences[4 * i + 1] = (float) kp1Array[match.queryIdx].pt.y;
+            correspondences[4 * i + 2] = (float) kp2Array[match.trainIdx].pt.x;
+            correspondences[4 * i + 3] = (float) kp2Array[match.trainIdx].pt.y;
+            distances[i] = match.distance;
+        }
+
+        List<DMatch> inlierMatches = new ArrayList<>();
+        RansacEstimator.Result result = estimator.estimate(correspondences, count, distances);
+        if (result == null) {
+            Log.w(TAG, "No homography found by the RANSAC engine.");
+            return inlierMatches;
+        }
+        for (int i = 0; i < count; i++) {
+            if (result.inlierMask[i]) {
+                inlierMatches.add(matches.get(i));
+            }
+        }
+        Log.d(TAG, "RANSAC engine: " + result.inlierCount + "/" + count + " inliers after "
+                + result.iterations + " iterations in " + result.elapsedNanos / 1000 + " us");
+        return inlierMatches;
+    }
+
+    /**
+     * Sets the Java RANSAC engine used by {@link #filterMatchesWithRANSAC}.
+     *
+     * @param estimator A homography estimator, or {@code null} to use {@code Calib3d.findHomography}.
+     */
+    public void setHomographyEstimator(RansacEstimator estimator) {
+        this.homographyEstimator = estimator;
+    }
+
     /**
      * Renders the detected OpenCV feature points onto the screen using OpenGL.
      *
@@ -311,70 +1172,108 @@ public class OpenCVRenderer {
      * @param imageHeight The height of the image.
      */
     public void renderOpenCV(int imageWidth, int imageHeight) {
-        // Use the shader program for rendering feature points
-        GLES32.glUseProgram(featurePointShaderProgram.getProgramId());
-
-        // Set the point size uniform
-        GLES32.glUniform1f(GLES32.glGetUniformLocation(featurePointShaderProgram.getProgramId(), "u_PointSize"), 5.0f);
-
-        int pointCount = opencvFeaturePoints.size();
-        float[] glCoords = new float[pointCount * 2];
+        renderOpenCV(opencvFeaturePoints, imageWidth, imageHeight);
+    }
 
-        // Fill the array with converted OpenGL coordinates
+    /**
+     * Renders the given feature points, e.g. those published by the frame pipeline.
+     *
+     * @param featurePoints The feature points in image coordinates.
+     * @param imageWidth    The width of the image.
+     * @param imageHeight   The height of the image.
+     */
+    public void renderOpenCV(List<Point> featurePoints, int imageWidth, int imageHeight) {
+        int pointCount = featurePoints.size();
+        if (pointImageCoords.length < pointCount * 2) {
+            pointImageCoords = new float[Math.max(pointCount * 2, pointImageCoords.length * 2)];
+        }
         for (int i = 0; i < pointCount; i++) {
-            float[] coords = convertToOpenGLCoords(opencvFeaturePoints.get(i), imageWidth, imageHeight);
-            glCoords[i * 2] = coords[0];
-            glCoords[i * 2 + 1] = coords[1];
+            Point point = featurePoints.get(i);
+            pointImageCoords[i * 2] = (float) point.x;
+            pointImageCoords[i * 2 + 1] = (float) point.y;
         }
+        renderFeaturePoints(pointImageCoords, pointCount, imageWidth, imageHeight);
+    }
 
-        // Create a FloatBuffer for the OpenGL coordinates
-        FloatBuffer vertexBuffer = ByteBuffer.allocateDirect(glCoords.length * Float.BYTES)
-                .order(ByteOrder.nativeOrder())
-                .asFloatBuffer();
-        vertexBuffer.put(glCoords).position(0);
+    /**
+     * Renders feature points given as interleaved (x, y) image coordinates. The points are converted
+     * into a reused array and streamed into a persistent vertex buffer, so no memory is allocated per frame.
+     *
+     * @param imageCoords Interleaved (x, y) image coordinates.
+     * @param pointCount  Number of points to render.
+     * @param imageWidth  The width of the image.
+     * @param imageHeight The height of the image.
+     */
+    public void renderFeaturePoints(float[] imageCoords, int pointCount, int imageWidth, int imageHeight) {
+        if (pointCount == 0) {
+            return;
+        }
+        ensurePointCapacity(pointCount);
+
+        // Convert to OpenGL coordinates in one pass, rotating the image like convertToOpenGLCoords
+        float scaleX = 2.0f / imageHeight;
+        float scaleY = 2.0f / imageWidth;
+        for (int i = 0; i < pointCount * 2; i += 2) {
+            pointGLCoords[i] = 1.0f - imageCoords[i + 1] * scaleX;
+            pointGLCoords[i + 1] = 1.0f - imageCoords[i] * scaleY;
+        }
+        pointVertexData.clear();
+        pointVertexData.put(pointGLCoords, 0, pointCount * 2).position(0);
+
+        // Use the shader program for rendering feature points
+        GLES32.glUseProgram(featurePointShaderProgram.getProgramId());
+        GLES32.glUniform1f(pointSizeHandle, POINT_SIZE);
+        GLES32.glUniform4fv(pointColorHandle, 1, FEATURE_COLOR, 0);
 
-        // Retrieve the position attribute handle from the shader
-        int positionHandle = GLES32.glGetAttribLocation(featurePointShaderProgram.getProgramId(), "vPosition");
-        GLES32.glEnableVertexAttribArray(positionHandle);
-        GLES32.glVertexAttribPointer(positionHandle, 2, GLES32.GL_FLOAT, false, 0, vertexBuffer);
+        // Orphan the previous contents so the driver need not wait for the last frame's draw
+        GLES32.glBindBuffer(GLES32.GL_ARRAY_BUFFER, pointVboId);
+        GLES32.glBufferData(GLES32.GL_ARRAY_BUFFER, pointVboCapacity * 2 * Float.BYTES, null, GLES32.GL_STREAM_DRAW);
+        GLES32.glBufferSubData(GLES32.GL_ARRAY_BUFFER, 0, pointCount * 2 * Float.BYTES, pointVertexData);
 
-        // Set the color uniform for the points
-        GLES32.glUniform4f(GLES32.glGetUniformLocation(featurePointShaderProgram.getProgramId(), "u_Color"), 0.0f, 0.0f, 1.0f, 1.0f);
+        GLES32.glEnableVertexAttribArray(pointPositionHandle);
+        GLES32.glVertexAttribPointer(pointPositionHandle, 2, GLES32.GL_FLOAT, false, 0, 0);
 
         // Draw the points
         GLES32.glDrawArrays(GLES32.GL_POINTS, 0, pointCount);
 
-        // Disable the vertex attribute array
-        GLES32.glDisableVertexAttribArray(positionHandle);
-
-        // Unuse the shader program
+        // Disable the vertex attribute array and unbind the buffer and program
+        GLES32.glDisableVertexAttribArray(pointPositionHandle);
+        GLES32.glBindBuffer(GLES32.GL_ARRAY_BUFFER, 0);
         GLES32.glUseProgram(0);
+    }
 
-        // Release the vertex buffer
-        vertexBuffer.clear();
+    /**
+     * Grows the point arrays and the vertex buffer to hold at least the given number of points.
+     *
+     * @param pointCount Number of points to hold.
+     */
+    private void ensurePointCapacity(int pointCount) {
+        if (pointCount <= pointVboCapacity) {
+            return;
+        }
+        int capacity = Math.max(pointCount, pointVboCapacity * 2);
+        pointGLCoords = new float[capacity * 2];
+        pointVertexData = ByteBuffer.allocateDirect(capacity * 2 * Float.BYTES)
+                .order(ByteOrder.nativeOrder())
+                .asFloatBuffer();
+        pointVboCapacity = capacity;
     }
 
     /**
-     * Extracts features from the given image using AKAZE algorithm.
+     * Extracts features from the given image using the database detector of the active strategy.
      *
      * @param image The input image {@code Mat}.
      * @return A {@code Pair} containing keypoints and descriptors.
      */
     public Pair<MatOfKeyPoint, Mat> extractFeaturesFromImage(Mat image) {
         // Preprocess the image
-        Mat processedImage = preprocessImage(image);
+        Mat processedImage = databasePipeline.process(image);
 
-        // Initialize AKAZE detector
-        AKAZE akazeDetector = AKAZE.create();
-        akazeDetector.setThreshold(0.001);
-        MatOfKeyPoint keyPoints = new MatOfKeyPoint();
         Mat descriptors = new Mat();
 
         // Detect keypoints and compute descriptors
-        akazeDetector.detectAndCompute(processedImage, new Mat(), keyPoints, descriptors);
-
-        // Release the processed image as it's no longer needed
-        processedImage.release();
+        MatOfKeyPoint keyPoints = detectAndCompute(databaseDetector, descriptorExtractor, null,
+                processedImage, descriptors);
 
         return new Pair<>(keyPoints, descriptors);
     }
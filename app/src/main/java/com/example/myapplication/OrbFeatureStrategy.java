@@ -0,0 +1,48 @@
+package com.example.myapplication;
+
+import org.opencv.core.Core;
+import org.opencv.features2d.Feature2D;
+import org.opencv.features2d.ORB;
+
+/**
+ * ORB detector and rBRIEF descriptor on normalized grayscale images.
+ * Several times faster than AKAZE on mobile CPUs.
+ */
+public class OrbFeatureStrategy implements FeatureStrategy {
+
+    private static final int MAX_FEATURES = 1000;
+
+    // Pyramid and patch parameters ORB.create uses by default
+    private static final int PYRAMID_LEVELS = 8;
+    private static final double SCALE_FACTOR = 1.2;
+    private static final int PATCH_SIZE = 31;
+    // Half size of the Gaussian kernel the pyramid levels are smoothed with before description
+    private static final int SMOOTHING_RADIUS = 3;
+
+    @Override
+    public String getName() {
+        return "ORB";
+    }
+
+    @Override
+    public Feature2D createDetector() {
+        return ORB.create(MAX_FEATURES);
+    }
+
+    @Override
+    public int getNormType() {
+        return Core.NORM_HAMMING;
+    }
+
+    @Override
+    public int getDescriptorSupportRadius() {
+        // The rotated rBRIEF patch at the coarsest pyramid level, scaled back to the input image
+        double levelRadius = Math.sqrt(2.0) * (PATCH_SIZE / 2 + SMOOTHING_RADIUS);
+        return (int) Math.ceil(levelRadius * Math.pow(SCALE_FACTOR, PYRAMID_LEVELS - 1));
+    }
+
+    @Override
+    public PreprocessingPipeline createPreprocessingPipeline() {
+        return PreprocessingPipeline.normalizedGray();
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.myapplication;
+
+import android.util.Log;
+
+import java.util.Locale;
+
+/**
+ * The {@code PipelineStage} class runs one step of a frame pipeline on its own thread. It takes items
+ * from its input {@link FrameQueue}, processes them and offers the results to its output queue, so
+ * consecutive stages work on different frames at the same time. Items dropped by the output queue,
+ * consumed by the processor or left behind when the stage stops are handed to a recycler so their
+ * buffers can be reused. The stage keeps smoothed processing time and throughput figures.
+ *
+ * @param <T> The item type passed between stages.
+ */
+public class PipelineStage<T> {
+
+    private static final String TAG = "PipelineStage";
+
+    // Weight of the newest sample in the smoothed timings
+    private static final double SMOOTHING = 0.1;
+
+    /**
+     * Processes one item.
+     *
+     * @param <T> The item type.
+     */
+    public interface Processor<T> {
+        /**
+         * @param item The item taken from the input queue.
+         * @return The item to offer to the output queue, or {@code null} if the item was consumed or forwarded elsewhere.
+         * @throws Exception If processing failed; the item is recycled.
+         */
+        T process(T item) throws Exception;
+    }
+
+    /**
+     * Releases or reuses an item that leaves the pipeline early.
+     *
+     * @param <T> The item type.
+     */
+    public interface Recycler<T> {
+        void recycle(T item);
+    }
+
+    /**
+     * Snapshot of the queue depth, throughput and latency of a stage.
+     */
+    public static class Stats {
+        public final String name;
+        /** Items waiting in the input queue. */
+        public final int queueDepth;
+        public final int queueCapacity;
+        public final long processedCount;
+        /** Items dropped by the input queue. */
+        public final long droppedCount;
+        /** Smoothed number of items completed per second. */
+        public final double throughput;
+        /** Mean time items waited in the input queue, in milliseconds. */
+        public final double queueWaitMs;
+        /** Smoothed processing time per item, in milliseconds. */
+        public final double processingMs;
+
+        Stats(String name, int queueDepth, int queueCapacity, long processedCount, long droppedCount,
+              double throughput, double queueWaitMs, double processingMs) {
+            this.name = name;
+            this.queueDepth = queueDepth;
+            this.queueCapacity = queueCapacity;
+            this.processedCount = processedCount;
+            this.droppedCount = droppedCount;
+            this.throughput = throughput;
+            this.queueWaitMs = queueWaitMs;
+            this.processingMs = processingMs;
+        }
+
+        /**
+         * Returns the time from entering the input queue to leaving the stage.
+         *
+         * @return The latency in milliseconds.
+         */
+        public double getLatencyMs() {
+            return queueWaitMs + processingMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s: depth=%d/%d processed=%d dropped=%d %.1f/s wait=%.2fms process=%.2fms",
+                    name, queueDepth, queueCapacity, processedCount, droppedCount, throughput, queueWaitMs, processingMs);
+        }
+    }
+
+    private final String name;
+    private final FrameQueue<T> input;
+    private final FrameQueue<T> output;
+    private final Processor<T> processor;
+    private final Recycler<T> recycler;
+
+    private Thread thread;
+
+    private long processedCount = 0;
+    private double meanProcessingNanos = 0;
+    private double meanIntervalNanos = 0;
+    private long lastCompletionNanos = 0;
+
+    /**
+     * Constructs a new {@code PipelineStage}.
+     *
+     * @param name      Name of the stage and its thread.
+     * @param input     Queue the stage takes items from.
+     * @param output    Queue the results are offered to, or {@code null} for the last stage.
+     * @param processor Processes each item.
+     * @param recycler  Receives items that leave the pipeline early.
+     */
+    public PipelineStage(String name, FrameQueue<T> input, FrameQueue<T> output,
+                         Processor<T> processor, Recycler<T> recycler) {
+        this.name = name;
+        this.input = input;
+        this.output = output;
+        this.processor = processor;
+        this.recycler = recycler;
+    }
+
+    /**
+     * Starts the stage thread.
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Closes the input queue and waits for the stage thread to finish the queued items.
+     *
+     * @param timeoutMs Longest time to wait for the thread.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public void stop(long timeoutMs) throws InterruptedException {
+        Thread stageThread;
+        synchronized (this) {
+            stageThread = thread;
+        }
+        input.close();
+        if (stageThread != null) {
+            stageThread.join(timeoutMs);
+        }
+    }
+
+    private void run() {
+        try {
+            T item;
+            while ((item = input.take()) != null) {
+                long start = System.nanoTime();
+                T result;
+                try {
+                    result = processor.process(item);
+                } catch (Exception e) {
+                    Log.e(TAG, name + " failed: " + e.getMessage());
+                    recycler.recycle(item);
+                    result = null;
+                }
+
+                // Forward the result; whatever the next queue drops or rejects is recycled
+                if (result != null) {
+                    T dropped = output != null ? output.offer(result) : result;
+                    if (dropped != null) {
+                        recycler.recycle(dropped);
+                    }
+                }
+                recordCompletion(start, System.nanoTime());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Recycle what is left after the queue was closed
+        T item;
+        while ((item = input.poll()) != null) {
+            recycler.recycle(item);
+        }
+    }
+
+    private synchronized void recordCompletion(long startNanos, long endNanos) {
+        long processingNanos = endNanos - startNanos;
+        if (processedCount == 0) {
+            meanProcessingNanos = processingNanos;
+        } else {
+            meanProcessingNanos += SMOOTHING * (processingNanos - meanProcessingNanos);
+            long intervalNanos = endNanos - lastCompletionNanos;
+            meanIntervalNanos = meanIntervalNanos == 0
+                    ? intervalNanos : meanIntervalNanos + SMOOTHING * (intervalNanos - meanIntervalNanos);
+        }
+        lastCompletionNanos = endNanos;
+        processedCount++;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public FrameQueue<T> getInput() {
+        return input;
+    }
+
+    /**
+     * Returns the current queue depth, throughput and latency of the stage.
+     *
+     * @return A snapshot of the stage statistics.
+     */
+    public synchronized Stats getStats() {
+        return new Stats(name, input.size(), input.getCapacity(), processedCount, input.getDroppedCount(),
+                meanIntervalNanos > 0 ? 1e9 / meanIntervalNanos : 0.0,
+                input.getMeanWaitNanos() / 1e6, meanProcessingNanos / 1e6);
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.myapplication;
+
+/**
+ * The {@code PnpModel} class fits a camera pose to 2D-3D correspondences with the direct linear
+ * transform on normalised image coordinates, then projects the rotation onto SO(3).
+ * Correspondences are {@code u, v, X, Y, Z} with pixel coordinates and model coordinates; the model
+ * is the row-major rotation followed by the translation (12 values). The error is the squared
+ * reprojection distance in pixels.
+ */
+public class PnpModel implements RansacModel {
+
+    private final double fx;
+    private final double fy;
+    private final double cx;
+    private final double cy;
+
+    /**
+     * Constructs a new {@code PnpModel} for a camera with the given intrinsics.
+     *
+     * @param fx Focal length in pixels along x.
+     * @param fy Focal length in pixels along y.
+     * @param cx Principal point x in pixels.
+     * @param cy Principal point y in pixels.
+     */
+    public PnpModel(double fx, double fy, double cx, double cy) {
+        this.fx = fx;
+        this.fy = fy;
+        this.cx = cx;
+        this.cy = cy;
+    }
+
+    @Override
+    public int getStride() {
+        return 5;
+    }
+
+    @Override
+    public int getSampleSize() {
+        return 6;
+    }
+
+    @Override
+    public int getParameterCount() {
+        return 12;
+    }
+
+    @Override
+    public boolean fit(float[] data, int[] indices, int count, double[] model, int offset) {
+        if (count < 6) {
+            return false;
+        }
+
+        // Centre and scale the model points for conditioning
+        double mx = 0.0;
+        double my = 0.0;
+        double mz = 0.0;
+        for (int i = 0; i < count; i++) {
+            int base = indices[i] * 5;
+            mx += data[base + 2];
+            my += data[base + 3];
+            mz += data[base + 4];
+        }
+        mx /= count;
+        my /= count;
+        mz /= count;
+        double meanDistance = 0.0;
+        for (int i = 0; i < count; i++) {
+            int base = indices[i] * 5;
+            double dx = data[base + 2] - mx;
+            double dy = data[base + 3] - my;
+            double dz = data[base + 4] - mz;
+            meanDistance += Math.sqrt(dx * dx + dy * dy + dz * dz);
+        }
+        meanDistance /= count;
+        if (meanDistance < 1e-12) {
+            return false;
+        }
+        double scale = Math.sqrt(3.0) / meanDistance;
+
+        double[] ata = new double[144];
+        double[] row = new double[12];
+        for (int i = 0; i < count; i++) {
+            int base = indices[i] * 5;
+            double x = (data[base] - cx) / fx;
+            double y = (data[base + 1] - cy) / fy;
+            double px = (data[base + 2] - mx) * scale;
+            double py = (data[base + 3] - my) * scale;
+            double pz = (data[base + 4] - mz) * scale;
+
+            row[0] = px;
+            row[1] = py;
+            row[2] = pz;
+            row[3] = 1.0;
+            row[4] = 0.0;
+            row[5] = 0.0;
+            row[6] = 0.0;
+            row[7] = 0.0;
+            row[8] = -x * px;
+            row[9] = -x * py;
+            row[10] = -x * pz;
+            row[11] = -x;
+            LinearAlgebra.accumulateOuterProduct(ata, row, 12);
+
+            row[0] = 0.0;
+            row[1] = 0.0;
+            row[2] = 0.0;
+            row[3] = 0.0;
+            row[4] = px;
+            row[5] = py;
+            row[6] = pz;
+            row[7] = 1.0;
+            row[8] = -y * px;
+            row[9] = -y * py;
+            row[10] = -y * pz;
+            row[11] = -y;
+            LinearAlgebra.accumulateOuterProduct(ata, row, 12);
+        }
+
+        double[] p = new double[12];
+        LinearAlgebra.smallestEigenvector(ata, 12, p);
+
+        // Undo the point normalisation: P = Pn [sI, -s m; 0, 1]
+        double[] m = new double[9];
+        double[] t = new double[3];
+        for (int r = 0; r < 3; r++) {
+            m[r * 3] = p[r * 4] * scale;
+            m[r * 3 + 1] = p[r * 4 + 1] * scale;
+            m[r * 3 + 2] = p[r * 4 + 2] * scale;
+            t[r] = p[r * 4 + 3] - (m[r * 3] * mx + m[r * 3 + 1] * my + m[r * 3 + 2] * mz);
+        }
+
+        // P is defined up to sign; choose the one with a proper rotation
+        if (LinearAlgebra.determinant3(m) < 0.0) {
+            for (int i = 0; i < 9; i++) {
+                m[i] = -m[i];
+            }
+            for (int i = 0; i < 3; i++) {
+                t[i] = -t[i];
+            }
+        }
+
+        // Nearest rotation R = U V^T and the common scale of M = s R
+        double[] u = new double[9];
+        double[] s = new double[3];
+        double[] v = new double[9];
+        LinearAlgebra.svd3(m, u, s, v);
+        double poseScale = (s[0] + s[1] + s[2]) / 3.0;
+        if (poseScale < 1e-12) {
+            return false;
+        }
+        for (int r = 0; r < 3; r++) {
+            for (int c = 0; c < 3; c++) {
+                model[offset + r * 3 + c] = u[r * 3] * v[c * 3] + u[r * 3 + 1] * v[c * 3 + 1] + u[r * 3 + 2] * v[c * 3 + 2];
+            }
+            model[offset + 9 + r] = t[r] / poseScale;
+        }
+        return true;
+    }
+
+    @Override
+    public double squaredError(float[] data, int index, double[] model, int offset) {
+        int base = index * 5;
+        double px = data[base + 2];
+        double py = data[base + 3];
+        double pz = data[base + 4];
+        double x = model[offset] * px + model[offset + 1] * py + model[offset + 2] * pz + model[offset + 9];
+        double y = model[offset + 3] * px + model[offset + 4] * py + model[offset + 5] * pz + model[offset + 10];
+        double z = model[offset + 6] * px + model[offset + 7] * py + model[offset + 8] * pz + model[offset + 11];
+        if (z <= 1e-9) {
+            return Double.MAX_VALUE;
+        }
+        double du = fx * x / z + cx - data[base];
+        double dv = fy * y / z + cy - data[base + 1];
+        return du * du + dv * dv;
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.myapplication;
+
+import android.util.Log;
+
+import org.opencv.calib3d.Calib3d;
+import org.opencv.core.CvType;
+import org.opencv.core.DMatch;
+import org.opencv.core.KeyPoint;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfDouble;
+import org.opencv.core.MatOfKeyPoint;
+import org.opencv.core.MatOfPoint2f;
+import org.opencv.core.MatOfPoint3f;
+import org.opencv.core.Point;
+import org.opencv.core.Point3;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The {@code PoseVerifier} class verifies matches against the CAD views with a single camera pose
+ * instead of one homography per view. Matched CAD keypoints are lifted to model coordinates through
+ * the rendered depth, the correspondences of all views are pooled, and the pose is estimated with
+ * {@code Calib3d.solvePnPRansac} using the camera intrinsics. A homography only fits planar scenes,
+ * while a pose fits the curved bone from any angle.
+ */
+public class PoseVerifier {
+
+    private static final String TAG = "PoseVerifier";
+
+    // Fewest pooled correspondences for a pose; solvePnPRansac needs 4, the extra ones make it stable
+    private static final int MIN_CORRESPONDENCES = 6;
+
+    private final float reprojectionThreshold;
+    private final int iterations;
+    private final double confidence;
+
+    /**
+     * Pose and reprojection statistics of one verification.
+     */
+    public static class Result {
+        /** Rodrigues rotation vector from model to camera coordinates. */
+        public final double[] rotation;
+        /** Translation from model to camera coordinates, in model units. */
+        public final double[] translation;
+        /** Number of pooled 2D-3D correspondences. */
+        public final int correspondenceCount;
+        /** Reprojection errors of the inlier correspondences. */
+        public final ReprojectionStats inlierErrors;
+        /** Inlier matches of every view, indexed by view, in the layout of {@link DescriptorDatabase#groupByView}. */
+        public final List<List<DMatch>> viewInliers;
+
+        Result(double[] rotation, double[] translation, int correspondenceCount, ReprojectionStats inlierErrors,
+               List<List<DMatch>> viewInliers) {
+            this.rotation = rotation;
+            this.translation = translation;
+            this.correspondenceCount = correspondenceCount;
+            this.inlierErrors = inlierErrors;
+            this.viewInliers = viewInliers;
+        }
+    }
+
+    /**
+     * Constructs a new {@code PoseVerifier} with the {@code solvePnPRansac} defaults.
+     */
+    public PoseVerifier() {
+        this(8.0f, 100, 0.99);
+    }
+
+    /**
+     * Constructs a new {@code PoseVerifier}.
+     *
+     * @param reprojectionThreshold Largest reprojection error of an inlier, in pixels.
+     * @param iterations            Maximum number of RANSAC iterations.
+     * @param confidence            Probability that the result is free of outliers.
+     */
+    public PoseVerifier(float reprojectionThreshold, int iterations, double confidence) {
+        this.reprojectionThreshold = reprojectionThreshold;
+        this.iterations = iterations;
+        this.confidence = confidence;
+    }
+
+    /**
+     * Pools the matches of all views into 2D-3D correspondences and estimates the camera pose.
+     *
+     * @param viewMatches       Matches per view, with the view keypoint as {@code queryIdx} and the camera row as {@code trainIdx}.
+     * @param database          The CAD descriptor database holding the model coordinates of the view keypoints.
+     * @param detectedKeypoints Keypoints of the camera image.
+     * @param intrinsics        Camera intrinsics (fx, fy, cx, cy) of the camera image.
+     * @return The pose, or {@code null} if there are too few correspondences or no pose was found.
+     */
+    public Result verify(List<List<DMatch>> viewMatches, DescriptorDatabase database,
+                         MatOfKeyPoint detectedKeypoints, float[] intrinsics) {
+        KeyPoint[] detectedKeypointArray = detectedKeypoints.toArray();
+
+        // Pool the correspondences of all views, remembering the view and match each came from
+        List<Point3> objectPointList = new ArrayList<>();
+        List<Point> imagePointList = new ArrayList<>();
+        List<int[]> origins = new ArrayList<>();
+        float[] modelPoint = new float[3];
+        for (int view = 0; view < viewMatches.size(); view++) {
+            List<DMatch> matches = viewMatches.get(view);
+            for (int i = 0; i < matches.size(); i++) {
+                DMatch match = matches.get(i);
+                if (database.getViewPoint(view, match.queryIdx, modelPoint)) {
+                    objectPointList.add(new Point3(modelPoint[0], modelPoint[1], modelPoint[2]));
+                    imagePointList.add(detectedKeypointArray[match.trainIdx].pt);
+                    origins.add(new int[]{view, i});
+                }
+            }
+        }
+
+        int correspondenceCount = objectPointList.size();
+        if (correspondenceCount < MIN_CORRESPONDENCES) {
+            Log.w(TAG, "Not enough 2D-3D correspondences to estimate a pose: " + correspondenceCount);
+            return null;
+        }
+
+        MatOfPoint3f objectPoints = new MatOfPoint3f();
+        objectPoints.fromList(objectPointList);
+        MatOfPoint2f imagePoints = new MatOfPoint2f();
+        imagePoints.fromList(imagePointList);
+        Mat cameraMatrix = Mat.zeros(3, 3, CvType.CV_64F);
+        cameraMatrix.put(0, 0, intrinsics[0], 0.0, intrinsics[2], 0.0, intrinsics[1], intrinsics[3], 0.0, 0.0, 1.0);
+        MatOfDouble distortion = new MatOfDouble();
+        Mat rvec = new Mat();
+        Mat tvec = new Mat();
+        Mat inlierIndices = new Mat();
+
+        try {
+            // Estimate the pose from all views at once
+            boolean found = Calib3d.solvePnPRansac(objectPoints, imagePoints, cameraMatrix, distortion, rvec, tvec,
+                    false, iterations, reprojectionThreshold, confidence, inlierIndices, Calib3d.SOLVEPNP_ITERATIVE);
+            if (!found || inlierIndices.empty()) {
+                Log.d(TAG, "No pose found from " + correspondenceCount + " correspondences");
+                return null;
+            }
+
+            int[] inliers = new int[inlierIndices.rows()];
+            inlierIndices.get(0, 0, inliers);
+
+            // Reproject the model points to measure the fit of the inliers
+            MatOfPoint2f projectedPoints = new MatOfPoint2f();
+            Calib3d.projectPoints(objectPoints, rvec, tvec, cameraMatrix, distortion, projectedPoints);
+            Point[] projected = projectedPoints.toArray();
+            projectedPoints.release();
+
+            // Split the inliers back into views and collect their errors
+            List<List<DMatch>> viewInliers = new ArrayList<>(viewMatches.size());
+            for (int view = 0; view < viewMatches.size(); view++) {
+                viewInliers.add(new ArrayList<>());
+            }
+            double[] errors = new double[inliers.length];
+            for (int i = 0; i < inliers.length; i++) {
+                int index = inliers[i];
+                int[] origin = origins.get(index);
+                viewInliers.get(origin[0]).add(viewMatches.get(origin[0]).get(origin[1]));
+                Point observed = imagePointList.get(index);
+                errors[i] = Math.hypot(projected[index].x - observed.x, projected[index].y - observed.y);
+            }
+            for (int view = 0; view < viewInliers.size(); view++) {
+                viewInliers.set(view, Collections.unmodifiableList(viewInliers.get(view)));
+            }
+
+            double[] rotation = new double[3];
+            double[] translation = new double[3];
+            rvec.get(0, 0, rotation);
+            tvec.get(0, 0, translation);
+
+            ReprojectionStats inlierErrors = ReprojectionStats.of(errors, errors.length);
+            Log.d(TAG, "Pose from " + inliers.length + "/" + correspondenceCount + " correspondences, " + inlierErrors);
+            return new Result(rotation, translation, correspondenceCount, inlierErrors, viewInliers);
+        } finally {
+            objectPoints.release();
+            imagePoints.release();
+            cameraMatrix.release();
+            distortion.release();
+            rvec.release();
+            tvec.release();
+            inlierIndices.release();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.myapplication;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.CLAHE;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The {@code PreprocessingPipeline} class runs a configurable chain of preprocessing stages
+ * before feature detection. The input is always converted to grayscale first; the stages then
+ * run in order on scratch {@code Mat}s owned by the pipeline, so no image buffers are allocated
+ * once the frame size is stable. The time spent in each stage of the last call is recorded.
+ */
+public class PreprocessingPipeline {
+
+    /**
+     * Preprocessing stages applied after grayscale conversion.
+     */
+    public enum Stage {
+        /** Stretches intensities to the full 0-255 range. */
+        NORMALIZE,
+        /** Contrast limited adaptive histogram equalization. */
+        CLAHE,
+        /** 5x5 Gaussian blur. */
+        BLUR,
+        /** Canny edge map; discards gradient information. */
+        EDGES
+    }
+
+    private static final double CANNY_LOW_THRESHOLD = 50;
+    private static final double CANNY_HIGH_THRESHOLD = 150;
+    private static final Size BLUR_KERNEL = new Size(5, 5);
+
+    private final Stage[] stages;
+    private CLAHE clahe;
+
+    // Scratch buffers, swapped between stages
+    private Mat current = new Mat();
+    private Mat scratch = new Mat();
+
+    // Timings of the last call
+    private long conversionNanos;
+    private final long[] stageNanos;
+
+    /**
+     * Constructs a new {@code PreprocessingPipeline} with the given stages.
+     * An empty chain only converts to grayscale.
+     *
+     * @param stages The stages to run, in order.
+     */
+    public PreprocessingPipeline(Stage... stages) {
+        this.stages = stages.clone();
+        this.stageNanos = new long[stages.length];
+    }
+
+    /**
+     * Returns the legacy chain: normalize, blur and Canny edges.
+     *
+     * @return A new pipeline.
+     */
+    public static PreprocessingPipeline edges() {
+        return new PreprocessingPipeline(Stage.NORMALIZE, Stage.BLUR, Stage.EDGES);
+    }
+
+    /**
+     * Returns a chain that keeps gradient information: normalized grayscale.
+     *
+     * @return A new pipeline.
+     */
+    public static PreprocessingPipeline normalizedGray() {
+        return new PreprocessingPipeline(Stage.NORMALIZE);
+    }
+
+    /**
+     * Returns the stages of this pipeline.
+     *
+     * @return A copy of the stage chain.
+     */
+    public Stage[] getStages() {
+        return stages.clone();
+    }
+
+    /**
+     * Runs the pipeline on the given image.
+     * The returned {@code Mat} is owned by the pipeline and is overwritten by the next call;
+     * callers must not release it.
+     *
+     * @param image The input image {@code Mat}, RGB or single channel.
+     * @return The preprocessed single-channel image.
+     */
+    public Mat process(Mat image) {
+        long start = System.nanoTime();
+        if (image.channels() > 1) {
+            Imgproc.cvtColor(image, current, Imgproc.COLOR_BGR2GRAY);
+        } else {
+            image.copyTo(current);
+        }
+        conversionNanos = System.nanoTime() - start;
+
+        for (int i = 0; i < stages.length; i++) {
+            start = System.nanoTime();
+            switch (stages[i]) {
+                case NORMALIZE:
+                    Core.normalize(current, current, 0, 255, Core.NORM_MINMAX);
+                    break;
+                case CLAHE:
+                    if (clahe == null) {
+                        clahe = Imgproc.createCLAHE(2.0, new Size(8, 8));
+                    }
+                    clahe.apply(current, scratch);
+                    swap();
+                    break;
+                case BLUR:
+                    Imgproc.GaussianBlur(current, scratch, BLUR_KERNEL, 0);
+                    swap();
+                    break;
+                case EDGES:
+                    Imgproc.Canny(current, scratch, CANNY_LOW_THRESHOLD, CANNY_HIGH_THRESHOLD);
+                    swap();
+                    break;
+            }
+            stageNanos[i] = System.nanoTime() - start;
+        }
+
+        return current;
+    }
+
+    private void swap() {
+        Mat previous = current;
+        current = scratch;
+        scratch = previous;
+    }
+
+    /**
+     * Returns the time spent converting the last input to grayscale.
+     *
+     * @return The conversion time in nanoseconds.
+     */
+    public long getConversionNanos() {
+        return conversionNanos;
+    }
+
+    /**
+     * Returns the time spent in each stage during the last call, in stage order.
+     *
+     * @return Stage times in nanoseconds.
+     */
+    public long[] getStageNanos() {
+        return stageNanos.clone();
+    }
+
+    /**
+     * Formats the timings of the last call for logging.
+     *
+     * @return A string such as {@code "gray=0.41ms NORMALIZE=0.62ms BLUR=0.93ms"}.
+     */
+    public String describeTimings() {
+        StringBuilder builder = new StringBuilder(String.format(Locale.US, "gray=%.2fms", conversionNanos / 1e6));
+        for (int i = 0; i < stages.length; i++) {
+            builder.append(String.format(Locale.US, " %s=%.2fms", stages[i], stageNanos[i] / 1e6));
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return stages.length == 0 ? "NONE" : Arrays.toString(stages);
+    }
+
+    /**
+     * Releases the scratch buffers.
+     */
+    public void release() {
+        current.release();
+        scratch.release();
+    }
+}
@@ -0,0 +1,346 @@
+package com.example.myapplication;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The {@code RansacEstimator} class is a RANSAC engine for any {@link RansacModel}.
+ * <ul>
+ *     <li>Samples are drawn PROSAC-style when correspondence qualities are given: hypotheses start
+ *     from the best-ranked correspondences and the sampling pool grows towards uniform RANSAC.</li>
+ *     <li>The iteration limit adapts to the best inlier ratio found for the requested confidence.</li>
+ *     <li>Hypotheses are generated in fixed batches and scored in parallel on a {@link ForkJoinPool},
+ *     in stripes large enough to outweigh scheduling; results do not depend on the number of threads.
+ *     Pass no pool when the estimator already runs on parallel workers.</li>
+ *     <li>The best hypothesis is refined by least-squares fitting on its inliers.</li>
+ * </ul>
+ * An estimator holds no per-call state and may be used from several threads at once.
+ */
+public class RansacEstimator {
+
+    // Hypotheses generated before each parallel scoring pass
+    private static final int BATCH_SIZE = 16;
+    // Error evaluations a scoring task performs at least, so a task outweighs its scheduling cost;
+    // about 32 hypotheses over a few hundred correspondences
+    private static final int MIN_STRIPE_EVALUATIONS = 8192;
+    private static final int REFINEMENT_PASSES = 3;
+
+    private final RansacModel model;
+    private final double threshold;
+    private final double confidence;
+    private final int maxIterations;
+    private final ForkJoinPool pool;
+    private final long seed;
+
+    /**
+     * Result of an estimation.
+     */
+    public static class Result {
+        /** Refined model parameters. */
+        public final double[] model;
+        /** Inlier flag of every correspondence. */
+        public final boolean[] inlierMask;
+        /** Number of inliers. */
+        public final int inlierCount;
+        /** Number of hypotheses generated. */
+        public final int iterations;
+        /** Time spent in the estimation. */
+        public final long elapsedNanos;
+
+        Result(double[] model, boolean[] inlierMask, int inlierCount, int iterations, long elapsedNanos) {
+            this.model = model;
+            this.inlierMask = inlierMask;
+            this.inlierCount = inlierCount;
+            this.iterations = iterations;
+            this.elapsedNanos = elapsedNanos;
+        }
+    }
+
+    /**
+     * Constructs a new {@code RansacEstimator}.
+     *
+     * @param model         The model to estimate.
+     * @param threshold     Maximum error of an inlier, in pixels.
+     * @param confidence    Probability of drawing at least one all-inlier sample, e.g. 0.995.
+     * @param maxIterations Upper bound on generated hypotheses.
+     * @param pool          Pool for parallel hypothesis scoring, or {@code null} to score on the calling thread.
+     * @param seed          Seed for sampling, so estimates are reproducible.
+     */
+    public RansacEstimator(RansacModel model, double threshold, double confidence, int maxIterations,
+                           ForkJoinPool pool, long seed) {
+        this.model = model;
+        this.threshold = threshold;
+        this.confidence = confidence;
+        this.maxIterations = maxIterations;
+        this.pool = pool;
+        this.seed = seed;
+    }
+
+    /**
+     * Estimates the model from correspondences containing outliers.
+     *
+     * @param data      Correspondences, {@link RansacModel#getStride()} floats each.
+     * @param count     Number of correspondences.
+     * @param qualities Per-correspondence match distance (lower is better) for PROSAC ordering,
+     *                  or {@code null} for uniform sampling.
+     * @return The estimate, or {@code null} if there are too few correspondences or no valid model.
+     */
+    public Result estimate(float[] data, int count, float[] qualities) {
+        long startTime = System.nanoTime();
+        int sampleSize = model.getSampleSize();
+        int parameters = model.getParameterCount();
+        if (count < sampleSize) {
+            return null;
+        }
+
+        int[] order = sortByQuality(qualities, count);
+        Random random = new Random(seed);
+        double thresholdSquared = threshold * threshold;
+
+        // PROSAC growth schedule: T_n is the expected number of samples drawn from the top n
+        boolean prosac = qualities != null;
+        int poolSize = prosac ? sampleSize : count;
+        double tn = maxIterations;
+        for (int i = 0; i < sampleSize; i++) {
+            tn *= (double) (sampleSize - i) / (count - i);
+        }
+        double tnPrime = 1.0;
+
+        double[] hypotheses = new double[BATCH_SIZE * parameters];
+        boolean[] valid = new boolean[BATCH_SIZE];
+        int[] inlierCounts = new int[BATCH_SIZE];
+        double[] costs = new double[BATCH_SIZE];
+        int[] sample = new int[sampleSize];
+
+        double[] best = new double[parameters];
+        int bestCount = 0;
+        double bestCost = Double.MAX_VALUE;
+        int iterationLimit = maxIterations;
+        int iterations = 0;
+
+        while (iterations < iterationLimit) {
+            int batch = Math.min(BATCH_SIZE, iterationLimit - iterations);
+
+            // Draw and fit the hypotheses of this batch sequentially, so sampling is deterministic
+            for (int h = 0; h < batch; h++) {
+                int t = iterations + h + 1;
+                if (prosac && t > tnPrime && poolSize < count) {
+                    double tnNext = tn * (poolSize + 1) / (poolSize + 1 - sampleSize);
+                    tnPrime += Math.ceil(tnNext - tn);
+                    tn = tnNext;
+                    poolSize++;
+                }
+                if (prosac && poolSize < count) {
+                    // The newest correspondence of the pool plus a random subset of the better ones
+                    drawSample(order, poolSize - 1, sampleSize - 1, random, sample);
+                    sample[sampleSize - 1] = order[poolSize - 1];
+                } else {
+                    drawSample(order, poolSize, sampleSize, random, sample);
+                }
+                valid[h] = model.fit(data, sample, sampleSize, hypotheses, h * parameters);
+            }
+
+            score(data, count, hypotheses, valid, batch, thresholdSquared, inlierCounts, costs);
+
+            for (int h = 0; h < batch; h++) {
+                if (valid[h] && (inlierCounts[h] > bestCount || (inlierCounts[h] == bestCount && costs[h] < bestCost))) {
+                    bestCount = inlierCounts[h];
+                    bestCost = costs[h];
+                    System.arraycopy(hypotheses, h * parameters, best, 0, parameters);
+                    iterationLimit = Math.min(maxIterations, adaptiveIterations((double) bestCount / count, sampleSize));
+                }
+            }
+            iterations += batch;
+        }
+
+        if (bestCount < sampleSize) {
+            return null;
+        }
+
+        // Least-squares refinement on the inliers while it does not lose inliers
+        boolean[] mask = new boolean[count];
+        int[] inliers = new int[count];
+        int inlierCount = collectInliers(data, count, best, thresholdSquared, mask, inliers);
+        double[] refined = new double[parameters];
+        for (int pass = 0; pass < REFINEMENT_PASSES; pass++) {
+            if (!model.fit(data, inliers, inlierCount, refined, 0)) {
+                break;
+            }
+            boolean[] refinedMask = new boolean[count];
+            int[] refinedInliers = new int[count];
+            int refinedCount = collectInliers(data, count, refined, thresholdSquared, refinedMask, refinedInliers);
+            if (refinedCount < inlierCount) {
+                break;
+            }
+            System.arraycopy(refined, 0, best, 0, parameters);
+            mask = refinedMask;
+            inliers = refinedInliers;
+            boolean converged = refinedCount == inlierCount;
+            inlierCount = refinedCount;
+            if (converged) {
+                break;
+            }
+        }
+
+        return new Result(best, mask, inlierCount, iterations, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Returns the number of iterations needed to draw an all-inlier sample with the configured confidence.
+     *
+     * @param inlierRatio The fraction of inliers.
+     * @param sampleSize  The minimal sample size.
+     * @return The iteration count, at least 1.
+     */
+    int adaptiveIterations(double inlierRatio, int sampleSize) {
+        double allInliers = Math.pow(inlierRatio, sampleSize);
+        if (allInliers >= 1.0) {
+            return 1;
+        }
+        if (allInliers <= 0.0) {
+            return maxIterations;
+        }
+        double iterations = Math.log(1.0 - confidence) / Math.log(1.0 - allInliers);
+        return (int) Math.max(1.0, Math.min(maxIterations, Math.ceil(iterations)));
+    }
+
+    /**
+     * Returns the correspondence indices ordered by increasing match distance, or in input order.
+     */
+    private static int[] sortByQuality(float[] qualities, int count) {
+        int[] order = new int[count];
+        if (qualities == null) {
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            return order;
+        }
+        // Sort packed (quality bits, index) keys; qualities are non-negative so their bits sort like the values
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = ((long) Float.floatToIntBits(Math.max(qualities[i], 0.0f)) << 32) | i;
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < count; i++) {
+            order[i] = (int) keys[i];
+        }
+        return order;
+    }
+
+    /**
+     * Draws {@code size} distinct entries of {@code order[0, range)} into {@code sample}.
+     */
+    private static void drawSample(int[] order, int range, int size, Random random, int[] sample) {
+        for (int i = 0; i < size; i++) {
+            boolean duplicate;
+            int candidate;
+            do {
+                candidate = order[random.nextInt(range)];
+                duplicate = false;
+                for (int j = 0; j < i; j++) {
+                    if (sample[j] == candidate) {
+                        duplicate = true;
+                        break;
+                    }
+                }
+            } while (duplicate);
+            sample[i] = candidate;
+        }
+    }
+
+    /**
+     * Scores a batch of hypotheses by inlier count and truncated squared error, in parallel when a pool is set.
+     */
+    private void score(float[] data, int count, double[] hypotheses, boolean[] valid, int batch,
+                       double thresholdSquared, int[] inlierCounts, double[] costs) {
+        int stripeHypotheses = Math.max(1, MIN_STRIPE_EVALUATIONS / Math.max(1, count));
+        ScoreTask task = new ScoreTask(data, count, hypotheses, valid, 0, batch, stripeHypotheses,
+                thresholdSquared, inlierCounts, costs);
+        if (pool != null && batch > stripeHypotheses) {
+            pool.invoke(task);
+        } else {
+            task.scoreRange();
+        }
+    }
+
+    private int collectInliers(float[] data, int count, double[] parameters, double thresholdSquared,
+                               boolean[] mask, int[] inliers) {
+        int inlierCount = 0;
+        for (int i = 0; i < count; i++) {
+            mask[i] = model.squaredError(data, i, parameters, 0) < thresholdSquared;
+            if (mask[i]) {
+                inliers[inlierCount++] = i;
+            }
+        }
+        return inlierCount;
+    }
+
+    /**
+     * Scores a range of hypotheses, splitting it in halves until it fits a stripe.
+     */
+    private final class ScoreTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final float[] data;
+        private final int count;
+        private final double[] hypotheses;
+        private final boolean[] valid;
+        private final int from;
+        private final int to;
+        private final int stripeHypotheses;
+        private final double thresholdSquared;
+        private final int[] inlierCounts;
+        private final double[] costs;
+
+        ScoreTask(float[] data, int count, double[] hypotheses, boolean[] valid, int from, int to,
+                  int stripeHypotheses, double thresholdSquared, int[] inlierCounts, double[] costs) {
+            this.data = data;
+            this.count = count;
+            this.hypotheses = hypotheses;
+            this.valid = valid;
+            this.from = from;
+            this.to = to;
+            this.stripeHypotheses = stripeHypotheses;
+            this.thresholdSquared = thresholdSquared;
+            this.inlierCounts = inlierCounts;
+            this.costs = costs;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= stripeHypotheses) {
+                scoreRange();
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ScoreTask(data, count, hypotheses, valid, from, middle, stripeHypotheses,
+                            thresholdSquared, inlierCounts, costs),
+                    new ScoreTask(data, count, hypotheses, valid, middle, to, stripeHypotheses,
+                            thresholdSquared, inlierCounts, costs));
+        }
+
+        void scoreRange() {
+            int parameters = model.getParameterCount();
+            for (int h = from; h < to; h++) {
+                if (!valid[h]) {
+                    continue;
+                }
+                int inliers = 0;
+                double cost = 0.0;
+                for (int i = 0; i < count; i++) {
+                    double error = model.squaredError(data, i, hypotheses, h * parameters);
+                    if (error < thresholdSquared) {
+                        inliers++;
+                        cost += error;
+                    } else {
+                        cost += thresholdSquared;
+                    }
+                }
+                inlierCounts[h] = inliers;
+                costs[h] = cost;
+            }
+        }
+    }
+}
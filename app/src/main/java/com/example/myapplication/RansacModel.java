@@ -0,0 +1,54 @@
+package com.example.myapplication;
+
+/**
+ * The {@code RansacModel} interface describes a geometric model estimated by {@link RansacEstimator}.
+ * Correspondences are stored in a flat {@code float[]} with {@link #getStride()} values each, and
+ * model parameters in a flat {@code double[]} with {@link #getParameterCount()} values each.
+ * Implementations must be stateless so that hypotheses can be fitted and scored concurrently.
+ */
+public interface RansacModel {
+
+    /**
+     * Returns the number of floats per correspondence.
+     *
+     * @return The correspondence stride.
+     */
+    int getStride();
+
+    /**
+     * Returns the number of correspondences in a minimal sample.
+     *
+     * @return The minimal sample size.
+     */
+    int getSampleSize();
+
+    /**
+     * Returns the number of model parameters.
+     *
+     * @return The parameter count.
+     */
+    int getParameterCount();
+
+    /**
+     * Fits the model to a minimal sample or, with more correspondences, in the least-squares sense.
+     *
+     * @param data    The correspondences.
+     * @param indices Indices of the correspondences to fit.
+     * @param count   Number of indices to use.
+     * @param model   Output parameters.
+     * @param offset  Offset of the output parameters in {@code model}.
+     * @return {@code true} if a non-degenerate model was found.
+     */
+    boolean fit(float[] data, int[] indices, int count, double[] model, int offset);
+
+    /**
+     * Returns the squared error of one correspondence, in squared pixels.
+     *
+     * @param data   The correspondences.
+     * @param index  The correspondence index.
+     * @param model  The model parameters.
+     * @param offset Offset of the parameters in {@code model}.
+     * @return The squared error.
+     */
+    double squaredError(float[] data, int index, double[] model, int offset);
+}
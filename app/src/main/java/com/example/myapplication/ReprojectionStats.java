@@ -0,0 +1,65 @@
+package com.example.myapplication;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The {@code ReprojectionStats} class summarises the reprojection errors of a set of 2D-3D
+ * correspondences under an estimated pose: the distances in pixels between the observed image
+ * points and the projections of their model points.
+ */
+public class ReprojectionStats {
+
+    /** Number of errors summarised. */
+    public final int count;
+    /** Mean error in pixels. */
+    public final double mean;
+    /** Median error in pixels. */
+    public final double median;
+    /** Root-mean-square error in pixels. */
+    public final double rms;
+    /** Largest error in pixels. */
+    public final double max;
+
+    private ReprojectionStats(int count, double mean, double median, double rms, double max) {
+        this.count = count;
+        this.mean = mean;
+        this.median = median;
+        this.rms = rms;
+        this.max = max;
+    }
+
+    /**
+     * Summarises the first {@code count} errors. The array is not modified.
+     *
+     * @param errors Reprojection errors in pixels.
+     * @param count  Number of errors to use.
+     * @return The statistics; all zero when {@code count} is 0.
+     */
+    public static ReprojectionStats of(double[] errors, int count) {
+        if (count == 0) {
+            return new ReprojectionStats(0, 0.0, 0.0, 0.0, 0.0);
+        }
+
+        double sum = 0.0;
+        double sumOfSquares = 0.0;
+        double max = 0.0;
+        for (int i = 0; i < count; i++) {
+            sum += errors[i];
+            sumOfSquares += errors[i] * errors[i];
+            max = Math.max(max, errors[i]);
+        }
+
+        double[] sorted = Arrays.copyOf(errors, count);
+        Arrays.sort(sorted);
+        double median = count % 2 == 1 ? sorted[count / 2] : (sorted[count / 2 - 1] + sorted[count / 2]) * 0.5;
+
+        return new ReprojectionStats(count, sum / count, median, Math.sqrt(sumOfSquares / count), max);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "n=%d mean=%.2fpx median=%.2fpx rms=%.2fpx max=%.2fpx",
+                count, mean, median, rms, max);
+    }
+}
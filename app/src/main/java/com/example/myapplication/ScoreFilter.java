@@ -0,0 +1,84 @@
+package com.example.myapplication;
+
+/**
+ * The {@code ScoreFilter} class smooths a stream of match percentages with a scalar Kalman filter.
+ * The true score is modelled as a random walk whose variance grows with the time between
+ * measurements, so a score measured after a long gap or a skipped cycle moves the estimate more
+ * than one measured shortly after the previous, and a steady camera converges to a stable value.
+ */
+public class ScoreFilter {
+
+    private final double processVariance;
+    private final double measurementVariance;
+
+    private double estimate;
+    private double variance;
+    private long lastTimestampNanos;
+    private boolean initialised = false;
+
+    /**
+     * Constructs a new {@code ScoreFilter} expecting measurements with a standard deviation of
+     * 8 percentage points and a true score that drifts by about 5 points per second.
+     */
+    public ScoreFilter() {
+        this(25.0, 64.0);
+    }
+
+    /**
+     * Constructs a new {@code ScoreFilter}.
+     *
+     * @param processVariance     Growth of the score variance per second, in squared percentage points.
+     * @param measurementVariance Variance of a single measurement, in squared percentage points.
+     */
+    public ScoreFilter(double processVariance, double measurementVariance) {
+        if (processVariance <= 0 || measurementVariance <= 0) {
+            throw new IllegalArgumentException("Variances must be positive");
+        }
+        this.processVariance = processVariance;
+        this.measurementVariance = measurementVariance;
+    }
+
+    /**
+     * Adds a measurement and returns the smoothed score.
+     *
+     * @param measurement    The measured match percentage.
+     * @param timestampNanos Time of the measurement, from {@link System#nanoTime()}.
+     * @return The smoothed match percentage.
+     */
+    public double update(double measurement, long timestampNanos) {
+        if (!initialised) {
+            estimate = measurement;
+            variance = measurementVariance;
+            lastTimestampNanos = timestampNanos;
+            initialised = true;
+            return estimate;
+        }
+
+        // Predict: the score may have drifted since the last measurement
+        double elapsedSeconds = Math.max(0L, timestampNanos - lastTimestampNanos) / 1e9;
+        variance += processVariance * elapsedSeconds;
+        lastTimestampNanos = timestampNanos;
+
+        // Correct towards the measurement by the Kalman gain
+        double gain = variance / (variance + measurementVariance);
+        estimate += gain * (measurement - estimate);
+        variance *= 1.0 - gain;
+        return estimate;
+    }
+
+    /**
+     * Forgets all measurements, e.g. when the scene or the matching configuration changed.
+     */
+    public void reset() {
+        initialised = false;
+    }
+
+    /**
+     * Returns the current smoothed score.
+     *
+     * @return The estimate, or {@code NaN} before the first measurement.
+     */
+    public double getEstimate() {
+        return initialised ? estimate : Double.NaN;
+    }
+}
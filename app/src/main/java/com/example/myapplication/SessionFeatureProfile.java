@@ -0,0 +1,168 @@
+package com.example.myapplication;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The {@code SessionFeatureProfile} class decides which optional ARCore session features are enabled.
+ * Depth, HDR light estimation and plane finding each cost time inside {@code Session.update()} every
+ * frame, so a feature is only enabled while at least one consumer in the pipeline has registered for
+ * it. The class also records the {@code Session.update()} time under each combination of enabled
+ * features, so the cost of a feature can be read off the difference between profiles.
+ */
+public class SessionFeatureProfile {
+
+    /**
+     * Optional session features.
+     */
+    public enum Feature {
+        /** Depth images, {@code Config.DepthMode.AUTOMATIC}. */
+        DEPTH,
+        /** Environmental HDR light estimation, {@code Config.LightEstimationMode.ENVIRONMENTAL_HDR}. */
+        HDR_LIGHTING,
+        /** Horizontal and vertical plane detection, {@code Config.PlaneFindingMode.HORIZONTAL_AND_VERTICAL}. */
+        PLANE_FINDING
+    }
+
+    /**
+     * {@code Session.update()} times measured under one set of enabled features.
+     */
+    public static final class UpdateStats {
+        public final Set<Feature> features;
+        public final long frameCount;
+        public final double meanMs;
+        public final double maxMs;
+
+        UpdateStats(Set<Feature> features, long frameCount, double meanMs, double maxMs) {
+            this.features = features;
+            this.frameCount = frameCount;
+            this.meanMs = meanMs;
+            this.maxMs = maxMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s: %d frames, mean %.2fms, max %.2fms",
+                    features.isEmpty() ? "[no optional features]" : features.toString(), frameCount, meanMs, maxMs);
+        }
+    }
+
+    private final Map<Feature, Set<String>> consumers = new EnumMap<>(Feature.class);
+
+    // Update time totals per profile, in the order the profiles were first used
+    private final Map<Set<Feature>, long[]> updateTimes = new LinkedHashMap<>();
+
+    /**
+     * Registers a consumer of a feature; the feature is enabled while it has consumers.
+     *
+     * @param feature  The feature.
+     * @param consumer Name of the consumer, e.g. its class name.
+     * @return {@code true} if the set of enabled features changed.
+     */
+    public synchronized boolean register(Feature feature, String consumer) {
+        Set<String> names = consumers.get(feature);
+        if (names == null) {
+            names = new LinkedHashSet<>();
+            consumers.put(feature, names);
+        }
+        return names.add(consumer) && names.size() == 1;
+    }
+
+    /**
+     * Removes a consumer of a feature; the feature is disabled when its last consumer is removed.
+     *
+     * @param feature  The feature.
+     * @param consumer Name the consumer registered with.
+     * @return {@code true} if the set of enabled features changed.
+     */
+    public synchronized boolean unregister(Feature feature, String consumer) {
+        Set<String> names = consumers.get(feature);
+        return names != null && names.remove(consumer) && names.isEmpty();
+    }
+
+    public synchronized boolean isEnabled(Feature feature) {
+        Set<String> names = consumers.get(feature);
+        return names != null && !names.isEmpty();
+    }
+
+    /**
+     * Returns the features that have consumers.
+     *
+     * @return A copy of the enabled features.
+     */
+    public synchronized Set<Feature> getEnabledFeatures() {
+        Set<Feature> enabled = EnumSet.noneOf(Feature.class);
+        for (Feature feature : Feature.values()) {
+            if (isEnabled(feature)) {
+                enabled.add(feature);
+            }
+        }
+        return enabled;
+    }
+
+    /**
+     * Returns the consumers registered for a feature.
+     *
+     * @param feature The feature.
+     * @return The consumer names in registration order.
+     */
+    public synchronized List<String> getConsumers(Feature feature) {
+        Set<String> names = consumers.get(feature);
+        return names != null ? new ArrayList<>(names) : Collections.emptyList();
+    }
+
+    /**
+     * Records the time of one {@code Session.update()} call under the given features.
+     *
+     * @param features    The features the session was configured with.
+     * @param updateNanos Time the call took.
+     */
+    public synchronized void recordUpdate(Set<Feature> features, long updateNanos) {
+        long[] totals = updateTimes.get(features);
+        if (totals == null) {
+            // Frame count, total and maximum time
+            totals = new long[3];
+            Set<Feature> key = EnumSet.noneOf(Feature.class);
+            key.addAll(features);
+            updateTimes.put(Collections.unmodifiableSet(key), totals);
+        }
+        totals[0]++;
+        totals[1] += updateNanos;
+        totals[2] = Math.max(totals[2], updateNanos);
+    }
+
+    /**
+     * Returns the {@code Session.update()} times measured under every profile used so far.
+     *
+     * @return One entry per set of enabled features, in the order they were first used.
+     */
+    public synchronized List<UpdateStats> getUpdateStats() {
+        List<UpdateStats> stats = new ArrayList<>(updateTimes.size());
+        for (Map.Entry<Set<Feature>, long[]> entry : updateTimes.entrySet()) {
+            long[] totals = entry.getValue();
+            stats.add(new UpdateStats(entry.getKey(), totals[0], totals[1] / (double) totals[0] / 1e6, totals[2] / 1e6));
+        }
+        return stats;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder("SessionFeatureProfile(");
+        boolean first = true;
+        for (Feature feature : Feature.values()) {
+            if (isEnabled(feature)) {
+                builder.append(first ? "" : ", ").append(feature).append(" for ").append(consumers.get(feature));
+                first = false;
+            }
+        }
+        return builder.append(first ? "no optional features)" : ")").toString();
+    }
+}
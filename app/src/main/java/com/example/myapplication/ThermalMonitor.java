@@ -0,0 +1,200 @@
+package com.example.myapplication;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.util.Log;
+
+import androidx.annotation.RequiresApi;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The {@code ThermalMonitor} class follows the thermal status and forecast headroom reported by
+ * {@link PowerManager} and maps them to a {@link ThermalProfile}. The status is received through a
+ * thermal status listener (Android 10 and later) and the headroom is polled every few seconds on the
+ * main thread (Android 11 and later); on older devices the profile stays {@link ThermalProfile#NOMINAL}.
+ * Every profile switch is logged and kept with its wall-clock time, status and headroom so that field
+ * reports show when and why the workload was reduced.
+ */
+public class ThermalMonitor {
+
+    private static final String TAG = "ThermalMonitor";
+
+    // The platform rate-limits headroom queries; polling faster returns NaN
+    private static final long HEADROOM_POLL_INTERVAL_MS = 2000;
+    private static final int HEADROOM_FORECAST_SECONDS = 10;
+
+    // Switches kept for field reports
+    private static final int MAX_SWITCHES = 32;
+
+    /**
+     * Receives profile switches on the main thread.
+     */
+    public interface Listener {
+        void onThermalProfileChanged(ProfileSwitch profileSwitch);
+    }
+
+    /**
+     * A profile switch and the thermal state that caused it.
+     */
+    public static final class ProfileSwitch {
+        /** Wall-clock time of the switch, in milliseconds since the epoch. */
+        public final long timeMillis;
+        public final ThermalProfile from;
+        public final ThermalProfile to;
+        /** The thermal status, one of the {@code PowerManager.THERMAL_STATUS_*} values. */
+        public final int status;
+        /** The forecast thermal headroom, or {@code NaN} if unavailable. */
+        public final float headroom;
+
+        ProfileSwitch(long timeMillis, ThermalProfile from, ThermalProfile to, int status, float headroom) {
+            this.timeMillis = timeMillis;
+            this.from = from;
+            this.to = to;
+            this.status = status;
+            this.headroom = headroom;
+        }
+
+        @Override
+        public String toString() {
+            String time = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.US).format(new Date(timeMillis));
+            return String.format(Locale.US, "%s thermal profile %s -> %s (status=%d, headroom=%.2f)",
+                    time, from, to.describe(), status, headroom);
+        }
+    }
+
+    private final PowerManager powerManager;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Listener listener;
+
+    private ThermalProfile profile = ThermalProfile.NOMINAL;
+    private int status = PowerManager.THERMAL_STATUS_NONE;
+    private float headroom = Float.NaN;
+    private final ArrayDeque<ProfileSwitch> switches = new ArrayDeque<>();
+    private boolean running = false;
+
+    // The registered PowerManager.OnThermalStatusChangedListener; typed as Object so the class loads before Android 10
+    private Object statusListener;
+    private final Runnable headroomPoll = this::pollHeadroom;
+
+    /**
+     * Constructs a new {@code ThermalMonitor}.
+     *
+     * @param context  The application context.
+     * @param listener Receives profile switches on the main thread.
+     */
+    public ThermalMonitor(Context context, Listener listener) {
+        this.powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        this.listener = listener;
+    }
+
+    /**
+     * Starts following the thermal state. Call from the main thread.
+     */
+    public void start() {
+        if (running || powerManager == null) {
+            return;
+        }
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) {
+            Log.i(TAG, "Thermal status is not available before Android 10, keeping " + profile);
+            return;
+        }
+        running = true;
+        statusListener = StatusListeners.add(powerManager, this);
+        onThermalStatusChanged(StatusListeners.currentStatus(powerManager));
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            pollHeadroom();
+        }
+    }
+
+    /**
+     * Stops following the thermal state; the current profile is kept. Call from the main thread.
+     */
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        handler.removeCallbacks(headroomPoll);
+        StatusListeners.remove(powerManager, statusListener);
+        statusListener = null;
+    }
+
+    /**
+     * Calls the thermal status API of Android 10, kept in its own class so older devices never load it.
+     */
+    @RequiresApi(Build.VERSION_CODES.Q)
+    private static final class StatusListeners {
+
+        static Object add(PowerManager powerManager, ThermalMonitor monitor) {
+            PowerManager.OnThermalStatusChangedListener statusListener = monitor::onThermalStatusChanged;
+            powerManager.addThermalStatusListener(statusListener);
+            return statusListener;
+        }
+
+        static void remove(PowerManager powerManager, Object statusListener) {
+            powerManager.removeThermalStatusListener((PowerManager.OnThermalStatusChangedListener) statusListener);
+        }
+
+        static int currentStatus(PowerManager powerManager) {
+            return powerManager.getCurrentThermalStatus();
+        }
+    }
+
+    private void onThermalStatusChanged(int newStatus) {
+        status = newStatus;
+        update();
+    }
+
+    private void pollHeadroom() {
+        if (!running) {
+            return;
+        }
+        headroom = powerManager.getThermalHeadroom(HEADROOM_FORECAST_SECONDS);
+        update();
+        handler.postDelayed(headroomPoll, HEADROOM_POLL_INTERVAL_MS);
+    }
+
+    /**
+     * Selects the profile for the latest status and headroom and reports a switch.
+     */
+    private void update() {
+        ThermalProfile next = ThermalProfile.select(profile, status, headroom);
+        if (next == profile) {
+            return;
+        }
+        ProfileSwitch profileSwitch = new ProfileSwitch(System.currentTimeMillis(), profile, next, status, headroom);
+        synchronized (switches) {
+            switches.addLast(profileSwitch);
+            if (switches.size() > MAX_SWITCHES) {
+                switches.removeFirst();
+            }
+        }
+        profile = next;
+        Log.i(TAG, profileSwitch.toString());
+        listener.onThermalProfileChanged(profileSwitch);
+    }
+
+    public ThermalProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Returns the latest profile switches.
+     *
+     * @return Up to 32 switches, oldest first.
+     */
+    public List<ProfileSwitch> getSwitches() {
+        synchronized (switches) {
+            return new ArrayList<>(switches);
+        }
+    }
+}
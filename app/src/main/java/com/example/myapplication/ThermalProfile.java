@@ -0,0 +1,112 @@
+package com.example.myapplication;
+
+import android.os.PowerManager;
+
+import java.util.Locale;
+
+/**
+ * The {@code ThermalProfile} enum lists the workload profiles the renderer runs under as the device
+ * heats up. Each profile limits how often camera frames are processed, the resolution detection runs
+ * at and how many CAD views a match compares against. A profile is chosen from the thermal status
+ * reported by {@link PowerManager} and the forecast thermal headroom, whichever is more severe, so the
+ * workload drops before the platform starts throttling. Leaving a profile on headroom alone needs the
+ * headroom to fall a margin below the threshold that entered it.
+ */
+public enum ThermalProfile {
+    NOMINAL(1, 1.0f, 0),
+    LIGHT(1, 0.75f, 8),
+    MODERATE(2, 0.75f, 4),
+    SEVERE(3, 0.5f, 2),
+    CRITICAL(6, 0.5f, 1);
+
+    // Headroom at which LIGHT, MODERATE and SEVERE are entered; 1.0 is the forecast onset of severe throttling
+    private static final float[] HEADROOM_THRESHOLDS = {0.7f, 0.85f, 1.0f};
+
+    // Headroom drop below a threshold needed to leave its profile
+    private static final float HEADROOM_HYSTERESIS = 0.05f;
+
+    /** Camera frames are processed once every this many frames. */
+    public final int processingInterval;
+    /** Upper bound on the factor frames are scaled by before detection. */
+    public final float detectionScale;
+    /** Most CAD views matched per frame, or 0 for all views. */
+    public final int maxMatchedViews;
+
+    ThermalProfile(int processingInterval, float detectionScale, int maxMatchedViews) {
+        this.processingInterval = processingInterval;
+        this.detectionScale = detectionScale;
+        this.maxMatchedViews = maxMatchedViews;
+    }
+
+    /**
+     * Chooses the profile for a thermal state.
+     *
+     * @param current  The profile currently in use, for the headroom hysteresis.
+     * @param status   The thermal status, one of the {@code PowerManager.THERMAL_STATUS_*} values.
+     * @param headroom The forecast thermal headroom, or {@code NaN} if unavailable.
+     * @return The profile to use.
+     */
+    public static ThermalProfile select(ThermalProfile current, int status, float headroom) {
+        ThermalProfile byStatus = forStatus(status);
+        ThermalProfile byHeadroom = NOMINAL;
+        if (!Float.isNaN(headroom)) {
+            for (int i = 0; i < HEADROOM_THRESHOLDS.length; i++) {
+                ThermalProfile profile = values()[i + 1];
+                float threshold = HEADROOM_THRESHOLDS[i];
+
+                // Keep a headroom profile until the headroom falls clearly below its threshold
+                if (profile.ordinal() <= current.ordinal()) {
+                    threshold -= HEADROOM_HYSTERESIS;
+                }
+                if (headroom >= threshold) {
+                    byHeadroom = profile;
+                }
+            }
+        }
+        return byStatus.ordinal() >= byHeadroom.ordinal() ? byStatus : byHeadroom;
+    }
+
+    /**
+     * Returns the profile for a thermal status alone.
+     *
+     * @param status The thermal status, one of the {@code PowerManager.THERMAL_STATUS_*} values.
+     * @return The profile for the status.
+     */
+    public static ThermalProfile forStatus(int status) {
+        switch (status) {
+            case PowerManager.THERMAL_STATUS_NONE:
+                return NOMINAL;
+            case PowerManager.THERMAL_STATUS_LIGHT:
+                return LIGHT;
+            case PowerManager.THERMAL_STATUS_MODERATE:
+                return MODERATE;
+            case PowerManager.THERMAL_STATUS_SEVERE:
+                return SEVERE;
+            default:
+                return status > PowerManager.THERMAL_STATUS_SEVERE ? CRITICAL : NOMINAL;
+        }
+    }
+
+    /**
+     * Returns the number of CAD views to match given the configured view retrieval.
+     *
+     * @param retrievedViews Views retrieved per frame, or 0 for all views.
+     * @return The smaller limit, or 0 if neither limits the views.
+     */
+    public int limitViews(int retrievedViews) {
+        if (maxMatchedViews <= 0) {
+            return retrievedViews;
+        }
+        return retrievedViews <= 0 ? maxMatchedViews : Math.min(retrievedViews, maxMatchedViews);
+    }
+
+    /**
+     * Returns a readable description of the profile's limits.
+     *
+     * @return The profile name and limits.
+     */
+    public String describe() {
+        return String.format(Locale.US, "%s(process every %d frame(s), scale<=%.2f, views=%s)", name(),
+                processingInterval, detectionScale, maxMatchedViews > 0 ? String.valueOf(maxMatchedViews) : "all");
+    }
+}
@@ -0,0 +1,412 @@
+package com.example.myapplication;
+
+import android.util.Log;
+
+import org.opencv.core.Core;
+import org.opencv.core.KeyPoint;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfKeyPoint;
+import org.opencv.core.Rect;
+import org.opencv.features2d.Feature2D;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@code TiledFeatureDetector} class splits an image into overlapping tiles and runs
+ * detection and description on a fixed pool of worker threads. Each keypoint is owned by the
+ * tile whose core (the tile without its overlap) contains it, and remaining duplicates found
+ * on both sides of a tile border are suppressed. The overlap is the descriptor support radius of
+ * the feature strategy, so keypoints near a tile border are described from the same pixels as on
+ * the whole image. Detectors that describe their own keypoints run {@code detectAndCompute} once
+ * per tile and keep the descriptor rows of the surviving keypoints; with a separate extractor the
+ * descriptors are computed per tile for the merged keypoints. Descriptors are concatenated in
+ * keypoint order.
+ */
+public class TiledFeatureDetector {
+
+    private static final String TAG = "TiledFeatureDetector";
+
+    private final int tileColumns;
+    private final int tileRows;
+    private int overlap;
+    private final float duplicateRadius;
+    private final ExecutorService executor;
+
+    // One detector/extractor per tile so that no instance is used by two threads at once
+    private final Feature2D[] detectors;
+    private final Feature2D[] extractors;
+
+    /**
+     * Constructs a new {@code TiledFeatureDetector}.
+     *
+     * @param tileColumns     Number of tile columns.
+     * @param tileRows        Number of tile rows.
+     * @param duplicateRadius Keypoints from different tiles closer than this many pixels are duplicates.
+     * @param threadCount     Number of worker threads.
+     */
+    public TiledFeatureDetector(int tileColumns, int tileRows, float duplicateRadius, int threadCount) {
+        this.tileColumns = tileColumns;
+        this.tileRows = tileRows;
+        this.duplicateRadius = duplicateRadius;
+        this.detectors = new Feature2D[tileColumns * tileRows];
+        this.extractors = new Feature2D[tileColumns * tileRows];
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threadCount, runnable -> {
+            Thread thread = new Thread(runnable, TAG + "-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Creates the per-tile detectors and extractors for the given strategy and overlaps the tiles by
+     * its descriptor support radius.
+     *
+     * @param strategy The feature strategy to use.
+     */
+    public void setFeatureStrategy(FeatureStrategy strategy) {
+        for (int i = 0; i < detectors.length; i++) {
+            detectors[i] = strategy.createDetector();
+            extractors[i] = strategy.createExtractor();
+        }
+        overlap = strategy.getDescriptorSupportRadius();
+    }
+
+    /**
+     * Returns the overlap added on each side of a tile.
+     *
+     * @return The overlap in pixels.
+     */
+    public int getOverlap() {
+        return overlap;
+    }
+
+    /**
+     * Detects keypoints over all tiles, merges them, optionally selects the strongest per grid
+     * cell and computes descriptors for the survivors.
+     *
+     * @param image       The preprocessed image.
+     * @param selector    The keypoint selector, or {@code null} to keep all keypoints.
+     * @param descriptors Output descriptors, one row per returned keypoint.
+     * @return The merged keypoints in full-image coordinates.
+     */
+    public MatOfKeyPoint detectAndCompute(Mat image, KeypointSelector selector, Mat descriptors) {
+        if (detectors[0] == null) {
+            throw new IllegalStateException("Feature strategy not set");
+        }
+
+        int width = image.cols();
+        int height = image.rows();
+        Rect[] cores = new Rect[detectors.length];
+        Rect[] tiles = new Rect[detectors.length];
+        for (int row = 0; row < tileRows; row++) {
+            for (int column = 0; column < tileColumns; column++) {
+                int index = row * tileColumns + column;
+                int x0 = column * width / tileColumns;
+                int x1 = (column + 1) * width / tileColumns;
+                int y0 = row * height / tileRows;
+                int y1 = (row + 1) * height / tileRows;
+                cores[index] = new Rect(x0, y0, x1 - x0, y1 - y0);
+
+                int ex0 = Math.max(0, x0 - overlap);
+                int ey0 = Math.max(0, y0 - overlap);
+                int ex1 = Math.min(width, x1 + overlap);
+                int ey1 = Math.min(height, y1 + overlap);
+                tiles[index] = new Rect(ex0, ey0, ex1 - ex0, ey1 - ey0);
+            }
+        }
+
+        // Phase 1: detect in every tile and keep the keypoints owned by the tile core; a detector
+        // without a separate extractor describes them in the same pass
+        boolean describeInDetection = extractors[0] == null;
+        List<Callable<TileDescriptors>> detectTasks = new ArrayList<>();
+        for (int i = 0; i < tiles.length; i++) {
+            final int index = i;
+            detectTasks.add(() -> detectTile(image, tiles[index], cores[index], detectors[index], describeInDetection));
+        }
+        List<TileDescriptors> detected = invokeAll(detectTasks);
+
+        // Merge tiles and suppress duplicates across tile borders
+        List<KeyPoint> merged = new ArrayList<>();
+        List<Integer> owners = new ArrayList<>();
+        List<Integer> tileRowIndices = new ArrayList<>();
+        for (int i = 0; i < detected.size(); i++) {
+            KeyPoint[] tileKeyPoints = detected.get(i).keyPoints;
+            for (int row = 0; row < tileKeyPoints.length; row++) {
+                merged.add(tileKeyPoints[row]);
+                owners.add(i);
+                tileRowIndices.add(row);
+            }
+        }
+        boolean[] keep = suppressBorderDuplicates(merged, owners, cores);
+
+        // Select the strongest keypoints per grid cell among the merged survivors
+        int count = merged.size();
+        if (selector != null) {
+            int[] candidates = new int[count];
+            int candidateCount = 0;
+            for (int i = 0; i < count; i++) {
+                if (keep[i]) {
+                    candidates[candidateCount++] = i;
+                }
+            }
+            float[] xs = new float[candidateCount];
+            float[] ys = new float[candidateCount];
+            float[] responses = new float[candidateCount];
+            for (int c = 0; c < candidateCount; c++) {
+                KeyPoint kp = merged.get(candidates[c]);
+                xs[c] = (float) kp.pt.x;
+                ys[c] = (float) kp.pt.y;
+                responses[c] = kp.response;
+            }
+            keep = new boolean[count];
+            for (int c : selector.selectIndices(xs, ys, responses, candidateCount, width, height)) {
+                keep[candidates[c]] = true;
+            }
+        }
+
+        // Group the surviving keypoints by tile
+        List<List<KeyPoint>> perTile = new ArrayList<>();
+        List<List<Integer>> perTileRows = new ArrayList<>();
+        for (int i = 0; i < tiles.length; i++) {
+            perTile.add(new ArrayList<>());
+            perTileRows.add(new ArrayList<>());
+        }
+        for (int i = 0; i < count; i++) {
+            if (keep[i]) {
+                perTile.get(owners.get(i)).add(merged.get(i));
+                perTileRows.get(owners.get(i)).add(tileRowIndices.get(i));
+            }
+        }
+
+        List<TileDescriptors> computed;
+        if (describeInDetection) {
+            // Keep the descriptor rows of the survivors from the detection pass
+            computed = new ArrayList<>(tiles.length);
+            for (int i = 0; i < tiles.length; i++) {
+                computed.add(keepRows(detected.get(i), perTile.get(i), perTileRows.get(i)));
+            }
+        } else {
+            // Phase 2: compute descriptors per tile for the surviving keypoints
+            List<Callable<TileDescriptors>> computeTasks = new ArrayList<>();
+            for (int i = 0; i < tiles.length; i++) {
+                final int index = i;
+                computeTasks.add(() -> computeTile(image, tiles[index], perTile.get(index), extractors[index]));
+            }
+            computed = invokeAll(computeTasks);
+            for (TileDescriptors tile : detected) {
+                tile.descriptors.release();
+            }
+        }
+
+        // Concatenate keypoints and descriptor rows in tile order
+        List<KeyPoint> keyPoints = new ArrayList<>();
+        List<Mat> descriptorParts = new ArrayList<>();
+        for (TileDescriptors tile : computed) {
+            if (tile.keyPoints.length == 0 || tile.descriptors.empty()) {
+                tile.descriptors.release();
+                continue;
+            }
+            for (KeyPoint kp : tile.keyPoints) {
+                keyPoints.add(kp);
+            }
+            descriptorParts.add(tile.descriptors);
+        }
+        if (!descriptorParts.isEmpty()) {
+            Core.vconcat(descriptorParts, descriptors);
+        }
+        for (Mat part : descriptorParts) {
+            part.release();
+        }
+
+        MatOfKeyPoint result = new MatOfKeyPoint();
+        result.fromList(keyPoints);
+        return result;
+    }
+
+    /**
+     * Detects keypoints in one tile and returns those inside the tile core in image coordinates,
+     * with their descriptor rows when the detector describes them in the same pass.
+     */
+    private TileDescriptors detectTile(Mat image, Rect tile, Rect core, Feature2D detector, boolean describe) {
+        Mat tileImage = image.submat(tile);
+        MatOfKeyPoint tileKeyPoints = new MatOfKeyPoint();
+        Mat tileDescriptors = new Mat();
+        if (describe) {
+            detector.detectAndCompute(tileImage, new Mat(), tileKeyPoints, tileDescriptors);
+        } else {
+            detector.detect(tileImage, tileKeyPoints);
+        }
+        KeyPoint[] all = tileKeyPoints.toArray();
+        tileKeyPoints.release();
+        tileImage.release();
+
+        List<KeyPoint> owned = new ArrayList<>(all.length);
+        int[] ownedRows = new int[all.length];
+        for (int row = 0; row < all.length; row++) {
+            KeyPoint kp = all[row];
+            kp.pt.x += tile.x;
+            kp.pt.y += tile.y;
+            if (kp.pt.x >= core.x && kp.pt.x < core.x + core.width
+                    && kp.pt.y >= core.y && kp.pt.y < core.y + core.height) {
+                ownedRows[owned.size()] = row;
+                owned.add(kp);
+            }
+        }
+
+        Mat ownedDescriptors = new Mat();
+        if (describe) {
+            OpenCVRenderer.copyDescriptorRows(tileDescriptors, Arrays.copyOf(ownedRows, owned.size()), ownedDescriptors);
+        }
+        tileDescriptors.release();
+        return new TileDescriptors(owned.toArray(new KeyPoint[0]), ownedDescriptors);
+    }
+
+    /**
+     * Keeps the given keypoints of a tile and their rows of the descriptors computed during detection.
+     */
+    private static TileDescriptors keepRows(TileDescriptors detected, List<KeyPoint> keyPoints, List<Integer> rows) {
+        int[] rowIndices = new int[rows.size()];
+        for (int i = 0; i < rowIndices.length; i++) {
+            rowIndices[i] = rows.get(i);
+        }
+        Mat descriptors = new Mat();
+        OpenCVRenderer.copyDescriptorRows(detected.descriptors, rowIndices, descriptors);
+        detected.descriptors.release();
+        return new TileDescriptors(keyPoints.toArray(new KeyPoint[0]), descriptors);
+    }
+
+    /**
+     * Computes descriptors for the given keypoints of one tile.
+     */
+    private TileDescriptors computeTile(Mat image, Rect tile, List<KeyPoint> keyPoints, Feature2D extractor) {
+        Mat descriptors = new Mat();
+        if (keyPoints.isEmpty()) {
+            return new TileDescriptors(new KeyPoint[0], descriptors);
+        }
+
+        // Convert to tile coordinates
+        KeyPoint[] local = new KeyPoint[keyPoints.size()];
+        for (int i = 0; i < local.length; i++) {
+            KeyPoint kp = keyPoints.get(i);
+            local[i] = new KeyPoint((float) (kp.pt.x - tile.x), (float) (kp.pt.y - tile.y),
+                    kp.size, kp.angle, kp.response, kp.octave, kp.class_id);
+        }
+
+        Mat tileImage = image.submat(tile);
+        MatOfKeyPoint tileKeyPoints = new MatOfKeyPoint(local);
+        extractor.compute(tileImage, tileKeyPoints, descriptors);
+
+        // The extractor may drop keypoints too close to the tile border
+        KeyPoint[] described = tileKeyPoints.toArray();
+        for (KeyPoint kp : described) {
+            kp.pt.x += tile.x;
+            kp.pt.y += tile.y;
+        }
+        tileKeyPoints.release();
+        tileImage.release();
+        return new TileDescriptors(described, descriptors);
+    }
+
+    /**
+     * Marks keypoints that duplicate a stronger keypoint of a neighbouring tile near a shared border.
+     *
+     * @return Flags of the keypoints to keep.
+     */
+    private boolean[] suppressBorderDuplicates(List<KeyPoint> keyPoints, List<Integer> owners, Rect[] cores) {
+        int count = keyPoints.size();
+        boolean[] keep = new boolean[count];
+        List<Integer> band = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            keep[i] = true;
+            if (isNearInternalBorder(keyPoints.get(i), cores[owners.get(i)], cores)) {
+                band.add(i);
+            }
+        }
+
+        float radiusSquared = duplicateRadius * duplicateRadius;
+        for (int a = 0; a < band.size(); a++) {
+            int i = band.get(a);
+            for (int b = a + 1; b < band.size(); b++) {
+                int j = band.get(b);
+                if (owners.get(i).equals(owners.get(j)) || !keep[i] || !keep[j]) {
+                    continue;
+                }
+                KeyPoint p = keyPoints.get(i);
+                KeyPoint q = keyPoints.get(j);
+                double dx = p.pt.x - q.pt.x;
+                double dy = p.pt.y - q.pt.y;
+                if (dx * dx + dy * dy < radiusSquared) {
+                    if (p.response >= q.response) {
+                        keep[j] = false;
+                    } else {
+                        keep[i] = false;
+                    }
+                }
+            }
+        }
+        return keep;
+    }
+
+    /**
+     * Checks whether a keypoint lies within the duplicate radius of a border shared with another tile.
+     */
+    private boolean isNearInternalBorder(KeyPoint kp, Rect core, Rect[] cores) {
+        int width = cores[cores.length - 1].x + cores[cores.length - 1].width;
+        int height = cores[cores.length - 1].y + cores[cores.length - 1].height;
+        double x = kp.pt.x;
+        double y = kp.pt.y;
+        return (core.x > 0 && x - core.x < duplicateRadius)
+                || (core.x + core.width < width && core.x + core.width - x < duplicateRadius)
+                || (core.y > 0 && y - core.y < duplicateRadius)
+                || (core.y + core.height < height && core.y + core.height - y < duplicateRadius);
+    }
+
+    /**
+     * Runs the tasks on the worker pool and returns their results in task order.
+     */
+    private <T> List<T> invokeAll(List<Callable<T>> tasks) {
+        List<T> results = new ArrayList<>(tasks.size());
+        try {
+            for (Future<T> future : executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Tiled detection interrupted", e);
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Tiled detection failed: " + e.getCause());
+            throw new IllegalStateException("Tiled detection failed", e.getCause());
+        }
+        return results;
+    }
+
+    /**
+     * Shuts down the worker pool.
+     */
+    public void release() {
+        executor.shutdown();
+    }
+
+    /**
+     * Keypoints and descriptors computed for one tile.
+     */
+    private static class TileDescriptors {
+        final KeyPoint[] keyPoints;
+        final Mat descriptors;
+
+        TileDescriptors(KeyPoint[] keyPoints, Mat descriptors) {
+            this.keyPoints = keyPoints;
+            this.descriptors = descriptors;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.myapplication;
+
+/**
+ * The {@code ViewGeometry} class holds the depth of a rendered CAD view together with the inverse of the
+ * model-view-projection matrix it was rendered with, so image points of the view can be lifted back to
+ * 3D model coordinates. All views share the model coordinate frame of the OBJ file, which lets matches
+ * from different views be combined into one set of 2D-3D correspondences.
+ */
+public class ViewGeometry {
+
+    /** Depth value of pixels not covered by the model. */
+    public static final int NO_DEPTH = 0xFFFF;
+
+    private final int width;
+    private final int height;
+
+    // Window depth in [0, 1] quantised to 16 bits, in OpenCV row order (top row first)
+    private final short[] depth;
+
+    // Column-major inverse model-view-projection matrix, as used by android.opengl.Matrix
+    private final float[] inverseMvp;
+
+    /**
+     * Constructs a new {@code ViewGeometry}.
+     *
+     * @param width      Width of the rendered view in pixels.
+     * @param height     Height of the rendered view in pixels.
+     * @param depth      16-bit window depth per pixel in OpenCV row order, {@link #NO_DEPTH} for the background.
+     * @param inverseMvp Column-major inverse of the model-view-projection matrix of the view.
+     */
+    public ViewGeometry(int width, int height, short[] depth, float[] inverseMvp) {
+        if (depth.length != width * height || inverseMvp.length != 16) {
+            throw new IllegalArgumentException("Depth must have width * height entries and the matrix 16");
+        }
+        this.width = width;
+        this.height = height;
+        this.depth = depth;
+        this.inverseMvp = inverseMvp.clone();
+    }
+
+    /**
+     * Lifts an image point of the view to model coordinates. When the nearest pixel is background, the
+     * closest surface in its 3x3 neighbourhood is used, so keypoints on the silhouette still get a depth.
+     *
+     * @param x   Column of the point in OpenCV image coordinates.
+     * @param y   Row of the point in OpenCV image coordinates.
+     * @param out Receives the model coordinates (x, y, z).
+     * @return {@code true} if the point lies on the model, {@code false} if it lies on the background.
+     */
+    public boolean unproject(float x, float y, float[] out) {
+        int column = Math.round(x);
+        int row = Math.round(y);
+        int value = depthAt(column, row);
+
+        // Take the nearest surface around silhouette pixels
+        if (value == NO_DEPTH) {
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    value = Math.min(value, depthAt(column + dx, row + dy));
+                }
+            }
+            if (value == NO_DEPTH) {
+                return false;
+            }
+        }
+
+        // Normalised device coordinates; OpenCV rows run top-down while window rows run bottom-up
+        float ndcX = (x + 0.5f) / width * 2.0f - 1.0f;
+        float ndcY = 1.0f - (y + 0.5f) / height * 2.0f;
+        float ndcZ = value / (float) (NO_DEPTH - 1) * 2.0f - 1.0f;
+
+        float[] m = inverseMvp;
+        float w = m[3] * ndcX + m[7] * ndcY + m[11] * ndcZ + m[15];
+        out[0] = (m[0] * ndcX + m[4] * ndcY + m[8] * ndcZ + m[12]) / w;
+        out[1] = (m[1] * ndcX + m[5] * ndcY + m[9] * ndcZ + m[13]) / w;
+        out[2] = (m[2] * ndcX + m[6] * ndcY + m[10] * ndcZ + m[14]) / w;
+        return true;
+    }
+
+    private int depthAt(int column, int row) {
+        if (column < 0 || row < 0 || column >= width || row >= height) {
+            return NO_DEPTH;
+        }
+        return depth[row * width + column] & 0xFFFF;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
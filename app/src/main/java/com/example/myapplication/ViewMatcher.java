@@ -0,0 +1,284 @@
+package com.example.myapplication;
+
+import android.util.Log;
+
+import org.opencv.core.DMatch;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfKeyPoint;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@code ViewMatcher} class matches camera features against every CAD view and verifies
+ * each view with RANSAC. Matching is a single query over the merged database; the per-view
+ * RANSAC checks are independent, so they run concurrently on a fixed pool of worker threads
+ * and the per-view results are returned in view order. With a {@link PoseVerifier} set, the
+ * matches of all views are instead pooled and verified with one camera pose.
+ */
+public class ViewMatcher {
+
+    private static final String TAG = "ViewMatcher";
+
+    private final OpenCVRenderer openCVRenderer;
+    private final ExecutorService executor;
+
+    // Matches of the current frame against the database
+    private final MatchBuffer matchBuffer = new MatchBuffer();
+
+    // Pooled 2D-3D verification replacing the per-view homographies, or null
+    private PoseVerifier poseVerifier;
+    private PoseVerifier.Result lastPose;
+
+    /**
+     * Matching and verification result for one CAD view.
+     */
+    public static class ViewResult {
+        /** Index of the view in the CAD descriptor database. */
+        public final int viewIndex;
+        /** Number of matches passing the ratio test. */
+        public final int matchCount;
+        /** Matches passing the ratio test, with the view keypoint as {@code queryIdx} and the camera keypoint as {@code trainIdx}. */
+        public final List<DMatch> matches;
+        /** Matches passing RANSAC; empty when the view had fewer than 4 matches or no pose was found. */
+        public final List<DMatch> inliers;
+
+        ViewResult(int viewIndex, List<DMatch> matches, List<DMatch> inliers) {
+            this.viewIndex = viewIndex;
+            this.matchCount = matches.size();
+            this.matches = matches;
+            this.inliers = inliers;
+        }
+    }
+
+    /**
+     * Constructs a new {@code ViewMatcher}.
+     *
+     * @param openCVRenderer The renderer providing matching and RANSAC filtering.
+     * @param threadCount    Number of worker threads; 1 or less matches on the calling thread.
+     */
+    public ViewMatcher(OpenCVRenderer openCVRenderer, int threadCount) {
+        this.openCVRenderer = openCVRenderer;
+        if (threadCount > 1) {
+            AtomicInteger threadIndex = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(threadCount, runnable -> {
+                Thread thread = new Thread(runnable, TAG + "-" + threadIndex.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.executor = null;
+        }
+    }
+
+    /**
+     * Switches between per-view homography verification and pooled pose verification.
+     *
+     * @param verifier The pose verifier, or {@code null} to verify each view with a homography.
+     */
+    public void setPoseVerifier(PoseVerifier verifier) {
+        this.poseVerifier = verifier;
+        this.lastPose = null;
+    }
+
+    /**
+     * Returns the pose estimated by the last pose verification.
+     *
+     * @return The pose, or {@code null} if none was found or pose verification is not used.
+     */
+    public PoseVerifier.Result getLastPose() {
+        return lastPose;
+    }
+
+    /**
+     * Matches the camera features against the merged CAD database with a single query, groups the
+     * matches by view and filters each view with RANSAC.
+     *
+     * @param database            The CAD descriptor database.
+     * @param detectedKeypoints   Keypoints of the camera image.
+     * @param detectedDescriptors Descriptors of the camera image.
+     * @return One result per view with at least 4 matches, in view order.
+     */
+    public List<ViewResult> match(DescriptorDatabase database, MatOfKeyPoint detectedKeypoints, Mat detectedDescriptors) {
+        return match(database, detectedKeypoints, detectedDescriptors, 0);
+    }
+
+    /**
+     * Matches the camera features against the CAD views ranked highest by the database vocabulary,
+     * groups the matches by view and filters each view with RANSAC.
+     *
+     * @param database            The CAD descriptor database.
+     * @param detectedKeypoints   Keypoints of the camera image.
+     * @param detectedDescriptors Descriptors of the camera image.
+     * @param maxViews            Number of retrieved views to match, or 0 to match all views.
+     *                            Ignored when the database has no vocabulary.
+     * @return One result per matched view with at least 4 matches, in view order.
+     */
+    public List<ViewResult> match(DescriptorDatabase database, MatOfKeyPoint detectedKeypoints, Mat detectedDescriptors,
+                                  int maxViews) {
+        return match(database, detectedKeypoints, detectedDescriptors, maxViews, null);
+    }
+
+    /**
+     * Matches the camera features against the CAD views ranked highest by the database vocabulary and
+     * verifies them with one pooled camera pose when a {@link PoseVerifier} is set and the intrinsics are
+     * known, or with RANSAC per view otherwise.
+     *
+     * @param database            The CAD descriptor database.
+     * @param detectedKeypoints   Keypoints of the camera image.
+     * @param detectedDescriptors Descriptors of the camera image.
+     * @param maxViews            Number of retrieved views to match, or 0 to match all views.
+     *                            Ignored when the database has no vocabulary.
+     * @param intrinsics          Camera intrinsics (fx, fy, cx, cy) of the camera image, or {@code null} if unknown.
+     * @return One result per matched view, in view order.
+     */
+    public List<ViewResult> match(DescriptorDatabase database, MatOfKeyPoint detectedKeypoints, Mat detectedDescriptors,
+                                  int maxViews, float[] intrinsics) {
+        lastPose = null;
+        LshIndex index = database.getIndex();
+        VocabularyTree vocabulary = database.getVocabulary();
+        boolean retrieve = vocabulary != null && maxViews > 0 && maxViews < database.getViewCount();
+        BinaryDescriptors detectedBinary = index != null || retrieve ? BinaryDescriptors.fromMat(detectedDescriptors) : null;
+
+        // Rank the views by bag-of-words similarity and keep the best ones
+        int[] views = null;
+        if (retrieve) {
+            long startTime = System.nanoTime();
+            views = vocabulary.topViews(detectedBinary, maxViews);
+            Log.d(TAG, "Retrieved " + views.length + " of " + database.getViewCount() + " views in "
+                    + (System.nanoTime() - startTime) / 1000 + " us");
+        }
+
+        // One 2-NN query over the candidate views, so the ratio test also rejects matches ambiguous between views
+        List<List<DMatch>> viewMatches;
+        if (index != null) {
+            viewMatches = database.groupByView(openCVRenderer.matchCameraFeatures(index, detectedBinary));
+            if (views != null) {
+                keepViews(viewMatches, views);
+            }
+        } else if (views != null) {
+            int[] rowMap = new int[database.getDescriptors().rows()];
+            Mat candidateDescriptors = database.copyViews(views, rowMap);
+            openCVRenderer.matchFeatures(detectedDescriptors, candidateDescriptors, matchBuffer);
+            viewMatches = database.groupByView(matchBuffer, rowMap);
+            candidateDescriptors.release();
+        } else {
+            openCVRenderer.matchFeatures(detectedDescriptors, database.getDescriptors(), matchBuffer);
+            viewMatches = database.groupByView(matchBuffer, null);
+        }
+
+        if (poseVerifier != null && intrinsics != null) {
+            return verifyPose(viewMatches, database, detectedKeypoints, intrinsics);
+        }
+
+        List<ViewResult> results = new ArrayList<>(viewMatches.size());
+        if (executor == null) {
+            for (int i = 0; i < viewMatches.size(); i++) {
+                addResult(results, verifyView(i, viewMatches.get(i), database.getViewKeypoints(i), detectedKeypoints));
+            }
+            return results;
+        }
+
+        List<Callable<ViewResult>> tasks = new ArrayList<>(viewMatches.size());
+        for (int i = 0; i < viewMatches.size(); i++) {
+            final int viewIndex = i;
+            tasks.add(() -> verifyView(viewIndex, viewMatches.get(viewIndex), database.getViewKeypoints(viewIndex),
+                    detectedKeypoints));
+        }
+
+        try {
+            for (Future<ViewResult> future : executor.invokeAll(tasks)) {
+                addResult(results, future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("View matching interrupted", e);
+        } catch (ExecutionException e) {
+            Log.e(TAG, "View matching failed: " + e.getCause());
+            throw new IllegalStateException("View matching failed", e.getCause());
+        }
+        return results;
+    }
+
+    /**
+     * Verifies the pooled matches of all views with one camera pose and splits the inliers by view.
+     */
+    private List<ViewResult> verifyPose(List<List<DMatch>> viewMatches, DescriptorDatabase database,
+                                        MatOfKeyPoint detectedKeypoints, float[] intrinsics) {
+        long startTime = System.nanoTime();
+        lastPose = poseVerifier.verify(viewMatches, database, detectedKeypoints, intrinsics);
+        Log.d(TAG, "Pose verification in " + (System.nanoTime() - startTime) / 1000 + " us");
+
+        List<ViewResult> results = new ArrayList<>(viewMatches.size());
+        for (int view = 0; view < viewMatches.size(); view++) {
+            List<DMatch> matches = viewMatches.get(view);
+            if (!matches.isEmpty()) {
+                List<DMatch> inliers = lastPose != null ? lastPose.viewInliers.get(view) : Collections.<DMatch>emptyList();
+                results.add(new ViewResult(view, Collections.unmodifiableList(matches), inliers));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Clears the matches of every view that was not retrieved.
+     */
+    private static void keepViews(List<List<DMatch>> viewMatches, int[] views) {
+        boolean[] kept = new boolean[viewMatches.size()];
+        for (int view : views) {
+            kept[view] = true;
+        }
+        for (int view = 0; view < kept.length; view++) {
+            if (!kept[view]) {
+                viewMatches.get(view).clear();
+            }
+        }
+    }
+
+    private static void addResult(List<ViewResult> results, ViewResult result) {
+        if (result != null) {
+            results.add(result);
+        }
+    }
+
+    /**
+     * Verifies the matches of a single view with RANSAC; runs on a worker thread.
+     */
+    private ViewResult verifyView(int viewIndex, List<DMatch> matches, MatOfKeyPoint cadKeypoints,
+                                  MatOfKeyPoint detectedKeypoints) {
+        if (matches.isEmpty()) {
+            // Not retrieved, or no feature of the frame matched this view
+            return null;
+        }
+
+        Log.d(TAG, "Number of matches between CAD index " + viewIndex + " and detected features: " + matches.size());
+
+        if (matches.size() < 4) {
+            Log.w(TAG, "Not enough matches to compute homography for CAD index " + viewIndex + ". Matches found: " + matches.size());
+            return null;
+        }
+
+        // Filter matches with RANSAC
+        List<DMatch> inliers = openCVRenderer.filterMatchesWithRANSAC(matches, cadKeypoints, detectedKeypoints);
+
+        Log.d(TAG, "Number of inlier matches after RANSAC for CAD index " + viewIndex + ": " + inliers.size());
+
+        return new ViewResult(viewIndex, Collections.unmodifiableList(matches), Collections.unmodifiableList(inliers));
+    }
+
+    /**
+     * Shuts down the worker pool.
+     */
+    public void release() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
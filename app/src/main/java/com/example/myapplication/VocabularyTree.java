@@ -0,0 +1,398 @@
+package com.example.myapplication;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The {@code VocabularyTree} class is a bag-of-binary-words model for ranking CAD views against a
+ * camera frame. Binary descriptors are clustered hierarchically with k-majority clustering (k-means
+ * with Hamming distance and bitwise majority centres); the leaves are visual words. Each view is
+ * described by a TF-IDF weighted, L1-normalised word vector stored in an inverted file, and a frame
+ * is scored against all views with the L1 similarity {@code 1 - |q - v| / 2}.
+ * <p>
+ * Queries reuse internal buffers and must be issued from one thread at a time.
+ */
+public class VocabularyTree {
+
+    private final int branching;
+    private final int depth;
+    private final int iterations;
+    private final long seed;
+
+    private int wordsPerRow;
+    private int bitsPerRow;
+
+    // Tree nodes: packed centres, contiguous children and the word id of leaves (-1 for inner nodes)
+    private long[] centers = new long[0];
+    private int[] childStart = new int[0];
+    private int[] childCount = new int[0];
+    private int[] nodeWords = new int[0];
+    private int nodeCount;
+    private int wordCount;
+
+    private int viewCount;
+    private float[] idf = new float[0];
+
+    // Inverted file: views containing each word with their normalised weights
+    private int[] invertedStart = new int[0];
+    private int[] invertedViews = new int[0];
+    private float[] invertedWeights = new float[0];
+
+    // Query buffers
+    private int[] queryCounts = new int[0];
+    private int[] touchedWords = new int[0];
+    private float[] scores = new float[0];
+
+    /**
+     * Constructs a new {@code VocabularyTree}.
+     *
+     * @param branching  Number of children per node.
+     * @param depth      Number of levels below the root; the tree has at most {@code branching^depth} words.
+     * @param iterations Maximum k-majority iterations per node.
+     * @param seed       Seed for centre initialisation, so training is reproducible.
+     */
+    public VocabularyTree(int branching, int depth, int iterations, long seed) {
+        if (branching < 2 || depth < 1) {
+            throw new IllegalArgumentException("Invalid vocabulary tree: branching=" + branching + ", depth=" + depth);
+        }
+        this.branching = branching;
+        this.depth = depth;
+        this.iterations = iterations;
+        this.seed = seed;
+    }
+
+    /**
+     * Constructs a {@code VocabularyTree} with branching 10 and depth 3 (up to 1000 words).
+     */
+    public VocabularyTree() {
+        this(10, 3, 10, 0x5eedL);
+    }
+
+    /**
+     * Trains the vocabulary on the database descriptors and builds the weighted view vectors.
+     *
+     * @param descriptors The database descriptors.
+     * @param rowViews    View index of every descriptor row.
+     * @param viewCount   Number of views.
+     */
+    public void train(BinaryDescriptors descriptors, int[] rowViews, int viewCount) {
+        int rows = descriptors.getRows();
+        this.viewCount = viewCount;
+        this.wordsPerRow = descriptors.getWordsPerRow();
+        this.bitsPerRow = descriptors.getBytesPerRow() * 8;
+
+        // Upper bound on the node count of a full tree
+        int maxNodes = 1;
+        for (int level = 0, width = 1; level < depth; level++) {
+            width *= branching;
+            maxNodes += width;
+        }
+        centers = new long[maxNodes * wordsPerRow];
+        childStart = new int[maxNodes];
+        childCount = new int[maxNodes];
+        nodeWords = new int[maxNodes];
+        nodeCount = 1;
+        wordCount = 0;
+
+        int[] order = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            order[i] = i;
+        }
+        buildNode(0, descriptors, order, 0, rows, 0, new Random(seed), new int[rows]);
+
+        buildInvertedFile(descriptors, rowViews);
+
+        queryCounts = new int[wordCount];
+        touchedWords = new int[wordCount];
+        scores = new float[viewCount];
+    }
+
+    /**
+     * Clusters the rows {@code order[from, to)} below {@code node} and recurses into the clusters.
+     */
+    private void buildNode(int node, BinaryDescriptors descriptors, int[] order, int from, int to, int level,
+                           Random random, int[] assignment) {
+        int count = to - from;
+        if (level == depth || count <= branching) {
+            nodeWords[node] = wordCount++;
+            childCount[node] = 0;
+            return;
+        }
+        nodeWords[node] = -1;
+
+        long[] words = descriptors.getWords();
+        long[] clusterCenters = new long[branching * wordsPerRow];
+
+        // Initialise the centres with distinct random rows of this node
+        for (int c = 0; c < branching; c++) {
+            int pick = from + c + random.nextInt(count - c);
+            int swap = order[from + c];
+            order[from + c] = order[pick];
+            order[pick] = swap;
+            System.arraycopy(words, order[from + c] * wordsPerRow, clusterCenters, c * wordsPerRow, wordsPerRow);
+        }
+
+        int[] clusterSizes = new int[branching];
+        int[] bitVotes = new int[branching * bitsPerRow];
+        Arrays.fill(assignment, from, to, -1);
+        for (int iteration = 0; iteration < Math.max(1, iterations); iteration++) {
+            // Assign every row to its nearest centre
+            boolean changed = false;
+            for (int i = from; i < to; i++) {
+                int nearest = nearest(words, order[i] * wordsPerRow, clusterCenters, 0, branching);
+                if (assignment[i] != nearest) {
+                    assignment[i] = nearest;
+                    changed = true;
+                }
+            }
+            if (!changed) {
+                break;
+            }
+
+            // Move every centre to the bitwise majority of its rows
+            Arrays.fill(clusterSizes, 0);
+            Arrays.fill(bitVotes, 0);
+            for (int i = from; i < to; i++) {
+                int c = assignment[i];
+                clusterSizes[c]++;
+                int rowStart = order[i] * wordsPerRow;
+                for (int bit = 0; bit < bitsPerRow; bit++) {
+                    bitVotes[c * bitsPerRow + bit] += (int) (words[rowStart + (bit >>> 6)] >>> (bit & 63)) & 1;
+                }
+            }
+            for (int c = 0; c < branching; c++) {
+                if (clusterSizes[c] == 0) {
+                    continue;
+                }
+                Arrays.fill(clusterCenters, c * wordsPerRow, (c + 1) * wordsPerRow, 0L);
+                for (int bit = 0; bit < bitsPerRow; bit++) {
+                    if (2 * bitVotes[c * bitsPerRow + bit] > clusterSizes[c]) {
+                        clusterCenters[c * wordsPerRow + (bit >>> 6)] |= 1L << (bit & 63);
+                    }
+                }
+            }
+        }
+
+        // Partition the rows by cluster with a counting sort
+        int[] clusterStarts = new int[branching + 1];
+        for (int i = from; i < to; i++) {
+            clusterStarts[assignment[i] + 1]++;
+        }
+        for (int c = 0; c < branching; c++) {
+            clusterStarts[c + 1] += clusterStarts[c];
+        }
+        int[] sorted = new int[count];
+        int[] fill = Arrays.copyOf(clusterStarts, branching);
+        for (int i = from; i < to; i++) {
+            sorted[fill[assignment[i]]++] = order[i];
+        }
+        System.arraycopy(sorted, 0, order, from, count);
+
+        // Create one child per non-empty cluster, contiguously, then recurse
+        int firstChild = nodeCount;
+        int children = 0;
+        for (int c = 0; c < branching; c++) {
+            if (clusterStarts[c + 1] > clusterStarts[c]) {
+                System.arraycopy(clusterCenters, c * wordsPerRow, centers, (firstChild + children) * wordsPerRow, wordsPerRow);
+                children++;
+            }
+        }
+        nodeCount += children;
+        childStart[node] = firstChild;
+        childCount[node] = children;
+
+        int child = firstChild;
+        for (int c = 0; c < branching; c++) {
+            if (clusterStarts[c + 1] > clusterStarts[c]) {
+                buildNode(child++, descriptors, order, from + clusterStarts[c], from + clusterStarts[c + 1],
+                        level + 1, random, assignment);
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the centre nearest to a packed row among {@code centerCount} centres.
+     */
+    private int nearest(long[] words, int rowStart, long[] centerWords, int firstCenter, int centerCount) {
+        int best = 0;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int c = 0; c < centerCount; c++) {
+            int centerStart = (firstCenter + c) * wordsPerRow;
+            int distance = 0;
+            for (int w = 0; w < wordsPerRow; w++) {
+                distance += Long.bitCount(words[rowStart + w] ^ centerWords[centerStart + w]);
+            }
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the visual word of a descriptor by descending the tree.
+     *
+     * @param descriptors The descriptor set.
+     * @param row         The descriptor row.
+     * @return The word id.
+     */
+    public int quantize(BinaryDescriptors descriptors, int row) {
+        long[] words = descriptors.getWords();
+        int rowStart = row * wordsPerRow;
+        int node = 0;
+        while (nodeWords[node] < 0) {
+            node = childStart[node] + nearest(words, rowStart, centers, childStart[node], childCount[node]);
+        }
+        return nodeWords[node];
+    }
+
+    /**
+     * Computes the inverse document frequencies and the normalised view vectors.
+     */
+    private void buildInvertedFile(BinaryDescriptors descriptors, int[] rowViews) {
+        int rows = descriptors.getRows();
+
+        // Sort (word, view) keys so equal pairs are adjacent
+        long[] keys = new long[rows];
+        for (int row = 0; row < rows; row++) {
+            keys[row] = (long) quantize(descriptors, row) * viewCount + rowViews[row];
+        }
+        Arrays.sort(keys);
+
+        int[] viewDescriptorCounts = new int[viewCount];
+        for (int row = 0; row < rows; row++) {
+            viewDescriptorCounts[rowViews[row]]++;
+        }
+
+        // One inverted entry per distinct (word, view) pair with its term frequency
+        invertedStart = new int[wordCount + 1];
+        int[] entryViews = new int[rows];
+        float[] entryWeights = new float[rows];
+        int entries = 0;
+        for (int i = 0; i < rows; ) {
+            int j = i;
+            while (j < rows && keys[j] == keys[i]) {
+                j++;
+            }
+            int word = (int) (keys[i] / viewCount);
+            int view = (int) (keys[i] % viewCount);
+            invertedStart[word + 1]++;
+            entryViews[entries] = view;
+            entryWeights[entries] = (float) (j - i) / viewDescriptorCounts[view];
+            entries++;
+            i = j;
+        }
+        for (int w = 0; w < wordCount; w++) {
+            invertedStart[w + 1] += invertedStart[w];
+        }
+        invertedViews = Arrays.copyOf(entryViews, entries);
+        invertedWeights = Arrays.copyOf(entryWeights, entries);
+
+        // Weight by inverse document frequency and L1-normalise each view vector
+        idf = new float[wordCount];
+        float[] viewNorms = new float[viewCount];
+        for (int w = 0; w < wordCount; w++) {
+            int documents = invertedStart[w + 1] - invertedStart[w];
+            idf[w] = documents > 0 ? (float) Math.log((double) viewCount / documents) : 0.0f;
+            for (int e = invertedStart[w]; e < invertedStart[w + 1]; e++) {
+                invertedWeights[e] *= idf[w];
+                viewNorms[invertedViews[e]] += invertedWeights[e];
+            }
+        }
+        for (int e = 0; e < entries; e++) {
+            float norm = viewNorms[invertedViews[e]];
+            invertedWeights[e] = norm > 0.0f ? invertedWeights[e] / norm : 0.0f;
+        }
+    }
+
+    /**
+     * Scores every view against a set of query descriptors.
+     *
+     * @param queries The camera descriptors.
+     * @return The L1 similarity of each view in {@code [0, 1]}; the array is reused by later queries.
+     */
+    public float[] score(BinaryDescriptors queries) {
+        Arrays.fill(scores, 0.0f);
+        int queryRows = queries.getRows();
+        if (queryRows == 0 || wordCount == 0) {
+            return scores;
+        }
+
+        // Word histogram of the query
+        int touched = 0;
+        for (int q = 0; q < queryRows; q++) {
+            int word = quantize(queries, q);
+            if (queryCounts[word]++ == 0) {
+                touchedWords[touched++] = word;
+            }
+        }
+
+        float norm = 0.0f;
+        for (int t = 0; t < touched; t++) {
+            int word = touchedWords[t];
+            norm += (float) queryCounts[word] / queryRows * idf[word];
+        }
+
+        // L1 score through the inverted file: only words present in both vectors contribute
+        for (int t = 0; t < touched; t++) {
+            int word = touchedWords[t];
+            float weight = norm > 0.0f ? (float) queryCounts[word] / queryRows * idf[word] / norm : 0.0f;
+            queryCounts[word] = 0;
+            if (weight == 0.0f) {
+                continue;
+            }
+            for (int e = invertedStart[word]; e < invertedStart[word + 1]; e++) {
+                float viewWeight = invertedWeights[e];
+                scores[invertedViews[e]] += weight + viewWeight - Math.abs(weight - viewWeight);
+            }
+        }
+        for (int v = 0; v < viewCount; v++) {
+            scores[v] *= 0.5f;
+        }
+        return scores;
+    }
+
+    /**
+     * Returns the views with the highest scores for a set of query descriptors.
+     *
+     * @param queries The camera descriptors.
+     * @param k       Maximum number of views to return.
+     * @return View indices ordered by decreasing score; ties keep the lower view index first.
+     */
+    public int[] topViews(BinaryDescriptors queries, int k) {
+        float[] viewScores = score(queries);
+        int count = Math.min(k, viewCount);
+        int[] top = new int[count];
+        for (int i = 0; i < count; i++) {
+            top[i] = -1;
+        }
+
+        // Insertion into a short sorted list; K is small compared to the view count
+        for (int v = 0; v < viewCount; v++) {
+            int position = count;
+            while (position > 0 && (top[position - 1] < 0 || viewScores[v] > viewScores[top[position - 1]])) {
+                position--;
+            }
+            if (position < count) {
+                System.arraycopy(top, position, top, position + 1, count - position - 1);
+                top[position] = v;
+            }
+        }
+        return top;
+    }
+
+    /**
+     * Returns the number of visual words.
+     *
+     * @return The word count, 0 before training.
+     */
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    @Override
+    public String toString() {
+        return "VocabularyTree(branching=" + branching + ", depth=" + depth + ", words=" + wordCount + ")";
+    }
+}
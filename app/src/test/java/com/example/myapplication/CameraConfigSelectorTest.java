@@ -0,0 +1,60 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link CameraConfigSelector}.
+ */
+public class CameraConfigSelectorTest {
+
+    private static final List<CameraConfigSelector.Candidate> CANDIDATES = Arrays.asList(
+            new CameraConfigSelector.Candidate(1920, 1080, 30),
+            new CameraConfigSelector.Candidate(640, 480, 30),
+            new CameraConfigSelector.Candidate(1280, 720, 60),
+            new CameraConfigSelector.Candidate(640, 480, 60),
+            new CameraConfigSelector.Candidate(1280, 720, 30));
+
+    @Test
+    public void lowerResolutionPicksSmallestThenFastest() {
+        CameraConfigSelector selector = new CameraConfigSelector(100.0, 50.0, CameraConfigSelector.Preference.LOWER_RESOLUTION);
+
+        assertEquals(3, selector.select(CANDIDATES));
+    }
+
+    @Test
+    public void higherFpsPicksLargestFittingFastConfig() {
+        // 0.92 MP at 50 ms/MP fits a 50 ms budget, 2.07 MP does not
+        CameraConfigSelector selector = new CameraConfigSelector(50.0, 50.0, CameraConfigSelector.Preference.HIGHER_FPS);
+
+        assertEquals(2, selector.select(CANDIDATES));
+    }
+
+    @Test
+    public void tightBudgetExcludesLargeImages() {
+        // Only 0.31 MP fits a 20 ms budget at 50 ms/MP
+        CameraConfigSelector selector = new CameraConfigSelector(20.0, 50.0, CameraConfigSelector.Preference.HIGHER_FPS);
+
+        assertEquals(3, selector.select(CANDIDATES));
+    }
+
+    @Test
+    public void fallsBackToCheapestWhenNothingFits() {
+        CameraConfigSelector selector = new CameraConfigSelector(1.0, 50.0, CameraConfigSelector.Preference.HIGHER_FPS);
+
+        assertEquals(3, selector.select(CANDIDATES));
+        assertEquals(15.36, selector.estimateDetectionMs(CANDIDATES.get(1)), 1e-9);
+    }
+
+    @Test
+    public void emptyCandidates() {
+        CameraConfigSelector selector = new CameraConfigSelector(25.0, 50.0, CameraConfigSelector.Preference.LOWER_RESOLUTION);
+
+        assertEquals(-1, selector.select(Collections.emptyList()));
+    }
+}
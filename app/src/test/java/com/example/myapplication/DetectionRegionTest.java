@@ -0,0 +1,91 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+import org.opencv.core.Rect;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link DetectionRegion}.
+ */
+public class DetectionRegionTest {
+
+    private static final float[] IDENTITY = {0, 0, 0, 1};
+    private static final float[] INTRINSICS = {500, 500, 320, 240};
+
+    @Test
+    public void expandsInlierBoxByMargin() {
+        DetectionRegion region = new DetectionRegion(0.5f, 10, 3);
+        region.update(new float[]{100, 200, 150}, new float[]{100, 200, 150}, 3, null);
+
+        Rect roi = region.nextRegion(640, 480, null, null);
+
+        assertEquals(new Rect(50, 50, 200, 200), roi);
+    }
+
+    @Test
+    public void clampsToImage() {
+        DetectionRegion region = new DetectionRegion(0.5f, 10, 3);
+        region.update(new float[]{0, 600, 300}, new float[]{0, 400, 200}, 3, null);
+
+        Rect roi = region.nextRegion(640, 480, null, null);
+
+        assertEquals(new Rect(0, 0, 640, 480), roi);
+    }
+
+    @Test
+    public void invalidWithTooFewInliers() {
+        DetectionRegion region = new DetectionRegion(0.5f, 10, 4);
+        region.update(new float[]{100, 200, 150}, new float[]{100, 200, 150}, 3, null);
+
+        assertFalse(region.isValid());
+        assertNull(region.nextRegion(640, 480, null, null));
+    }
+
+    @Test
+    public void expiresAfterMaxAge() {
+        DetectionRegion region = new DetectionRegion(0.0f, 2, 3);
+        region.update(new float[]{100, 200, 150}, new float[]{100, 200, 150}, 3, null);
+
+        assertNotNull(region.nextRegion(640, 480, null, null));
+        assertNotNull(region.nextRegion(640, 480, null, null));
+        assertNull(region.nextRegion(640, 480, null, null));
+        assertFalse(region.isValid());
+    }
+
+    @Test
+    public void identityRotationKeepsBox() {
+        DetectionRegion region = new DetectionRegion(0.0f, 10, 3);
+        region.update(new float[]{100, 200, 150}, new float[]{100, 200, 150}, 3, IDENTITY);
+
+        Rect roi = region.nextRegion(640, 480, IDENTITY, INTRINSICS);
+
+        assertEquals(new Rect(100, 100, 100, 100), roi);
+    }
+
+    @Test
+    public void yawLeftMovesBoxRight() {
+        // Rotating the camera to the left about the up axis moves scene content to the right
+        double angle = Math.toRadians(5);
+        float[] yawLeft = {0, (float) Math.sin(angle / 2), 0, (float) Math.cos(angle / 2)};
+        double[] h = DetectionRegion.rotationHomography(IDENTITY, yawLeft, INTRINSICS);
+
+        double x = (h[0] * 320 + h[1] * 240 + h[2]) / (h[6] * 320 + h[7] * 240 + h[8]);
+        double y = (h[3] * 320 + h[4] * 240 + h[5]) / (h[6] * 320 + h[7] * 240 + h[8]);
+
+        assertEquals(320 + 500 * Math.tan(angle), x, 1e-3);
+        assertEquals(240, y, 1e-3);
+    }
+
+    @Test
+    public void pitchUpMovesBoxDown() {
+        // Rotating the camera up about the right axis moves scene content down the image
+        double angle = Math.toRadians(5);
+        float[] pitchUp = {(float) Math.sin(angle / 2), 0, 0, (float) Math.cos(angle / 2)};
+        double[] h = DetectionRegion.rotationHomography(IDENTITY, pitchUp, INTRINSICS);
+
+        double y = (h[3] * 320 + h[4] * 240 + h[5]) / (h[6] * 320 + h[7] * 240 + h[8]);
+
+        assertEquals(240 + 500 * Math.tan(angle), y, 1e-3);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link FrameBudgetGovernor}, driven by synthetic frame times.
+ */
+public class FrameBudgetGovernorTest {
+
+    private static final long BUDGET = 33000000L;
+    private static final int WINDOW = 10;
+
+    private static FrameBudgetGovernor newGovernor() {
+        return new FrameBudgetGovernor(BUDGET, FrameBudgetGovernor.DEFAULT_LEVELS, WINDOW, 1.0, 0.7);
+    }
+
+    private static int runFrames(FrameBudgetGovernor governor, int frames, long frameNanos) {
+        int changes = 0;
+        for (int i = 0; i < frames; i++) {
+            if (governor.endFrame(frameNanos)) {
+                changes++;
+            }
+        }
+        return changes;
+    }
+
+    @Test
+    public void degradesOneLevelPerWindowOfOverruns() {
+        FrameBudgetGovernor governor = newGovernor();
+
+        assertEquals(0, runFrames(governor, WINDOW - 1, 50000000L));
+        assertEquals(0, governor.getLevelIndex());
+        assertTrue(governor.endFrame(50000000L));
+        assertEquals(1, governor.getLevelIndex());
+
+        // The next change needs a full window at the new level
+        assertEquals(0, runFrames(governor, WINDOW - 1, 50000000L));
+        assertEquals(1, runFrames(governor, 1, 50000000L));
+        assertEquals(2, governor.getLevelIndex());
+    }
+
+    @Test
+    public void holdsLevelBetweenThresholds() {
+        FrameBudgetGovernor governor = newGovernor();
+        runFrames(governor, WINDOW, 50000000L);
+        assertEquals(1, governor.getLevelIndex());
+
+        // Between 70% and 100% of the budget the level stays
+        assertEquals(0, runFrames(governor, 5 * WINDOW, 28000000L));
+        assertEquals(1, governor.getLevelIndex());
+    }
+
+    @Test
+    public void recoversWhenWellWithinBudget() {
+        FrameBudgetGovernor governor = newGovernor();
+        runFrames(governor, 3 * WINDOW, 50000000L);
+        assertEquals(3, governor.getLevelIndex());
+
+        assertEquals(3, runFrames(governor, 5 * WINDOW, 10000000L));
+        assertEquals(0, governor.getLevelIndex());
+    }
+
+    @Test
+    public void stopsAtCheapestLevel() {
+        FrameBudgetGovernor governor = newGovernor();
+        runFrames(governor, 20 * WINDOW, 80000000L);
+
+        assertEquals(governor.getLevelCount() - 1, governor.getLevelIndex());
+    }
+
+    @Test
+    public void ignoresOccasionalSpikes() {
+        FrameBudgetGovernor governor = newGovernor();
+        for (int i = 0; i < 10 * WINDOW; i++) {
+            assertFalse(governor.endFrame(i % WINDOW == 0 ? 200000000L : 25000000L));
+        }
+        assertEquals(0, governor.getLevelIndex());
+        assertNull(governor.getLastDecision());
+    }
+
+    @Test
+    public void recordsDecisionWithStageCosts() {
+        FrameBudgetGovernor governor = newGovernor();
+        for (int i = 0; i < WINDOW; i++) {
+            governor.recordStage(FrameBudgetGovernor.Stage.CONVERT, 4000000L);
+            governor.recordStage(FrameBudgetGovernor.Stage.DETECT, 30000000L);
+            governor.recordStage(FrameBudgetGovernor.Stage.RENDER, 6000000L);
+            governor.endFrame(40000000L);
+        }
+
+        FrameBudgetGovernor.Decision decision = governor.getLastDecision();
+        assertNotNull(decision);
+        assertEquals(WINDOW, decision.frame);
+        assertEquals(0, decision.fromLevel);
+        assertEquals(1, decision.toLevel);
+        assertEquals(40.0, decision.frameMs, 1e-9);
+        assertEquals(4.0, decision.stageMs[FrameBudgetGovernor.Stage.CONVERT.ordinal()], 1e-9);
+        assertEquals(30.0, decision.stageMs[FrameBudgetGovernor.Stage.DETECT.ordinal()], 1e-9);
+        assertEquals(0.0, decision.stageMs[FrameBudgetGovernor.Stage.MATCH.ordinal()], 1e-9);
+        assertEquals(6.0, decision.stageMs[FrameBudgetGovernor.Stage.RENDER.ordinal()], 1e-9);
+        assertEquals(1, governor.getDecisions().size());
+    }
+
+    @Test
+    public void resetReturnsToFullQuality() {
+        FrameBudgetGovernor governor = newGovernor();
+        runFrames(governor, 2 * WINDOW, 50000000L);
+        assertEquals(2, governor.getLevelIndex());
+
+        governor.reset();
+        assertEquals(0, governor.getLevelIndex());
+        assertSame(FrameBudgetGovernor.DEFAULT_LEVELS[0], governor.getLevel());
+        assertEquals(0, runFrames(governor, WINDOW - 1, 50000000L));
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link FrameQueue}.
+ */
+public class FrameQueueTest {
+
+    @Test
+    public void keepsInsertionOrder() throws InterruptedException {
+        FrameQueue<Integer> queue = new FrameQueue<>(3, FrameQueue.DropPolicy.DROP_OLDEST);
+        assertNull(queue.offer(1));
+        assertNull(queue.offer(2));
+
+        assertEquals(2, queue.size());
+        assertEquals(Integer.valueOf(1), queue.take());
+        assertNull(queue.offer(3));
+        assertNull(queue.offer(4));
+        assertEquals(Integer.valueOf(2), queue.take());
+        assertEquals(Integer.valueOf(3), queue.take());
+        assertEquals(Integer.valueOf(4), queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void dropOldestReturnsDroppedItem() throws InterruptedException {
+        FrameQueue<Integer> queue = new FrameQueue<>(2, FrameQueue.DropPolicy.DROP_OLDEST);
+        queue.offer(1);
+        queue.offer(2);
+
+        assertEquals(Integer.valueOf(1), queue.offer(3));
+        assertEquals(1, queue.getDroppedCount());
+        assertEquals(3, queue.getOfferedCount());
+        assertEquals(Integer.valueOf(2), queue.take());
+        assertEquals(Integer.valueOf(3), queue.take());
+    }
+
+    @Test
+    public void blockWaitsForSpace() throws InterruptedException {
+        FrameQueue<Integer> queue = new FrameQueue<>(1, FrameQueue.DropPolicy.BLOCK);
+        queue.offer(1);
+
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicReference<Integer> dropped = new AtomicReference<>(-1);
+        Thread producer = new Thread(() -> {
+            started.countDown();
+            try {
+                dropped.set(queue.offer(2));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        started.await();
+
+        // The producer stays blocked while the queue is full
+        producer.join(100);
+        assertTrue(producer.isAlive());
+
+        assertEquals(Integer.valueOf(1), queue.take());
+        producer.join(TimeUnit.SECONDS.toMillis(5));
+        assertFalse(producer.isAlive());
+        assertNull(dropped.get());
+        assertEquals(Integer.valueOf(2), queue.take());
+        assertEquals(0, queue.getDroppedCount());
+    }
+
+    @Test
+    public void closeRejectsOffersAndDrainsQueue() throws InterruptedException {
+        FrameQueue<Integer> queue = new FrameQueue<>(2, FrameQueue.DropPolicy.BLOCK);
+        queue.offer(1);
+        queue.close();
+
+        assertEquals(Integer.valueOf(2), queue.offer(2));
+        assertEquals(Integer.valueOf(1), queue.take());
+        assertNull(queue.take());
+        assertTrue(queue.isClosed());
+    }
+
+    @Test
+    public void closeWakesWaitingConsumer() throws InterruptedException {
+        FrameQueue<Integer> queue = new FrameQueue<>(2, FrameQueue.DropPolicy.DROP_OLDEST);
+        AtomicReference<Integer> taken = new AtomicReference<>(-1);
+        Thread consumer = new Thread(() -> {
+            try {
+                taken.set(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        consumer.start();
+
+        queue.close();
+        consumer.join(TimeUnit.SECONDS.toMillis(5));
+        assertFalse(consumer.isAlive());
+        assertNull(taken.get());
+    }
+
+    @Test
+    public void switchingToDropOldestReleasesBlockedProducer() throws InterruptedException {
+        FrameQueue<Integer> queue = new FrameQueue<>(1, FrameQueue.DropPolicy.BLOCK);
+        queue.offer(1);
+        AtomicReference<Integer> dropped = new AtomicReference<>(-1);
+        Thread producer = new Thread(() -> {
+            try {
+                dropped.set(queue.offer(2));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+
+        queue.setDropPolicy(FrameQueue.DropPolicy.DROP_OLDEST);
+        producer.join(TimeUnit.SECONDS.toMillis(5));
+        assertFalse(producer.isAlive());
+        assertEquals(Integer.valueOf(1), dropped.get());
+        assertEquals(Integer.valueOf(2), queue.take());
+    }
+
+    @Test
+    public void measuresWaitTime() throws InterruptedException {
+        FrameQueue<Integer> queue = new FrameQueue<>(2, FrameQueue.DropPolicy.DROP_OLDEST);
+        assertEquals(0, queue.getMeanWaitNanos());
+
+        queue.offer(1);
+        Thread.sleep(20);
+        queue.take();
+
+        assertTrue(queue.getMeanWaitNanos() >= TimeUnit.MILLISECONDS.toNanos(15));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsZeroCapacity() {
+        new FrameQueue<Integer>(0, FrameQueue.DropPolicy.BLOCK);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.myapplication;
+
+import org.junit.After;
+import org.junit.Test;
+import org.opencv.core.DMatch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link HammingMatcher}.
+ */
+public class HammingMatcherTest {
+
+    private static final int BYTES = 32;
+
+    // Pools created by a test, shut down after it
+    private final List<ForkJoinPool> pools = new ArrayList<>();
+
+    private ForkJoinPool newPool(int parallelism) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        pools.add(pool);
+        return pool;
+    }
+
+    @After
+    public void shutDownPools() {
+        for (ForkJoinPool pool : pools) {
+            pool.shutdownNow();
+        }
+    }
+
+    private static BinaryDescriptors randomDescriptors(int rows, Random random) {
+        byte[] data = new byte[rows * BYTES];
+        random.nextBytes(data);
+        return new BinaryDescriptors(data, rows, BYTES);
+    }
+
+    @Test
+    public void matchesNaiveSearch() {
+        Random random = new Random(11);
+        BinaryDescriptors queries = randomDescriptors(300, random);
+        BinaryDescriptors train = randomDescriptors(500, random);
+
+        int[] best = new int[300];
+        int[] bestDistances = new int[300];
+        int[] secondDistances = new int[300];
+        new HammingMatcher(newPool(4), 16).knnMatch2(queries, train, best, bestDistances, secondDistances);
+
+        for (int q = 0; q < 300; q++) {
+            int expectedBest = -1;
+            int expectedBestDistance = Integer.MAX_VALUE;
+            int expectedSecondDistance = Integer.MAX_VALUE;
+            for (int t = 0; t < 500; t++) {
+                int distance = queries.distance(q, train, t);
+                if (distance < expectedBestDistance) {
+                    expectedSecondDistance = expectedBestDistance;
+                    expectedBestDistance = distance;
+                    expectedBest = t;
+                } else if (distance < expectedSecondDistance) {
+                    expectedSecondDistance = distance;
+                }
+            }
+            assertEquals(expectedBest, best[q]);
+            assertEquals(expectedBestDistance, bestDistances[q]);
+            assertEquals(expectedSecondDistance, secondDistances[q]);
+        }
+    }
+
+    @Test
+    public void parallelMatchesSequential() {
+        Random random = new Random(12);
+        BinaryDescriptors queries = randomDescriptors(1000, random);
+        BinaryDescriptors train = randomDescriptors(400, random);
+
+        List<DMatch> sequential = new HammingMatcher(null, 1).match(queries, train, 0.75f);
+        List<DMatch> parallel = new HammingMatcher(newPool(4), 8).match(queries, train, 0.75f);
+
+        assertEquals(sequential.size(), parallel.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            assertEquals(sequential.get(i).queryIdx, parallel.get(i).queryIdx);
+            assertEquals(sequential.get(i).trainIdx, parallel.get(i).trainIdx);
+            assertEquals(sequential.get(i).distance, parallel.get(i).distance, 0.0f);
+        }
+    }
+
+    @Test
+    public void tiesKeepLowerTrainRow() {
+        byte[] data = new byte[3 * BYTES];
+        // Rows 1 and 2 are identical, so both are at the same distance from the query
+        data[BYTES] = 1;
+        data[2 * BYTES] = 1;
+        BinaryDescriptors train = new BinaryDescriptors(data, 3, BYTES);
+        byte[] queryData = new byte[BYTES];
+        queryData[0] = 3;
+        BinaryDescriptors query = new BinaryDescriptors(queryData, 1, BYTES);
+
+        int[] best = new int[1];
+        int[] bestDistances = new int[1];
+        int[] secondDistances = new int[1];
+        new HammingMatcher(null, 1).knnMatch2(query, train, best, bestDistances, secondDistances);
+
+        assertEquals(1, best[0]);
+        assertEquals(1, bestDistances[0]);
+        assertEquals(1, secondDistances[0]);
+    }
+
+    @Test
+    public void ratioTestRejectsSingleNeighbour() {
+        Random random = new Random(13);
+        BinaryDescriptors queries = randomDescriptors(5, random);
+        BinaryDescriptors train = randomDescriptors(1, random);
+
+        assertTrue(new HammingMatcher().match(queries, train, 0.75f).isEmpty());
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+import org.opencv.core.KeyPoint;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link KeypointSelector}.
+ */
+public class KeypointSelectorTest {
+
+    @Test
+    public void keepsStrongestPerCell() {
+        KeypointSelector selector = new KeypointSelector(2, 1, 2, 0.0f);
+        float[] xs = {10, 20, 30, 60, 70};
+        float[] ys = {10, 10, 10, 10, 10};
+        float[] responses = {0.1f, 0.5f, 0.3f, 0.2f, 0.4f};
+
+        int[] selected = selector.selectIndices(xs, ys, responses, 5, 100, 20);
+
+        // Left cell keeps indices 1 and 2, right cell keeps 4 and 3, ordered by response
+        assertArrayEquals(new int[]{1, 4, 2, 3}, selected);
+    }
+
+    @Test
+    public void selectsKeyPointIndices() {
+        KeypointSelector selector = new KeypointSelector(2, 1, 1, 0.0f);
+        KeyPoint[] keyPoints = {
+                new KeyPoint(10, 10, 7, -1, 0.2f), new KeyPoint(20, 10, 7, -1, 0.6f),
+                new KeyPoint(60, 10, 7, -1, 0.5f), new KeyPoint(70, 10, 7, -1, 0.1f)
+        };
+
+        // The indices address the detection order, so descriptor rows can be picked with them
+        assertArrayEquals(new int[]{1, 2}, selector.selectIndices(keyPoints, 100, 20));
+    }
+
+    @Test
+    public void suppressesNeighboursWithinRadius() {
+        KeypointSelector selector = new KeypointSelector(2, 1, 4, 5.0f);
+        // Index 1 is close to index 0 across the cell border and weaker
+        float[] xs = {49, 52, 80};
+        float[] ys = {10, 10, 10};
+        float[] responses = {0.9f, 0.8f, 0.1f};
+
+        int[] selected = selector.selectIndices(xs, ys, responses, 3, 100, 20);
+
+        assertArrayEquals(new int[]{0, 2}, selected);
+    }
+
+    @Test
+    public void boundsTotalCount() {
+        KeypointSelector selector = new KeypointSelector(4, 4, 3, 0.0f);
+        int count = 1000;
+        float[] xs = new float[count];
+        float[] ys = new float[count];
+        float[] responses = new float[count];
+        for (int i = 0; i < count; i++) {
+            xs[i] = (i * 37) % 400;
+            ys[i] = (i * 53) % 400;
+            responses[i] = (i * 7919) % 101;
+        }
+
+        int[] selected = selector.selectIndices(xs, ys, responses, count, 400, 400);
+
+        assertEquals(selector.getMaxKeypoints(), selected.length);
+    }
+
+    @Test
+    public void clampsPointsOnImageBorder() {
+        KeypointSelector selector = new KeypointSelector(2, 2, 1, 0.0f);
+        float[] xs = {100, 0};
+        float[] ys = {100, 0};
+        float[] responses = {1.0f, 1.0f};
+
+        int[] selected = selector.selectIndices(xs, ys, responses, 2, 100, 100);
+
+        assertArrayEquals(new int[]{0, 1}, selected);
+    }
+}
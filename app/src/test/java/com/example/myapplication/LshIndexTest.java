@@ -0,0 +1,98 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link LshIndex} and {@link BinaryDescriptors}.
+ */
+public class LshIndexTest {
+
+    private static final int BYTES = 61;
+
+    private static byte[] randomDescriptors(int rows, Random random) {
+        byte[] data = new byte[rows * BYTES];
+        random.nextBytes(data);
+        return data;
+    }
+
+    @Test
+    public void packedDistanceMatchesByteDistance() {
+        Random random = new Random(1);
+        byte[] data = randomDescriptors(2, random);
+        BinaryDescriptors descriptors = new BinaryDescriptors(data, 2, BYTES);
+
+        int expected = 0;
+        for (int b = 0; b < BYTES; b++) {
+            expected += Integer.bitCount((data[b] ^ data[BYTES + b]) & 0xFF);
+        }
+
+        assertEquals(8, descriptors.getWordsPerRow());
+        assertEquals(expected, descriptors.distance(0, descriptors, 1));
+        assertEquals(0, descriptors.distance(1, descriptors, 1));
+    }
+
+    @Test
+    public void findsPerturbedDescriptors() {
+        Random random = new Random(2);
+        int rows = 2000;
+        byte[] data = randomDescriptors(rows, random);
+        BinaryDescriptors database = new BinaryDescriptors(data, rows, BYTES);
+
+        // Queries are database rows with a few flipped bits
+        int queryCount = 200;
+        byte[] queryData = new byte[queryCount * BYTES];
+        int[] expectedRows = new int[queryCount];
+        for (int q = 0; q < queryCount; q++) {
+            expectedRows[q] = random.nextInt(rows);
+            System.arraycopy(data, expectedRows[q] * BYTES, queryData, q * BYTES, BYTES);
+            for (int f = 0; f < 8; f++) {
+                int bit = random.nextInt(BYTES * 8);
+                queryData[q * BYTES + bit / 8] ^= (byte) (1 << (bit % 8));
+            }
+        }
+        BinaryDescriptors queries = new BinaryDescriptors(queryData, queryCount, BYTES);
+
+        LshIndex index = new LshIndex(6, 14, true, 7L);
+        index.build(database);
+        int[] best = new int[queryCount];
+        int[] bestDistances = new int[queryCount];
+        int[] secondDistances = new int[queryCount];
+        index.knnMatch2(queries, best, bestDistances, secondDistances);
+
+        int found = 0;
+        for (int q = 0; q < queryCount; q++) {
+            if (best[q] == expectedRows[q]) {
+                found++;
+                assertEquals(queries.distance(q, database, best[q]), bestDistances[q]);
+            }
+            assertTrue(secondDistances[q] < 0 || secondDistances[q] >= bestDistances[q]);
+        }
+        assertTrue("Recall too low: " + found, found >= queryCount * 95 / 100);
+    }
+
+    @Test
+    public void reportsMissingNeighbours() {
+        byte[] data = new byte[BYTES];
+        BinaryDescriptors database = new BinaryDescriptors(data, 1, BYTES);
+        LshIndex index = new LshIndex(1, 8, false, 3L);
+        index.build(database);
+
+        int[] best = new int[1];
+        int[] bestDistances = new int[1];
+        int[] secondDistances = new int[1];
+        index.knnMatch2(database, best, bestDistances, secondDistances);
+
+        assertEquals(0, best[0]);
+        assertEquals(0, bestDistances[0]);
+        assertEquals(-1, secondDistances[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsOversizedKeys() {
+        new LshIndex(4, LshIndex.MAX_KEY_SIZE + 1, true, 0L);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+import org.opencv.core.DMatch;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link MatchBuffer}.
+ */
+public class MatchBufferTest {
+
+    @Test
+    public void growsAndKeepsPairs() {
+        MatchBuffer buffer = new MatchBuffer(2);
+        for (int i = 0; i < 100; i++) {
+            buffer.add(i, 1000 + i, i * 0.5f);
+        }
+
+        assertEquals(100, buffer.size());
+        assertEquals(42, buffer.getQueryIndex(42));
+        assertEquals(1042, buffer.getTrainIndex(42));
+        assertEquals(21.0f, buffer.getDistance(42), 0.0f);
+    }
+
+    @Test
+    public void clearKeepsStorageReusable() {
+        MatchBuffer buffer = new MatchBuffer(4);
+        buffer.add(1, 2, 3.0f);
+        buffer.clear();
+        buffer.add(7, 8, 9.0f);
+
+        List<DMatch> matches = buffer.toList();
+        assertEquals(1, matches.size());
+        assertEquals(7, matches.get(0).queryIdx);
+        assertEquals(8, matches.get(0).trainIdx);
+        assertEquals(9.0f, matches.get(0).distance, 0.0f);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+import org.opencv.core.DMatch;
+import org.opencv.core.KeyPoint;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link MatchOverlayData}.
+ */
+public class MatchOverlayDataTest {
+
+    private static KeyPoint[] keypoints(int count) {
+        KeyPoint[] keypoints = new KeyPoint[count];
+        for (int i = 0; i < count; i++) {
+            keypoints[i] = new KeyPoint(10.0f * i, 20.0f * i, 7.0f);
+        }
+        return keypoints;
+    }
+
+    private static DMatch match(int viewKeypoint, int cameraKeypoint) {
+        return new DMatch(viewKeypoint, cameraKeypoint, 0, 10.0f);
+    }
+
+    @Test
+    public void oneInstancePerMatchedKeypoint() {
+        List<DMatch> matches = Arrays.asList(match(0, 1), match(1, 3), match(2, 4));
+        List<ViewMatcher.ViewResult> results = Collections.singletonList(
+                new ViewMatcher.ViewResult(2, matches, Collections.singletonList(matches.get(1))));
+
+        MatchOverlayData data = MatchOverlayData.of(keypoints(5), results);
+
+        assertEquals(3, data.getCount());
+        assertEquals(1, data.getInlierCount());
+        float[] instances = data.getInstances();
+        assertEquals(3 * MatchOverlayData.FLOATS_PER_INSTANCE, instances.length);
+
+        // Instances follow the camera keypoint order with image positions
+        assertEquals(10.0f, instances[0], 0.0f);
+        assertEquals(20.0f, instances[1], 0.0f);
+        assertEquals(30.0f, instances[MatchOverlayData.FLOATS_PER_INSTANCE], 0.0f);
+        assertEquals(60.0f, instances[MatchOverlayData.FLOATS_PER_INSTANCE + 1], 0.0f);
+
+        // Only keypoint 3 is an inlier and drawn opaque
+        assertEquals(MatchOverlayData.OUTLIER_ALPHA, instances[5], 0.0f);
+        assertEquals(1.0f, instances[MatchOverlayData.FLOATS_PER_INSTANCE + 5], 0.0f);
+        assertEquals(MatchOverlayData.OUTLIER_ALPHA, instances[2 * MatchOverlayData.FLOATS_PER_INSTANCE + 5], 0.0f);
+    }
+
+    @Test
+    public void inlierViewWinsOverEarlierOutlierView() {
+        DMatch outlier = match(0, 2);
+        DMatch inlier = match(5, 2);
+        List<ViewMatcher.ViewResult> results = Arrays.asList(
+                new ViewMatcher.ViewResult(0, Collections.singletonList(outlier), Collections.<DMatch>emptyList()),
+                new ViewMatcher.ViewResult(3, Collections.singletonList(inlier), Collections.singletonList(inlier)));
+
+        MatchOverlayData data = MatchOverlayData.of(keypoints(3), results);
+
+        assertEquals(1, data.getCount());
+        assertEquals(1, data.getInlierCount());
+        float[] expected = new float[4];
+        MatchOverlayData.viewColor(3, true, expected, 0);
+        float[] instances = data.getInstances();
+        for (int i = 0; i < 4; i++) {
+            assertEquals(expected[i], instances[2 + i], 0.0f);
+        }
+    }
+
+    @Test
+    public void coloursSeparateViewsAndStates() {
+        float[] view0 = new float[4];
+        float[] view1 = new float[4];
+        float[] view0Outlier = new float[4];
+        MatchOverlayData.viewColor(0, true, view0, 0);
+        MatchOverlayData.viewColor(1, true, view1, 0);
+        MatchOverlayData.viewColor(0, false, view0Outlier, 0);
+
+        assertFalse(Arrays.equals(view0, view1));
+        assertFalse(Arrays.equals(view0, view0Outlier));
+        for (float[] colour : new float[][]{view0, view1, view0Outlier}) {
+            for (float channel : colour) {
+                assertTrue(channel >= 0.0f && channel <= 1.0f);
+            }
+        }
+    }
+
+    @Test
+    public void emptyResultsGiveNoInstances() {
+        MatchOverlayData data = MatchOverlayData.of(keypoints(4), Collections.<ViewMatcher.ViewResult>emptyList());
+
+        assertEquals(0, data.getCount());
+        assertEquals(0, data.getInstances().length);
+    }
+}
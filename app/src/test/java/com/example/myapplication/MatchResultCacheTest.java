@@ -0,0 +1,97 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link MatchResultCache}.
+ */
+public class MatchResultCacheTest {
+
+    private static final float[] ORIGIN = {0.105f, 0.0f, 0.0f};
+    private static final float[] IDENTITY = {0, 0, 0, 1};
+
+    private static MatchResultCache trackingCache() {
+        MatchResultCache cache = new MatchResultCache(0.01f, (float) Math.toRadians(1.0), 6, 4);
+        cache.updateTrackingState(true);
+        return cache;
+    }
+
+    @Test
+    public void hitsWithinTolerances() {
+        MatchResultCache cache = trackingCache();
+        cache.put(ORIGIN, IDENTITY, 0x0F0FL, 42.0);
+
+        // 1 mm and 0.2 degrees away, two signature bits differ
+        float half = (float) Math.toRadians(0.1);
+        float[] rotation = {0, (float) Math.sin(half), 0, (float) Math.cos(half)};
+        double result = cache.get(new float[]{0.106f, 0.0f, 0.0f}, rotation, 0x0F0CL);
+
+        assertEquals(42.0, result, 0.0);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+    }
+
+    @Test
+    public void missesWhenImageChanged() {
+        MatchResultCache cache = trackingCache();
+        cache.put(ORIGIN, IDENTITY, 0L, 42.0);
+
+        assertTrue(Double.isNaN(cache.get(ORIGIN, IDENTITY, 0xFFL)));
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void missesWhenCameraMoved() {
+        MatchResultCache cache = trackingCache();
+        cache.put(ORIGIN, IDENTITY, 0L, 42.0);
+
+        assertTrue(Double.isNaN(cache.get(new float[]{0.2f, 0.0f, 0.0f}, IDENTITY, 0L)));
+    }
+
+    @Test
+    public void trackingChangeExpiresEntries() {
+        MatchResultCache cache = trackingCache();
+        cache.put(ORIGIN, IDENTITY, 0L, 42.0);
+
+        cache.updateTrackingState(false);
+        cache.updateTrackingState(true);
+
+        assertEquals(0, cache.size());
+        assertTrue(Double.isNaN(cache.get(ORIGIN, IDENTITY, 0L)));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        MatchResultCache cache = trackingCache();
+        for (int i = 0; i < 5; i++) {
+            cache.put(new float[]{i, 0, 0}, IDENTITY, 0L, i);
+        }
+
+        assertEquals(4, cache.size());
+        assertTrue(Double.isNaN(cache.get(new float[]{0, 0, 0}, IDENTITY, 0L)));
+        assertEquals(4.0, cache.get(new float[]{4, 0, 0}, IDENTITY, 0L), 0.0);
+    }
+
+    @Test
+    public void signatureMarksBrightCells() {
+        // Left half dark, right half bright, with row padding
+        int width = 64;
+        int height = 32;
+        int rowStride = 80;
+        ByteBuffer plane = ByteBuffer.allocate(rowStride * height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                plane.put(y * rowStride + x, (byte) (x < width / 2 ? 20 : 200));
+            }
+        }
+
+        long signature = MatchResultCache.imageSignature(plane, width, height, rowStride);
+
+        assertEquals(0xF0F0F0F0F0F0F0F0L, signature);
+        assertEquals(0, plane.position());
+    }
+}
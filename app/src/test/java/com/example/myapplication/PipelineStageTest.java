@@ -0,0 +1,80 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link PipelineStage}.
+ */
+public class PipelineStageTest {
+
+    @Test
+    public void processesAndForwardsInOrder() throws InterruptedException {
+        FrameQueue<Integer> input = new FrameQueue<>(4, FrameQueue.DropPolicy.BLOCK);
+        FrameQueue<Integer> output = new FrameQueue<>(8, FrameQueue.DropPolicy.BLOCK);
+        List<Integer> recycled = Collections.synchronizedList(new ArrayList<>());
+        PipelineStage<Integer> stage = new PipelineStage<>("double", input, output, item -> item * 2, recycled::add);
+        stage.start();
+
+        for (int i = 1; i <= 6; i++) {
+            input.offer(i);
+        }
+        stage.stop(TimeUnit.SECONDS.toMillis(5));
+
+        for (int i = 1; i <= 6; i++) {
+            assertEquals(Integer.valueOf(i * 2), output.poll());
+        }
+        assertTrue(recycled.isEmpty());
+
+        PipelineStage.Stats stats = stage.getStats();
+        assertEquals(6, stats.processedCount);
+        assertEquals(0, stats.queueDepth);
+        assertEquals(4, stats.queueCapacity);
+        assertTrue(stats.throughput > 0.0);
+    }
+
+    @Test
+    public void recyclesConsumedAndDroppedItems() throws InterruptedException {
+        FrameQueue<Integer> input = new FrameQueue<>(8, FrameQueue.DropPolicy.BLOCK);
+        FrameQueue<Integer> output = new FrameQueue<>(1, FrameQueue.DropPolicy.DROP_OLDEST);
+        List<Integer> recycled = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(3);
+        PipelineStage<Integer> stage = new PipelineStage<>("filter", input, output, item -> {
+            done.countDown();
+            return item % 2 == 0 ? item : null;
+        }, recycled::add);
+
+        input.offer(2);
+        input.offer(3);
+        input.offer(4);
+        stage.start();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        stage.stop(TimeUnit.SECONDS.toMillis(5));
+
+        // 3 is consumed by the processor and 2 is dropped by the full output queue
+        assertEquals(Integer.valueOf(4), output.poll());
+        assertEquals(Collections.singletonList(2), recycled);
+    }
+
+    @Test
+    public void recyclesItemsRejectedByClosedOutput() throws InterruptedException {
+        FrameQueue<Integer> input = new FrameQueue<>(4, FrameQueue.DropPolicy.BLOCK);
+        FrameQueue<Integer> output = new FrameQueue<>(4, FrameQueue.DropPolicy.BLOCK);
+        output.close();
+        List<Integer> recycled = Collections.synchronizedList(new ArrayList<>());
+        PipelineStage<Integer> stage = new PipelineStage<>("closed", input, output, item -> item, recycled::add);
+        stage.start();
+
+        input.offer(7);
+        stage.stop(TimeUnit.SECONDS.toMillis(5));
+
+        assertEquals(Collections.singletonList(7), recycled);
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.myapplication;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link RansacEstimator} and its models.
+ */
+public class RansacEstimatorTest {
+
+    private static final double[] HOMOGRAPHY = {1.1, 0.05, 12.0, -0.03, 0.95, -7.0, 1e-4, -5e-5, 1.0};
+
+    // Pools created by a test, shut down after it
+    private final List<ForkJoinPool> pools = new ArrayList<>();
+
+    private ForkJoinPool newPool(int parallelism) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        pools.add(pool);
+        return pool;
+    }
+
+    @After
+    public void shutDownPools() {
+        for (ForkJoinPool pool : pools) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Builds homography correspondences; the first {@code inliers} follow {@link #HOMOGRAPHY} with
+     * small noise and the rest are random. Qualities are low for inliers, as good matches usually are.
+     */
+    private static float[] homographyData(int count, int inliers, Random random, float[] qualities) {
+        float[] data = new float[count * 4];
+        for (int i = 0; i < count; i++) {
+            double x = random.nextDouble() * 640;
+            double y = random.nextDouble() * 480;
+            double w = HOMOGRAPHY[6] * x + HOMOGRAPHY[7] * y + HOMOGRAPHY[8];
+            double u = (HOMOGRAPHY[0] * x + HOMOGRAPHY[1] * y + HOMOGRAPHY[2]) / w;
+            double v = (HOMOGRAPHY[3] * x + HOMOGRAPHY[4] * y + HOMOGRAPHY[5]) / w;
+            boolean inlier = i < inliers;
+            data[4 * i] = (float) x;
+            data[4 * i + 1] = (float) y;
+            data[4 * i + 2] = (float) (inlier ? u + random.nextGaussian() * 0.5 : random.nextDouble() * 640);
+            data[4 * i + 3] = (float) (inlier ? v + random.nextGaussian() * 0.5 : random.nextDouble() * 480);
+            if (qualities != null) {
+                qualities[i] = (float) ((inlier ? 20 : 45) + random.nextDouble() * 30);
+            }
+        }
+        return data;
+    }
+
+    @Test
+    public void homographyFitRecoversExactModel() {
+        Random random = new Random(31);
+        float[] data = new float[40];
+        for (int i = 0; i < 10; i++) {
+            double x = random.nextDouble() * 640;
+            double y = random.nextDouble() * 480;
+            double w = HOMOGRAPHY[6] * x + HOMOGRAPHY[7] * y + HOMOGRAPHY[8];
+            data[4 * i] = (float) x;
+            data[4 * i + 1] = (float) y;
+            data[4 * i + 2] = (float) ((HOMOGRAPHY[0] * x + HOMOGRAPHY[1] * y + HOMOGRAPHY[2]) / w);
+            data[4 * i + 3] = (float) ((HOMOGRAPHY[3] * x + HOMOGRAPHY[4] * y + HOMOGRAPHY[5]) / w);
+        }
+        int[] indices = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9};
+        double[] model = new double[9];
+        HomographyModel homography = new HomographyModel();
+
+        assertTrue(homography.fit(data, indices, 10, model, 0));
+        for (int i = 0; i < 9; i++) {
+            assertEquals(HOMOGRAPHY[i], model[i], Math.abs(HOMOGRAPHY[i]) * 1e-3 + 1e-6);
+        }
+        for (int i = 0; i < 10; i++) {
+            assertTrue(homography.squaredError(data, i, model, 0) < 1e-4);
+        }
+    }
+
+    @Test
+    public void findsHomographyInliersWithOutliers() {
+        Random random = new Random(32);
+        float[] data = homographyData(300, 150, random, null);
+        RansacEstimator estimator = new RansacEstimator(new HomographyModel(), 3.0, 0.995, 2000, newPool(4), 1L);
+
+        RansacEstimator.Result result = estimator.estimate(data, 300, null);
+
+        assertNotNull(result);
+        int correct = 0;
+        for (int i = 0; i < 150; i++) {
+            if (result.inlierMask[i]) {
+                correct++;
+            }
+        }
+        assertTrue("Inliers found: " + correct, correct >= 140);
+        assertTrue(result.inlierCount <= 160);
+        assertTrue(result.iterations < 2000);
+    }
+
+    @Test
+    public void parallelScoringMatchesSequential() {
+        // Enough correspondences that a batch is split into several scoring stripes
+        Random random = new Random(33);
+        float[] data = homographyData(2000, 800, random, null);
+        RansacEstimator sequential = new RansacEstimator(new HomographyModel(), 3.0, 0.995, 2000, null, 7L);
+        RansacEstimator parallel = new RansacEstimator(new HomographyModel(), 3.0, 0.995, 2000, newPool(3), 7L);
+
+        RansacEstimator.Result first = sequential.estimate(data, 2000, null);
+        RansacEstimator.Result second = parallel.estimate(data, 2000, null);
+
+        assertEquals(first.iterations, second.iterations);
+        assertEquals(first.inlierCount, second.inlierCount);
+        assertArrayEquals(first.model, second.model, 0.0);
+    }
+
+    @Test
+    public void prosacNeedsFewerIterations() {
+        Random random = new Random(34);
+        float[] qualities = new float[400];
+        float[] data = homographyData(400, 100, random, qualities);
+        RansacEstimator estimator = new RansacEstimator(new HomographyModel(), 3.0, 0.995, 5000, null, 3L);
+
+        RansacEstimator.Result uniform = estimator.estimate(data, 400, null);
+        RansacEstimator.Result prosac = estimator.estimate(data, 400, qualities);
+
+        assertNotNull(uniform);
+        assertNotNull(prosac);
+        assertTrue(prosac.inlierCount >= 90);
+        assertTrue("PROSAC " + prosac.iterations + " vs RANSAC " + uniform.iterations,
+                prosac.iterations < uniform.iterations);
+    }
+
+    @Test
+    public void adaptiveIterationsFollowInlierRatio() {
+        RansacEstimator estimator = new RansacEstimator(new HomographyModel(), 3.0, 0.99, 10000, null, 0L);
+
+        // log(0.01) / log(1 - 0.5^4) = 71.4
+        assertEquals(72, estimator.adaptiveIterations(0.5, 4));
+        assertEquals(1, estimator.adaptiveIterations(1.0, 4));
+        assertEquals(10000, estimator.adaptiveIterations(0.0, 4));
+    }
+
+    @Test
+    public void pnpRecoversPose() {
+        Random random = new Random(35);
+        double angle = 0.3;
+        double[] rotation = {Math.cos(angle), 0, Math.sin(angle), 0, 1, 0, -Math.sin(angle), 0, Math.cos(angle)};
+        double[] translation = {0.05, -0.02, 0.6};
+        double fx = 500;
+        double fy = 500;
+        double cx = 320;
+        double cy = 240;
+
+        int count = 120;
+        float[] data = new float[count * 5];
+        for (int i = 0; i < count; i++) {
+            double x = random.nextDouble() * 0.2 - 0.1;
+            double y = random.nextDouble() * 0.2 - 0.1;
+            double z = random.nextDouble() * 0.1 - 0.05;
+            double camX = rotation[0] * x + rotation[1] * y + rotation[2] * z + translation[0];
+            double camY = rotation[3] * x + rotation[4] * y + rotation[5] * z + translation[1];
+            double camZ = rotation[6] * x + rotation[7] * y + rotation[8] * z + translation[2];
+            boolean inlier = i < 90;
+            data[5 * i] = (float) (inlier ? fx * camX / camZ + cx + random.nextGaussian() * 0.3 : random.nextDouble() * 640);
+            data[5 * i + 1] = (float) (inlier ? fy * camY / camZ + cy + random.nextGaussian() * 0.3 : random.nextDouble() * 480);
+            data[5 * i + 2] = (float) x;
+            data[5 * i + 3] = (float) y;
+            data[5 * i + 4] = (float) z;
+        }
+
+        RansacEstimator estimator = new RansacEstimator(new PnpModel(fx, fy, cx, cy), 2.0, 0.995, 2000, null, 5L);
+        RansacEstimator.Result result = estimator.estimate(data, count, null);
+
+        assertNotNull(result);
+        assertTrue("Inliers: " + result.inlierCount, result.inlierCount >= 85);
+        for (int i = 0; i < 9; i++) {
+            assertEquals(rotation[i], result.model[i], 0.02);
+        }
+        for (int i = 0; i < 3; i++) {
+            assertEquals(translation[i], result.model[9 + i], 0.01);
+        }
+    }
+
+    @Test
+    public void essentialModelSeparatesOutliers() {
+        Random random = new Random(36);
+        double angle = 0.1;
+        double[] rotation = {Math.cos(angle), 0, Math.sin(angle), 0, 1, 0, -Math.sin(angle), 0, Math.cos(angle)};
+        double[] translation = {0.2, 0.01, 0.02};
+        double f = 500;
+        double cx = 320;
+        double cy = 240;
+
+        int count = 150;
+        float[] data = new float[count * 4];
+        for (int i = 0; i < count; i++) {
+            double x = random.nextDouble() * 2 - 1;
+            double y = random.nextDouble() * 1.5 - 0.75;
+            double z = 3 + random.nextDouble() * 2;
+            double x2 = rotation[0] * x + rotation[1] * y + rotation[2] * z + translation[0];
+            double y2 = rotation[3] * x + rotation[4] * y + rotation[5] * z + translation[1];
+            double z2 = rotation[6] * x + rotation[7] * y + rotation[8] * z + translation[2];
+            boolean inlier = i < 100;
+            data[4 * i] = (float) (f * x / z + cx);
+            data[4 * i + 1] = (float) (f * y / z + cy);
+            data[4 * i + 2] = (float) (inlier ? f * x2 / z2 + cx : random.nextDouble() * 640);
+            data[4 * i + 3] = (float) (inlier ? f * y2 / z2 + cy : random.nextDouble() * 480);
+        }
+
+        RansacEstimator estimator = new RansacEstimator(new EssentialModel(f, f, cx, cy), 1.0, 0.995, 3000, null, 9L);
+        RansacEstimator.Result result = estimator.estimate(data, count, null);
+
+        assertNotNull(result);
+        int correct = 0;
+        for (int i = 0; i < 100; i++) {
+            if (result.inlierMask[i]) {
+                correct++;
+            }
+        }
+        assertTrue("Inliers found: " + correct, correct >= 95);
+        assertTrue("Inlier count: " + result.inlierCount, result.inlierCount <= 110);
+    }
+}
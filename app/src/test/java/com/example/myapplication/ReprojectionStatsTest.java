@@ -0,0 +1,40 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link ReprojectionStats}.
+ */
+public class ReprojectionStatsTest {
+
+    @Test
+    public void summarisesErrors() {
+        double[] errors = {3.0, 1.0, 4.0, 2.0, 99.0};
+
+        ReprojectionStats stats = ReprojectionStats.of(errors, 4);
+
+        assertEquals(4, stats.count);
+        assertEquals(2.5, stats.mean, 1e-9);
+        assertEquals(2.5, stats.median, 1e-9);
+        assertEquals(Math.sqrt(7.5), stats.rms, 1e-9);
+        assertEquals(4.0, stats.max, 1e-9);
+        assertEquals(3.0, errors[0], 0.0);
+    }
+
+    @Test
+    public void oddCountUsesMiddleError() {
+        ReprojectionStats stats = ReprojectionStats.of(new double[]{5.0, 1.0, 2.0}, 3);
+
+        assertEquals(2.0, stats.median, 1e-9);
+    }
+
+    @Test
+    public void emptyIsZero() {
+        ReprojectionStats stats = ReprojectionStats.of(new double[0], 0);
+
+        assertEquals(0, stats.count);
+        assertEquals(0.0, stats.rms, 0.0);
+    }
+}
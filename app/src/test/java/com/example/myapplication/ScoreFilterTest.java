@@ -0,0 +1,64 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link ScoreFilter}.
+ */
+public class ScoreFilterTest {
+
+    private static final long SECOND = 1000000000L;
+
+    @Test
+    public void firstMeasurementIsTheEstimate() {
+        ScoreFilter filter = new ScoreFilter();
+
+        assertTrue(Double.isNaN(filter.getEstimate()));
+        assertEquals(40.0, filter.update(40.0, 0), 0.0);
+        assertEquals(40.0, filter.getEstimate(), 0.0);
+    }
+
+    @Test
+    public void dampsNoiseAroundSteadyScore() {
+        ScoreFilter filter = new ScoreFilter(25.0, 64.0);
+        double maxDeviation = 0.0;
+        for (int i = 0; i < 40; i++) {
+            double measurement = 50.0 + (i % 2 == 0 ? 10.0 : -10.0);
+            double estimate = filter.update(measurement, i * SECOND / 4);
+            if (i >= 10) {
+                maxDeviation = Math.max(maxDeviation, Math.abs(estimate - 50.0));
+            }
+        }
+
+        assertTrue("deviation " + maxDeviation, maxDeviation < 5.0);
+    }
+
+    @Test
+    public void longGapFollowsNewScoreFaster() {
+        ScoreFilter quick = new ScoreFilter(25.0, 64.0);
+        ScoreFilter slow = new ScoreFilter(25.0, 64.0);
+        for (int i = 0; i < 10; i++) {
+            quick.update(20.0, i * SECOND / 4);
+            slow.update(20.0, i * SECOND / 4);
+        }
+
+        double afterShortGap = quick.update(80.0, 9 * SECOND / 4 + SECOND / 4);
+        double afterLongGap = slow.update(80.0, 9 * SECOND / 4 + 10 * SECOND);
+
+        assertTrue(afterLongGap > afterShortGap);
+        assertTrue(afterShortGap > 20.0 && afterLongGap < 80.0);
+    }
+
+    @Test
+    public void resetForgetsHistory() {
+        ScoreFilter filter = new ScoreFilter();
+        filter.update(10.0, 0);
+        filter.update(12.0, SECOND);
+
+        filter.reset();
+
+        assertEquals(90.0, filter.update(90.0, 2 * SECOND), 0.0);
+    }
+}
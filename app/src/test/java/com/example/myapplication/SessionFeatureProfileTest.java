@@ -0,0 +1,58 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link SessionFeatureProfile}.
+ */
+public class SessionFeatureProfileTest {
+
+    @Test
+    public void featuresAreDisabledWithoutConsumers() {
+        SessionFeatureProfile profile = new SessionFeatureProfile();
+
+        assertTrue(profile.getEnabledFeatures().isEmpty());
+        assertFalse(profile.isEnabled(SessionFeatureProfile.Feature.DEPTH));
+    }
+
+    @Test
+    public void featureStaysEnabledUntilLastConsumerLeaves() {
+        SessionFeatureProfile profile = new SessionFeatureProfile();
+
+        assertTrue(profile.register(SessionFeatureProfile.Feature.DEPTH, "occlusion"));
+        assertFalse(profile.register(SessionFeatureProfile.Feature.DEPTH, "scale"));
+        assertFalse(profile.register(SessionFeatureProfile.Feature.DEPTH, "scale"));
+        assertEquals(EnumSet.of(SessionFeatureProfile.Feature.DEPTH), profile.getEnabledFeatures());
+
+        assertFalse(profile.unregister(SessionFeatureProfile.Feature.DEPTH, "occlusion"));
+        assertTrue(profile.isEnabled(SessionFeatureProfile.Feature.DEPTH));
+        assertTrue(profile.unregister(SessionFeatureProfile.Feature.DEPTH, "scale"));
+        assertFalse(profile.isEnabled(SessionFeatureProfile.Feature.DEPTH));
+        assertFalse(profile.unregister(SessionFeatureProfile.Feature.DEPTH, "scale"));
+    }
+
+    @Test
+    public void recordsUpdateTimesPerProfile() {
+        SessionFeatureProfile profile = new SessionFeatureProfile();
+        profile.recordUpdate(profile.getEnabledFeatures(), 2000000L);
+        profile.recordUpdate(profile.getEnabledFeatures(), 4000000L);
+        profile.register(SessionFeatureProfile.Feature.HDR_LIGHTING, "shading");
+        profile.recordUpdate(profile.getEnabledFeatures(), 9000000L);
+
+        List<SessionFeatureProfile.UpdateStats> stats = profile.getUpdateStats();
+        assertEquals(2, stats.size());
+        assertTrue(stats.get(0).features.isEmpty());
+        assertEquals(2, stats.get(0).frameCount);
+        assertEquals(3.0, stats.get(0).meanMs, 1e-9);
+        assertEquals(4.0, stats.get(0).maxMs, 1e-9);
+        Set<SessionFeatureProfile.Feature> lit = EnumSet.of(SessionFeatureProfile.Feature.HDR_LIGHTING);
+        assertEquals(lit, stats.get(1).features);
+        assertEquals(9.0, stats.get(1).meanMs, 1e-9);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link ThermalProfile}.
+ */
+public class ThermalProfileTest {
+
+    // PowerManager.THERMAL_STATUS_* values
+    private static final int NONE = 0;
+    private static final int MODERATE = 2;
+    private static final int SEVERE = 3;
+    private static final int EMERGENCY = 5;
+
+    @Test
+    public void mapsThermalStatus() {
+        assertEquals(ThermalProfile.NOMINAL, ThermalProfile.select(ThermalProfile.NOMINAL, NONE, Float.NaN));
+        assertEquals(ThermalProfile.MODERATE, ThermalProfile.select(ThermalProfile.NOMINAL, MODERATE, Float.NaN));
+        assertEquals(ThermalProfile.SEVERE, ThermalProfile.select(ThermalProfile.NOMINAL, SEVERE, Float.NaN));
+        assertEquals(ThermalProfile.CRITICAL, ThermalProfile.select(ThermalProfile.NOMINAL, EMERGENCY, Float.NaN));
+    }
+
+    @Test
+    public void headroomRaisesProfileBeforeStatus() {
+        assertEquals(ThermalProfile.NOMINAL, ThermalProfile.select(ThermalProfile.NOMINAL, NONE, 0.5f));
+        assertEquals(ThermalProfile.LIGHT, ThermalProfile.select(ThermalProfile.NOMINAL, NONE, 0.75f));
+        assertEquals(ThermalProfile.MODERATE, ThermalProfile.select(ThermalProfile.NOMINAL, NONE, 0.9f));
+        assertEquals(ThermalProfile.SEVERE, ThermalProfile.select(ThermalProfile.NOMINAL, NONE, 1.1f));
+
+        // The more severe of status and headroom wins
+        assertEquals(ThermalProfile.SEVERE, ThermalProfile.select(ThermalProfile.NOMINAL, SEVERE, 0.75f));
+    }
+
+    @Test
+    public void headroomHysteresisHoldsProfile() {
+        // Just below the entry threshold keeps the current profile
+        assertEquals(ThermalProfile.MODERATE, ThermalProfile.select(ThermalProfile.MODERATE, NONE, 0.82f));
+        assertEquals(ThermalProfile.LIGHT, ThermalProfile.select(ThermalProfile.LIGHT, NONE, 0.82f));
+
+        // Clearly below it the profile is left
+        assertEquals(ThermalProfile.LIGHT, ThermalProfile.select(ThermalProfile.MODERATE, NONE, 0.78f));
+        assertEquals(ThermalProfile.NOMINAL, ThermalProfile.select(ThermalProfile.LIGHT, NONE, 0.6f));
+    }
+
+    @Test
+    public void limitsMatchedViews() {
+        assertEquals(0, ThermalProfile.NOMINAL.limitViews(0));
+        assertEquals(12, ThermalProfile.NOMINAL.limitViews(12));
+        assertEquals(4, ThermalProfile.MODERATE.limitViews(0));
+        assertEquals(4, ThermalProfile.MODERATE.limitViews(12));
+        assertEquals(3, ThermalProfile.MODERATE.limitViews(3));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link ViewGeometry}.
+ */
+public class ViewGeometryTest {
+
+    // Column-major inverse transform scaling by (2, 3, 4) and translating by (1, 2, 3)
+    private static final float[] INVERSE_MVP = {
+            2, 0, 0, 0,
+            0, 3, 0, 0,
+            0, 0, 4, 0,
+            1, 2, 3, 1
+    };
+
+    private static short[] background(int size) {
+        short[] depth = new short[size];
+        Arrays.fill(depth, (short) ViewGeometry.NO_DEPTH);
+        return depth;
+    }
+
+    @Test
+    public void unprojectsPixelThroughInverseTransform() {
+        short[] depth = background(16);
+        depth[1] = (short) 32767; // row 0, column 1, window depth 0.5
+        ViewGeometry geometry = new ViewGeometry(4, 4, depth, INVERSE_MVP);
+
+        float[] point = new float[3];
+        assertTrue(geometry.unproject(1, 0, point));
+
+        // NDC (-0.25, 0.75, 0) scaled and translated
+        assertEquals(0.5f, point[0], 1e-4f);
+        assertEquals(4.25f, point[1], 1e-4f);
+        assertEquals(3.0f, point[2], 1e-4f);
+    }
+
+    @Test
+    public void backgroundHasNoPoint() {
+        ViewGeometry geometry = new ViewGeometry(4, 4, background(16), INVERSE_MVP);
+
+        assertFalse(geometry.unproject(2, 2, new float[3]));
+    }
+
+    @Test
+    public void silhouetteTakesNearestSurface() {
+        short[] depth = background(16);
+        depth[4 + 1] = (short) 40000;
+        depth[4 + 3] = (short) 20000;
+        ViewGeometry geometry = new ViewGeometry(4, 4, depth, INVERSE_MVP);
+
+        float[] point = new float[3];
+        assertTrue(geometry.unproject(2, 1, point));
+
+        // Depth 20000 is closer than 40000
+        assertEquals((20000 / 65534.0f * 2.0f - 1.0f) * 4.0f + 3.0f, point[2], 1e-4f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMismatchedDepth() {
+        new ViewGeometry(4, 4, new short[15], INVERSE_MVP);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.myapplication;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link VocabularyTree}.
+ */
+public class VocabularyTreeTest {
+
+    private static final int BYTES = 32;
+    private static final int VIEWS = 20;
+    private static final int PER_VIEW = 200;
+
+    private static byte[] database(Random random) {
+        byte[] data = new byte[VIEWS * PER_VIEW * BYTES];
+        random.nextBytes(data);
+        return data;
+    }
+
+    private static int[] rowViews() {
+        int[] views = new int[VIEWS * PER_VIEW];
+        for (int row = 0; row < views.length; row++) {
+            views[row] = row / PER_VIEW;
+        }
+        return views;
+    }
+
+    /**
+     * Copies half of the descriptors of a view with a few flipped bits, mixed with random clutter.
+     */
+    private static BinaryDescriptors noisyView(byte[] data, int view, Random random) {
+        int rows = PER_VIEW;
+        byte[] query = new byte[rows * BYTES];
+        random.nextBytes(query);
+        for (int i = 0; i < rows / 2; i++) {
+            System.arraycopy(data, (view * PER_VIEW + 2 * i) * BYTES, query, i * BYTES, BYTES);
+            for (int f = 0; f < 6; f++) {
+                int bit = random.nextInt(BYTES * 8);
+                query[i * BYTES + bit / 8] ^= (byte) (1 << (bit % 8));
+            }
+        }
+        return new BinaryDescriptors(query, rows, BYTES);
+    }
+
+    @Test
+    public void retrievesSourceView() {
+        Random random = new Random(21);
+        byte[] data = database(random);
+        VocabularyTree tree = new VocabularyTree(8, 3, 10, 5L);
+        tree.train(new BinaryDescriptors(data, VIEWS * PER_VIEW, BYTES), rowViews(), VIEWS);
+
+        assertTrue(tree.getWordCount() > 8);
+        assertTrue(tree.getWordCount() <= 512);
+        for (int view = 0; view < VIEWS; view++) {
+            int[] top = tree.topViews(noisyView(data, view, random), 3);
+            assertEquals(3, top.length);
+            assertEquals(view, top[0]);
+        }
+    }
+
+    @Test
+    public void scoresAreOrderedAndBounded() {
+        Random random = new Random(22);
+        byte[] data = database(random);
+        VocabularyTree tree = new VocabularyTree(6, 2, 5, 5L);
+        tree.train(new BinaryDescriptors(data, VIEWS * PER_VIEW, BYTES), rowViews(), VIEWS);
+
+        BinaryDescriptors query = noisyView(data, 4, random);
+        float[] scores = tree.score(query).clone();
+        int[] top = tree.topViews(query, VIEWS);
+
+        for (float score : scores) {
+            assertTrue(score >= 0.0f && score <= 1.0001f);
+        }
+        for (int i = 1; i < top.length; i++) {
+            assertTrue(scores[top[i - 1]] >= scores[top[i]]);
+        }
+    }
+
+    @Test
+    public void trainingIsDeterministic() {
+        Random random = new Random(23);
+        byte[] data = database(random);
+        BinaryDescriptors descriptors = new BinaryDescriptors(data, VIEWS * PER_VIEW, BYTES);
+        VocabularyTree first = new VocabularyTree(8, 2, 10, 9L);
+        VocabularyTree second = new VocabularyTree(8, 2, 10, 9L);
+        first.train(descriptors, rowViews(), VIEWS);
+        second.train(descriptors, rowViews(), VIEWS);
+
+        for (int row = 0; row < descriptors.getRows(); row += 37) {
+            assertEquals(first.quantize(descriptors, row), second.quantize(descriptors, row));
+        }
+    }
+}